@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.Main;
+import app.owlcms.data.agegroup.AgeGroup;
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRepository;
+import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.data.athleteSort.Ranking;
+import app.owlcms.data.category.Category;
+import app.owlcms.data.category.Participation;
+import app.owlcms.data.config.Config;
+import app.owlcms.data.jpa.DemoData;
+import app.owlcms.data.jpa.JPAService;
+import app.owlcms.data.records.RecordEvent;
+import app.owlcms.data.records.RecordIndex;
+import app.owlcms.fieldofplay.FieldOfPlay;
+import app.owlcms.fieldofplay.IProxyTimer;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * A competition in progress, shared by the benchmarks.
+ *
+ * The athletes are created by {@link DemoData} in an in-memory database. All
+ * the snatches and the first clean and jerk are done, with 70% good lifts, and
+ * every category has records from two federations. The athletes are then used
+ * from memory, as a field of play does.
+ *
+ * @author Jean-François Lamy
+ */
+@State(Scope.Benchmark)
+public class CompetitionState {
+
+	/**
+	 * A timer that never runs; the field of play only needs one to exist.
+	 */
+	private static class IdleTimer implements IProxyTimer {
+		private int timeRemaining;
+
+		@Override
+		public void finalWarning(Object origin) {
+		}
+
+		@Override
+		public int getTimeRemaining() {
+			return timeRemaining;
+		}
+
+		@Override
+		public int getTimeRemainingAtLastStop() {
+			return timeRemaining;
+		}
+
+		@Override
+		public void initialWarning(Object origin) {
+		}
+
+		@Override
+		public boolean isRunning() {
+			return false;
+		}
+
+		@Override
+		public int liveTimeRemaining() {
+			return timeRemaining;
+		}
+
+		@Override
+		public void setFop(FieldOfPlay fieldOfPlay) {
+		}
+
+		@Override
+		public void setTimeRemaining(int timeRemaining, boolean indefinite) {
+			this.timeRemaining = timeRemaining;
+		}
+
+		@Override
+		public void start() {
+		}
+
+		@Override
+		public void stop() {
+		}
+
+		@Override
+		public void timeOver(Object origin) {
+		}
+	}
+
+	private static final String[] FEDERATIONS = { "IWF", "NAT" };
+
+	@Param({ "20", "200", "2000" })
+	public int nbAthletes;
+
+	private List<Athlete> athletes;
+	private FieldOfPlay fop;
+	private List<Athlete> rankedAthletes;
+
+	/**
+	 * @return the athletes, in no particular order
+	 */
+	public List<Athlete> getAthletes() {
+		return athletes;
+	}
+
+	/**
+	 * @return a field of play with all the athletes in its group
+	 */
+	public FieldOfPlay getFop() {
+		return fop;
+	}
+
+	/**
+	 * @return the athletes, with their category ranks assigned
+	 */
+	public List<Athlete> getRankedAthletes() {
+		return rankedAthletes;
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+		        .setLevel(ch.qos.logback.classic.Level.WARN);
+		Main.injectSuppliers();
+		JPAService.init(true, true);
+		Config.initConfig();
+
+		// DemoData creates more than twice the number asked for, spread over 4 groups
+		DemoData.insertInitialData(nbAthletes / 2 + 1, null);
+		athletes = JPAService.runInTransaction(em -> {
+			List<Athlete> all = AthleteRepository.doFindAll(em);
+			all.sort(Comparator.comparing(Athlete::getId));
+			List<Athlete> kept = new ArrayList<>(all.subList(0, Math.min(nbAthletes, all.size())));
+			// read what the benchmarks use while the session is open
+			for (Athlete a : kept) {
+				a.getGroup();
+				for (Participation p : a.getParticipations()) {
+					p.getCategory().getAgeGroup().getCode();
+				}
+			}
+			return kept;
+		});
+		doLifts(new Random(0));
+		insertRecords();
+
+		fop = FieldOfPlay.mockFieldOfPlay(athletes, new IdleTimer(), new IdleTimer());
+		rankedAthletes = new ArrayList<>(athletes);
+		for (Ranking r : new Ranking[] { Ranking.SNATCH, Ranking.CLEANJERK, Ranking.TOTAL }) {
+			AthleteSorter.assignCategoryRanks(rankedAthletes, r);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		JPAService.close();
+	}
+
+	private void doLifts(Random r) {
+		for (Athlete a : athletes) {
+			a.setValidation(false);
+		}
+		// 3 snatches and the first clean and jerk, in lifting order
+		for (int liftNo = 1; liftNo <= 4; liftNo++) {
+			for (Athlete a : AthleteSorter.liftingOrderCopy(athletes)) {
+				Integer weight = a.getNextAttemptRequestedWeight();
+				if (a.getAttemptsDone() >= liftNo || weight == null || weight <= 0) {
+					continue;
+				}
+				a.doLift(liftNo, Integer.toString(r.nextFloat() < 0.7 ? weight : -weight));
+			}
+		}
+	}
+
+	private void insertRecords() {
+		Map<String, Category> categories = new LinkedHashMap<>();
+		for (Athlete a : athletes) {
+			for (Participation p : a.getParticipations()) {
+				categories.putIfAbsent(p.getCategory().getCode(), p.getCategory());
+			}
+		}
+		List<RecordEvent> records = new ArrayList<>();
+		for (Category c : categories.values()) {
+			AgeGroup ag = c.getAgeGroup();
+			int upper = (int) Math.round(c.getMaximumWeight());
+			int snatch = (int) Math.round(Math.min(upper, 150) * 1.4);
+			for (String federation : FEDERATIONS) {
+				records.add(record(federation, c, ag, Ranking.SNATCH, snatch));
+				records.add(record(federation, c, ag, Ranking.CLEANJERK, snatch * 6 / 5));
+				records.add(record(federation, c, ag, Ranking.TOTAL, snatch + snatch * 6 / 5));
+			}
+		}
+		JPAService.runInTransaction(em -> {
+			records.forEach(em::persist);
+			return null;
+		});
+		RecordIndex.invalidate();
+	}
+
+	private RecordEvent record(String federation, Category c, AgeGroup ag, Ranking lift, int value) {
+		RecordEvent re = new RecordEvent();
+		re.setRecordFederation(federation);
+		re.setRecordName(federation);
+		re.setGender(c.getGender());
+		re.setAgeGrp(ag.getCode());
+		re.setAgeGrpLower(ag.getMinAge());
+		re.setAgeGrpUpper(ag.getMaxAge());
+		re.setBwCatLower((int) Math.round(c.getMinimumWeight()));
+		re.setBwCatUpper((int) Math.round(c.getMaximumWeight()));
+		re.setRecordLift(lift);
+		re.setRecordValue((double) value);
+		return re;
+	}
+
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.fieldofplay.LiftOrderReconstruction;
+
+/**
+ * Computing the lifting order, as done after every decision and weight change,
+ * and reconstructing the order of the lifts done, as done for the two-minute
+ * rule.
+ *
+ * @author Jean-François Lamy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LiftingOrderBenchmark {
+
+	@Benchmark
+	public List<Athlete> liftingOrderCopy(CompetitionState state) {
+		return AthleteSorter.liftingOrderCopy(state.getAthletes());
+	}
+
+	@Benchmark
+	public LiftOrderReconstruction liftOrderReconstruction(CompetitionState state) {
+		return new LiftOrderReconstruction(state.getFop());
+	}
+
+}
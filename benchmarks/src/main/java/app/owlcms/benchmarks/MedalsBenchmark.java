@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.benchmarks;
+
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.category.Category;
+import app.owlcms.data.competition.Competition;
+
+/**
+ * Computing the medals of every category, as done for the medals displays and
+ * documents.
+ *
+ * @author Jean-François Lamy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedalsBenchmark {
+
+	@Benchmark
+	public TreeMap<Category, TreeSet<Athlete>> computeMedalsByCategory(CompetitionState state) {
+		return Competition.getCurrent().computeMedalsByCategory(state.getRankedAthletes());
+	}
+
+}
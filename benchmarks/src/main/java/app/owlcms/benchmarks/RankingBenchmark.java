@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.data.athleteSort.Ranking;
+
+/**
+ * Sorting the results for every kind of ranking, and assigning the category
+ * ranks, as done for the scoreboards and the results documents.
+ *
+ * @author Jean-François Lamy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RankingBenchmark {
+
+	/** all the rankings */
+	@Param
+	public Ranking ranking;
+
+	@Benchmark
+	public List<Athlete> resultsOrderCopy(CompetitionState state) {
+		return AthleteSorter.resultsOrderCopy(state.getAthletes(), ranking);
+	}
+
+	@Benchmark
+	public List<Athlete> assignCategoryRanks(CompetitionState state) {
+		List<Athlete> athletes = new ArrayList<>(state.getAthletes());
+		AthleteSorter.assignCategoryRanks(athletes, ranking);
+		return athletes;
+	}
+
+}
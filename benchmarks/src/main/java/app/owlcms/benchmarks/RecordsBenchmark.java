@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.records.RecordFilter;
+
+/**
+ * Finding the records each athlete can break, as done when a group is loaded
+ * and after every lift.
+ *
+ * @author Jean-François Lamy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordsBenchmark {
+
+	@Benchmark
+	public void computeEligibleRecordsForAthlete(CompetitionState state, Blackhole bh) {
+		for (Athlete a : state.getAthletes()) {
+			bh.consume(RecordFilter.computeEligibleRecordsForAthlete(a));
+		}
+	}
+
+}
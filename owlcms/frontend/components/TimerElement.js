@@ -111,25 +111,28 @@ class TimerElement extends PolymerElement {
 		this._init();
 	}
 
-	start(seconds, indefinite, silent, element, serverMillis, from) {
+	start(seconds, indefinite, silent, element, serverMillis, from, validMillis) {
 		if (indefinite) {
 			console.warn("timer indefinite " + seconds);
 			this._indefinite()
 			return;
 		}
 
-		var lateMillis = 0;
-		if (this.isIOS()) {
-			// iPad devices can react several seconds late; catch up with time
-			// this assumes that iPad is in sync with NTP time (it should)
-			var localMillis = Date.now();
-			lateMillis = (localMillis - parseInt(serverMillis, 10));
-			if (lateMillis < 0) {
-				lateMillis = 0;
-			}
+		// the server decides when the warnings and time over happen; we only catch up
+		// with the time elapsed since the time remaining was measured on the server.
+		// the offset between the clocks is estimated from the command that arrived the
+		// fastest (the smallest difference includes the least transmission delay)
+		var localMillis = Date.now();
+		var offset = localMillis - parseInt(serverMillis, 10);
+		if (this._clockOffset === undefined || offset < this._clockOffset) {
+			this._clockOffset = offset;
+		}
+		var validAt = validMillis ? parseInt(validMillis, 10) : parseInt(serverMillis, 10);
+		var lateMillis = (localMillis - this._clockOffset) - validAt;
+		if (lateMillis < 0) {
+			lateMillis = 0;
 		}
-		console.warn("timer start " + seconds + " late = " + lateMillis + "ms");
-		this.$server.clientTimerStarting(this.fopName, seconds, lateMillis, (this.isIOS() ? "iPad" : "browser") + " " + from);
+		console.warn("timer start " + seconds + " late = " + lateMillis + "ms offset = " + this._clockOffset + "ms " + from);
 
 		this._prepareAudio();
 
@@ -164,11 +167,6 @@ class TimerElement extends PolymerElement {
 		// 	lateMillis = 0;
 		// }
 		this.running = false;
-		// if (this.$server != null) {
-		this.$server.clientTimerStopped(this.fopName, this.currentTime, (this.isIOS() ? "iPad" : "browser") + " " + from);
-		// } else {
-		// 	console.warn("no server$");
-		// }
 
 		console.warn("timer pause " + seconds);
 
@@ -351,8 +349,6 @@ class TimerElement extends PolymerElement {
 				console.warn("about to play time over " + window.timeOver);
 				this._playTrack("../sounds/timeOver.mp3", window.timeOver, true, this.currentTime);
 			}
-			// tell server to emit sound if server-side sounds
-			if (this.$server != null) this.$server.clientTimeOver(this.fopName);
 			this._timeOverWarningGiven = true;
 		}
 		if (this.currentTime <= 30.05 && !this._finalWarningGiven) {
@@ -362,8 +358,6 @@ class TimerElement extends PolymerElement {
 				console.warn("about to play final warning " + window.finalWarning);
 				this._playTrack("../sounds/finalWarning.mp3", window.finalWarning, true, this.currentTime - 30);
 			}
-			// tell server to emit sound if server-side sounds
-			if (this.$server != null) this.$server.clientFinalWarning(this.fopName);
 			this._finalWarningGiven = true;
 		}
 		if (this.currentTime <= 90.05 && !this._initialWarningGiven) {
@@ -372,8 +366,6 @@ class TimerElement extends PolymerElement {
 				console.warn("about to play initial warning " + window.initialWarning);
 				this._playTrack("../sounds/initialWarning.mp3", window.initialWarning, true, this.currentTime - 90);
 			}
-			// tell server to emit sound if server-side sounds
-			if (this.$server != null) this.$server.clientInitialWarning(this.fopName);
 			this._initialWarningGiven = true;
 		}
 
@@ -383,9 +375,8 @@ class TimerElement extends PolymerElement {
 
 		if ((this.currentTime < -0.1 && !this.countUp)
 			|| (this.currentTime >= this.startTime && this.countUp)) {
-			console.warn("time over stop running " + this.$server);
-			// timer is over; tell server to emit sound if server-side sounds
-			if (this.$server != null) this.$server.clientTimeOver(this.fopName);
+			// timer is over; the server has its own schedule
+			console.warn("time over stop running");
 			this.running = false;
 			this.formatted_time = this._formatTime(0);
 			// this.dispatchEvent(new CustomEvent('timer-element-end', {bubbles:
@@ -40,6 +40,7 @@ import app.owlcms.data.jpa.JPAService;
 import app.owlcms.data.jpa.ProdData;
 import app.owlcms.data.platform.PlatformRepository;
 import app.owlcms.data.records.RecordDefinitionReader;
+import app.owlcms.fieldofplay.FieldOfPlay;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.InitialData;
 import app.owlcms.init.OwlcmsFactory;
@@ -251,7 +252,26 @@ public class Main {
 
 				PlatformRepository.checkPlatforms();
 			}
-			RecordDefinitionReader.resetRecords();
+			// the records are not needed to serve the first pages; read the changed
+			// record files while the server starts answering.
+			Thread recordsLoader = new Thread(() -> {
+				try {
+					RecordDefinitionReader.resetRecords();
+				} catch (Exception e) {
+					logger.error("could not load records {}", LoggerUtils.stackTrace(e));
+				}
+				// groups loaded in the meantime were given no records, or some of them
+				for (FieldOfPlay fop : OwlcmsFactory.getFOPs()) {
+					try {
+						fop.recordsChanged();
+					} catch (Exception e) {
+						logger.error("{}could not update records {}", fop.getLoggingName(),
+						        LoggerUtils.stackTrace(e));
+					}
+				}
+			}, "records-loader");
+			recordsLoader.setDaemon(true);
+			recordsLoader.start();
 		} finally {
 			Translator.setForcedLocale(locale);
 		}
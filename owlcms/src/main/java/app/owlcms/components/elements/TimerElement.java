@@ -161,12 +161,14 @@ public abstract class TimerElement extends PolymerTemplate<TemplateModel>
 		this.serverSound = serverSound;
 	}
 
-	private void start(Integer milliseconds, Boolean indefinite, Boolean silent, String from) {
+	private void start(Integer milliseconds, Boolean indefinite, Boolean silent, String from, long validAtMillis) {
 		Element timerElement2 = getTimerElement();
 		if (timerElement2 != null) {
 			double seconds = indefinite ? 0.0D : milliseconds / 1000.0D;
+			// the browser estimates its clock offset from the first timestamp, and
+			// catches up with the time elapsed since the second
 			timerElement2.callJsFunction("start", seconds, indefinite, silent, timerElement2,
-			        Long.toString(System.currentTimeMillis()), from);
+			        Long.toString(System.currentTimeMillis()), from, Long.toString(validAtMillis));
 		}
 	}
 
@@ -188,6 +190,18 @@ public abstract class TimerElement extends PolymerTemplate<TemplateModel>
 	}
 
 	protected void doStartTimer(Integer milliseconds, boolean serverSound) {
+		doStartTimer(milliseconds, serverSound, System.currentTimeMillis());
+	}
+
+	/**
+	 * Start the timer on the browser.
+	 *
+	 * @param milliseconds  time remaining
+	 * @param serverSound
+	 * @param validAtMillis server time at which the time remaining was measured;
+	 *                      the browser subtracts the time elapsed since.
+	 */
+	protected void doStartTimer(Integer milliseconds, boolean serverSound, long validAtMillis) {
 		setServerSound(serverSound);
 		UIEventProcessor.uiAccess(this, uiEventBus, () -> {
 			setIndefinite(milliseconds == null);
@@ -196,7 +210,7 @@ public abstract class TimerElement extends PolymerTemplate<TemplateModel>
 			lastStartMillis = System.currentTimeMillis();
 			logger.trace("server starting timer {}, {}, {}", parent, milliseconds, lastStartMillis);
 			getElement().setProperty("silent", isSilent());
-			start(milliseconds, isIndefinite(), isSilent(), parent);
+			start(milliseconds, isIndefinite(), isSilent(), parent, validAtMillis);
 		});
 	}
 
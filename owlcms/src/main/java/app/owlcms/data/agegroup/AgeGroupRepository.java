@@ -23,8 +23,10 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.LoggerFactory;
 
 import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRankWriter;
 import app.owlcms.data.athlete.AthleteRepository;
 import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.athleteSort.GlobalRankingIndex;
 import app.owlcms.data.category.AgeDivision;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.category.Participation;
@@ -382,6 +384,8 @@ public class AgeGroupRepository {
 			}
 			em.flush();
 			Competition.getCurrent().setRankingsInvalid(true);
+			GlobalRankingIndex.getCurrent().invalidate();
+			AthleteRankWriter.resetAll();
 			return null;
 		});
 		JPAService.runInTransaction(em -> {
@@ -27,6 +27,7 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
@@ -104,6 +105,7 @@ import ch.qos.logback.classic.Logger;
 //must be listed in app.owlcms.data.jpa.JPAService.entityClassNames()
 @Entity
 @Cacheable
+@EntityListeners(AthleteChangeListener.class)
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 @JsonIgnoreProperties(ignoreUnknown = true, value = { "hibernateLazyInitializer", "logger" })
 @JsonPropertyOrder({ "id", "participations", "category" })
@@ -263,11 +265,37 @@ public class Athlete {
 	 * @return the int
 	 */
 	public static int zeroIfInvalid(String value) {
-		try {
-			return Integer.valueOf(value);
-		} catch (NumberFormatException nfe) {
+		// same result as Integer.valueOf, but without the cost of an exception for
+		// empty or "-" values, which are the most frequent.
+		if (value == null || value.isEmpty()) {
 			return 0;
 		}
+		int length = value.length();
+		int i = 0;
+		boolean negative = false;
+		char first = value.charAt(0);
+		if (first == '-' || first == '+') {
+			if (length == 1) {
+				return 0;
+			}
+			negative = first == '-';
+			i = 1;
+		}
+		long result = 0;
+		for (; i < length; i++) {
+			int digit = Character.digit(value.charAt(i), 10);
+			if (digit < 0) {
+				return 0;
+			}
+			result = result * 10 + digit;
+			if (result > Integer.MAX_VALUE + 1L) {
+				return 0;
+			}
+		}
+		if (negative) {
+			return (int) -result;
+		}
+		return result > Integer.MAX_VALUE ? 0 : (int) result;
 	}
 
 	/**
@@ -291,6 +319,9 @@ public class Athlete {
 	@Transient
 	Integer liftOrderRank = 0;
 
+	@Transient
+	private LiftResults liftResults;
+
 	private Double bodyWeight = null;
 
 	/*
@@ -709,26 +740,7 @@ public class Athlete {
 	@Transient
 	@JsonIgnore
 	public int getActuallyAttemptedLifts() {
-		int i = 0;
-		if (zeroIfInvalid(snatch1ActualLift) != 0) {
-			i++;
-		}
-		if (zeroIfInvalid(snatch2ActualLift) != 0) {
-			i++;
-		}
-		if (zeroIfInvalid(snatch3ActualLift) != 0) {
-			i++;
-		}
-		if (zeroIfInvalid(cleanJerk1ActualLift) != 0) {
-			i++;
-		}
-		if (zeroIfInvalid(cleanJerk2ActualLift) != 0) {
-			i++;
-		}
-		if (zeroIfInvalid(cleanJerk3ActualLift) != 0) {
-			i++;
-		}
-		return i; // long ago
+		return getLiftResults().getActuallyAttemptedLifts();
 	}
 
 	/**
@@ -846,10 +858,7 @@ public class Athlete {
 	@Transient
 	@JsonIgnore
 	public Integer getBestCleanJerk() {
-		final int cj1 = zeroIfInvalid(cleanJerk1ActualLift);
-		final int cj2 = zeroIfInvalid(cleanJerk2ActualLift);
-		final int cj3 = zeroIfInvalid(cleanJerk3ActualLift);
-		return max(0, cj1, cj2, cj3);
+		return getLiftResults().getBestCleanJerk();
 	}
 
 	/**
@@ -860,19 +869,7 @@ public class Athlete {
 	@Transient
 	@JsonIgnore
 	public int getBestCleanJerkAttemptNumber() {
-		int referenceValue = getBestCleanJerk();
-		if (referenceValue > 0) {
-			if (zeroIfInvalid(cleanJerk3ActualLift) == referenceValue) {
-				return 6;
-			}
-			if (zeroIfInvalid(cleanJerk2ActualLift) == referenceValue) {
-				return 5;
-			}
-			if (zeroIfInvalid(cleanJerk1ActualLift) == referenceValue) {
-				return 4;
-			}
-		}
-		return 0; // no match - bomb-out.
+		return getLiftResults().getBestCleanJerkAttemptNumber();
 	}
 
 	/**
@@ -919,10 +916,7 @@ public class Athlete {
 	@Transient
 	@JsonIgnore
 	public Integer getBestSnatch() {
-		final int sn1 = zeroIfInvalid(snatch1ActualLift);
-		final int sn2 = zeroIfInvalid(snatch2ActualLift);
-		final int sn3 = zeroIfInvalid(snatch3ActualLift);
-		return max(0, sn1, sn2, sn3);
+		return getLiftResults().getBestSnatch();
 	}
 
 	/**
@@ -933,20 +927,7 @@ public class Athlete {
 	@Transient
 	@JsonIgnore
 	public int getBestSnatchAttemptNumber() {
-		int referenceValue = getBestSnatch();
-		if (referenceValue > 0) {
-			if (zeroIfInvalid(snatch3ActualLift) == referenceValue) {
-				return 3;
-			}
-			if (zeroIfInvalid(snatch2ActualLift) == referenceValue) {
-				return 2;
-			}
-			if (zeroIfInvalid(snatch1ActualLift) == referenceValue) {
-				return 1;
-			}
-		}
-		return 0; // no match - bomb-out.
-
+		return getLiftResults().getBestSnatchAttemptNumber();
 	}
 
 	/**
@@ -1253,23 +1234,7 @@ public class Athlete {
 	public Integer getCleanJerkAttemptsDone() {
 		// if Athlete signals he wont take his remaining tries, a zero is entered
 		// further lifts are not counted.
-		int attempts = 0;
-		if (!isEmpty(cleanJerk1ActualLift)) {
-			attempts++;
-		} else {
-			return attempts;
-		}
-		if (!isEmpty(cleanJerk2ActualLift)) {
-			attempts++;
-		} else {
-			return attempts;
-		}
-		if (!isEmpty(cleanJerk3ActualLift)) {
-			attempts++;
-		} else {
-			return attempts;
-		}
-		return attempts;
+		return getLiftResults().getCleanJerkAttemptsDone();
 	}
 
 	/**
@@ -1299,9 +1264,7 @@ public class Athlete {
 	@Transient
 	@JsonIgnore
 	public int getCleanJerkTotal() {
-		final int cleanJerkTotal = max(0, zeroIfInvalid(cleanJerk1ActualLift), zeroIfInvalid(cleanJerk2ActualLift),
-		        zeroIfInvalid(cleanJerk3ActualLift));
-		return cleanJerkTotal;
+		return getLiftResults().getBestCleanJerk();
 	}
 
 	/**
@@ -1701,6 +1664,25 @@ public class Athlete {
 		return LocalDateTime.MIN; // long ago
 	}
 
+	/**
+	 * The actual lifts as numbers and the results derived from them, recomputed
+	 * only when an actual lift has changed.
+	 *
+	 * @return the lift results
+	 */
+	@Transient
+	@JsonIgnore
+	public LiftResults getLiftResults() {
+		LiftResults results = liftResults;
+		if (results == null || !results.isFor(snatch1ActualLift, snatch2ActualLift, snatch3ActualLift,
+		        cleanJerk1ActualLift, cleanJerk2ActualLift, cleanJerk3ActualLift)) {
+			results = new LiftResults(snatch1ActualLift, snatch2ActualLift, snatch3ActualLift,
+			        cleanJerk1ActualLift, cleanJerk2ActualLift, cleanJerk3ActualLift);
+			liftResults = results;
+		}
+		return results;
+	}
+
 	/**
 	 * Gets the lift order rank.
 	 *
@@ -2408,23 +2390,7 @@ public class Athlete {
 	public Integer getSnatchAttemptsDone() {
 		// Athlete signals he wont take his remaining tries, a zero is entered
 		// further lifts are not counted.
-		int attempts = 0;
-		if (!isEmpty(snatch1ActualLift)) {
-			attempts++;
-		} else {
-			return attempts;
-		}
-		if (!isEmpty(snatch2ActualLift)) {
-			attempts++;
-		} else {
-			return attempts;
-		}
-		if (!isEmpty(snatch3ActualLift)) {
-			attempts++;
-		} else {
-			return attempts;
-		}
-		return attempts;
+		return getLiftResults().getSnatchAttemptsDone();
 	}
 
 	/**
@@ -2458,9 +2424,7 @@ public class Athlete {
 	@Transient
 	@JsonIgnore
 	public int getSnatchTotal() {
-		final int snatchTotal = max(0, zeroIfInvalid(snatch1ActualLift), zeroIfInvalid(snatch2ActualLift),
-		        zeroIfInvalid(snatch3ActualLift));
-		return snatchTotal;
+		return getLiftResults().getBestSnatch();
 	}
 
 	/**
@@ -2587,15 +2551,7 @@ public class Athlete {
 	 * @return the total
 	 */
 	public Integer getTotal() {
-		final int snatchTotal = getSnatchTotal();
-		if (snatchTotal == 0) {
-			return 0;
-		}
-		final int cleanJerkTotal = getCleanJerkTotal();
-		if (cleanJerkTotal == 0) {
-			return 0;
-		}
-		return snatchTotal + cleanJerkTotal;
+		return getLiftResults().getTotal();
 	}
 
 	/**
@@ -2921,6 +2877,7 @@ public class Athlete {
 			validateCleanJerk1ActualLift(cleanJerk1ActualLift);
 		}
 		this.cleanJerk1ActualLift = cleanJerk1ActualLift;
+		this.liftResults = null;
 		getLogger().info("{}{} cleanJerk1ActualLift={}", OwlcmsSession.getFopLoggingName(), this.getShortName(),
 		        cleanJerk1ActualLift);
 	}
@@ -3019,6 +2976,7 @@ public class Athlete {
 			validateCleanJerk2ActualLift(cleanJerk2ActualLift);
 		}
 		this.cleanJerk2ActualLift = cleanJerk2ActualLift;
+		this.liftResults = null;
 		getLogger().info("{}{} cleanJerk2ActualLift={}", OwlcmsSession.getFopLoggingName(), this.getShortName(),
 		        cleanJerk2ActualLift);
 
@@ -3115,6 +3073,7 @@ public class Athlete {
 			validateCleanJerk3ActualLift(cleanJerk3ActualLift);
 		}
 		this.cleanJerk3ActualLift = cleanJerk3ActualLift;
+		this.liftResults = null;
 		getLogger().info("{}{} cleanJerk3ActualLift={}", OwlcmsSession.getFopLoggingName(), this.getShortName(),
 		        cleanJerk3ActualLift);
 
@@ -3530,6 +3489,7 @@ public class Athlete {
 			validateSnatch1ActualLift(snatch1ActualLift);
 		}
 		this.snatch1ActualLift = snatch1ActualLift;
+		this.liftResults = null;
 		getLogger().info("{}{} snatch1ActualLift={}", OwlcmsSession.getFopLoggingName(), this.getShortName(),
 		        snatch1ActualLift);
 //        if (zeroIfInvalid(snatch1ActualLift) == 0) {
@@ -3631,6 +3591,7 @@ public class Athlete {
 			validateSnatch2ActualLift(snatch2ActualLift);
 		}
 		this.snatch2ActualLift = snatch2ActualLift;
+		this.liftResults = null;
 		getLogger().info("{}{} snatch2ActualLift={}", OwlcmsSession.getFopLoggingName(), this.getShortName(),
 		        snatch2ActualLift);
 //        if (zeroIfInvalid(snatch2ActualLift) == 0) {
@@ -3747,6 +3708,7 @@ public class Athlete {
 			validateSnatch3ActualLift(snatch3ActualLift);
 		}
 		this.snatch3ActualLift = snatch3ActualLift;
+		this.liftResults = null;
 		getLogger().info("{}{} snatch3ActualLift={}", OwlcmsSession.getFopLoggingName(), this.getShortName(),
 		        snatch3ActualLift);
 //        if (zeroIfInvalid(snatch3ActualLift) == 0) {
@@ -4937,12 +4899,6 @@ public class Athlete {
 
 	}
 
-	private Integer max(Integer... items) {
-		List<Integer> itemList = Arrays.asList(items);
-		final Integer max = Collections.max(itemList);
-		return max;
-	}
-
 	@SuppressWarnings("unused")
 	private Integer max(String... items) {
 		List<String> itemList = Arrays.asList(items);
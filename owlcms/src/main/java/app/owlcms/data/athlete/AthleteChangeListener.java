@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.athlete;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import app.owlcms.data.athleteSort.GlobalRankingIndex;
+import app.owlcms.data.category.Participation;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.jpa.JPAService;
+
+/**
+ * Any athlete or participation written to the database makes the reporting
+ * rankings out of date. They are invalidated once the transaction has
+ * committed, so that a snapshot computed in the meantime is not taken as
+ * current. The athlete is also marked as changed in the global rankings and in
+ * the rank writers, whichever screen saved it.
+ *
+ * Updates done with queries (bulk updates, JDBC) are not seen and must
+ * invalidate the rankings themselves.
+ *
+ * @author Jean-François Lamy
+ */
+public class AthleteChangeListener {
+
+	private static final Runnable INVALIDATE_RANKINGS = () -> Competition.getCurrent().setRankingsInvalid(true);
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void written(Object entity) {
+		JPAService.afterCommit(INVALIDATE_RANKINGS);
+		Long id = null;
+		if (entity instanceof Athlete) {
+			id = ((Athlete) entity).getId();
+		} else if (entity instanceof Participation && ((Participation) entity).getAthlete() != null) {
+			id = ((Participation) entity).getAthlete().getId();
+		}
+		if (id != null) {
+			Long changedId = id;
+			JPAService.afterCommit(() -> {
+				GlobalRankingIndex.getCurrent().markChanged(changedId);
+				AthleteRankWriter.markChanged(changedId);
+			});
+		}
+	}
+
+}
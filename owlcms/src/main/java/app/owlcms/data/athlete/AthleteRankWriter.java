@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.athlete;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.Cache;
+
+import org.hibernate.Session;
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.category.Category;
+import app.owlcms.data.category.Participation;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.jpa.JPAService;
+import app.owlcms.utils.LoggerUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Writes the ranks computed by a field of play to the database, in the
+ * background.
+ *
+ * After each decision, the field of play computes the category and global ranks
+ * of all the athletes in the categories of the group, using the athletes it has
+ * in memory; the global ranks of the athletes in the other groups are written
+ * as well when they change. Only the ranks that differ from what was last sent to the database
+ * are queued; the queued updates are written in order, by a single thread, as
+ * JDBC batches, one transaction per batch. The field of play does not wait for
+ * the writes, except when a group is loaded, so that the athletes read include
+ * the latest ranks. The rankings used by the reports are invalidated once a
+ * batch is committed, so they are never built from the previous ranks.
+ *
+ * If the server stops abruptly, the updates not yet committed are lost; the
+ * ranks are computed again at the next decision.
+ *
+ * One instance per field of play.
+ *
+ * @author Jean-François Lamy
+ */
+public class AthleteRankWriter {
+
+	/**
+	 * The ranks of an athlete, as they will be stored.
+	 */
+	private static final class RankUpdate {
+		private final Long athleteId;
+		private final List<Object> ranks;
+		private final List<Long> categoryIds = new ArrayList<>();
+		private final List<int[]> categoryRanks = new ArrayList<>();
+
+		RankUpdate(Athlete a) {
+			this.athleteId = a.getId();
+			List<Object> values = new ArrayList<>();
+			values.add(a.getSinclairRank());
+			values.add(a.getSmmRank());
+			for (Participation p : a.getParticipations()) {
+				Category c = p.getCategory();
+				int[] pRanks = { p.getSnatchRank(), p.getCleanJerkRank(), p.getTotalRank(), p.getCustomRank() };
+				Long categoryId = c != null ? c.getId() : null;
+				categoryIds.add(categoryId);
+				categoryRanks.add(pRanks);
+				values.add(categoryId);
+				values.add(Arrays.toString(pRanks));
+			}
+			this.ranks = Collections.unmodifiableList(values);
+		}
+
+		RankUpdate(Long athleteId, List<Integer> globalRanks) {
+			this.athleteId = athleteId;
+			this.ranks = Collections.unmodifiableList(new ArrayList<>(globalRanks));
+		}
+	}
+
+	private static final String ATHLETE_UPDATE = "update athlete set sinclairRank = ?, smmRank = ? where id = ?";
+	private static final String PARTICIPATION_UPDATE = "update participation"
+	        + " set snatchRank = ?, cleanJerkRank = ?, totalRank = ?, customRank = ?"
+	        + " where athlete_id = ? and category_id = ?";
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(AthleteRankWriter.class);
+
+	/** the ranks last queued for each athlete, by id, shared by all the fields of play */
+	private static final Map<Long, List<Object>> queued = new ConcurrentHashMap<>();
+	private static final Set<AthleteRankWriter> writers = ConcurrentHashMap.newKeySet();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			for (AthleteRankWriter w : writers) {
+				w.shutdown();
+			}
+		}));
+	}
+
+	/**
+	 * The athlete has been saved with the ranks it had in memory, which may be
+	 * older than those queued; the ranks will be written again.
+	 *
+	 * @param id
+	 */
+	public static void markChanged(Long id) {
+		if (id != null) {
+			queued.remove(id);
+		}
+	}
+
+	/**
+	 * The database has been reloaded or replaced; all the ranks will be written
+	 * again.
+	 */
+	public static void resetAll() {
+		queued.clear();
+	}
+
+	private final String name;
+	private final boolean background;
+	private final ExecutorService executor;
+	private final ConcurrentLinkedQueue<RankUpdate> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final AtomicLong nbBatches = new AtomicLong();
+	private final AtomicLong nbUpdates = new AtomicLong();
+
+	/**
+	 * @param name       name of the field of play, used for the thread name
+	 * @param background false to write immediately in the calling thread (used
+	 *                   for testing)
+	 */
+	public AthleteRankWriter(String name, boolean background) {
+		this.name = name;
+		this.background = background;
+		if (background) {
+			this.executor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "ranks-" + name);
+				t.setDaemon(true);
+				return t;
+			});
+			writers.add(this);
+		} else {
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Wait until the updates queued so far have been written.
+	 */
+	public void flush() {
+		if (!background) {
+			writePending();
+			return;
+		}
+		try {
+			executor.submit(this::writePending).get(30, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			logger.error("{} ranks not written {}", name, LoggerUtils.stackTrace(e));
+		}
+	}
+
+	/**
+	 * @return the number of transactions used to write the ranks
+	 */
+	public long getNbBatches() {
+		return nbBatches.get();
+	}
+
+	/**
+	 * @return the number of athletes whose ranks were written
+	 */
+	public long getNbUpdates() {
+		return nbUpdates.get();
+	}
+
+	/**
+	 * @return the number of athletes whose ranks are waiting to be written
+	 */
+	public int getNbPending() {
+		return pending.size();
+	}
+
+	/**
+	 * Write the pending updates and stop the thread.
+	 */
+	public void shutdown() {
+		if (!background) {
+			return;
+		}
+		writers.remove(this);
+		flush();
+		executor.shutdown();
+	}
+
+	/**
+	 * Queue the ranks of the athletes that have changed since they were last
+	 * queued.
+	 *
+	 * @param athletes athletes whose ranks have just been computed
+	 * @return the number of athletes queued
+	 */
+	public int write(List<Athlete> athletes) {
+		int nbQueued = 0;
+		for (Athlete a : athletes) {
+			if (a.getId() == null) {
+				continue;
+			}
+			RankUpdate update = new RankUpdate(a);
+			List<Object> previous = queued.put(update.athleteId, update.ranks);
+			if (!update.ranks.equals(previous)) {
+				pending.add(update);
+				nbQueued++;
+			}
+		}
+		schedule(nbQueued);
+		return nbQueued;
+	}
+
+	/**
+	 * Queue the Sinclair and SMM ranks of athletes that are not in memory; their
+	 * category ranks are left as they are.
+	 *
+	 * @param globalRanks Sinclair and SMM ranks, by athlete id
+	 * @return the number of athletes queued
+	 */
+	public int writeGlobalRanks(Map<Long, List<Integer>> globalRanks) {
+		int nbQueued = 0;
+		for (Map.Entry<Long, List<Integer>> e : globalRanks.entrySet()) {
+			RankUpdate update = new RankUpdate(e.getKey(), e.getValue());
+			List<Object> previous = queued.get(update.athleteId);
+			if (previous != null && previous.subList(0, 2).equals(update.ranks)) {
+				continue;
+			}
+			// the category ranks last queued are kept, they are compared on the next write
+			List<Object> merged = new ArrayList<>(update.ranks);
+			if (previous != null) {
+				merged.addAll(previous.subList(2, previous.size()));
+			}
+			queued.put(update.athleteId, Collections.unmodifiableList(merged));
+			pending.add(update);
+			nbQueued++;
+		}
+		schedule(nbQueued);
+		return nbQueued;
+	}
+
+	private void schedule(int nbQueued) {
+		if (nbQueued == 0) {
+			return;
+		}
+		if (!background) {
+			writePending();
+		} else if (scheduled.compareAndSet(false, true)) {
+			executor.execute(() -> {
+				// updates queued from now on need another run
+				scheduled.set(false);
+				writePending();
+			});
+		}
+	}
+
+	private void writeBatch(List<RankUpdate> batch) {
+		JPAService.runInTransaction(em -> {
+			em.unwrap(Session.class).doWork(connection -> {
+				try (PreparedStatement athleteUpdate = connection.prepareStatement(ATHLETE_UPDATE);
+				        PreparedStatement participationUpdate = connection.prepareStatement(PARTICIPATION_UPDATE)) {
+					for (RankUpdate u : batch) {
+						Integer sinclairRank = (Integer) u.ranks.get(0);
+						if (sinclairRank != null) {
+							athleteUpdate.setInt(1, sinclairRank);
+						} else {
+							athleteUpdate.setNull(1, Types.INTEGER);
+						}
+						athleteUpdate.setInt(2, (Integer) u.ranks.get(1));
+						athleteUpdate.setLong(3, u.athleteId);
+						athleteUpdate.addBatch();
+						for (int i = 0; i < u.categoryIds.size(); i++) {
+							Long categoryId = u.categoryIds.get(i);
+							if (categoryId == null) {
+								continue;
+							}
+							int[] pRanks = u.categoryRanks.get(i);
+							for (int j = 0; j < pRanks.length; j++) {
+								participationUpdate.setInt(j + 1, pRanks[j]);
+							}
+							participationUpdate.setLong(5, u.athleteId);
+							participationUpdate.setLong(6, categoryId);
+							participationUpdate.addBatch();
+						}
+					}
+					athleteUpdate.executeBatch();
+					participationUpdate.executeBatch();
+				}
+			});
+			return null;
+		});
+		// the cached copies have the previous ranks
+		Cache cache = JPAService.getFactory().getCache();
+		for (RankUpdate u : batch) {
+			cache.evict(Athlete.class, u.athleteId);
+		}
+		cache.evict(Participation.class);
+	}
+
+	private void writePending() {
+		List<RankUpdate> batch = new ArrayList<>();
+		RankUpdate u;
+		while ((u = pending.poll()) != null) {
+			batch.add(u);
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			writeBatch(batch);
+			// the category ranks used by the reports have changed
+			Competition.getCurrent().setRankingsInvalid(true);
+			nbBatches.incrementAndGet();
+			nbUpdates.addAndGet(batch.size());
+			logger.debug("{} ranks written for {} athletes", name, batch.size());
+		} catch (Exception e) {
+			// the ranks will be written again when they next change
+			for (RankUpdate failed : batch) {
+				queued.remove(failed.athleteId);
+			}
+			logger.error("{} could not write ranks {}", name, LoggerUtils.stackTrace(e));
+		}
+	}
+
+}
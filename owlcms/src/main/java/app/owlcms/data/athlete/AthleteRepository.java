@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 
 import app.owlcms.data.agegroup.AgeGroup;
 import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.data.athleteSort.GlobalRankingIndex;
 import app.owlcms.data.category.AgeDivision;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.competition.Competition;
@@ -91,8 +92,8 @@ public class AthleteRepository {
 	 */
 	public static void delete(Athlete Athlete) {
 		JPAService.runInTransaction(em -> {
+			// the rankings are updated by AthleteChangeListener once committed
 			em.remove(getById(Athlete.getId(), em));
-			Competition.getCurrent().setRankingsInvalid(true);
 			return null;
 		});
 	}
@@ -291,6 +292,8 @@ public class AthleteRepository {
 			}
 			em.flush();
 			Competition.getCurrent().setRankingsInvalid(true);
+			GlobalRankingIndex.getCurrent().invalidate();
+			AthleteRankWriter.resetAll();
 			return null;
 		});
 		assignCategoryRanks();
@@ -306,8 +309,8 @@ public class AthleteRepository {
 		if (athlete == null) {
 			return athlete;
 		}
+		// the rankings are updated by AthleteChangeListener once committed
 		return JPAService.runInTransaction((em) -> {
-			Competition.getCurrent().setRankingsInvalid(true);
 			Athlete merged = em.merge(athlete);
 			return merged;
 		});
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.athlete;
+
+/**
+ * The six actual lifts of an athlete as numbers, and the results derived from
+ * them.
+ *
+ * Sorting compares the same athletes many times; the strings are parsed once
+ * and the results are kept until one of the actual lifts changes. The strings
+ * used are kept, so that a change is detected even when the fields are set
+ * directly (as done by JPA when loading).
+ *
+ * Immutable.
+ *
+ * @author Jean-François Lamy
+ */
+public final class LiftResults {
+
+	private static final int SNATCH_ATTEMPTS_DONE = 6;
+	private static final int CLEANJERK_ATTEMPTS_DONE = 7;
+	private static final int BEST_SNATCH = 8;
+	private static final int BEST_CLEANJERK = 9;
+	private static final int BEST_SNATCH_ATTEMPT_NUMBER = 10;
+	private static final int BEST_CLEANJERK_ATTEMPT_NUMBER = 11;
+	private static final int ACTUALLY_ATTEMPTED = 12;
+	private static final int TOTAL = 13;
+	private static final int SIZE = 14;
+
+	private final String[] actualLifts;
+	private final int[] values = new int[SIZE];
+
+	LiftResults(String... actualLifts) {
+		this.actualLifts = actualLifts;
+		for (int i = 0; i < 6; i++) {
+			values[i] = Athlete.zeroIfInvalid(actualLifts[i]);
+			if (values[i] != 0) {
+				values[ACTUALLY_ATTEMPTED]++;
+			}
+		}
+		values[SNATCH_ATTEMPTS_DONE] = attemptsDone(0);
+		values[CLEANJERK_ATTEMPTS_DONE] = attemptsDone(3);
+		values[BEST_SNATCH] = Math.max(0, Math.max(values[0], Math.max(values[1], values[2])));
+		values[BEST_CLEANJERK] = Math.max(0, Math.max(values[3], Math.max(values[4], values[5])));
+		values[BEST_SNATCH_ATTEMPT_NUMBER] = bestAttemptNumber(0, values[BEST_SNATCH]);
+		values[BEST_CLEANJERK_ATTEMPT_NUMBER] = bestAttemptNumber(3, values[BEST_CLEANJERK]);
+		values[TOTAL] = values[BEST_SNATCH] == 0 || values[BEST_CLEANJERK] == 0 ? 0
+		        : values[BEST_SNATCH] + values[BEST_CLEANJERK];
+	}
+
+	/**
+	 * @param liftNo 1 to 6
+	 * @return the weight lifted, negative if failed, 0 if not done or invalid
+	 */
+	public int getActualLift(int liftNo) {
+		return values[liftNo - 1];
+	}
+
+	public int getActuallyAttemptedLifts() {
+		return values[ACTUALLY_ATTEMPTED];
+	}
+
+	public int getAttemptsDone() {
+		return values[SNATCH_ATTEMPTS_DONE] + values[CLEANJERK_ATTEMPTS_DONE];
+	}
+
+	public int getBestCleanJerk() {
+		return values[BEST_CLEANJERK];
+	}
+
+	/**
+	 * @return 4, 5 or 6, or 0 if no good clean&amp;jerk
+	 */
+	public int getBestCleanJerkAttemptNumber() {
+		return values[BEST_CLEANJERK_ATTEMPT_NUMBER];
+	}
+
+	public int getBestSnatch() {
+		return values[BEST_SNATCH];
+	}
+
+	/**
+	 * @return 1, 2 or 3, or 0 if no good snatch
+	 */
+	public int getBestSnatchAttemptNumber() {
+		return values[BEST_SNATCH_ATTEMPT_NUMBER];
+	}
+
+	public int getCleanJerkAttemptsDone() {
+		return values[CLEANJERK_ATTEMPTS_DONE];
+	}
+
+	public int getSnatchAttemptsDone() {
+		return values[SNATCH_ATTEMPTS_DONE];
+	}
+
+	/**
+	 * @return the total, 0 if all snatches or all clean&amp;jerks failed
+	 */
+	public int getTotal() {
+		return values[TOTAL];
+	}
+
+	/**
+	 * @return true if computed from these exact strings
+	 */
+	boolean isFor(String sn1, String sn2, String sn3, String cj1, String cj2, String cj3) {
+		return actualLifts[0] == sn1 && actualLifts[1] == sn2 && actualLifts[2] == sn3
+		        && actualLifts[3] == cj1 && actualLifts[4] == cj2 && actualLifts[5] == cj3;
+	}
+
+	private int attemptsDone(int first) {
+		// a zero is entered if the athlete does not take the remaining tries; further
+		// lifts are not counted.
+		int attempts = 0;
+		for (int i = first; i < first + 3; i++) {
+			if (Athlete.isEmpty(actualLifts[i])) {
+				break;
+			}
+			attempts++;
+		}
+		return attempts;
+	}
+
+	private int bestAttemptNumber(int first, int best) {
+		if (best > 0) {
+			for (int i = first + 2; i >= first; i--) {
+				if (values[i] == best) {
+					return i + 1;
+				}
+			}
+		}
+		return 0;
+	}
+
+}
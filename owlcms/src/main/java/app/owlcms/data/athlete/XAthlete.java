@@ -706,6 +706,15 @@ public class XAthlete extends Athlete {
 		return a.getLiftOrderRank();
 	}
 
+	/**
+	 * @return
+	 * @see app.owlcms.data.athlete.Athlete#getLiftResults()
+	 */
+	@Override
+	public LiftResults getLiftResults() {
+		return a.getLiftResults();
+	}
+
 	@Override
 	public Logger getLogger() {
 		return super.getLogger();
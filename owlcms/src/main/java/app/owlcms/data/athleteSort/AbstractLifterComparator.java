@@ -47,9 +47,9 @@ public class AbstractLifterComparator {
 	 * @return the int
 	 */
 	int compareAttemptsDone(Athlete lifter1, Athlete lifter2) {
-		Integer lifter1Value = lifter1.getAttemptsDone();
-		Integer lifter2Value = lifter2.getAttemptsDone();
-		return lifter1Value.compareTo(lifter2Value);
+		int lifter1Value = lifter1.getLiftResults().getAttemptsDone();
+		int lifter2Value = lifter2.getLiftResults().getAttemptsDone();
+		return Integer.compare(lifter1Value, lifter2Value);
 	}
 
 	/**
@@ -60,9 +60,9 @@ public class AbstractLifterComparator {
 	 * @return the int
 	 */
 	int compareBestCleanJerk(Athlete lifter1, Athlete lifter2) {
-		Integer lifter1Value = lifter1.getBestCleanJerk();
-		Integer lifter2Value = lifter2.getBestCleanJerk();
-		return lifter1Value.compareTo(lifter2Value);
+		int lifter1Value = lifter1.getLiftResults().getBestCleanJerk();
+		int lifter2Value = lifter2.getLiftResults().getBestCleanJerk();
+		return Integer.compare(lifter1Value, lifter2Value);
 	}
 
 	/**
@@ -73,9 +73,9 @@ public class AbstractLifterComparator {
 	 * @return the int
 	 */
 	int compareBestCleanJerkAttemptNumber(Athlete lifter1, Athlete lifter2) {
-		Integer lifter1Value = lifter1.getBestCleanJerkAttemptNumber();
-		Integer lifter2Value = lifter2.getBestCleanJerkAttemptNumber();
-		return lifter1Value.compareTo(lifter2Value);
+		int lifter1Value = lifter1.getLiftResults().getBestCleanJerkAttemptNumber();
+		int lifter2Value = lifter2.getLiftResults().getBestCleanJerkAttemptNumber();
+		return Integer.compare(lifter1Value, lifter2Value);
 	}
 
 	/**
@@ -99,9 +99,9 @@ public class AbstractLifterComparator {
 	 * @return the int
 	 */
 	int compareBestSnatch(Athlete lifter1, Athlete lifter2) {
-		Integer lifter1Value = lifter1.getBestSnatch();
-		Integer lifter2Value = lifter2.getBestSnatch();
-		return lifter1Value.compareTo(lifter2Value);
+		int lifter1Value = lifter1.getLiftResults().getBestSnatch();
+		int lifter2Value = lifter2.getLiftResults().getBestSnatch();
+		return Integer.compare(lifter1Value, lifter2Value);
 	}
 
 	/**
@@ -112,9 +112,9 @@ public class AbstractLifterComparator {
 	 * @return the int
 	 */
 	int compareBestSnatchAttemptNumber(Athlete lifter1, Athlete lifter2) {
-		Integer lifter1Value = lifter1.getBestSnatchAttemptNumber();
-		Integer lifter2Value = lifter2.getBestSnatchAttemptNumber();
-		return lifter1Value.compareTo(lifter2Value);
+		int lifter1Value = lifter1.getLiftResults().getBestSnatchAttemptNumber();
+		int lifter2Value = lifter2.getLiftResults().getBestSnatchAttemptNumber();
+		return Integer.compare(lifter1Value, lifter2Value);
 	}
 
 	/**
@@ -254,8 +254,8 @@ public class AbstractLifterComparator {
 	 * @return -1,0,1 selon comparaison
 	 */
 	int compareFinalResults(Athlete lifter1, Athlete lifter2) {
-		int lifter1Done = (lifter1.getAttemptsDone() >= 6 ? 1 : 0);
-		Integer lifter2Done = (lifter2.getAttemptsDone() >= 6 ? 1 : 0);
+		int lifter1Done = (lifter1.getLiftResults().getAttemptsDone() >= 6 ? 1 : 0);
+		int lifter2Done = (lifter2.getLiftResults().getAttemptsDone() >= 6 ? 1 : 0);
 
 		int compare = Integer.compare(lifter1Done, lifter2Done);
 		if (compare != 0) {
@@ -459,19 +459,9 @@ public class AbstractLifterComparator {
 	 */
 	int compareLiftType(Athlete lifter1, Athlete lifter2) {
 		// snatch comes before clean and jerk
-		Integer lifter1Value = lifter1.getAttemptsDone();
-		Integer lifter2Value = lifter2.getAttemptsDone();
-		if (lifter1Value < 3) {
-			lifter1Value = 0;
-		} else {
-			lifter1Value = 1;
-		}
-		if (lifter2Value < 3) {
-			lifter2Value = 0;
-		} else {
-			lifter2Value = 1;
-		}
-		return lifter1Value.compareTo(lifter2Value);
+		int lifter1Value = lifter1.getLiftResults().getAttemptsDone() < 3 ? 0 : 1;
+		int lifter2Value = lifter2.getLiftResults().getAttemptsDone() < 3 ? 0 : 1;
+		return Integer.compare(lifter1Value, lifter2Value);
 	}
 
 	/**
@@ -518,8 +508,8 @@ public class AbstractLifterComparator {
 			logger.trace("starting from {}, lifter1 {}, lifter2 {}", startingFrom, lifter1, lifter2);
 		}
 		if (startingFrom >= 6) {
-			compare = ((Integer) Math.abs(Athlete.zeroIfInvalid(lifter1.getCleanJerk3ActualLift())))
-			        .compareTo(Math.abs(Athlete.zeroIfInvalid(lifter2.getCleanJerk3ActualLift())));
+			compare = Integer.compare(Math.abs(lifter1.getLiftResults().getActualLift(6)),
+			        Math.abs(lifter2.getLiftResults().getActualLift(6)));
 			if (trace) {
 				logger.trace("essai 6: {}", compare);
 			}
@@ -528,8 +518,8 @@ public class AbstractLifterComparator {
 			}
 		}
 		if (startingFrom >= 5) {
-			compare = ((Integer) Math.abs(Athlete.zeroIfInvalid(lifter1.getCleanJerk2ActualLift())))
-			        .compareTo(Math.abs(Athlete.zeroIfInvalid(lifter2.getCleanJerk2ActualLift())));
+			compare = Integer.compare(Math.abs(lifter1.getLiftResults().getActualLift(5)),
+			        Math.abs(lifter2.getLiftResults().getActualLift(5)));
 			if (trace) {
 				logger.trace("essai 5: {}", compare);
 			}
@@ -538,8 +528,8 @@ public class AbstractLifterComparator {
 			}
 		}
 		if (startingFrom >= 4) {
-			compare = ((Integer) Math.abs(Athlete.zeroIfInvalid(lifter1.getCleanJerk1ActualLift())))
-			        .compareTo(Math.abs(Athlete.zeroIfInvalid(lifter2.getCleanJerk1ActualLift())));
+			compare = Integer.compare(Math.abs(lifter1.getLiftResults().getActualLift(4)),
+			        Math.abs(lifter2.getLiftResults().getActualLift(4)));
 			if (trace) {
 				logger.trace("essai 4: {}", compare);
 			}
@@ -551,8 +541,8 @@ public class AbstractLifterComparator {
 			return 0;
 		}
 		if (startingFrom >= 3) {
-			compare = ((Integer) Math.abs(Athlete.zeroIfInvalid(lifter1.getSnatch3ActualLift())))
-			        .compareTo(Math.abs(Athlete.zeroIfInvalid(lifter2.getSnatch3ActualLift())));
+			compare = Integer.compare(Math.abs(lifter1.getLiftResults().getActualLift(3)),
+			        Math.abs(lifter2.getLiftResults().getActualLift(3)));
 			if (trace) {
 				logger.trace("essai 3: {}", compare);
 			}
@@ -561,8 +551,8 @@ public class AbstractLifterComparator {
 			}
 		}
 		if (startingFrom >= 2) {
-			compare = ((Integer) Math.abs(Athlete.zeroIfInvalid(lifter1.getSnatch2ActualLift())))
-			        .compareTo(Math.abs(Athlete.zeroIfInvalid(lifter2.getSnatch2ActualLift())));
+			compare = Integer.compare(Math.abs(lifter1.getLiftResults().getActualLift(2)),
+			        Math.abs(lifter2.getLiftResults().getActualLift(2)));
 			if (trace) {
 				logger.trace("essai 2: {}", compare);
 			}
@@ -571,8 +561,8 @@ public class AbstractLifterComparator {
 			}
 		}
 		if (startingFrom >= 1) {
-			compare = ((Integer) Math.abs(Athlete.zeroIfInvalid(lifter1.getSnatch1ActualLift())))
-			        .compareTo(Math.abs(Athlete.zeroIfInvalid(lifter2.getSnatch1ActualLift())));
+			compare = Integer.compare(Math.abs(lifter1.getLiftResults().getActualLift(1)),
+			        Math.abs(lifter2.getLiftResults().getActualLift(1)));
 			if (trace) {
 				logger.trace("essai 1: {}", compare);
 			}
@@ -661,9 +651,9 @@ public class AbstractLifterComparator {
 			// clean and jerk
 			if (currentTry == 6) {
 				// smaller 2nd attempt lifted first
-				Integer attemptedCJ2_1 = Math.abs(Athlete.zeroIfInvalid(lifter1.getCleanJerk2ActualLift()));
-				Integer attemptedCJ2_2 = Math.abs(Athlete.zeroIfInvalid(lifter2.getCleanJerk2ActualLift()));
-				compare = (attemptedCJ2_1.compareTo(attemptedCJ2_2));
+				int attemptedCJ2_1 = Math.abs(lifter1.getLiftResults().getActualLift(5));
+				int attemptedCJ2_2 = Math.abs(lifter2.getLiftResults().getActualLift(5));
+				compare = Integer.compare(attemptedCJ2_1, attemptedCJ2_2);
 				if (compare != 0) {
 					return compare;
 					// if 2nd attempts are same, go on and compare first attempts
@@ -671,9 +661,9 @@ public class AbstractLifterComparator {
 			}
 			if (currentTry >= 5) {
 				// smaller 1st attempt lifted first
-				Integer attemptedCJ1_1 = Math.abs(Athlete.zeroIfInvalid(lifter1.getCleanJerk1ActualLift()));
-				Integer attemptedCJ1_2 = Math.abs(Athlete.zeroIfInvalid(lifter2.getCleanJerk1ActualLift()));
-				compare = attemptedCJ1_1.compareTo(attemptedCJ1_2);
+				int attemptedCJ1_1 = Math.abs(lifter1.getLiftResults().getActualLift(4));
+				int attemptedCJ1_2 = Math.abs(lifter2.getLiftResults().getActualLift(4));
+				compare = Integer.compare(attemptedCJ1_1, attemptedCJ1_2);
 				if (compare != 0) {
 					return compare;
 					// if 1st attempts are same, can't determine who lifted first based on weights
@@ -684,9 +674,9 @@ public class AbstractLifterComparator {
 			// snatch
 			if (currentTry == 3) {
 				// smaller 2nd attempt lifted first
-				Integer attemptedSn2_1 = Math.abs(Athlete.zeroIfInvalid(lifter1.getSnatch2ActualLift()));
-				Integer attemptedSn2_2 = Math.abs(Athlete.zeroIfInvalid(lifter2.getSnatch2ActualLift()));
-				compare = (attemptedSn2_1.compareTo(attemptedSn2_2));
+				int attemptedSn2_1 = Math.abs(lifter1.getLiftResults().getActualLift(2));
+				int attemptedSn2_2 = Math.abs(lifter2.getLiftResults().getActualLift(2));
+				compare = Integer.compare(attemptedSn2_1, attemptedSn2_2);
 				if (compare != 0) {
 					return compare;
 					// if 2nd attempts are same, go on and compare first attempts
@@ -694,9 +684,9 @@ public class AbstractLifterComparator {
 			}
 			if (currentTry >= 2) {
 				// smaller 1st attempt lifted first
-				Integer attemptedSn1_1 = Math.abs(Athlete.zeroIfInvalid(lifter1.getSnatch1ActualLift()));
-				Integer attemptedSn1_2 = Math.abs(Athlete.zeroIfInvalid(lifter2.getSnatch1ActualLift()));
-				compare = attemptedSn1_1.compareTo(attemptedSn1_2);
+				int attemptedSn1_1 = Math.abs(lifter1.getLiftResults().getActualLift(1));
+				int attemptedSn1_2 = Math.abs(lifter2.getLiftResults().getActualLift(1));
+				compare = Integer.compare(attemptedSn1_1, attemptedSn1_2);
 				if (compare != 0) {
 					return compare;
 					// if 1st attempts are same, can't determine who lifted first based on weights
@@ -932,9 +922,9 @@ public class AbstractLifterComparator {
 	 * @return the int
 	 */
 	int compareTotal(Athlete lifter1, Athlete lifter2) {
-		Integer lifter1Value = lifter1.getTotal();
-		Integer lifter2Value = lifter2.getTotal();
-		return lifter1Value.compareTo(lifter2Value);
+		int lifter1Value = lifter1.getLiftResults().getTotal();
+		int lifter2Value = lifter2.getLiftResults().getTotal();
+		return Integer.compare(lifter1Value, lifter2Value);
 	}
 
 }
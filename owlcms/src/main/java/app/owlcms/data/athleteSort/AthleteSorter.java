@@ -80,6 +80,26 @@ public class AthleteSorter implements Serializable {
 		return impactedAthletes;
 	}
 
+	/**
+	 * Assign ranks within each category, for all athletes in categories present in
+	 * group, reusing the orders computed at the previous decision.
+	 *
+	 * @param em
+	 * @param g
+	 * @param index the orders kept by the field of play
+	 * @return the athletes in the categories of the group
+	 */
+	public static List<Athlete> assignCategoryRanks(EntityManager em, Group g, CategoryRankingIndex index) {
+		List<Athlete> impactedAthletes;
+		if (g != null) {
+			impactedAthletes = AthleteRepository.findAthletesForGlobalRanking(em, g);
+		} else {
+			impactedAthletes = AthleteRepository.doFindAllByGroupAndWeighIn(em, null, true, null);
+		}
+		index.assignCategoryRanks(impactedAthletes);
+		return impactedAthletes;
+	}
+
 	/**
 	 * Assign ranks within each category, for all athletes in categories present in
 	 * group. Returns the list of these athletes (i.e. not only these in group g)
@@ -617,7 +637,7 @@ public class AthleteSorter implements Serializable {
 	 *
 	 * @param rankingType       the ranking type
 	 */
-	private static void assignEligibleCategoryRanks(List<Athlete> absoluteOrderList, Ranking rankingType) {
+	static void assignEligibleCategoryRanks(List<Athlete> absoluteOrderList, Ranking rankingType) {
 		MultiCategoryRankSetter rt = new MultiCategoryRankSetter();
 		for (Athlete curLifter : absoluteOrderList) {
 			if (curLifter.isEligibleForIndividualRanking()) {
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.athleteSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.category.Category;
+import app.owlcms.data.category.Participation;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.group.Group;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Keeps the snatch, clean&amp;jerk, total and custom orders of the athletes in
+ * the categories of a group between two decisions.
+ *
+ * A decision only changes the results of one athlete, so instead of sorting all
+ * the athletes again, the athletes whose results changed are removed from the
+ * previous order and inserted back at their new position using the usual
+ * {@link WinningOrderComparator}. The resulting order is the same as a full sort
+ * (athletes that are exactly tied may come out in a different order, but they
+ * then get the same results on the scoreboard).
+ *
+ * The orders are kept by athlete id, since the athletes are reloaded in a new
+ * entity manager every time. A full sort is done when the set of athletes
+ * changes (new group, weigh-in, category change) or when too many athletes
+ * changed for insertion to be worthwhile.
+ *
+ * One instance per field of play; not thread-safe, called from the field of
+ * play event handling.
+ *
+ * @author Jean-François Lamy
+ */
+public class CategoryRankingIndex {
+
+	private static final Ranking[] CATEGORY_RANKINGS = { Ranking.SNATCH, Ranking.CLEANJERK, Ranking.TOTAL,
+	        Ranking.CUSTOM };
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(CategoryRankingIndex.class);
+
+	private Map<Ranking, List<Long>> orders = new EnumMap<>(Ranking.class);
+	private Map<Long, List<Object>> signatures = new HashMap<>();
+	private Boolean oldBodyWeightTieBreak;
+	private Set<Long> changed = new HashSet<>();
+	private int nbInserted;
+	private int nbFullSorts;
+
+	/**
+	 * Assign the category ranks of the athletes, reusing the previous orders.
+	 *
+	 * @param athletes all the athletes in the categories of the group
+	 */
+	public void assignCategoryRanks(List<Athlete> athletes) {
+		Map<Long, Athlete> byId = new HashMap<>(athletes.size() * 2);
+		Map<Long, List<Object>> newSignatures = new HashMap<>(athletes.size() * 2);
+		List<Athlete> moved = new ArrayList<>();
+		for (Athlete a : athletes) {
+			byId.put(a.getId(), a);
+			List<Object> signature = signature(a);
+			newSignatures.put(a.getId(), signature);
+			if (!signature.equals(signatures.get(a.getId()))) {
+				moved.add(a);
+			}
+		}
+		// athletes all have the same hash code, so we use the ids as keys
+		Map<Long, List<Integer>> previousRanks = new HashMap<>(athletes.size() * 2);
+		for (Athlete a : athletes) {
+			previousRanks.put(a.getId(), ranks(a));
+		}
+
+		boolean tieBreak = Competition.getCurrent().isUseOldBodyWeightTieBreak();
+		boolean fullSort = orders.isEmpty()
+		        || !byId.keySet().equals(signatures.keySet())
+		        || oldBodyWeightTieBreak == null || oldBodyWeightTieBreak != tieBreak
+		        || moved.size() > Math.max(4, athletes.size() / 4);
+
+		for (Ranking r : CATEGORY_RANKINGS) {
+			List<Athlete> sorted;
+			if (fullSort) {
+				sorted = AthleteSorter.resultsOrderCopy(athletes, r, true);
+			} else {
+				sorted = reinsert(orders.get(r), byId, moved, r);
+			}
+			AthleteSorter.assignEligibleCategoryRanks(sorted, r);
+			List<Long> ids = new ArrayList<>(sorted.size());
+			for (Athlete a : sorted) {
+				ids.add(a.getId());
+			}
+			orders.put(r, ids);
+		}
+		if (fullSort) {
+			nbFullSorts++;
+		} else {
+			nbInserted += moved.size();
+		}
+		signatures = newSignatures;
+		oldBodyWeightTieBreak = tieBreak;
+
+		changed = new HashSet<>();
+		for (Athlete a : moved) {
+			changed.add(a.getId());
+		}
+		for (Athlete a : athletes) {
+			if (!ranks(a).equals(previousRanks.get(a.getId()))) {
+				changed.add(a.getId());
+			}
+		}
+		logger.debug("{} athletes, {} full sort, {} changed", athletes.size(), fullSort, changed.size());
+	}
+
+	/**
+	 * @param a
+	 * @return true if the results or ranks of the athlete changed during the last
+	 *         {@link #assignCategoryRanks(List)}
+	 */
+	public boolean isChanged(Athlete a) {
+		return changed.contains(a.getId());
+	}
+
+	/**
+	 * @return number of athletes placed by insertion instead of a full sort
+	 */
+	public int getNbInserted() {
+		return nbInserted;
+	}
+
+	/**
+	 * @return number of full sorts
+	 */
+	public int getNbFullSorts() {
+		return nbFullSorts;
+	}
+
+	/**
+	 * Forget the orders, the next call will sort all the athletes.
+	 */
+	public void reset() {
+		orders.clear();
+		signatures.clear();
+		changed = new HashSet<>();
+	}
+
+	private List<Integer> ranks(Athlete a) {
+		List<Participation> participations = a.getParticipations();
+		if (participations == null) {
+			return Collections.emptyList();
+		}
+		List<Integer> ranks = new ArrayList<>(participations.size() * 4);
+		for (Participation p : participations) {
+			ranks.add(p.getSnatchRank());
+			ranks.add(p.getCleanJerkRank());
+			ranks.add(p.getTotalRank());
+			ranks.add(p.getCustomRank());
+		}
+		return ranks;
+	}
+
+	private List<Athlete> reinsert(List<Long> previousOrder, Map<Long, Athlete> byId, List<Athlete> moved,
+	        Ranking r) {
+		Set<Long> movedIds = new HashSet<>();
+		for (Athlete a : moved) {
+			movedIds.add(a.getId());
+		}
+		List<Athlete> sorted = new ArrayList<>(previousOrder.size());
+		for (Long id : previousOrder) {
+			if (!movedIds.contains(id)) {
+				sorted.add(byId.get(id));
+			}
+		}
+		WinningOrderComparator comparator = new WinningOrderComparator(r, true);
+		for (Athlete a : moved) {
+			int pos = Collections.binarySearch(sorted, a, comparator);
+			sorted.add(pos < 0 ? -pos - 1 : pos, a);
+		}
+		return sorted;
+	}
+
+	/**
+	 * The values used by {@link WinningOrderComparator} and by the rank
+	 * assignment. An athlete whose signature has not changed keeps its position
+	 * relative to the other unchanged athletes.
+	 */
+	static List<Object> signature(Athlete a) {
+		Group g = a.getGroup();
+		Category c = a.getCategory();
+		List<Participation> participations = a.getParticipations();
+		List<String> participationCodes = new ArrayList<>();
+		if (participations != null) {
+			for (Participation p : participations) {
+				Category pc = p.getCategory();
+				participationCodes.add(pc != null ? pc.getComputedCode() : null);
+			}
+		}
+		return Arrays.asList(
+		        a.getSnatch1ActualLift(), a.getSnatch2ActualLift(), a.getSnatch3ActualLift(),
+		        a.getCleanJerk1ActualLift(), a.getCleanJerk2ActualLift(), a.getCleanJerk3ActualLift(),
+		        a.getBodyWeight(), a.getStartNumber(), a.getCustomScore(), a.getGender(),
+		        a.getYearOfBirth(), a.isEligibleForIndividualRanking(),
+		        c != null ? c.getComputedCode() : null,
+		        g != null ? g.getId() : null,
+		        g != null ? g.getCompetitionTime() : null,
+		        participationCodes);
+	}
+
+}
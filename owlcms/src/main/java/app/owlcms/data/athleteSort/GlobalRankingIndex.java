@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.athleteSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRepository;
+import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.jpa.JPAService;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Competition-wide Sinclair and SMM rankings, shared by all the fields of play.
+ *
+ * The orders of all the weighed-in athletes are computed once. Afterwards, only
+ * the athletes whose results changed are moved in the orders, and the ranks are
+ * assigned by walking the orders, which requires no database access and no
+ * comparisons.
+ *
+ * The index reads its own copies of the athletes, and only ever sets the ranks
+ * on those; the athletes of a field of play are used to detect changes and get
+ * their global ranks copied from the index. Athletes written to the database
+ * are marked as changed once the transaction has committed (see
+ * {@link app.owlcms.data.athlete.AthleteChangeListener}) and read again the next
+ * time the rankings are needed. The orders are rebuilt from the database when
+ * the categories are redefined or a different competition is loaded. All
+ * methods are synchronized, so platforms that ask at the same time wait for the
+ * first one and reuse its result.
+ *
+ * A decision can change the global ranks of athletes in every group. The index
+ * remembers the athletes whose ranks changed, and hands them to the next field
+ * of play that updates it, which writes them to the database.
+ *
+ * @author Jean-François Lamy
+ */
+public class GlobalRankingIndex {
+
+	private static final Ranking[] GLOBAL_RANKINGS = { Ranking.BW_SINCLAIR, Ranking.SMM };
+
+	private static GlobalRankingIndex current = new GlobalRankingIndex();
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(GlobalRankingIndex.class);
+
+	public static GlobalRankingIndex getCurrent() {
+		return current;
+	}
+
+	private Map<Long, Athlete> athletes = new HashMap<>();
+	private Map<Long, List<Object>> signatures = new HashMap<>();
+	private Map<Ranking, List<Long>> orders = null;
+	private Set<Long> changed = new HashSet<>();
+	private Map<Long, List<Integer>> changedRanks = new HashMap<>();
+	private Competition competition;
+	private int nbRebuilds;
+	private int nbMoved;
+
+	/**
+	 * @return number of times the orders were built from the database
+	 */
+	public synchronized int getNbRebuilds() {
+		return nbRebuilds;
+	}
+
+	/**
+	 * @return number of athletes moved without rebuilding the orders
+	 */
+	public synchronized int getNbMoved() {
+		return nbMoved;
+	}
+
+	/**
+	 * Athletes in global ranking order, computed if needed.
+	 *
+	 * @param ranking BW_SINCLAIR or SMM
+	 * @param gender
+	 * @return a new list with the athletes of the given gender, which must not be
+	 *         modified
+	 */
+	public synchronized List<Athlete> getRanking(Ranking ranking, Gender gender) {
+		if (orders == null || !changed.isEmpty() || competition != Competition.getCurrent()) {
+			doUpdate(Collections.emptyList());
+		}
+		List<Long> order = orders.get(ranking);
+		if (order == null) {
+			return new ArrayList<>();
+		}
+		List<Athlete> ranked = new ArrayList<>(order.size());
+		for (Long id : order) {
+			Athlete a = athletes.get(id);
+			if (a.getGender() == gender) {
+				ranked.add(a);
+			}
+		}
+		return ranked;
+	}
+
+	/**
+	 * Forget the orders, they will be rebuilt from the database when next needed.
+	 */
+	public synchronized void invalidate() {
+		orders = null;
+	}
+
+	/**
+	 * The athlete has been written to the database, and must be read again.
+	 *
+	 * @param id
+	 */
+	public synchronized void markChanged(Long id) {
+		if (id != null) {
+			changed.add(id);
+		}
+	}
+
+	/**
+	 * Update the orders using athletes that have just been read, and set their
+	 * global ranks. The athletes are not kept by the index.
+	 *
+	 * @param athletes athletes read from the database by the caller
+	 * @return the Sinclair and SMM ranks, by id, of the other athletes whose
+	 *         global ranks changed since they were last returned
+	 */
+	public synchronized Map<Long, List<Integer>> update(List<Athlete> athletes) {
+		doUpdate(athletes);
+		for (Athlete a : athletes) {
+			changedRanks.remove(a.getId());
+			Athlete ranked = this.athletes.get(a.getId());
+			if (ranked != null) {
+				a.setSinclairRank(ranked.getSinclairRank());
+				a.setSmmRank(ranked.getSmmRank());
+			}
+		}
+		Map<Long, List<Integer>> others = changedRanks;
+		changedRanks = new HashMap<>();
+		return others;
+	}
+
+	private void doUpdate(List<Athlete> fresh) {
+		if (orders == null || competition != Competition.getCurrent()) {
+			rebuild();
+			return;
+		}
+
+		// only the athletes that differ from the copies in the index are read again
+		Set<Long> stale = new HashSet<>(changed);
+		for (Athlete a : fresh) {
+			Long id = a.getId();
+			if (!isWeighedIn(a)) {
+				if (athletes.containsKey(id)) {
+					stale.add(id);
+				}
+			} else if (!CategoryRankingIndex.signature(a).equals(signatures.get(id))) {
+				stale.add(id);
+			}
+		}
+		changed.clear();
+		Map<Long, Athlete> candidates = read(stale);
+
+		Set<Long> moved = new HashSet<>();
+		List<Athlete> inserted = new ArrayList<>();
+		for (Long id : stale) {
+			Athlete a = candidates.get(id);
+			if (a == null || !isWeighedIn(a)) {
+				if (athletes.remove(id) != null) {
+					signatures.remove(id);
+					moved.add(id);
+				}
+				continue;
+			}
+			List<Object> signature = CategoryRankingIndex.signature(a);
+			if (!signature.equals(signatures.get(id))) {
+				signatures.put(id, signature);
+				moved.add(id);
+				inserted.add(a);
+			}
+			athletes.put(id, a);
+		}
+
+		Map<Long, List<Integer>> before = ranks(athletes.values());
+		for (Ranking r : GLOBAL_RANKINGS) {
+			List<Athlete> sorted = new ArrayList<>(athletes.size());
+			for (Long id : orders.get(r)) {
+				if (!moved.contains(id)) {
+					sorted.add(athletes.get(id));
+				}
+			}
+			WinningOrderComparator comparator = new WinningOrderComparator(r, true);
+			for (Athlete a : inserted) {
+				int pos = Collections.binarySearch(sorted, a, comparator);
+				sorted.add(pos < 0 ? -pos - 1 : pos, a);
+			}
+			AthleteSorter.assignOverallRanksAndPoints(sorted, r);
+			orders.put(r, ids(sorted));
+		}
+		collectChangedRanks(before);
+		nbMoved += moved.size();
+		logger.debug("global rankings: {} athletes, {} moved", athletes.size(), moved.size());
+	}
+
+	/**
+	 * Remember the athletes whose ranks are no longer those they had before the
+	 * ranks were assigned; for athletes just read, those are the stored ranks.
+	 */
+	private void collectChangedRanks(Map<Long, List<Integer>> before) {
+		for (Athlete a : athletes.values()) {
+			List<Integer> after = ranks(a);
+			if (!after.equals(before.get(a.getId()))) {
+				changedRanks.put(a.getId(), after);
+			}
+		}
+	}
+
+	private List<Long> ids(List<Athlete> sorted) {
+		List<Long> ids = new ArrayList<>(sorted.size());
+		for (Athlete a : sorted) {
+			ids.add(a.getId());
+		}
+		return ids;
+	}
+
+	private boolean isWeighedIn(Athlete a) {
+		// same condition as AthleteRepository.doFindAllByGroupAndWeighIn
+		return a.getBodyWeight() != null && a.getBodyWeight() > 0;
+	}
+
+	private List<Integer> ranks(Athlete a) {
+		return Arrays.asList(a.getSinclairRank(), a.getSmmRank());
+	}
+
+	private Map<Long, List<Integer>> ranks(Iterable<Athlete> athletes) {
+		Map<Long, List<Integer>> ranks = new HashMap<>();
+		for (Athlete a : athletes) {
+			ranks.put(a.getId(), ranks(a));
+		}
+		return ranks;
+	}
+
+	/**
+	 * @return copies of the athletes that belong to the index, by id; athletes
+	 *         that no longer exist are absent
+	 */
+	private Map<Long, Athlete> read(Set<Long> ids) {
+		Map<Long, Athlete> read = new HashMap<>(ids.size() * 2);
+		if (ids.isEmpty()) {
+			return read;
+		}
+		JPAService.runInTransaction(em -> {
+			em.unwrap(Session.class).setDefaultReadOnly(true);
+			for (Long id : ids) {
+				Athlete a = em.find(Athlete.class, id);
+				if (a != null) {
+					read.put(id, a);
+				}
+			}
+			return null;
+		});
+		return read;
+	}
+
+	private void rebuild() {
+		List<Athlete> all = JPAService.runInTransaction(em -> {
+			em.unwrap(Session.class).setDefaultReadOnly(true);
+			return AthleteRepository.doFindAllByGroupAndWeighIn(em, null, true, null);
+		});
+		athletes = new HashMap<>(all.size() * 2);
+		signatures = new HashMap<>(all.size() * 2);
+		for (Athlete a : all) {
+			athletes.put(a.getId(), a);
+			signatures.put(a.getId(), CategoryRankingIndex.signature(a));
+		}
+		Map<Long, List<Integer>> before = ranks(all);
+		orders = new EnumMap<>(Ranking.class);
+		for (Ranking r : GLOBAL_RANKINGS) {
+			List<Athlete> sorted = AthleteSorter.resultsOrderCopy(all, r);
+			AthleteSorter.assignOverallRanksAndPoints(sorted, r);
+			orders.put(r, ids(sorted));
+		}
+		changedRanks.clear();
+		collectChangedRanks(before);
+		changed.clear();
+		competition = Competition.getCurrent();
+		nbRebuilds++;
+		logger.debug("global rankings rebuilt: {} athletes", all.size());
+	}
+
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.athleteSort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.category.Category;
+import app.owlcms.data.category.Participation;
+import app.owlcms.spreadsheet.PAthlete;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * The medalists of each category, kept between two decisions.
+ *
+ * The participations of the ranked athletes are grouped by category in a single
+ * pass. The medals of a category are computed again only if one of the
+ * participations in the category has changed (results, ranks, or a different
+ * athlete); otherwise the previous medalists, and the {@link PAthlete} wrappers
+ * in them, are reused.
+ *
+ * The medal sets are shared and must not be modified. One instance per
+ * competition; the medal sets of different categories can be computed by
+ * different fields of play at the same time.
+ *
+ * @author Jean-François Lamy
+ */
+public class MedalIndex {
+
+	/**
+	 * The medalists of a category and what they were computed from.
+	 */
+	private static class CategoryMedals {
+		private final boolean snatchCJTotalMedals;
+		private final List<List<Object>> signatures;
+		private final TreeSet<Athlete> medalists;
+
+		CategoryMedals(boolean snatchCJTotalMedals, List<List<Object>> signatures, TreeSet<Athlete> medalists) {
+			this.snatchCJTotalMedals = snatchCJTotalMedals;
+			this.signatures = signatures;
+			this.medalists = medalists;
+		}
+
+		boolean isFor(boolean snatchCJTotalMedals, List<List<Object>> signatures) {
+			return this.snatchCJTotalMedals == snatchCJTotalMedals && this.signatures.equals(signatures);
+		}
+	}
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(MedalIndex.class);
+
+	/**
+	 * @param rankedAthletes
+	 * @return the participations of the athletes, grouped by category. An athlete
+	 *         appears at most once in a category.
+	 */
+	public static TreeMap<Category, List<Participation>> participationsByCategory(List<Athlete> rankedAthletes) {
+		// categories that are the same for sorting purposes share an entry
+		TreeMap<Category, List<Participation>> byCategory = new TreeMap<>();
+		for (Athlete a : rankedAthletes) {
+			for (Participation p : a.getParticipations()) {
+				Category category = p.getCategory();
+				if (category == null) {
+					continue;
+				}
+				List<Participation> participations = byCategory.computeIfAbsent(category, (k) -> new ArrayList<>());
+				// only the first participation of an athlete in a category counts
+				int last = participations.size() - 1;
+				if (last < 0 || participations.get(last).getAthlete() != p.getAthlete()) {
+					participations.add(p);
+				}
+			}
+		}
+		return byCategory;
+	}
+
+	private static List<Object> signature(Participation p) {
+		Athlete a = p.getAthlete();
+		List<Object> signature = new ArrayList<>(CategoryRankingIndex.signature(a));
+		signature.add(a.getId());
+		signature.add(a.getLastName());
+		signature.add(a.getFirstName());
+		signature.add(a.getTeam());
+		signature.add(p.getSnatchRank());
+		signature.add(p.getCleanJerkRank());
+		signature.add(p.getTotalRank());
+		signature.add(p.getCustomRank());
+		return signature;
+	}
+
+	private final Map<String, CategoryMedals> byCategory = new ConcurrentHashMap<>();
+	private final AtomicInteger nbComputed = new AtomicInteger();
+	private final AtomicInteger nbReused = new AtomicInteger();
+
+	/**
+	 * @param rankedAthletes      athletes with their category ranks assigned
+	 * @param snatchCJTotalMedals whether medals are also awarded for snatch and
+	 *                            clean&amp;jerk
+	 * @return for each category, medal-winning athletes in snatch, clean &amp; jerk
+	 *         and total.
+	 */
+	public TreeMap<Category, TreeSet<Athlete>> computeMedals(List<Athlete> rankedAthletes,
+	        boolean snatchCJTotalMedals) {
+		TreeMap<Category, TreeSet<Athlete>> medals = new TreeMap<>();
+		participationsByCategory(rankedAthletes).forEach(
+		        (category, participations) -> medals.put(category,
+		                getMedalists(category, participations, snatchCJTotalMedals)));
+		return medals;
+	}
+
+	/**
+	 * @param rankedAthletes      athletes with their category ranks assigned
+	 * @param category
+	 * @param snatchCJTotalMedals whether medals are also awarded for snatch and
+	 *                            clean&amp;jerk
+	 * @return the medalists of the category, null if no athlete is in the category
+	 */
+	public TreeSet<Athlete> computeMedals(List<Athlete> rankedAthletes, Category category,
+	        boolean snatchCJTotalMedals) {
+		List<Participation> participations = participationsByCategory(rankedAthletes).get(category);
+		return participations != null ? getMedalists(category, participations, snatchCJTotalMedals) : null;
+	}
+
+	/**
+	 * @return the number of times the medals of a category were computed
+	 */
+	public int getNbComputed() {
+		return nbComputed.get();
+	}
+
+	/**
+	 * @return the number of times the previous medals of a category were reused
+	 */
+	public int getNbReused() {
+		return nbReused.get();
+	}
+
+	/**
+	 * Forget the medals, they will all be computed on the next call.
+	 */
+	public void reset() {
+		byCategory.clear();
+	}
+
+	private TreeSet<Athlete> computeMedalists(List<Participation> participations, boolean snatchCJTotalMedals) {
+		// all rankings are from a PAthlete, i.e., for the current medal category
+		List<Athlete> currentCategoryAthletes = new ArrayList<>(participations.size());
+		for (Participation p : participations) {
+			currentCategoryAthletes.add(new PAthlete(p));
+		}
+
+		// Athletes excluded from Total due to bombing out can still win medals, so we
+		// add them
+		TreeSet<Athlete> medalists = new TreeSet<>(new WinningOrderComparator(Ranking.TOTAL, false));
+		medalists.addAll(AthleteSorter.resultsOrderCopy(currentCategoryAthletes, Ranking.TOTAL)
+		        .stream().filter(a -> a.getTotal() > 0 && a.isEligibleForIndividualRanking())
+		        .collect(Collectors.toList()));
+		if (snatchCJTotalMedals) {
+			medalists.addAll(AthleteSorter.resultsOrderCopy(currentCategoryAthletes, Ranking.CLEANJERK)
+			        .stream().filter(a -> a.getBestCleanJerk() > 0 && a.isEligibleForIndividualRanking())
+			        .collect(Collectors.toList()));
+			medalists.addAll(AthleteSorter.resultsOrderCopy(currentCategoryAthletes, Ranking.SNATCH)
+			        .stream().filter(a -> a.getBestSnatch() > 0 && a.isEligibleForIndividualRanking())
+			        .collect(Collectors.toList()));
+		}
+		return medalists;
+	}
+
+	private TreeSet<Athlete> getMedalists(Category category, List<Participation> participations,
+	        boolean snatchCJTotalMedals) {
+		List<List<Object>> signatures = new ArrayList<>(participations.size());
+		for (Participation p : participations) {
+			signatures.add(signature(p));
+		}
+		String key = category.getComputedCode();
+		CategoryMedals previous = byCategory.get(key);
+		if (previous != null && previous.isFor(snatchCJTotalMedals, signatures)) {
+			nbReused.incrementAndGet();
+			return previous.medalists;
+		}
+		TreeSet<Athlete> medalists = computeMedalists(participations, snatchCJTotalMedals);
+		byCategory.put(key,
+		        new CategoryMedals(snatchCJTotalMedals, Collections.unmodifiableList(signatures), medalists));
+		nbComputed.incrementAndGet();
+		logger.trace("medals computed for {}: {}", category, medalists);
+		return medalists;
+	}
+
+}
@@ -11,6 +11,7 @@ import java.util.Objects;
 import javax.persistence.Column;
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapsId;
@@ -24,6 +25,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteChangeListener;
 import app.owlcms.data.athleteSort.AthleteSorter;
 import ch.qos.logback.classic.Logger;
 
@@ -37,6 +39,7 @@ import ch.qos.logback.classic.Logger;
  * @author Jean-François Lamy
  */
 @Entity(name = "Participation")
+@EntityListeners(AthleteChangeListener.class)
 @Table(name = "participation")
 @JsonIgnoreProperties(ignoreUnknown = true, value = { "hibernateLazyInitializer", "logger" })
 public class Participation implements IRankHolder {
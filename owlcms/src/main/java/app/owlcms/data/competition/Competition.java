@@ -11,17 +11,19 @@ import java.text.MessageFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import javax.persistence.Cacheable;
@@ -34,6 +36,7 @@ import javax.persistence.Id;
 import javax.persistence.Transient;
 
 import org.apache.commons.lang3.ObjectUtils;
+import org.hibernate.Hibernate;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -44,8 +47,9 @@ import app.owlcms.data.athlete.Athlete;
 import app.owlcms.data.athlete.AthleteRepository;
 import app.owlcms.data.athlete.Gender;
 import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.data.athleteSort.GlobalRankingIndex;
+import app.owlcms.data.athleteSort.MedalIndex;
 import app.owlcms.data.athleteSort.Ranking;
-import app.owlcms.data.athleteSort.WinningOrderComparator;
 import app.owlcms.data.category.AgeDivision;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.category.Participation;
@@ -96,6 +100,87 @@ public class Competition {
 		competition = c;
 	}
 
+	/**
+	 * One ranking of the athletes, sorted once and split by gender.
+	 */
+	private static final class RankingPass {
+		final List<Athlete> sorted;
+		final List<Athlete> men;
+		final List<Athlete> women;
+
+		RankingPass(List<Athlete> sorted) {
+			this.sorted = sorted;
+			this.men = new ArrayList<>(sorted.size());
+			this.women = new ArrayList<>(sorted.size());
+			splitByGender(sorted, men, women);
+		}
+
+		RankingPass(List<Athlete> men, List<Athlete> women) {
+			this.sorted = null;
+			this.men = men;
+			this.women = women;
+		}
+	}
+
+	/**
+	 * Run a ranking pass in the fork/join pool of the caller (the common pool if
+	 * the caller is not a pool thread).
+	 *
+	 * The passes only read the lift results and sort their own copy of the
+	 * athletes; the ranks they set are each in a different field.
+	 */
+	private static <T> ForkJoinTask<T> fork(Callable<T> pass) {
+		return ForkJoinTask.adapt(pass).fork();
+	}
+
+	private static ForkJoinTask<RankingPass> forkOverallRanking(List<Athlete> athletes, Ranking ranking) {
+		return fork(() -> {
+			List<Athlete> sorted = AthleteSorter.resultsOrderCopy(athletes, ranking);
+			AthleteSorter.assignOverallRanksAndPoints(sorted, ranking);
+			return new RankingPass(sorted);
+		});
+	}
+
+	/**
+	 * Load the lazy associations used by the comparators, so that the ranking
+	 * passes running in other threads do not go to the database.
+	 *
+	 * @param athletes
+	 */
+	private static void prepareForRankings(List<Athlete> athletes) {
+		for (Athlete a : athletes) {
+			Hibernate.initialize(a.getGroup());
+			Category category = a.getCategory();
+			if (category != null) {
+				Hibernate.initialize(category);
+				Hibernate.initialize(category.getAgeGroup());
+			}
+			List<Participation> participations = a.getParticipations();
+			Hibernate.initialize(participations);
+			for (Participation p : participations) {
+				Category pCategory = p.getCategory();
+				if (pCategory != null) {
+					Hibernate.initialize(pCategory);
+					Hibernate.initialize(pCategory.getAgeGroup());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sort the athletes again for each ranking, starting from the previous order
+	 * so that the ties stay in the same order.
+	 */
+	private static List<List<Athlete>> teamPointsOrders(List<Athlete> athletes, Ranking... rankings) {
+		List<List<Athlete>> orders = new ArrayList<>(rankings.length);
+		List<Athlete> sorted = athletes;
+		for (Ranking r : rankings) {
+			sorted = AthleteSorter.teamPointsOrderCopy(sorted, r);
+			orders.add(sorted);
+		}
+		return orders;
+	}
+
 	public static void splitByGender(List<Athlete> athletes, List<Athlete> sortedMen, List<Athlete> sortedWomen) {
 		for (Athlete l : athletes) {
 			Gender gender = l.getGender();
@@ -174,6 +259,10 @@ public class Competition {
 	@Column(columnDefinition = "boolean default false")
 	private boolean fixedOrder;
 
+	/* changed when the lifts are cleared or the data restored; the journals of the fields of play are stamped with it */
+	@JsonIgnore
+	private String journalEpoch;
+
 	private String juryTemplateFileName;
 	private boolean masters;
 
@@ -187,6 +276,10 @@ public class Competition {
 	@JsonIgnore
 	private HashMap<Group, TreeMap<Category, TreeSet<Athlete>>> medalsByGroup;
 
+	@Transient
+	@JsonIgnore
+	private MedalIndex medalIndex;
+
 	private String medalsTemplateFileName;
 
 	@Column(columnDefinition = "integer default 10")
@@ -194,15 +287,31 @@ public class Competition {
 
 	private String protocolTemplateFileName;
 
+	@Column(name = "refdelay", columnDefinition = "integer default 1500")
+	private int refereeWakeUpDelay = 1500;
+
+	/**
+	 * Latest reporting snapshot for each age group prefix and age division.
+	 */
 	@Transient
 	@JsonIgnore
-	private boolean rankingsInvalid = true;
+	private final Map<String, ReportingSnapshot> reportingSnapshots = new ConcurrentHashMap<>();
 
-	@Column(name = "refdelay", columnDefinition = "integer default 1500")
-	private int refereeWakeUpDelay = 1500;
+	/**
+	 * Only one thread computes the snapshot for a given key.
+	 */
+	@Transient
+	@JsonIgnore
+	private final Map<String, ReentrantLock> reportingLocks = new ConcurrentHashMap<>();
 
+	/**
+	 * Incremented each time athlete results are saved. Snapshots computed for an
+	 * older version are recomputed when next needed.
+	 */
 	@Transient
-	private HashMap<String, Object> reportingBeans = new HashMap<>();
+	@JsonIgnore
+	private final AtomicLong resultsVersion = new AtomicLong(1);
+
 	/**
 	 * All first lifts, then all second lifts, then all third lifts, etc. Can be
 	 * combined with genderOrder as well.
@@ -267,6 +376,7 @@ public class Competition {
 
 	public Competition() {
 		medalsByGroup = new HashMap<>();
+		medalIndex = new MedalIndex();
 	}
 
 	/**
@@ -282,7 +392,7 @@ public class Competition {
 	public TreeSet<Athlete> computeMedalsForCategory(Category category) {
 		// brute force - reuse what works
 		List<Athlete> rankedAthletes = AthleteRepository.findAthletesForGlobalRanking(null);
-		TreeSet<Athlete> treeSet = computeMedalsByCategory(rankedAthletes).get(category);
+		TreeSet<Athlete> treeSet = getMedalIndex().computeMedals(rankedAthletes, category, isSnatchCJTotalMedals());
 		//logger.debug("computeMedalsForCategory {}",treeSet);
 		return treeSet;
 	}
@@ -315,104 +425,57 @@ public class Competition {
 		return medals;
 	}
 
+	/**
+	 * @param rankedAthletes athletes with their category ranks assigned
+	 * @return for each category, medal-winnning athletes in snatch, clean & jerk
+	 *         and total. The medals of categories whose athletes have not changed
+	 *         are the same as on the previous call, and must not be modified.
+	 */
 	public TreeMap<Category, TreeSet<Athlete>> computeMedalsByCategory(List<Athlete> rankedAthletes
 			//,	        boolean onlyFinished
 	        ) {
-		// extract all categories
-		Set<Category> medalCategories = rankedAthletes.stream()
-		        .map(a -> a.getEligibleCategories())
-		        .flatMap(Collection::stream)
-		        .collect(Collectors.toSet());
-
 		//onlyFinishedCategories(rankedAthletes, onlyFinished, medalCategories);
-
-		TreeMap<Category, TreeSet<Athlete>> medals = new TreeMap<>();
-
-		// iterate over the remaining categories
-		for (Category category : medalCategories) {
-
-			List<Athlete> currentCategoryAthletes = new ArrayList<>();
-			for (Athlete a : rankedAthletes) {
-				// fetch the participation that matches the current athlete registration
-				// category
-				Optional<Participation> matchingParticipation = a.getParticipations().stream()
-				        .filter(p -> p.getCategory().sameAs(category)).findFirst();
-				// get a PAthlete proxy wrapper that has the rankings for that participation
-				if (matchingParticipation.isPresent()) {
-					currentCategoryAthletes.add(new PAthlete(matchingParticipation.get()));
-				}
-			}
-
-			// all rankings are from a PAthlete, i.e., for the current medal category
-			List<Athlete> snatchLeaders = null;
-			List<Athlete> cjLeaders = null;
-			if (isSnatchCJTotalMedals()) {
-				snatchLeaders = AthleteSorter.resultsOrderCopy(currentCategoryAthletes, Ranking.SNATCH)
-				        .stream().filter(a -> a.getBestSnatch() > 0 && a.isEligibleForIndividualRanking())
-				        .collect(Collectors.toList());
-				cjLeaders = AthleteSorter.resultsOrderCopy(currentCategoryAthletes, Ranking.CLEANJERK)
-				        .stream().filter(a -> a.getBestCleanJerk() > 0 && a.isEligibleForIndividualRanking())
-				        .collect(Collectors.toList());
-			}
-			List<Athlete> totalLeaders = AthleteSorter.resultsOrderCopy(currentCategoryAthletes, Ranking.TOTAL)
-			        .stream().filter(a -> a.getTotal() > 0 && a.isEligibleForIndividualRanking())
-			        .collect(Collectors.toList());
-
-			// Athletes excluded from Total due to bombing out can still win medals, so we
-			// add them
-			TreeSet<Athlete> medalists = new TreeSet<>(new WinningOrderComparator(Ranking.TOTAL, false));
-			medalists.addAll(totalLeaders);
-			if (isSnatchCJTotalMedals()) {
-				medalists.addAll(cjLeaders);
-				medalists.addAll(snatchLeaders);
-			}
-			medals.put(category, medalists);
-
-//            logger.debug("medalists for {}", category);
-//            for (Athlete medalist : medalists) {
-//                logger.debug("{}\t{} {} {} S {}", medalist.getShortName(), medalist.getSnatchRank(),
-//                        medalist.getCleanJerkRank(), medalist.getTotalRank(), medalist.getSinclairRank());
-//            }
-		}
-		return medals;
+		return getMedalIndex().computeMedals(rankedAthletes, isSnatchCJTotalMedals());
 	}
 
-	synchronized public HashMap<String, Object> computeReportingInfo() {
-		List<Athlete> athletes = AgeGroupRepository.allWeighedInPAthletesForAgeGroupAgeDivision(null, null);
-		doComputeReportingInfo(true, athletes, (String) null, null);
-		return reportingBeans;
+	public HashMap<String, Object> computeReportingInfo() {
+		return computeReportingInfo(null, null);
 	}
 
-	synchronized public HashMap<String, Object> computeReportingInfo(String ageGroupPrefix, AgeDivision ad) {
-		List<Athlete> athletes = AgeGroupRepository.allWeighedInPAthletesForAgeGroupAgeDivision(ageGroupPrefix, ad);
-		doComputeReportingInfo(true, athletes, ageGroupPrefix, ad);
-		return reportingBeans;
+	/**
+	 * Rankings for the results documents and team results.
+	 *
+	 * @param ageGroupPrefix
+	 * @param ad
+	 * @return a new map with the lists from the current snapshot, that the caller
+	 *         can add to. The lists themselves are shared and cannot be modified.
+	 */
+	public HashMap<String, Object> computeReportingInfo(String ageGroupPrefix, AgeDivision ad) {
+		ReportingSnapshot snapshot = getReportingSnapshot(ageGroupPrefix, ad);
+		HashMap<String, Object> beans = snapshot.getBeans();
+		if (snapshot.isEmpty()) {
+			// prevent outputting silliness.
+			return beans;
+		}
+		// not versioned with the results; the translations depend on the caller's
+		// locale.
+		beans.put("competition", Competition.getCurrent());
+		beans.put("groups", GroupRepository.findAll().stream().sorted((a, b) -> {
+			int compare = ObjectUtils.compare(a.getWeighInTime(), b.getWeighInTime(), true);
+			if (compare != 0) {
+				return compare;
+			}
+			return compare = ObjectUtils.compare(a.getPlatform(), b.getPlatform(), true);
+		}).collect(Collectors.toList()));
+		beans.put("t", Translator.getMap());
+		return beans;
 	}
 
-	public void doGlobalRankings(List<Athlete> athletes) {
-		List<Athlete> sortedAthletes;
-		List<Athlete> sortedMen;
-		List<Athlete> sortedWomen;
-
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.BW_SINCLAIR);
-		AthleteSorter.assignOverallRanksAndPoints(sortedAthletes, Ranking.BW_SINCLAIR);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mSinclair", sortedMen);
-		reportingBeans.put("wSinclair", sortedWomen);
-		logger.debug("mSinclair {}", sortedMen);
-		logger.debug("wSinclair {}", sortedWomen);
-
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.SMM);
-		AthleteSorter.assignOverallRanksAndPoints(sortedAthletes, Ranking.SMM);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mSmm", sortedMen);
-		reportingBeans.put("wSmm", sortedWomen);
-		logger.debug("mSmm {}", sortedMen);
-		logger.debug("wSmm {}", sortedWomen);
+	public void doGlobalRankings(Map<String, Object> beans, List<Athlete> athletes) {
+		prepareForRankings(athletes);
+		ForkJoinTask<RankingPass> sinclair = forkOverallRanking(athletes, Ranking.BW_SINCLAIR);
+		ForkJoinTask<RankingPass> smm = forkOverallRanking(athletes, Ranking.SMM);
+		putGlobalRankings(beans, sinclair.join(), smm.join());
 	}
 
 	@Override
@@ -652,8 +715,8 @@ public class Competition {
 
 	@Transient
 	@JsonIgnore
-	synchronized public List<Athlete> getGlobalSinclairRanking(Gender gender) {
-		return getListOrElseRecompute(gender == Gender.F ? "wSinclair" : "mSinclair");
+	public List<Athlete> getGlobalSinclairRanking(Gender gender) {
+		return GlobalRankingIndex.getCurrent().getRanking(Ranking.BW_SINCLAIR, gender);
 	}
 
 	/**
@@ -674,6 +737,10 @@ public class Competition {
 		return 0;
 	}
 
+	public String getJournalEpoch() {
+		return journalEpoch;
+	}
+
 	public Integer getJurySize() {
 		if (jurySize == null || jurySize < 3) {
 			return 3;
@@ -691,26 +758,16 @@ public class Competition {
 	@SuppressWarnings("unchecked")
 	@Transient
 	@JsonIgnore
-	synchronized public List<Athlete> getListOrElseRecompute(String listName) {
-		List<Athlete> athletes = (List<Athlete>) reportingBeans.get(listName);
-		if (isRankingsInvalid() || athletes == null) {
-			setRankingsInvalid(true);
-			while (isRankingsInvalid()) { // could be made invalid again while we compute
-				setRankingsInvalid(false);
-				// recompute because an athlete has been saved (new weight requested, good/bad
-				// lift, etc.)
-				computeReportingInfo();
-				athletes = (List<Athlete>) reportingBeans.get(listName);
-				if (athletes == null) {
-					String error = MessageFormat.format("list {0} not found", listName);
-					logger./**/warn(error);
-					athletes = Collections.emptyList();
-				}
-			}
-			logger.debug("recomputed {} size {} from {}", listName, athletes != null ? athletes.size() : null);
-		} else {
-			logger.debug("found {} size {} from {}", listName, athletes != null ? athletes.size() : null);
+	public List<Athlete> getListOrElseRecompute(String listName) {
+		// recomputed if an athlete has been saved (new weight requested, good/bad
+		// lift, etc.)
+		List<Athlete> athletes = (List<Athlete>) getReportingSnapshot(null, null).get(listName);
+		if (athletes == null) {
+			String error = MessageFormat.format("list {0} not found", listName);
+			logger./**/warn(error);
+			athletes = Collections.emptyList();
 		}
+		logger.debug("found {} size {}", listName, athletes.size());
 		return athletes;
 	}
 
@@ -740,6 +797,19 @@ public class Competition {
 		return isMasters();
 	}
 
+	/**
+	 * @return the medals computed for each category, reused until the results in
+	 *         the category change
+	 */
+	@Transient
+	@JsonIgnore
+	public MedalIndex getMedalIndex() {
+		if (medalIndex == null) {
+			medalIndex = new MedalIndex();
+		}
+		return medalIndex;
+	}
+
 	public TreeMap<Category, TreeSet<Athlete>> getMedals(Group g, boolean onlyFinished) {
 		TreeMap<Category, TreeSet<Athlete>> medals;
 		if (medalsByGroup == null || (medals = medalsByGroup.get(g)) == null) {
@@ -795,10 +865,64 @@ public class Competition {
 		return refereeWakeUpDelay;
 	}
 
+	/**
+	 * The latest rankings for an age group prefix and age division.
+	 *
+	 * Recomputed only if athlete results have been saved since the latest snapshot
+	 * was computed. If another thread is already recomputing the snapshot, the
+	 * latest completed snapshot is returned without waiting.
+	 *
+	 * @param ageGroupPrefix
+	 * @param ad
+	 * @return an immutable snapshot
+	 */
+	@Transient
+	@JsonIgnore
+	public ReportingSnapshot getReportingSnapshot(String ageGroupPrefix, AgeDivision ad) {
+		String key = ReportingSnapshot.key(ageGroupPrefix, ad);
+		ReportingSnapshot latest = reportingSnapshots.get(key);
+		if (latest != null && latest.getVersion() == resultsVersion.get()) {
+			return latest;
+		}
+
+		ReentrantLock lock = reportingLocks.computeIfAbsent(key, (k) -> new ReentrantLock());
+		if (!lock.tryLock()) {
+			if (latest != null) {
+				logger.debug("snapshot {} being recomputed, using version {}", key, latest.getVersion());
+				return latest;
+			}
+			// nothing computed yet, wait for the other thread.
+			lock.lock();
+		}
+		try {
+			// the results may be saved again while we compute; the snapshot is then
+			// recomputed on the next call.
+			long version = resultsVersion.get();
+			latest = reportingSnapshots.get(key);
+			if (latest != null && latest.getVersion() == version) {
+				return latest;
+			}
+			List<Athlete> athletes = AgeGroupRepository.allWeighedInPAthletesForAgeGroupAgeDivision(ageGroupPrefix,
+			        ad);
+			Map<String, Object> beans = new HashMap<>();
+			doComputeReportingInfo(beans, true, athletes, ageGroupPrefix, ad);
+			latest = new ReportingSnapshot(ageGroupPrefix, ad, version, beans);
+			reportingSnapshots.put(key, latest);
+			logger.debug("computed {}", latest);
+			return latest;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the version of the athlete results, incremented each time they are
+	 *         saved
+	 */
 	@Transient
 	@JsonIgnore
-	public HashMap<String, Object> getReportingBeans() {
-		return reportingBeans;
+	public long getResultsVersion() {
+		return resultsVersion.get();
 	}
 
 	public int getSinclairYear() {
@@ -835,12 +959,14 @@ public class Competition {
 
 	public void globalRankings() {
 		List<Athlete> athletes = AthleteRepository.findAllByGroupAndWeighIn(null, true);
-		doGlobalRankings(athletes);
+		// only the ranks are needed, the lists are not reported
+		doGlobalRankings(new HashMap<>(), athletes);
 	}
 
 	public void globalRankings(EntityManager em) {
 		List<Athlete> athletes = AthleteRepository.doFindAllByGroupAndWeighIn(em, null, true, null);
-		doGlobalRankings(athletes);
+		// only the ranks are needed, the lists are not reported
+		doGlobalRankings(new HashMap<>(), athletes);
 	}
 
 	@Override
@@ -892,8 +1018,15 @@ public class Competition {
 		return mastersGenderEquality;
 	}
 
-	synchronized public boolean isRankingsInvalid() {
-		return rankingsInvalid;
+	/**
+	 * @return true if results have been saved since the competition-wide rankings
+	 *         were last computed
+	 */
+	@Transient
+	@JsonIgnore
+	public boolean isRankingsInvalid() {
+		ReportingSnapshot latest = reportingSnapshots.get(ReportingSnapshot.key(null, null));
+		return latest == null || latest.getVersion() != resultsVersion.get();
 	}
 
 	public boolean isRoundRobinOrder() {
@@ -1115,6 +1248,10 @@ public class Competition {
 	public void setInvitedIfBornBefore(Integer invitedIfBornBefore) {
 	}
 
+	public void setJournalEpoch(String journalEpoch) {
+		this.journalEpoch = journalEpoch;
+	}
+
 	public void setJurySize(Integer jurySize) {
 		this.jurySize = jurySize;
 	}
@@ -1155,8 +1292,17 @@ public class Competition {
 		this.protocolTemplateFileName = protocolFileName;
 	}
 
-	synchronized public void setRankingsInvalid(boolean invalid) {
-		this.rankingsInvalid = invalid;
+	/**
+	 * Athlete results have been saved. The rankings are recomputed when next
+	 * needed.
+	 *
+	 * @param invalid true if results have changed; false is ignored, the rankings
+	 *                become valid when recomputed.
+	 */
+	public void setRankingsInvalid(boolean invalid) {
+		if (invalid) {
+			resultsVersion.incrementAndGet();
+		}
 	}
 
 	public void setRefereeWakeUpDelay(int refereeWakeUpDelay) {
@@ -1234,134 +1380,126 @@ public class Competition {
 		        + womensTeamSize + ", customScore=" + customScore + ", mastersGenderEquality=" + mastersGenderEquality
 		        + ", useBirthYear=" + isUseBirthYear() + ", useCategorySinclair=" + useCategorySinclair
 		        + ", useOldBodyWeightTieBreak=" + useOldBodyWeightTieBreak + ", useRegistrationCategory="
-		        + useRegistrationCategory + ", reportingBeans=" + reportingBeans + "]";
+		        + useRegistrationCategory + ", resultsVersion=" + resultsVersion + "]";
 	}
 
-	private void addToReportingBean(String string, List<Athlete> sorted) {
-		List<Athlete> athletes = getOrCreateBean(string);
+	private void addToReportingBean(Map<String, Object> beans, String string, List<Athlete> sorted) {
+		List<Athlete> athletes = getOrCreateBean(beans, string);
 		athletes.addAll(sorted);
 	}
 
-	private void categoryRankings(List<Athlete> athletes) {
-		List<Athlete> sortedAthletes;
-		List<Athlete> sortedMen = null;
-		List<Athlete> sortedWomen = null;
-
-		reportingBeans.clear();
-
-		reportingBeans.put("competition", Competition.getCurrent());
-		reportingBeans.put("groups", GroupRepository.findAll().stream().sorted((a, b) -> {
-			int compare = ObjectUtils.compare(a.getWeighInTime(), b.getWeighInTime(), true);
-			if (compare != 0) {
-				return compare;
-			}
-			return compare = ObjectUtils.compare(a.getPlatform(), b.getPlatform(), true);
-		}).collect(Collectors.toList()));
-		reportingBeans.put("t", Translator.getMap());
-
+	private void categoryRankings(Map<String, Object> beans, List<Athlete> athletes, List<Athlete> men,
+	        List<Athlete> women) {
 		// sort only, use ranks stored in database
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.SNATCH, false);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mSn", sortedMen);
-		reportingBeans.put("wSn", sortedWomen);
-
-		// sort only, use ranks stored in database
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.CLEANJERK, false);
-		AthleteSorter.assignCategoryRanks(sortedAthletes, Ranking.CLEANJERK);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mCJ", sortedMen);
-		reportingBeans.put("wCJ", sortedWomen);
-
-		// sort only, use ranks stored in database
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.TOTAL, false);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mTot", sortedMen);
-		reportingBeans.put("wTot", sortedWomen);
-		reportingBeans.put("mwTot", sortedAthletes);
-		logger.debug("mTot {}", sortedMen);
-		logger.debug("wTot {}", sortedWomen);
+		// the sort is stable, sorting each gender gives the same order as splitting the sorted list
+		ForkJoinTask<List<Athlete>> mSn = fork(() -> AthleteSorter.resultsOrderCopy(men, Ranking.SNATCH, false));
+		ForkJoinTask<List<Athlete>> wSn = fork(() -> AthleteSorter.resultsOrderCopy(women, Ranking.SNATCH, false));
+		ForkJoinTask<RankingPass> cj = fork(() -> {
+			List<Athlete> sorted = AthleteSorter.resultsOrderCopy(athletes, Ranking.CLEANJERK, false);
+			AthleteSorter.assignCategoryRanks(sorted, Ranking.CLEANJERK);
+			return new RankingPass(sorted);
+		});
+		ForkJoinTask<RankingPass> tot = fork(
+		        () -> new RankingPass(AthleteSorter.resultsOrderCopy(athletes, Ranking.TOTAL, false)));
+		ForkJoinTask<List<Athlete>> mCus = fork(() -> AthleteSorter.resultsOrderCopy(men, Ranking.CUSTOM));
+		ForkJoinTask<List<Athlete>> wCus = fork(() -> AthleteSorter.resultsOrderCopy(women, Ranking.CUSTOM));
+		ForkJoinTask<RankingPass> catSinclair = forkOverallRanking(athletes, Ranking.CAT_SINCLAIR);
+		ForkJoinTask<RankingPass> robi = forkOverallRanking(athletes, Ranking.ROBI);
+
+		beans.put("mSn", mSn.join());
+		beans.put("wSn", wSn.join());
+
+		RankingPass pass = cj.join();
+		beans.put("mCJ", pass.men);
+		beans.put("wCJ", pass.women);
+
+		pass = tot.join();
+		beans.put("mTot", pass.men);
+		beans.put("wTot", pass.women);
+		beans.put("mwTot", pass.sorted);
+		logger.debug("mTot {}", pass.men);
+		logger.debug("wTot {}", pass.women);
 //        for (Athlete a : sortedMen) {
 //            debugRanks("mTot", a);
 //        }
 
-		// sort only, use ranks stored in database
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.CUSTOM);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mCus", sortedMen);
-		reportingBeans.put("wCus", sortedWomen);
-		logger.debug("mCus {}", sortedMen);
-		logger.debug("wCus {}", sortedWomen);
-
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.CAT_SINCLAIR);
-		AthleteSorter.assignOverallRanksAndPoints(sortedAthletes, Ranking.CAT_SINCLAIR);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mCatSinclair", sortedMen);
-		reportingBeans.put("wCatSinclair", sortedWomen);
-		logger.debug("mCatSinclair {}", sortedMen);
-		logger.debug("wCatSinclair {}", sortedWomen);
-
-		sortedAthletes = AthleteSorter.resultsOrderCopy(athletes, Ranking.ROBI);
-		AthleteSorter.assignOverallRanksAndPoints(sortedAthletes, Ranking.ROBI);
-		sortedMen = new ArrayList<>(sortedAthletes.size());
-		sortedWomen = new ArrayList<>(sortedAthletes.size());
-		splitByGender(sortedAthletes, sortedMen, sortedWomen);
-		reportingBeans.put("mRobi", sortedMen);
-		reportingBeans.put("wRobi", sortedWomen);
-		reportingBeans.put("mwRobi", sortedAthletes);
-	}
-
-	private void clearTeamReportingBeans(String suffix) {
-		getOrCreateBean("mCombined" + suffix).clear();
-		getOrCreateBean("wCombined" + suffix).clear();
-		getOrCreateBean("mwCombined" + suffix).clear();
-		getOrCreateBean("mTeam" + suffix).clear();
-		getOrCreateBean("wTeam" + suffix).clear();
-		getOrCreateBean("mwTeam" + suffix).clear();
-		getOrCreateBean("mCustom" + suffix).clear();
-		getOrCreateBean("wCustom" + suffix).clear();
-		getOrCreateBean("mwCustom" + suffix).clear();
-	}
-
-	private void doComputeReportingInfo(boolean full, List<Athlete> athletes, String ageGroupPrefix,
-	        AgeDivision ad) {
-		// reporting does many database queries. fork a low-priority thread.
-		runInThread(() -> {
-			if (athletes.isEmpty()) {
-				// prevent outputting silliness.
-				logger./**/warn("no athletes");
-				reportingBeans.clear();
-				return;
-			}
+		pass = new RankingPass(mCus.join(), wCus.join());
+		beans.put("mCus", pass.men);
+		beans.put("wCus", pass.women);
+		logger.debug("mCus {}", pass.men);
+		logger.debug("wCus {}", pass.women);
 
-			// the ranks within a category are stored in the database and
-			// not recomputed
-			categoryRankings(athletes);
-
-			// splitResultsByGroups(athletes);
-			if (full) {
-				reportingBeans.put("athletes", athletes);
-				// logger.debug("ad={} ageGroupPrefix={}", ad, ageGroupPrefix);
-				if (ad != null && (ageGroupPrefix == null || ageGroupPrefix.isBlank())) {
-					// iterate over all age groups present in age division ad
-					teamRankingsForAgeDivision(ad);
-				} else {
-					teamRankings(athletes, ageGroupPrefix);
-				}
+		pass = catSinclair.join();
+		beans.put("mCatSinclair", pass.men);
+		beans.put("wCatSinclair", pass.women);
+		logger.debug("mCatSinclair {}", pass.men);
+		logger.debug("wCatSinclair {}", pass.women);
+
+		pass = robi.join();
+		beans.put("mRobi", pass.men);
+		beans.put("wRobi", pass.women);
+		beans.put("mwRobi", pass.sorted);
+	}
+
+	private void clearTeamReportingBeans(Map<String, Object> beans, String suffix) {
+		getOrCreateBean(beans, "mCombined" + suffix).clear();
+		getOrCreateBean(beans, "wCombined" + suffix).clear();
+		getOrCreateBean(beans, "mwCombined" + suffix).clear();
+		getOrCreateBean(beans, "mTeam" + suffix).clear();
+		getOrCreateBean(beans, "wTeam" + suffix).clear();
+		getOrCreateBean(beans, "mwTeam" + suffix).clear();
+		getOrCreateBean(beans, "mCustom" + suffix).clear();
+		getOrCreateBean(beans, "wCustom" + suffix).clear();
+		getOrCreateBean(beans, "mwCustom" + suffix).clear();
+	}
+
+	/**
+	 * Compute the rankings used by the results documents.
+	 *
+	 * The independent ranking passes (one sort of the athletes for each kind of
+	 * ranking) run in parallel in the fork/join pool of the caller; the team
+	 * rankings, which use the clean&jerk points, run once the category rankings
+	 * are done. With a null age division, the database is not used.
+	 *
+	 * @param beans          the lists are added to this map
+	 * @param full           also compute the team rankings
+	 * @param athletes       the athletes, not modified
+	 * @param ageGroupPrefix
+	 * @param ad
+	 */
+	public void doComputeReportingInfo(Map<String, Object> beans, boolean full, List<Athlete> athletes,
+	        String ageGroupPrefix, AgeDivision ad) {
+		if (athletes.isEmpty()) {
+			// prevent outputting silliness.
+			logger./**/warn("no athletes");
+			return;
+		}
+		prepareForRankings(athletes);
+		// the overall ranks are not used by the other rankings
+		ForkJoinTask<RankingPass> sinclair = forkOverallRanking(athletes, Ranking.BW_SINCLAIR);
+		ForkJoinTask<RankingPass> smm = forkOverallRanking(athletes, Ranking.SMM);
+
+		// the ranks within a category are stored in the database and
+		// not recomputed
+		List<Athlete> men = new ArrayList<>(athletes.size());
+		List<Athlete> women = new ArrayList<>(athletes.size());
+		splitByGender(athletes, men, women);
+		categoryRankings(beans, athletes, men, women);
+
+		// splitResultsByGroups(beans, athletes);
+		if (full) {
+			beans.put("athletes", athletes);
+			// logger.debug("ad={} ageGroupPrefix={}", ad, ageGroupPrefix);
+			if (ad != null && (ageGroupPrefix == null || ageGroupPrefix.isBlank())) {
+				// iterate over all age groups present in age division ad
+				teamRankingsForAgeDivision(beans, ad);
+			} else {
+				teamRankings(beans, athletes, ageGroupPrefix);
 			}
+		}
 
-			doGlobalRankings(athletes);
-			// globalRankings();
-		}, Thread.MIN_PRIORITY);
+		putGlobalRankings(beans, sinclair.join(), smm.join());
+		// globalRankings();
 	}
 
 	/**
@@ -1371,13 +1509,13 @@ public class Competition {
 	 * ranking. Caller is responsible for putting several age groups together (e.g.
 	 * for Masters), or using a single age group (e.g. SR)
 	 *
-	 * Reporting beans are modified. Caller must clear them beforehand if needed.
+	 * The beans are modified. Caller must clear them beforehand if needed.
 	 *
 	 * @param athletes
 	 * @param singleAgeGroup true if not called in a loop, can compute team stats.
 	 * @param ageGroupPrefix
 	 */
-	private void doTeamRankings(List<Athlete> athletes, String suffix, boolean singleAgeGroup) {
+	private void doTeamRankings(Map<String, Object> beans, List<Athlete> athletes, String suffix, boolean singleAgeGroup) {
 		// team-oriented rankings. These rankings put all the athletes from the same
 		// team
 		// together, sorted according to their points, so the top n can be kept if
@@ -1389,39 +1527,55 @@ public class Competition {
 		List<Athlete> sortedMen = new ArrayList<>();
 		List<Athlete> sortedWomen = new ArrayList<>();
 		splitPTeamMembersByGender(athletes, sortedMen, sortedWomen);
-
-		sortedAthletes = AthleteSorter.teamPointsOrderCopy(athletes, Ranking.TOTAL);
-		sortedMen = AthleteSorter.teamPointsOrderCopy(sortedMen, Ranking.TOTAL);
-		sortedWomen = AthleteSorter.teamPointsOrderCopy(sortedWomen, Ranking.TOTAL);
-		addToReportingBean("mTeam" + suffix, sortedMen);
-		addToReportingBean("wTeam" + suffix, sortedWomen);
-		addToReportingBean("mwTeam" + suffix, sortedAthletes);
+		prepareForRankings(athletes);
+
+		// each gender is sorted again from the previous ranking, the mixed lists from
+		// the athletes
+		List<Athlete> men = sortedMen;
+		List<Athlete> women = sortedWomen;
+		ForkJoinTask<List<List<Athlete>>> menOrders = fork(
+		        () -> teamPointsOrders(men, Ranking.TOTAL, Ranking.SNATCH_CJ_TOTAL, Ranking.CUSTOM));
+		ForkJoinTask<List<List<Athlete>>> womenOrders = fork(
+		        () -> teamPointsOrders(women, Ranking.TOTAL, Ranking.SNATCH_CJ_TOTAL, Ranking.CUSTOM));
+		ForkJoinTask<List<Athlete>> mwTeam = fork(() -> AthleteSorter.teamPointsOrderCopy(athletes, Ranking.TOTAL));
+		ForkJoinTask<List<Athlete>> mwCombined = fork(
+		        () -> AthleteSorter.teamPointsOrderCopy(athletes, Ranking.SNATCH_CJ_TOTAL));
+		ForkJoinTask<List<Athlete>> mwCustom = fork(() -> AthleteSorter.teamPointsOrderCopy(athletes, Ranking.CUSTOM));
+		List<List<Athlete>> mOrders = menOrders.join();
+		List<List<Athlete>> wOrders = womenOrders.join();
+
+		sortedAthletes = mwTeam.join();
+		sortedMen = mOrders.get(0);
+		sortedWomen = wOrders.get(0);
+		addToReportingBean(beans, "mTeam" + suffix, sortedMen);
+		addToReportingBean(beans, "wTeam" + suffix, sortedWomen);
+		addToReportingBean(beans, "mwTeam" + suffix, sortedAthletes);
 		if (singleAgeGroup) {
-			reportTeams(sortedAthletes, sortedMen, sortedWomen);
+			reportTeams(beans, sortedAthletes, sortedMen, sortedWomen);
 		}
 
-		sortedAthletes = AthleteSorter.teamPointsOrderCopy(athletes, Ranking.SNATCH_CJ_TOTAL);
-		sortedMen = AthleteSorter.teamPointsOrderCopy(sortedMen, Ranking.SNATCH_CJ_TOTAL);
-		sortedWomen = AthleteSorter.teamPointsOrderCopy(sortedWomen, Ranking.SNATCH_CJ_TOTAL);
-		addToReportingBean("mCombined" + suffix, sortedMen);
-		addToReportingBean("wCombined" + suffix, sortedWomen);
-		addToReportingBean("mwCombined" + suffix, sortedAthletes);
+		sortedAthletes = mwCombined.join();
+		sortedMen = mOrders.get(1);
+		sortedWomen = wOrders.get(1);
+		addToReportingBean(beans, "mCombined" + suffix, sortedMen);
+		addToReportingBean(beans, "wCombined" + suffix, sortedWomen);
+		addToReportingBean(beans, "mwCombined" + suffix, sortedAthletes);
 		if (singleAgeGroup) {
-			reportCombined(sortedAthletes, sortedMen, sortedWomen);
+			reportCombined(beans, sortedAthletes, sortedMen, sortedWomen);
 		}
 
-		sortedAthletes = AthleteSorter.teamPointsOrderCopy(athletes, Ranking.CUSTOM);
-		sortedMen = AthleteSorter.teamPointsOrderCopy(sortedMen, Ranking.CUSTOM);
-		sortedWomen = AthleteSorter.teamPointsOrderCopy(sortedWomen, Ranking.CUSTOM);
-		addToReportingBean("mCustom" + suffix, sortedMen);
-		addToReportingBean("wCustom" + suffix, sortedWomen);
-		addToReportingBean("mwCustom" + suffix, sortedAthletes);
+		sortedAthletes = mwCustom.join();
+		sortedMen = mOrders.get(2);
+		sortedWomen = wOrders.get(2);
+		addToReportingBean(beans, "mCustom" + suffix, sortedMen);
+		addToReportingBean(beans, "wCustom" + suffix, sortedWomen);
+		addToReportingBean(beans, "mwCustom" + suffix, sortedAthletes);
 		if (singleAgeGroup) {
-			reportCustom(sortedAthletes, sortedMen, sortedWomen);
+			reportCustom(beans, sortedAthletes, sortedMen, sortedWomen);
 		}
 
-		sortedMen = getOrCreateBean("mTeamSinclair" + suffix);
-		sortedWomen = getOrCreateBean("wTeamSinclair" + suffix);
+		sortedMen = getOrCreateBean(beans, "mTeamSinclair" + suffix);
+		sortedWomen = getOrCreateBean(beans, "wTeamSinclair" + suffix);
 		AthleteSorter.teamPointsOrder(sortedMen, Ranking.BW_SINCLAIR);
 		AthleteSorter.teamPointsOrder(sortedWomen, Ranking.BW_SINCLAIR);
 	}
@@ -1431,53 +1585,67 @@ public class Competition {
 	}
 
 	@SuppressWarnings("unchecked")
-	private List<Athlete> getOrCreateBean(String string) {
-		List<Athlete> list = (List<Athlete>) reportingBeans.get(string);
+	private List<Athlete> getOrCreateBean(Map<String, Object> beans, String string) {
+		List<Athlete> list = (List<Athlete>) beans.get(string);
 		if (list == null) {
 			list = new ArrayList<>();
-			reportingBeans.put(string, list);
+			beans.put(string, list);
 		}
 		return list;
 	}
 
-	private void reportCombined(List<Athlete> sortedAthletes, List<Athlete> sortedMen, List<Athlete> sortedWomen) {
-		getOrCreateBean("mCombined");
-		reportingBeans.put("mCombined", sortedMen);
-		getOrCreateBean("wCombined");
-		reportingBeans.put("wCombined", sortedWomen);
-		getOrCreateBean("mwCombined");
-		reportingBeans.put("mwCombined", sortedAthletes);
+	private void putGlobalRankings(Map<String, Object> beans, RankingPass sinclair, RankingPass smm) {
+		beans.put("mSinclair", sinclair.men);
+		beans.put("wSinclair", sinclair.women);
+		logger.debug("mSinclair {}", sinclair.men);
+		logger.debug("wSinclair {}", sinclair.women);
+
+		beans.put("mSmm", smm.men);
+		beans.put("wSmm", smm.women);
+		logger.debug("mSmm {}", smm.men);
+		logger.debug("wSmm {}", smm.women);
 	}
 
-	private void reportCustom(List<Athlete> sortedAthletes, List<Athlete> sortedMen, List<Athlete> sortedWomen) {
-		getOrCreateBean("mCustom");
-		reportingBeans.put("mCustom", sortedMen);
-		getOrCreateBean("wCustom");
-		reportingBeans.put("wCustom", sortedWomen);
-		getOrCreateBean("mwCustom");
-		reportingBeans.put("mwCustom", sortedAthletes);
+	private void reportCombined(Map<String, Object> beans, List<Athlete> sortedAthletes, List<Athlete> sortedMen,
+	        List<Athlete> sortedWomen) {
+		getOrCreateBean(beans, "mCombined");
+		beans.put("mCombined", sortedMen);
+		getOrCreateBean(beans, "wCombined");
+		beans.put("wCombined", sortedWomen);
+		getOrCreateBean(beans, "mwCombined");
+		beans.put("mwCombined", sortedAthletes);
 	}
 
-	private void reportSinclair(List<Athlete> sortedMen, List<Athlete> sortedWomen) {
-		getOrCreateBean("mSinclair");
-		reportingBeans.put("mSinclair", sortedMen);
-		getOrCreateBean("wSinclair");
-		reportingBeans.put("wSinclair", sortedWomen);
+	private void reportCustom(Map<String, Object> beans, List<Athlete> sortedAthletes, List<Athlete> sortedMen,
+	        List<Athlete> sortedWomen) {
+		getOrCreateBean(beans, "mCustom");
+		beans.put("mCustom", sortedMen);
+		getOrCreateBean(beans, "wCustom");
+		beans.put("wCustom", sortedWomen);
+		getOrCreateBean(beans, "mwCustom");
+		beans.put("mwCustom", sortedAthletes);
 	}
 
-	private void reportSMF(List<Athlete> sortedMen, List<Athlete> sortedWomen) {
-		getOrCreateBean("mSMF");
-		reportingBeans.put("mSMF", sortedMen);
-		getOrCreateBean("wSMF");
-		reportingBeans.put("wSMF", sortedWomen);
+	private void reportSinclair(Map<String, Object> beans, List<Athlete> sortedMen, List<Athlete> sortedWomen) {
+		getOrCreateBean(beans, "mSinclair");
+		beans.put("mSinclair", sortedMen);
+		getOrCreateBean(beans, "wSinclair");
+		beans.put("wSinclair", sortedWomen);
 	}
 
-	private void reportTeams(List<Athlete> sortedAthletes, List<Athlete> sortedMen,
+	private void reportSMF(Map<String, Object> beans, List<Athlete> sortedMen, List<Athlete> sortedWomen) {
+		getOrCreateBean(beans, "mSMF");
+		beans.put("mSMF", sortedMen);
+		getOrCreateBean(beans, "wSMF");
+		beans.put("wSMF", sortedWomen);
+	}
+
+	private void reportTeams(Map<String, Object> beans, List<Athlete> sortedAthletes, List<Athlete> sortedMen,
 	        List<Athlete> sortedWomen) {
 		// only needed once
-		reportingBeans.put("nbMen", sortedMen.size());
-		reportingBeans.put("nbWomen", sortedWomen.size());
-		reportingBeans.put("nbAthletes", sortedMen.size() + sortedWomen.size());
+		beans.put("nbMen", sortedMen.size());
+		beans.put("nbWomen", sortedWomen.size());
+		beans.put("nbAthletes", sortedMen.size() + sortedWomen.size());
 		// extract club lists
 		TreeSet<String> teams = new TreeSet<>();
 		for (Athlete curAthlete : sortedAthletes) {
@@ -1486,54 +1654,35 @@ public class Competition {
 			}
 		}
 
-		getOrCreateBean("mTeam");
-		reportingBeans.put("mTeam", sortedMen);
-		getOrCreateBean("wTeam");
-		reportingBeans.put("wTeam", sortedWomen);
-		getOrCreateBean("mwTeam");
-		reportingBeans.put("mwTeam", sortedAthletes);
+		getOrCreateBean(beans, "mTeam");
+		beans.put("mTeam", sortedMen);
+		getOrCreateBean(beans, "wTeam");
+		beans.put("wTeam", sortedWomen);
+		getOrCreateBean(beans, "mwTeam");
+		beans.put("mwTeam", sortedAthletes);
 
-		reportingBeans.put("clubs", teams);
-		reportingBeans.put("nbClubs", teams.size());
+		beans.put("clubs", teams);
+		beans.put("nbClubs", teams.size());
 		if (sortedMen.size() > 0) {
-			reportingBeans.put("mClubs", teams);
+			beans.put("mClubs", teams);
 		} else {
-			reportingBeans.put("mClubs", new ArrayList<String>());
+			beans.put("mClubs", new ArrayList<String>());
 		}
 		if (sortedWomen.size() > 0) {
-			reportingBeans.put("wClubs", teams);
+			beans.put("wClubs", teams);
 		} else {
-			reportingBeans.put("wClubs", new ArrayList<String>());
-		}
-	}
-
-	private void runInThread(Runnable runnable, int priority) {
-		Thread t = new Thread(runnable);
-		AtomicReference<Throwable> errorReference = new AtomicReference<>();
-		t.setUncaughtExceptionHandler((th, ex) -> {
-			errorReference.set(ex);
-		});
-		t.setPriority(priority);
-		try {
-			t.start();
-			t.join();
-			Throwable throwable = errorReference.get();
-			if (throwable != null) {
-				throw new RuntimeException(throwable);
-			}
-		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+			beans.put("wClubs", new ArrayList<String>());
 		}
 	}
 
 	@SuppressWarnings({ "unchecked", "unused" })
-	private void splitResultsByGroups(List<PAthlete> athletes) {
+	private void splitResultsByGroups(Map<String, Object> beans, List<PAthlete> athletes) {
 		// create one list per competition group
 		for (Group g : GroupRepository.findAll()) {
 			String name = g.getName();
 			if (name != null) {
-				reportingBeans.remove(name);
-				reportingBeans.put(name, new ArrayList<Athlete>());
+				beans.remove(name);
+				beans.put(name, new ArrayList<Athlete>());
 			}
 		}
 
@@ -1541,7 +1690,7 @@ public class Competition {
 		for (Athlete a : athletes) {
 			Group group = a.getGroup();
 			if (group != null && group.getName() != null) {
-				List<Athlete> list = (List<Athlete>) reportingBeans.get(group.getName());
+				List<Athlete> list = (List<Athlete>) beans.get(group.getName());
 				// logger.trace("adding {} to {}", a.getShortName(), group.getName());
 				list.add(a);
 			}
@@ -1549,9 +1698,9 @@ public class Competition {
 		logger.debug("updated reporting data");
 	}
 
-	private void teamRankings(List<Athlete> athletes, String ageGroupPrefix) {
-		clearTeamReportingBeans(ageGroupPrefix);
-		doTeamRankings(athletes, ageGroupPrefix, true);
+	private void teamRankings(Map<String, Object> beans, List<Athlete> athletes, String ageGroupPrefix) {
+		clearTeamReportingBeans(beans, ageGroupPrefix);
+		doTeamRankings(beans, athletes, ageGroupPrefix, true);
 	}
 
 	/**
@@ -1560,7 +1709,7 @@ public class Competition {
 	 * @param athletes
 	 * @param ageGroupPrefix
 	 */
-	private void teamRankingsForAgeDivision(AgeDivision ad) {
+	private void teamRankingsForAgeDivision(Map<String, Object> beans, AgeDivision ad) {
 		if (ad == null) {
 			return;
 		}
@@ -1568,53 +1717,53 @@ public class Competition {
 
 		for (String curAGPrefix : agePrefixes) {
 			List<Athlete> athletes = AgeGroupRepository.allPAthletesForAgeGroup(curAGPrefix);
-			doTeamRankings(athletes, ad.name(), false);
+			doTeamRankings(beans, athletes, ad.name(), false);
 		}
 
 		List<Athlete> sortedAthletes;
 		List<Athlete> sortedMen;
 		List<Athlete> sortedWomen;
 
-		sortedMen = getOrCreateBean("mTeam" + ad.name());
-		sortedWomen = getOrCreateBean("wTeam" + ad.name());
-		sortedAthletes = getOrCreateBean("mwTeam" + ad.name());
+		sortedMen = getOrCreateBean(beans, "mTeam" + ad.name());
+		sortedWomen = getOrCreateBean(beans, "wTeam" + ad.name());
+		sortedAthletes = getOrCreateBean(beans, "mwTeam" + ad.name());
 		AthleteSorter.teamPointsOrder(sortedMen, Ranking.TOTAL);
 		AthleteSorter.teamPointsOrder(sortedWomen, Ranking.TOTAL);
 		AthleteSorter.teamPointsOrder(sortedAthletes, Ranking.TOTAL);
 
-		reportTeams(sortedAthletes, sortedMen, sortedWomen);
+		reportTeams(beans, sortedAthletes, sortedMen, sortedWomen);
 
-		sortedMen = getOrCreateBean("mCombined" + ad.name());
-		sortedWomen = getOrCreateBean("wCombined" + ad.name());
-		sortedAthletes = getOrCreateBean("mwCombined" + ad.name());
+		sortedMen = getOrCreateBean(beans, "mCombined" + ad.name());
+		sortedWomen = getOrCreateBean(beans, "wCombined" + ad.name());
+		sortedAthletes = getOrCreateBean(beans, "mwCombined" + ad.name());
 		AthleteSorter.teamPointsOrder(sortedMen, Ranking.SNATCH_CJ_TOTAL);
 		AthleteSorter.teamPointsOrder(sortedWomen, Ranking.SNATCH_CJ_TOTAL);
 		AthleteSorter.teamPointsOrder(sortedAthletes, Ranking.SNATCH_CJ_TOTAL);
 
-		reportCombined(sortedAthletes, sortedMen, sortedWomen);
+		reportCombined(beans, sortedAthletes, sortedMen, sortedWomen);
 
-		sortedMen = getOrCreateBean("mCustom" + ad.name());
-		sortedWomen = getOrCreateBean("wCustom" + ad.name());
-		sortedAthletes = getOrCreateBean("mwCustom" + ad.name());
+		sortedMen = getOrCreateBean(beans, "mCustom" + ad.name());
+		sortedWomen = getOrCreateBean(beans, "wCustom" + ad.name());
+		sortedAthletes = getOrCreateBean(beans, "mwCustom" + ad.name());
 		AthleteSorter.teamPointsOrder(sortedMen, Ranking.CUSTOM);
 		AthleteSorter.teamPointsOrder(sortedWomen, Ranking.CUSTOM);
 		AthleteSorter.teamPointsOrder(sortedAthletes, Ranking.CUSTOM);
 
-		reportCustom(sortedAthletes, sortedMen, sortedWomen);
+		reportCustom(beans, sortedAthletes, sortedMen, sortedWomen);
 
-		sortedMen = getOrCreateBean("mTeamSinclair" + ad.name());
-		sortedWomen = getOrCreateBean("wTeamSinclair" + ad.name());
+		sortedMen = getOrCreateBean(beans, "mTeamSinclair" + ad.name());
+		sortedWomen = getOrCreateBean(beans, "wTeamSinclair" + ad.name());
 		AthleteSorter.teamPointsOrder(sortedMen, Ranking.BW_SINCLAIR);
 		AthleteSorter.teamPointsOrder(sortedWomen, Ranking.BW_SINCLAIR);
 
-		reportSinclair(sortedMen, sortedWomen);
+		reportSinclair(beans, sortedMen, sortedWomen);
 
-		sortedMen = getOrCreateBean("mTeamSMF" + ad.name());
-		sortedWomen = getOrCreateBean("wTeamSMF" + ad.name());
+		sortedMen = getOrCreateBean(beans, "mTeamSMF" + ad.name());
+		sortedWomen = getOrCreateBean(beans, "wTeamSMF" + ad.name());
 		AthleteSorter.teamPointsOrder(sortedMen, Ranking.SMM);
 		AthleteSorter.teamPointsOrder(sortedWomen, Ranking.SMM);
 
-		reportSMF(sortedMen, sortedWomen);
+		reportSMF(beans, sortedMen, sortedWomen);
 	}
 
 	public boolean isGenderInclusive() {
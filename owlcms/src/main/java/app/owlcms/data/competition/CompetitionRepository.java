@@ -14,6 +14,7 @@ import javax.persistence.Query;
 import org.slf4j.LoggerFactory;
 
 import app.owlcms.data.jpa.JPAService;
+import app.owlcms.data.records.RecordIndex;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 
@@ -94,6 +95,7 @@ public class CompetitionRepository {
 			doRemoveAll(em);
 			return null;
 		});
+		RecordIndex.invalidate();
 	}
 
 	/**
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.competition;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import app.owlcms.data.category.AgeDivision;
+
+/**
+ * The rankings used by the results documents and the team results, for one age
+ * group prefix and age division, as computed for one version of the athlete
+ * results.
+ *
+ * Immutable. The lists cannot be modified; {@link #getBeans()} returns a copy of
+ * the map so that the caller can add its own entries.
+ *
+ * @author Jean-François Lamy
+ */
+public final class ReportingSnapshot {
+
+	/**
+	 * @param ageGroupPrefix
+	 * @param ad
+	 * @return the key under which the snapshot for the prefix and age division is
+	 *         kept
+	 */
+	static String key(String ageGroupPrefix, AgeDivision ad) {
+		// null and blank prefixes give different team list names, keep them apart.
+		return (ad != null ? ad.name() : "") + "/" + ageGroupPrefix;
+	}
+
+	private final String ageGroupPrefix;
+	private final AgeDivision ageDivision;
+	private final long version;
+	private final Map<String, Object> beans;
+
+	ReportingSnapshot(String ageGroupPrefix, AgeDivision ageDivision, long version, Map<String, Object> beans) {
+		this.ageGroupPrefix = ageGroupPrefix;
+		this.ageDivision = ageDivision;
+		this.version = version;
+		Map<String, Object> frozen = new HashMap<>(beans.size() * 2);
+		beans.forEach((name, value) -> frozen.put(name, unmodifiable(value)));
+		this.beans = Collections.unmodifiableMap(frozen);
+	}
+
+	/**
+	 * @param name the name used in the templates, e.g. "mTot"
+	 * @return the list or value, null if not computed
+	 */
+	public Object get(String name) {
+		return beans.get(name);
+	}
+
+	public AgeDivision getAgeDivision() {
+		return ageDivision;
+	}
+
+	public String getAgeGroupPrefix() {
+		return ageGroupPrefix;
+	}
+
+	/**
+	 * @return a new map with all the lists and values
+	 */
+	public HashMap<String, Object> getBeans() {
+		return new HashMap<>(beans);
+	}
+
+	/**
+	 * @return the results version for which the rankings were computed
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public boolean isEmpty() {
+		return beans.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "ReportingSnapshot [ageGroupPrefix=" + ageGroupPrefix + ", ageDivision=" + ageDivision + ", version="
+		        + version + ", beans=" + beans.keySet() + "]";
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object unmodifiable(Object value) {
+		if (value instanceof List) {
+			return Collections.unmodifiableList((List<Object>) value);
+		} else if (value instanceof Set) {
+			return Collections.unmodifiableSet((Set<Object>) value);
+		}
+		return value;
+	}
+
+}
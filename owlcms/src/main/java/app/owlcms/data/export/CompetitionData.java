@@ -34,7 +34,9 @@ import app.owlcms.data.jpa.JPAService;
 import app.owlcms.data.platform.Platform;
 import app.owlcms.data.platform.PlatformRepository;
 import app.owlcms.data.records.RecordEvent;
+import app.owlcms.data.records.RecordIndex;
 import app.owlcms.data.records.RecordRepository;
+import app.owlcms.fieldofplay.FOPJournal;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.utils.ResourceWalker;
@@ -212,6 +214,8 @@ public class CompetitionData {
 					}
 				}
 
+				// the journals of the fields of play do not apply to the restored data
+				competition.setJournalEpoch(FOPJournal.newEpoch());
 				em.merge(competition);
 				em.flush();
 			} catch (Exception e) {
@@ -221,6 +225,8 @@ public class CompetitionData {
 			}
 			return null;
 		});
+		RecordIndex.invalidate();
+		FOPJournal.rotateAll("restore");
 		// register the new FOPs for events and MQTT
 		OwlcmsFactory.initFOPByName();
 	}
@@ -34,6 +34,7 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.Iterables;
 
 import app.owlcms.data.athlete.AthleteRepository;
+import app.owlcms.data.competition.Competition;
 import app.owlcms.data.platform.Platform;
 import app.owlcms.utils.DateTimeUtils;
 import app.owlcms.utils.IdUtils;
@@ -201,6 +202,8 @@ public class Group implements Comparable<Group> {
 		if (this.done != b) {
 			this.setDone(b);
 			GroupRepository.save(this);
+			// team points only count once the group is done
+			Competition.getCurrent().setRankingsInvalid(true);
 		}
 	}
 
@@ -24,10 +24,14 @@ import static org.hibernate.cfg.AvailableSettings.USE_STRUCTURED_CACHE;
 
 import java.io.File;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.function.Function;
 
 import javax.persistence.EntityManager;
@@ -68,6 +72,8 @@ public class JPAService {
 
 	private static final Logger logger = (Logger) LoggerFactory.getLogger(JPAService.class);
 	private static final Logger startLogger = (Logger) LoggerFactory.getLogger(Main.class);
+	/** for each transaction in progress on the thread, innermost first, what to run once it commits */
+	private static final ThreadLocal<Deque<Set<Runnable>>> afterCommit = ThreadLocal.withInitial(ArrayDeque::new);
 
 	static {
 		logger.setLevel(Level.INFO);
@@ -188,6 +194,22 @@ public class JPAService {
 		return properties;
 	}
 
+	/**
+	 * Run once the current transaction of the thread has committed; a given
+	 * Runnable runs only once per transaction. Outside of a transaction started
+	 * by this class, runs immediately.
+	 *
+	 * @param r
+	 */
+	public static void afterCommit(Runnable r) {
+		Set<Runnable> pending = afterCommit.get().peek();
+		if (pending == null) {
+			r.run();
+		} else {
+			pending.add(r);
+		}
+	}
+
 	/**
 	 * Run in transaction.
 	 *
@@ -196,18 +218,29 @@ public class JPAService {
 	 * @return the t
 	 */
 	public static <T> T runInTransaction(EntityManager entityManager, Function<EntityManager, T> function) {
+		Deque<Set<Runnable>> transactions = afterCommit.get();
+		Set<Runnable> committed = new LinkedHashSet<>();
+		transactions.push(committed);
+		boolean done = false;
 		try {
 			entityManager.getTransaction().begin();
 
 			T result = function.apply(entityManager);
 
 			entityManager.getTransaction().commit();
+			done = true;
 			return result;
 
 		} finally {
+			transactions.remove(committed);
 			if (entityManager != null) {
 				entityManager.close();
 			}
+			if (done) {
+				for (Runnable r : committed) {
+					r.run();
+				}
+			}
 		}
 	}
 
@@ -219,25 +252,10 @@ public class JPAService {
 	 * @return the t
 	 */
 	public static <T> T runInTransaction(Function<EntityManager, T> function) {
-		EntityManager entityManager = null;
-
-		try {
-			if (getFactory() == null) {
-				logger.debug("JPAService {}", LoggerUtils./**/stackTrace());
-			}
-			entityManager = getFactory().createEntityManager();
-			entityManager.getTransaction().begin();
-
-			T result = function.apply(entityManager);
-
-			entityManager.getTransaction().commit();
-			return result;
-
-		} finally {
-			if (entityManager != null) {
-				entityManager.close();
-			}
+		if (getFactory() == null) {
+			logger.debug("JPAService {}", LoggerUtils./**/stackTrace());
 		}
+		return runInTransaction(getFactory().createEntityManager(), function);
 	}
 
 	/**
@@ -248,25 +266,10 @@ public class JPAService {
 	 * @return the t
 	 */
 	public static List<Object[]> runInTransactionMultipleResults(Function<EntityManager, List<Object[]>> function) {
-		EntityManager entityManager = null;
-
-		try {
-			if (getFactory() == null) {
-				logger.debug("JPAService {}", LoggerUtils./**/stackTrace());
-			}
-			entityManager = getFactory().createEntityManager();
-			entityManager.getTransaction().begin();
-
-			List<Object[]> result = function.apply(entityManager);
-
-			entityManager.getTransaction().commit();
-			return result;
-
-		} finally {
-			if (entityManager != null) {
-				entityManager.close();
-			}
+		if (getFactory() == null) {
+			logger.debug("JPAService {}", LoggerUtils./**/stackTrace());
 		}
+		return runInTransaction(getFactory().createEntityManager(), function);
 	}
 
 	/**
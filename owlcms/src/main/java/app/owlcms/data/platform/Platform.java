@@ -27,6 +27,7 @@ import com.vaadin.flow.server.VaadinSession;
 import app.owlcms.fieldofplay.FieldOfPlay;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsSession;
+import app.owlcms.sound.SoundClips;
 import app.owlcms.sound.Speakers;
 import app.owlcms.utils.IdUtils;
 import app.owlcms.utils.LoggerUtils;
@@ -704,6 +705,7 @@ public class Platform implements Serializable, Comparable<Platform> {
 			if (curMixer.getMixerInfo().getName().equals(soundMixerName)) {
 				setMixer(curMixer);
 				logger.info("Platform {}: changing mixer to {}", this.name, curMixer.getMixerInfo().getName());
+				SoundClips.preload(curMixer);
 				break;
 			}
 		}
@@ -12,15 +12,42 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 
+import javax.persistence.EntityManager;
+import javax.xml.parsers.SAXParserFactory;
+
 import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 
 import app.owlcms.Main;
 import app.owlcms.data.athlete.Gender;
@@ -40,235 +67,249 @@ import ch.qos.logback.classic.Logger;
  * Records for snatch, clean&jerk and total are read. All available tabs are
  * scanned. Reading stops at first empty line. Header line is skipped.
  *
+ * The files in the records folder are fingerprinted; a file is only read again
+ * when its content has changed. Files in .xlsx format are read as a stream,
+ * without loading the whole workbook in memory.
+ *
  * @author Jean-François Lamy
  *
  */
 public class RecordDefinitionReader {
 
-	private final static Logger logger = (Logger) LoggerFactory.getLogger(RecordDefinitionReader.class);
-	private final static Logger startupLogger = Main.getStartupLogger();
-
-	public static int createRecords(Workbook workbook, String name, String baseName) {
+	/**
+	 * Builds the records of a file from its cells, one row at a time. The cells
+	 * come either from a workbook or from the stream of an .xlsx sheet.
+	 */
+	private static class RowReader implements SheetContentsHandler {
+		private final EntityManager em;
+		private final String baseName;
+		private final String fileHash;
+
+		private String sheetName;
+		private boolean sheetDone;
+		private int iRow;
+		private int iColumn;
+		private RecordEvent rec;
+		private boolean error;
+		private int nbRecords;
+
+		RowReader(EntityManager em, String baseName, String fileHash) {
+			this.em = em;
+			this.baseName = baseName;
+			this.fileHash = fileHash;
+		}
 
-		return JPAService.runInTransaction(em -> {
-			int iRecord = 0;
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			iColumn = cellReference != null ? new CellReference(cellReference).getCol() : iColumn + 1;
+			cell(iColumn, cellReference, formattedValue);
+		}
 
-			for (Sheet sheet : workbook) {
-				processSheet: for (Row row : sheet) {
-					int iRow = row.getRowNum();
-					if (iRow == 0) {
-						iRow++;
-						continue;
-					}
+		@Override
+		public void endRow(int rowNum) {
+			if (sheetDone || iRow == 0) {
+				return;
+			}
+			if (isEmptyRow(rec)) {
+				// stop processing sheet on first row with an empty first cell
+				sheetDone = true;
+				return;
+			}
+			if (error) {
+				return;
+			}
+			try {
+				rec.fillDefaults();
+			} catch (MissingAgeGroup | MissingGender | UnknownIWFBodyWeightCategory e1) {
+				throw new RuntimeException(e1 + " row " + iRow);
+			}
 
-					RecordEvent rec = new RecordEvent();
-					rec.setFileName(baseName);
+			try {
+				em.persist(rec);
+				nbRecords++;
+				if (nbRecords % BATCH_SIZE == 0) {
+					// send the inserts and stop tracking the records
+					em.flush();
+					em.clear();
+				}
+			} catch (Exception e) {
+				logger.error("could not persist RecordEvent {}", LoggerUtils./**/stackTrace(e));
+			}
+		}
 
-					// beware: on a truly empty row we will not enter this loop.
-					boolean error = false;
-					for (Cell cell : row) {
-						try {
-							int iColumn = cell.getAddress().getColumn();
-
-							// logger.debug("[" + sheet.getSheetName() + "," + cell.getAddress() + "]");
-							switch (iColumn) {
-							case 0: { // A
-								String cellValue = cell.getStringCellValue();
-								String trim = cellValue.trim();
-								if (trim.isEmpty()) {
-									// stop processing sheet on first row with an empty first cell
-									break processSheet;
-								}
-								rec.setRecordFederation(trim);
-								break;
-							}
-
-							case 1: { // B
-								String cellValue = cell.getStringCellValue();
-								cellValue = cellValue != null ? cellValue.trim() : cellValue;
-								rec.setRecordName(cellValue);
-								break;
-							}
-
-							case 2: { // C
-								String cellValue = cell.getStringCellValue();
-								cellValue = cellValue != null ? cellValue.trim() : cellValue;
-								rec.setAgeGrp(cellValue);
-								break;
-							}
-
-							case 3: { // D
-								String cellValue = cell.getStringCellValue();
-								cellValue = cellValue != null ? cellValue.trim().toUpperCase() : cellValue;
-								rec.setGender(Gender.valueOf(cellValue));
-								break;
-							}
-
-							case 4: { // E
-								long cellValue = Math.round(cell.getNumericCellValue());
-								rec.setAgeGrpLower(Math.toIntExact(cellValue));
-								break;
-							}
-
-							case 5: { // F
-								long cellValue = Math.round(cell.getNumericCellValue());
-								rec.setAgeGrpUpper(Math.toIntExact(cellValue));
-								break;
-							}
-
-							case 6: { // G
-								long cellValue = Math.round(cell.getNumericCellValue());
-								rec.setBwCatLower(Math.toIntExact(cellValue));
-								break;
-							}
-
-							case 7: { // H
-								try {
-									String cellValue = cell.getStringCellValue();
-									rec.setBwCatString(cellValue);
-									try {
-										rec.setBwCatUpper(
-										        cellValue.startsWith(">") ? 999 : Integer.parseInt(cellValue));
-									} catch (NumberFormatException e) {
-										if (cellValue != null && !cellValue.isBlank()) {
-											startupLogger
-											        .error("[" + sheet.getSheetName() + "," + cell.getAddress() + "]");
-											logger.error("[" + sheet.getSheetName() + "," + cell.getAddress() + "]");
-										}
-									}
-								} catch (IllegalStateException e) {
-									long cellValue = Math.round(cell.getNumericCellValue());
-									rec.setBwCatString(Long.toString(cellValue));
-									rec.setBwCatUpper(Math.toIntExact(cellValue));
-								}
-								break;
-							}
-
-							case 8: { // I
-								String cellValue = cell.getStringCellValue();
-								cellValue = cellValue != null ? cellValue.trim() : cellValue;
-								rec.setRecordLift(cellValue);
-								break;
-							}
-
-							case 9: { // J
-								rec.setRecordValue(cell.getNumericCellValue());
-								break;
-							}
-
-							case 10: { // K
-								String cellValue = cell.getStringCellValue();
-								cellValue = cellValue != null ? cellValue.trim() : cellValue;
-								rec.setAthleteName(cellValue);
-								break;
-							}
-
-							case 11: { // L
-								long cellValue = Math.round(cell.getNumericCellValue());
-								int intExact = Math.toIntExact(cellValue);
-								if (cellValue < 3000) {
-									rec.setRecordYear(intExact);
-								} else {
-									LocalDate epoch = LocalDate.of(1900, 1, 1);
-									LocalDate plusDays = epoch.plusDays(intExact - 2);
-									// Excel quirks: 1 is 1900-01-01 and mistakenly assumes 1900-02-29 existed
-									rec.setBirthDate(plusDays);
-								}
-								break;
-							}
-
-							case 12: { // M
-								String cellValue = cell.getStringCellValue();
-								cellValue = cellValue != null ? cellValue.trim() : cellValue;
-								rec.setNation(cellValue);
-								break;
-							}
-
-							case 13: { // N
-								long cellValue = Math.round(cell.getNumericCellValue());
-								int intExact = Math.toIntExact(cellValue);
-								if (cellValue < 3000) {
-									rec.setRecordYear(intExact);
-								} else {
-									LocalDate epoch = LocalDate.of(1900, 1, 1);
-									LocalDate plusDays = epoch.plusDays(intExact - 2);
-									// Excel quirks: 1 is 1900-01-01 and mistakenly assumes 1900-02-29 existed
-									rec.setRecordDate(plusDays);
-								}
-								break;
-							}
-
-							}
-
-							iColumn++;
-						} catch (Exception e) {
-							// do not report errors on empty rows
-							if (!isEmptyRow(rec)) {
-								startupLogger.error("{}[{}] {} ", sheet.getSheetName(), cell.getAddress(),
-								        e.getMessage());
-								logger.error("{}[{}] {} ", sheet.getSheetName(), cell.getAddress(), e.getMessage());
-								error = true;
-							}
-						}
-					}
+		@Override
+		public void headerFooter(String text, boolean isHeader, String tagName) {
+		}
 
-					if (!error && !isEmptyRow(rec)) {
-						// if row was empty, we get no cells but rec was created.
-						try {
-							rec.fillDefaults();
-						} catch (MissingAgeGroup | MissingGender | UnknownIWFBodyWeightCategory e1) {
-							throw new RuntimeException(e1 + " row " + iRow);
-						}
+		@Override
+		public void startRow(int rowNum) {
+			iRow = rowNum;
+			iColumn = -1;
+			error = false;
+			rec = new RecordEvent();
+			rec.setFileName(baseName);
+			rec.setFileHash(fileHash);
+		}
 
-						try {
-							em.persist(rec);
-							iRecord++;
-						} catch (Exception e) {
-							logger.error("could not persist RecordEvent {}", LoggerUtils./**/stackTrace(e));
+		void cell(int iColumn, String address, String cellValue) {
+			if (sheetDone || iRow == 0) {
+				return;
+			}
+			try {
+				switch (iColumn) {
+				case 0: // A
+					rec.setRecordFederation(cellValue.trim());
+					break;
+				case 1: // B
+					rec.setRecordName(cellValue.trim());
+					break;
+				case 2: // C
+					rec.setAgeGrp(cellValue.trim());
+					break;
+				case 3: // D
+					rec.setGender(Gender.valueOf(cellValue.trim().toUpperCase()));
+					break;
+				case 4: // E
+					rec.setAgeGrpLower(toInt(cellValue));
+					break;
+				case 5: // F
+					rec.setAgeGrpUpper(toInt(cellValue));
+					break;
+				case 6: // G
+					rec.setBwCatLower(toInt(cellValue));
+					break;
+				case 7: { // H
+					rec.setBwCatString(cellValue);
+					try {
+						rec.setBwCatUpper(cellValue.startsWith(">") ? 999 : toInt(cellValue));
+					} catch (NumberFormatException e) {
+						if (!cellValue.isBlank()) {
+							startupLogger.error("[" + sheetName + "," + address + "]");
+							logger.error("[" + sheetName + "," + address + "]");
 						}
 					}
+					break;
+				}
+				case 8: // I
+					rec.setRecordLift(cellValue.trim());
+					break;
+				case 9: // J
+					rec.setRecordValue(Double.parseDouble(cellValue.trim()));
+					break;
+				case 10: // K
+					rec.setAthleteName(cellValue.trim());
+					break;
+				case 11: { // L
+					int intExact = toInt(cellValue);
+					if (intExact < 3000) {
+						rec.setRecordYear(intExact);
+					} else {
+						rec.setBirthDate(excelDate(intExact));
+					}
+					break;
+				}
+				case 12: // M
+					rec.setNation(cellValue.trim());
+					break;
+				case 13: { // N
+					int intExact = toInt(cellValue);
+					if (intExact < 3000) {
+						rec.setRecordYear(intExact);
+					} else {
+						rec.setRecordDate(excelDate(intExact));
+					}
+					break;
+				}
+				}
+			} catch (Exception e) {
+				// do not report errors on empty rows
+				if (!isEmptyRow(rec)) {
+					startupLogger.error("{}[{}] {} ", sheetName, address, e.getMessage());
+					logger.error("{}[{}] {} ", sheetName, address, e.getMessage());
+					error = true;
 				}
 			}
-			Competition comp = Competition.getCurrent();
-			Competition comp2 = em.contains(comp) ? comp : em.merge(comp);
-			comp2.setAgeGroupsFileName(name);
-			startupLogger.info("inserted {} record entries.", iRecord);
-			logger.info("inserted {} record entries.", iRecord);
-			return iRecord;
-		});
+		}
+
+		int getNbRecords() {
+			return nbRecords;
+		}
+
+		boolean isSheetDone() {
+			return sheetDone;
+		}
+
+		void startSheet(String sheetName) {
+			this.sheetName = sheetName;
+			this.sheetDone = false;
+		}
 	}
 
+	private final static Logger logger = (Logger) LoggerFactory.getLogger(RecordDefinitionReader.class);
+	private final static Logger startupLogger = Main.getStartupLogger();
+
+	/** records sent to the database together */
+	private static final int BATCH_SIZE = 500;
+
+	/**
+	 * Numbers are given as written in the file, not as displayed, so that dates
+	 * are read as Excel day numbers.
+	 */
+	private static final DataFormatter RAW_NUMBERS = new DataFormatter() {
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString) {
+			return NumberToTextConverter.toText(value);
+		}
+
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString,
+		        boolean use1904Windowing) {
+			return NumberToTextConverter.toText(value);
+		}
+	};
+
+	public static int createRecords(Workbook workbook, String name, String baseName) {
+		return createRecords(workbook, name, baseName, null);
+	}
+
+	/**
+	 * Read the record definition files in a folder and its subfolders.
+	 *
+	 * The records from files that are no longer present are removed. A file whose
+	 * content is the same as when it was last read is not read again.
+	 *
+	 * @param recordsPath
+	 * @throws IOException
+	 */
 	public static void readFolder(Path recordsPath) throws IOException {
 		if (recordsPath == null || !Files.exists(recordsPath)) {
 			return;
 		}
-		Files.walk(recordsPath).filter(f -> f.toString().endsWith(".xls") || f.toString().endsWith(".xlsx"))
-		        .forEach(f -> {
-			        InputStream is;
-			        try {
-				        is = Files.newInputStream(f);
-				        try (Workbook workbook = WorkbookFactory.create(is)) {
-					        logger.info("loading record definition file {} {}", f.toString(),
-					                FilenameUtils.removeExtension(f.getFileName().toString()));
-					        startupLogger.info("loading record definition file {}", f.toString());
-					        createRecords(workbook, f.toString(),
-					                FilenameUtils.removeExtension(f.getFileName().toString()));
-				        } catch (Exception e) {
-					        logger.error("could not process record definition file {}\n{}", f.toString(),
-					                LoggerUtils./**/stackTrace(e));
-					        startupLogger.error(
-					                "could not process record definition file {}. See log files for details.",
-					                f.toString());
-				        }
-			        } catch (IOException e1) {
-				        logger.error("could not open record definition file {}\n{}", f.toString(),
-				                LoggerUtils./**/stackTrace(e1));
-				        startupLogger.error("could not open record definition file {}.  See log files for details.",
-				                f.toString());
-			        }
-
-		        });
+		Map<String, List<Path>> filesByName;
+		try (Stream<Path> files = Files.walk(recordsPath)) {
+			filesByName = files
+			        .filter(f -> f.toString().endsWith(".xls") || f.toString().endsWith(".xlsx"))
+			        .sorted()
+			        .collect(Collectors.groupingBy(f -> FilenameUtils.removeExtension(f.getFileName().toString()),
+			                TreeMap::new, Collectors.toList()));
+		}
 
+		Map<String, String> loadedHashes = RecordRepository.findLoadedFileHashes();
+		RecordRepository.clearLoadedRecordsExcept(filesByName.keySet());
+		for (Entry<String, List<Path>> entry : filesByName.entrySet()) {
+			String baseName = entry.getKey();
+			String fileHash = fingerprint(entry.getValue());
+			if (fileHash != null && fileHash.equals(loadedHashes.get(baseName))) {
+				logger.info("record definition file {} unchanged", baseName);
+				startupLogger.info("record definition file {} unchanged", baseName);
+				continue;
+			}
+			RecordRepository.clearLoadedRecords(baseName);
+			for (Path f : entry.getValue()) {
+				readFile(f, baseName, fileHash);
+			}
+		}
+		RecordIndex.invalidate();
 	}
 
 	public static void readZip(InputStream source) throws IOException {
@@ -299,19 +340,25 @@ public class RecordDefinitionReader {
 		zipStream.doClose(); // a real close
 	}
 
+	/**
+	 * Bring the loaded records up to date with the files in the records folder.
+	 *
+	 * Called at startup, after the server has started, so it must not be assumed
+	 * that the records are present when the first pages are served.
+	 */
 	public static void resetRecords() {
 		Path recordsPath;
 		try {
 			recordsPath = ResourceWalker.getFileOrResourcePath("/records");
 			try {
-				RecordRepository.clearLoadedRecords();
 				if (recordsPath != null && Files.exists(recordsPath)) {
 					RecordDefinitionReader.readFolder(recordsPath);
 				} else {
+					RecordRepository.clearLoadedRecords();
 					logger.info("no record definition files in local/records");
 				}
 			} catch (IOException e) {
-				logger.error("cannot process records {}");
+				logger.error("cannot process records {}", LoggerUtils.stackTrace(e));
 			}
 		} catch (FileNotFoundException e1) {
 			logger.error("cannot find records {}", LoggerUtils.stackTrace(e1));
@@ -319,8 +366,142 @@ public class RecordDefinitionReader {
 
 	}
 
+	private static String cellText(Cell cell) {
+		CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType()
+		        : cell.getCellType();
+		switch (type) {
+		case NUMERIC:
+			return NumberToTextConverter.toText(cell.getNumericCellValue());
+		case STRING:
+			return cell.getStringCellValue();
+		case BOOLEAN:
+			return Boolean.toString(cell.getBooleanCellValue());
+		default:
+			// blank cells are absent from the stream of an .xlsx sheet; do the same.
+			return null;
+		}
+	}
+
+	private static int createRecords(Workbook workbook, String name, String baseName, String fileHash) {
+		int nbRecords = JPAService.runInTransaction(em -> {
+			RowReader reader = new RowReader(em, baseName, fileHash);
+			for (Sheet sheet : workbook) {
+				reader.startSheet(sheet.getSheetName());
+				for (Row row : sheet) {
+					reader.startRow(row.getRowNum());
+					for (Cell cell : row) {
+						String cellValue = cellText(cell);
+						if (cellValue != null) {
+							reader.cell(cell.getColumnIndex(), cell.getAddress().formatAsString(), cellValue);
+						}
+					}
+					reader.endRow(row.getRowNum());
+					if (reader.isSheetDone()) {
+						break;
+					}
+				}
+			}
+			return recordsCreated(em, name, reader);
+		});
+		RecordIndex.invalidate();
+		return nbRecords;
+	}
+
+	/**
+	 * Read an .xlsx file as a stream of cells.
+	 */
+	private static int createRecordsFromStream(Path file, String baseName, String fileHash) throws Exception {
+		try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+			XSSFReader xssfReader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+			StylesTable styles = xssfReader.getStylesTable();
+			SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+			parserFactory.setNamespaceAware(true);
+			parserFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+
+			int nbRecords = JPAService.runInTransaction(em -> {
+				RowReader reader = new RowReader(em, baseName, fileHash);
+				try {
+					XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+					while (sheets.hasNext()) {
+						try (InputStream sheet = sheets.next()) {
+							reader.startSheet(sheets.getSheetName());
+							XMLReader parser = parserFactory.newSAXParser().getXMLReader();
+							parser.setContentHandler(
+							        new XSSFSheetXMLHandler(styles, null, strings, reader, RAW_NUMBERS, false));
+							parser.parse(new InputSource(sheet));
+						}
+					}
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+				return recordsCreated(em, file.toString(), reader);
+			});
+			RecordIndex.invalidate();
+			return nbRecords;
+		}
+	}
+
+	private static LocalDate excelDate(int intExact) {
+		LocalDate epoch = LocalDate.of(1900, 1, 1);
+		// Excel quirks: 1 is 1900-01-01 and mistakenly assumes 1900-02-29 existed
+		return epoch.plusDays(intExact - 2);
+	}
+
+	/**
+	 * @return a fingerprint of the content of the files, null if one cannot be
+	 *         read
+	 */
+	private static String fingerprint(List<Path> files) {
+		try {
+			List<HashCode> hashes = new ArrayList<>();
+			for (Path f : files) {
+				hashes.add(com.google.common.io.Files.asByteSource(f.toFile()).hash(Hashing.sha256()));
+			}
+			return hashes.size() == 1 ? hashes.get(0).toString() : Hashing.combineOrdered(hashes).toString();
+		} catch (IOException e) {
+			logger.error("could not fingerprint record definition files {}\n{}", files,
+			        LoggerUtils./**/stackTrace(e));
+			return null;
+		}
+	}
+
 	private static boolean isEmptyRow(RecordEvent rec) {
 		return rec.getRecordFederation() == null || rec.getRecordFederation().isBlank();
 	}
 
+	private static void readFile(Path f, String baseName, String fileHash) {
+		logger.info("loading record definition file {} {}", f.toString(), baseName);
+		startupLogger.info("loading record definition file {}", f.toString());
+		try {
+			if (f.toString().endsWith(".xlsx")) {
+				createRecordsFromStream(f, baseName, fileHash);
+			} else {
+				try (InputStream is = Files.newInputStream(f); Workbook workbook = WorkbookFactory.create(is)) {
+					createRecords(workbook, f.toString(), baseName, fileHash);
+				}
+			}
+		} catch (Exception e) {
+			logger.error("could not process record definition file {}\n{}", f.toString(),
+			        LoggerUtils./**/stackTrace(e));
+			startupLogger.error("could not process record definition file {}. See log files for details.",
+			        f.toString());
+		}
+	}
+
+	private static int recordsCreated(EntityManager em, String name, RowReader reader) {
+		Competition comp = Competition.getCurrent();
+		Competition comp2 = em.contains(comp) ? comp : em.merge(comp);
+		comp2.setAgeGroupsFileName(name);
+		startupLogger.info("inserted {} record entries.", reader.getNbRecords());
+		logger.info("inserted {} record entries.", reader.getNbRecords());
+		return reader.getNbRecords();
+	}
+
+	private static int toInt(String cellValue) {
+		return Math.toIntExact(Math.round(Double.parseDouble(cellValue.trim())));
+	}
+
 }
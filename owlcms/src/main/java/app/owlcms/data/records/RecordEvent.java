@@ -61,7 +61,7 @@ public class RecordEvent {
 		return Objects.equals(ageGrp, other.ageGrp) && ageGrpLower == other.ageGrpLower
 		        && ageGrpUpper == other.ageGrpUpper && Objects.equals(athleteName, other.athleteName)
 		        && Objects.equals(birthDate, other.birthDate) && Objects.equals(birthYear, other.birthYear)
-		        && bwCatLower == other.bwCatLower && Objects.equals(bwCatString, other.bwCatString)
+		        && Objects.equals(bwCatLower, other.bwCatLower) && Objects.equals(bwCatString, other.bwCatString)
 		        && Objects.equals(bwCatUpper, other.bwCatUpper) && Objects.equals(categoryString, other.categoryString)
 		        && Objects.equals(event, other.event) && Objects.equals(eventLocation, other.eventLocation)
 		        && gender == other.gender && Objects.equals(groupNameString, other.groupNameString)
@@ -123,7 +123,7 @@ public class RecordEvent {
 	private String athleteName;
 	private LocalDate birthDate;
 	private Integer birthYear;
-	private int bwCatLower;
+	private Integer bwCatLower = 0;
 	private Integer bwCatUpper;
 	private String event;
 	private String eventLocation;
@@ -135,6 +135,8 @@ public class RecordEvent {
 	private String recordName;
 	private int recordYear;
 	private String fileName;
+	/** fingerprint of the content of the file the record was loaded from */
+	private String fileHash;
 	private String bwCatString;
 	private String groupNameString;
 	private String categoryString;
@@ -198,7 +200,7 @@ public class RecordEvent {
 		return birthYear;
 	}
 
-	public int getBwCatLower() {
+	public Integer getBwCatLower() {
 		return bwCatLower;
 	}
 
@@ -225,6 +227,10 @@ public class RecordEvent {
 		return eventLocation;
 	}
 
+	public String getFileHash() {
+		return fileHash;
+	}
+
 	public String getFileName() {
 		return fileName;
 	}
@@ -303,7 +309,7 @@ public class RecordEvent {
 		return Objects.equals(ageGrp, other.ageGrp) && ageGrpLower == other.ageGrpLower
 		        && ageGrpUpper == other.ageGrpUpper && Objects.equals(athleteName, other.athleteName)
 		        && Objects.equals(birthDate, other.birthDate) && Objects.equals(birthYear, other.birthYear)
-		        && bwCatLower == other.bwCatLower && Objects.equals(bwCatString, other.bwCatString)
+		        && Objects.equals(bwCatLower, other.bwCatLower) && Objects.equals(bwCatString, other.bwCatString)
 		        && Objects.equals(bwCatUpper, other.bwCatUpper) && Objects.equals(categoryString, other.categoryString)
 		        && Objects.equals(event, other.event) && Objects.equals(eventLocation, other.eventLocation)
 		        && Objects.equals(fileName, other.fileName) && gender == other.gender
@@ -338,7 +344,7 @@ public class RecordEvent {
 		this.birthYear = birthYear;
 	}
 
-	public void setBwCatLower(int intExact) {
+	public void setBwCatLower(Integer intExact) {
 		this.bwCatLower = intExact;
 	}
 
@@ -365,6 +371,10 @@ public class RecordEvent {
 		this.eventLocation = eventLocation;
 	}
 
+	public void setFileHash(String fileHash) {
+		this.fileHash = fileHash;
+	}
+
 	public void setFileName(String fileName) {
 		this.fileName = fileName;
 	}
@@ -442,6 +452,9 @@ public class RecordEvent {
 		if (gender == null) {
 			throw new MissingGender();
 		}
+		if (bwCatLower == null) {
+			bwCatLower = 0;
+		}
 		if (gender == Gender.F) {
 			switch (bwCatUpper) {
 			case 40:
@@ -4,10 +4,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
@@ -199,33 +197,24 @@ public class RecordFilter {
 	}
 
 	public static List<RecordEvent> computeEligibleRecordsForAthlete(Athlete curAthlete) {
+		return computeEligibleRecordsForAthlete(curAthlete, RecordIndex.getCurrent());
+	}
 
-		List<RecordEvent> records = RecordRepository.findFiltered(curAthlete.getGender(), curAthlete.getAge(),
-		        curAthlete.getBodyWeight(), null, null);
-		//logger.debug("records size {} {} {} {}", curAthlete.getGender(), curAthlete.getAge(), curAthlete.getBodyWeight(),records);
-
-		// remove duplicates for each kind of record, keep largest
-		Map<String, RecordEvent> cleanMap = new HashMap<>();
-		for (RecordEvent r : records) {
-			RecordEvent curMax = cleanMap.get(r.getKey());
-			if (curMax == null || r.getRecordValue() > curMax.getRecordValue()) {
-				//logger.debug("updating {} {}", r.getKey(), r.getRecordValue());
-				cleanMap.put(r.getKey(), r);
-			} else {
-				//logger.debug("DISCARDING {} {}", r.getKey(), r.getRecordValue());
-			}
-		}
-
-		Collection<RecordEvent> candidateRecords = cleanMap.values();
-		//logger.debug("candidate records {}", candidateRecords);
+	/**
+	 * Records that the athlete can break, from the records in memory.
+	 *
+	 * @param curAthlete
+	 * @param index      obtained once for all the athletes of a group
+	 * @return the largest record of each kind, for the athlete's federations
+	 */
+	public static List<RecordEvent> computeEligibleRecordsForAthlete(Athlete curAthlete, RecordIndex index) {
 		String federationCodes = curAthlete.getFederationCodes();
 		Set<String> athleteFederations = (federationCodes == null || federationCodes.isBlank())
 		        ? Set.of()
 		        : new HashSet<>(Arrays.asList(federationCodes.split("[,;]")));
 		//logger.debug(" *** athlete {} agegroups {} federations {}", curAthlete.getShortName(), curAthlete.getEligibleCategories(), athleteFederations);
-		records = candidateRecords.stream()
-		        .filter(c -> athleteFederations.isEmpty() ? true : athleteFederations.contains(c.getRecordFederation()))
-		        .collect(Collectors.toList());
+		List<RecordEvent> records = index.findEligible(curAthlete.getGender(), curAthlete.getAge(),
+		        curAthlete.getBodyWeight(), athleteFederations);
 		//logger.debug("retained records {}", records);
 		return records;
 	}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.records;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.athlete.Gender;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * All the records in memory, for finding the records an athlete can break
+ * without querying the database.
+ *
+ * The records are grouped by gender and federation, then by age group. Within
+ * an age group, the weight classes are sorted by upper bound so the classes
+ * that contain a body weight are found by binary search. Only the largest
+ * record for each gender, federation, record name, lift, age group and weight
+ * class is kept.
+ *
+ * Immutable. The current index is read from the database when first needed,
+ * and is dropped by {@link #invalidate()} whenever records are loaded, saved or
+ * deleted.
+ *
+ * @author Jean-François Lamy
+ */
+public class RecordIndex {
+
+	/**
+	 * The records of an age group for one gender and one federation.
+	 */
+	private static class AgeBand {
+		private final int lower;
+		private final int upper;
+		/** sorted by increasing bwCatUpper, records without an upper bound at the end */
+		private final RecordEvent[] records;
+		private final int[] uppers;
+
+		AgeBand(int lower, int upper, List<RecordEvent> bandRecords) {
+			this.lower = lower;
+			this.upper = upper;
+			bandRecords.sort(Comparator.comparing(RecordEvent::getBwCatUpper,
+			        Comparator.nullsLast(Comparator.naturalOrder())));
+			this.records = bandRecords.toArray(new RecordEvent[0]);
+			int nbBounded = 0;
+			while (nbBounded < records.length && records[nbBounded].getBwCatUpper() != null) {
+				nbBounded++;
+			}
+			this.uppers = new int[nbBounded];
+			for (int i = 0; i < nbBounded; i++) {
+				uppers[i] = records[i].getBwCatUpper();
+			}
+		}
+
+		boolean contains(Integer age) {
+			return age == null || (lower <= age && upper >= age);
+		}
+
+		void find(Double bw, List<RecordEvent> found) {
+			if (bw == null) {
+				for (RecordEvent r : records) {
+					found.add(r);
+				}
+				return;
+			}
+			// first class whose upper bound is at least bw; the classes below cannot match.
+			int low = 0;
+			int high = uppers.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (uppers[mid] < bw) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			for (int i = low; i < uppers.length; i++) {
+				// weight classes can overlap when several files are loaded, check the lower bound.
+				Integer lowerBw = records[i].getBwCatLower();
+				if ((lowerBw != null ? lowerBw : 0) < bw) {
+					found.add(records[i]);
+				}
+			}
+		}
+	}
+
+	private static RecordIndex current;
+	private static int generation;
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(RecordIndex.class);
+
+	/**
+	 * @return the index for the records currently in the database, read if needed.
+	 */
+	public static RecordIndex getCurrent() {
+		int readGeneration;
+		synchronized (RecordIndex.class) {
+			if (current != null) {
+				return current;
+			}
+			readGeneration = generation;
+		}
+		// read outside of the lock, so that saving a record does not wait for the read.
+		RecordIndex index = new RecordIndex(RecordRepository.findAll());
+		synchronized (RecordIndex.class) {
+			// keep the index only if the records were not changed while reading.
+			if (readGeneration == generation) {
+				current = index;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * The records have changed; the index will be read again when next needed.
+	 */
+	public static synchronized void invalidate() {
+		current = null;
+		generation++;
+	}
+
+	private final Map<Gender, Map<String, List<AgeBand>>> bands = new HashMap<>();
+	private final int size;
+
+	/**
+	 * @param allRecords all the records, including the records set during the
+	 *                   competition
+	 */
+	RecordIndex(Collection<RecordEvent> allRecords) {
+		// keep the largest record for each kind of record; the same classes exist for
+		// both genders and in several federations.
+		Map<String, RecordEvent> cleanMap = new HashMap<>();
+		for (RecordEvent r : allRecords) {
+			String key = r.getGender() + "_" + r.getRecordFederation() + "_" + r.getKey();
+			RecordEvent curMax = cleanMap.get(key);
+			if (curMax == null || isLarger(r, curMax)) {
+				cleanMap.put(key, r);
+			}
+		}
+
+		Map<Gender, Map<String, TreeMap<Long, List<RecordEvent>>>> grouped = new HashMap<>();
+		for (RecordEvent r : cleanMap.values()) {
+			long ageKey = ((long) r.getAgeGrpLower() << 32) + r.getAgeGrpUpper();
+			grouped.computeIfAbsent(r.getGender(), (k) -> new HashMap<>())
+			        .computeIfAbsent(r.getRecordFederation(), (k) -> new TreeMap<>())
+			        .computeIfAbsent(ageKey, (k) -> new ArrayList<>())
+			        .add(r);
+		}
+		grouped.forEach((gender, byFederation) -> {
+			Map<String, List<AgeBand>> federationBands = new HashMap<>();
+			byFederation.forEach((federation, byAge) -> {
+				List<AgeBand> ageBands = new ArrayList<>(byAge.size());
+				for (List<RecordEvent> bandRecords : byAge.values()) {
+					RecordEvent first = bandRecords.get(0);
+					ageBands.add(new AgeBand(first.getAgeGrpLower(), first.getAgeGrpUpper(), bandRecords));
+				}
+				federationBands.put(federation, ageBands);
+			});
+			bands.put(gender, federationBands);
+		});
+		size = cleanMap.size();
+		logger.debug("record index: {} records, {} kept", allRecords.size(), size);
+	}
+
+	/**
+	 * Records for which the gender, age and body weight are eligible. Same
+	 * conditions as {@link RecordRepository#findFiltered}: a null gender, age or
+	 * body weight is not used for filtering.
+	 *
+	 * @param gender
+	 * @param age
+	 * @param bw
+	 * @param federations only records from these federations; all federations if
+	 *                    empty
+	 * @return a new list, with only the largest record of each kind
+	 */
+	public List<RecordEvent> findEligible(Gender gender, Integer age, Double bw, Set<String> federations) {
+		List<RecordEvent> found = new ArrayList<>();
+		if (gender != null) {
+			findEligible(bands.get(gender), age, bw, federations, found);
+		} else {
+			for (Map<String, List<AgeBand>> federationBands : bands.values()) {
+				findEligible(federationBands, age, bw, federations, found);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return the number of records kept
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void findEligible(Map<String, List<AgeBand>> federationBands, Integer age, Double bw,
+	        Set<String> federations, List<RecordEvent> found) {
+		if (federationBands == null) {
+			return;
+		}
+		if (federations.isEmpty()) {
+			for (List<AgeBand> ageBands : federationBands.values()) {
+				findEligible(ageBands, age, bw, found);
+			}
+		} else {
+			for (String federation : federations) {
+				findEligible(federationBands.get(federation), age, bw, found);
+			}
+		}
+	}
+
+	private void findEligible(List<AgeBand> ageBands, Integer age, Double bw, List<RecordEvent> found) {
+		if (ageBands == null) {
+			return;
+		}
+		// age bands are sorted by lower bound
+		for (AgeBand band : ageBands) {
+			if (age != null && band.lower > age) {
+				break;
+			}
+			if (band.contains(age)) {
+				band.find(bw, found);
+			}
+		}
+	}
+
+	private boolean isLarger(RecordEvent r, RecordEvent curMax) {
+		if (r.getRecordValue() == null) {
+			return false;
+		}
+		return curMax.getRecordValue() == null || r.getRecordValue() > curMax.getRecordValue();
+	}
+
+}
@@ -8,8 +8,11 @@ package app.owlcms.data.records;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -47,6 +50,50 @@ public class RecordRepository {
 			}
 			return null;
 		});
+		RecordIndex.invalidate();
+	}
+
+	/**
+	 * Delete the records loaded from a definition file.
+	 *
+	 * @param fileName the name of the file, without extension
+	 */
+	public static void clearLoadedRecords(String fileName) {
+		JPAService.runInTransaction(em -> {
+			int deletedCount = em.createQuery(
+			        "DELETE FROM RecordEvent rec WHERE rec.groupNameString IS NULL AND rec.fileName = :fileName")
+			        .setParameter("fileName", fileName)
+			        .executeUpdate();
+			if (deletedCount > 0) {
+				logger.info("deleted {} record entries from {}", deletedCount, fileName);
+			}
+			return null;
+		});
+		RecordIndex.invalidate();
+	}
+
+	/**
+	 * Delete the loaded records that do not come from one of the definition files.
+	 *
+	 * @param fileNames the names of the files, without extension
+	 * @throws IOException
+	 */
+	public static void clearLoadedRecordsExcept(Collection<String> fileNames) throws IOException {
+		if (fileNames.isEmpty()) {
+			clearLoadedRecords();
+			return;
+		}
+		JPAService.runInTransaction(em -> {
+			int deletedCount = em.createQuery("DELETE FROM RecordEvent rec WHERE rec.groupNameString IS NULL"
+			        + " AND (rec.fileName IS NULL OR rec.fileName NOT IN :fileNames)")
+			        .setParameter("fileNames", fileNames)
+			        .executeUpdate();
+			if (deletedCount > 0) {
+				logger.info("deleted {} record entries", deletedCount);
+			}
+			return null;
+		});
+		RecordIndex.invalidate();
 	}
 
 	/**
@@ -66,6 +113,7 @@ public class RecordRepository {
 			}
 			return null;
 		});
+		RecordIndex.invalidate();
 	}
 
 //    public static JsonValue computeRecords(Gender gender, Integer age, Double bw, Integer snatchRequest,
@@ -94,6 +142,7 @@ public class RecordRepository {
 			}
 			return null;
 		});
+		RecordIndex.invalidate();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -149,10 +198,31 @@ public class RecordRepository {
 		return (RecordEvent) query.getResultList().stream().findFirst().orElse(null);
 	}
 
+	/**
+	 * @return for each definition file loaded, the fingerprint of its content;
+	 *         null if the records of a file do not all have the same
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, String> findLoadedFileHashes() {
+		return JPAService.runInTransaction(em -> {
+			List<Object[]> rows = em.createQuery(
+			        "select distinct rec.fileName, rec.fileHash from RecordEvent rec where rec.groupNameString is null")
+			        .getResultList();
+			Map<String, String> hashes = new HashMap<>();
+			for (Object[] row : rows) {
+				String hash = (String) row[1];
+				hashes.merge((String) row[0], hash == null ? "" : hash, (h1, h2) -> "");
+			}
+			hashes.replaceAll((f, h) -> h.isEmpty() ? null : h);
+			return hashes;
+		});
+	}
+
 	public static void reloadDefinitions(String localizedFileName) throws IOException {
 		clearLoadedRecords();
 		InputStream is = ResourceWalker.getResourceAsStream(localizedFileName);
 		RecordDefinitionReader.readZip(is);
+		RecordIndex.invalidate();
 	}
 
 	/**
@@ -173,6 +243,7 @@ public class RecordRepository {
 			}
 			return null;
 		});
+		RecordIndex.invalidate();
 
 		return nRecord;
 	}
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.data.team;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRepository;
+import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.data.athleteSort.Ranking;
+import app.owlcms.data.category.AgeDivision;
+import app.owlcms.data.category.Category;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.competition.ReportingSnapshot;
+import app.owlcms.data.group.Group;
+import app.owlcms.data.group.GroupRepository;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Team points, Sinclair, SMF and Robi scores for an age group or age division,
+ * shared by the team displays and the team results page.
+ *
+ * The standings are computed once for each reporting snapshot, instead of once
+ * for each display. The aggregates of a team are recomputed only if one of its
+ * members has a different contribution (points, scores, or group done) than in
+ * the previous standings; the other teams keep their previous aggregates.
+ *
+ * Immutable once published. The {@link Team} objects must not be modified.
+ *
+ * @author Jean-François Lamy
+ */
+public final class TeamStandings {
+
+	/**
+	 * What a team member contributes to the team aggregates.
+	 */
+	public static final class Member {
+		private final Athlete athlete;
+		private final boolean done;
+		private final Integer points;
+		private final Double sinclair;
+		private final Double smf;
+		private final Double robi;
+		private final Long id;
+		private final String categoryCode;
+
+		Member(Athlete a, boolean done, boolean combinedTotal) {
+			this.athlete = a;
+			this.done = done;
+			this.points = combinedTotal ? a.getCombinedPoints() : a.getTotalPoints();
+			this.sinclair = a.getSinclairForDelta();
+			this.smf = a.getSmfForDelta();
+			this.robi = a.getRobi();
+			this.id = a.getId();
+			Category category = a.getCategory();
+			this.categoryCode = category != null ? category.getCode() : null;
+		}
+
+		public Athlete getAthlete() {
+			return athlete;
+		}
+
+		public boolean isDone() {
+			return done;
+		}
+
+		boolean sameContribution(Member other) {
+			return done == other.done && Objects.equals(id, other.id)
+			        && Objects.equals(categoryCode, other.categoryCode)
+			        && athlete.getGender() == other.athlete.getGender()
+			        && Objects.equals(points, other.points) && Objects.equals(sinclair, other.sinclair)
+			        && Objects.equals(smf, other.smf) && Objects.equals(robi, other.robi);
+		}
+	}
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(TeamStandings.class);
+
+	private static final Map<String, TeamStandings> current = new ConcurrentHashMap<>();
+	private static final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+	/**
+	 * The standings for the current results, recomputed if the results have
+	 * changed since they were last published.
+	 *
+	 * @param ageGroupPrefix
+	 * @param ad
+	 * @param ranking        order of the athletes within a team, which decides who
+	 *                       counts towards the team size limits
+	 * @return the latest standings
+	 */
+	public static TeamStandings getCurrent(String ageGroupPrefix, AgeDivision ad, Ranking ranking) {
+		String key = key(ageGroupPrefix, ad, ranking);
+		Competition competition = Competition.getCurrent();
+		ReportingSnapshot snapshot = competition.getReportingSnapshot(ageGroupPrefix, ad);
+		TeamStandings latest = current.get(key);
+		if (latest != null && latest.source == snapshot) {
+			return latest;
+		}
+		synchronized (locks.computeIfAbsent(key, (k) -> new Object())) {
+			latest = current.get(key);
+			if (latest != null && latest.source == snapshot) {
+				return latest;
+			}
+			TeamStandings standings = new TeamStandings(latest, snapshot, competition, ageGroupPrefix, ad, ranking);
+			current.put(key, standings);
+			return standings;
+		}
+	}
+
+	private static String computeGenderKey(Gender gender) {
+		switch (gender) {
+		case F:
+			return "w";
+		case M:
+			return "m";
+		default:
+			return "mw";
+		}
+	}
+
+	private static String key(String ageGroupPrefix, AgeDivision ad, Ranking ranking) {
+		return (ad != null ? ad.name() : "") + "/" + ageGroupPrefix + "/" + ranking;
+	}
+
+	private final ReportingSnapshot source;
+	private final Competition competition;
+	private final Ranking ranking;
+	/** teams in order of first appearance, as in the team results tree */
+	private final Map<Gender, List<Team>> teams = new EnumMap<>(Gender.class);
+	private final Map<Gender, List<Team>> teamsByPoints = new EnumMap<>(Gender.class);
+	private final Map<Gender, List<Team>> teamsBySinclair = new EnumMap<>(Gender.class);
+	private final Map<Gender, Map<String, Team>> teamsByName = new EnumMap<>(Gender.class);
+	private final Map<Team, List<Member>> members = new LinkedHashMap<>();
+	private int nbRecomputed;
+
+	private TeamStandings(TeamStandings previous, ReportingSnapshot source, Competition competition,
+	        String ageGroupPrefix, AgeDivision ad, Ranking ranking) {
+		this.source = source;
+		this.competition = competition;
+		this.ranking = ranking;
+		if (ad == null) {
+			return;
+		}
+		if (previous != null && previous.competition != competition) {
+			// team sizes and scoring may have changed
+			previous = null;
+		}
+		boolean combinedTotal = competition.isSnatchCJTotalMedals();
+		Set<Long> doneGroups = GroupRepository.findAll().stream().filter(g -> g.isDone()).map(Group::getId)
+		        .collect(Collectors.toCollection(HashSet::new));
+
+		for (Gender gender : Gender.mfValues()) {
+			String key = computeGenderKey(gender) + "Team" + (ageGroupPrefix != null ? ageGroupPrefix : ad.name());
+			@SuppressWarnings("unchecked")
+			List<Athlete> athletes = (List<Athlete>) source.get(key);
+			if (athletes == null) {
+				break;
+			}
+			athletes = athletes.stream().filter(a -> a.isTeamMember()).collect(Collectors.toList());
+			AthleteSorter.teamPointsOrder(athletes, ranking);
+
+			Map<String, List<Member>> byTeam = new LinkedHashMap<>();
+			for (Athlete a : athletes) {
+				String teamName = a.getTeam() != null ? a.getTeam() : "-";
+				boolean done = a.getGroup() != null && doneGroups.contains(a.getGroup().getId());
+				byTeam.computeIfAbsent(teamName, (k) -> new ArrayList<>()).add(new Member(a, done, combinedTotal));
+			}
+
+			List<Team> genderTeams = new ArrayList<>(byTeam.size());
+			Map<String, Team> genderTeamsByName = new LinkedHashMap<>();
+			for (Map.Entry<String, List<Member>> entry : byTeam.entrySet()) {
+				String teamName = entry.getKey();
+				List<Member> teamMembers = entry.getValue();
+				Team team = previous != null ? previous.findUnchanged(gender, teamName, teamMembers) : null;
+				if (team == null) {
+					team = aggregate(teamName, gender, teamMembers, competition);
+					nbRecomputed++;
+				}
+				genderTeams.add(team);
+				genderTeamsByName.put(teamName, team);
+				members.put(team, Collections.unmodifiableList(teamMembers));
+			}
+			teams.put(gender, Collections.unmodifiableList(genderTeams));
+			teamsByName.put(gender, genderTeamsByName);
+			List<Team> sorted = new ArrayList<>(genderTeams);
+			sorted.sort(Team.pointsComparator);
+			teamsByPoints.put(gender, Collections.unmodifiableList(sorted));
+			sorted = new ArrayList<>(genderTeams);
+			sorted.sort(Team.scoreComparator);
+			teamsBySinclair.put(gender, Collections.unmodifiableList(sorted));
+		}
+		logger.debug("team standings {} {} {}: {} teams recomputed out of {}", ad, ageGroupPrefix, ranking,
+		        nbRecomputed, members.size());
+	}
+
+	/**
+	 * @param team one of the teams from these standings
+	 * @return the team members, in ranking order
+	 */
+	public List<Member> getMembers(Team team) {
+		List<Member> teamMembers = members.get(team);
+		return teamMembers != null ? teamMembers : Collections.emptyList();
+	}
+
+	/**
+	 * @return the number of teams whose aggregates were computed for these
+	 *         standings; the others were unchanged from the previous standings.
+	 */
+	public int getNbRecomputed() {
+		return nbRecomputed;
+	}
+
+	public Ranking getRanking() {
+		return ranking;
+	}
+
+	/**
+	 * @param gender
+	 * @return the teams in order of first appearance in the ranking
+	 */
+	public List<Team> getTeams(Gender gender) {
+		List<Team> list = teams.get(gender);
+		return list != null ? list : Collections.emptyList();
+	}
+
+	/**
+	 * @param gender
+	 * @return the teams, best points first
+	 */
+	public List<Team> getTeamsByPoints(Gender gender) {
+		List<Team> list = teamsByPoints.get(gender);
+		return list != null ? list : Collections.emptyList();
+	}
+
+	/**
+	 * @param gender
+	 * @return the teams, best Sinclair score first
+	 */
+	public List<Team> getTeamsBySinclair(Gender gender) {
+		List<Team> list = teamsBySinclair.get(gender);
+		return list != null ? list : Collections.emptyList();
+	}
+
+	/**
+	 * @return the results version of the reporting snapshot used
+	 */
+	public long getVersion() {
+		return source.getVersion();
+	}
+
+	private Team aggregate(String teamName, Gender gender, List<Member> teamMembers, Competition competition) {
+		Team team = new Team(teamName, gender);
+		team.setSize(AthleteRepository.countTeamMembers(teamName, gender));
+		for (Member m : teamMembers) {
+			// if the competition is "top n", we can have "top 4 men" + "top 2 women", so we
+			// want the athlete's gender.
+			Integer maxCount = getTopNTeamSize(m.athlete.getGender(), competition);
+			boolean counted = team.getCounted() < maxCount;
+			boolean scored = m.points != null && m.points > 0;
+			if (m.done && counted && scored) {
+				team.setPoints(team.getPoints() + Math.round(m.points));
+			}
+			if (counted) {
+				team.setSinclairScore(team.getSinclairScore() + m.sinclair);
+				team.setSmfScore(team.getSmfScore() + m.smf);
+				team.setCounted(team.getCounted() + 1);
+				team.setRobi(team.getRobi() + m.robi);
+			}
+			team.setSize(team.getSize() + 1);
+		}
+		return team;
+	}
+
+	private Team findUnchanged(Gender gender, String teamName, List<Member> teamMembers) {
+		Map<String, Team> genderTeams = teamsByName.get(gender);
+		Team team = genderTeams != null ? genderTeams.get(teamName) : null;
+		if (team == null) {
+			return null;
+		}
+		List<Member> previousMembers = getMembers(team);
+		if (previousMembers.size() != teamMembers.size()) {
+			return null;
+		}
+		for (int i = 0; i < teamMembers.size(); i++) {
+			if (!teamMembers.get(i).sameContribution(previousMembers.get(i))) {
+				return null;
+			}
+		}
+		return team;
+	}
+
+	private Integer getTopNTeamSize(Gender gender, Competition comp) {
+		switch (gender) {
+		case M:
+			return comp.getMensTeamSize() != null ? comp.getMensTeamSize() : Integer.MAX_VALUE;
+		case F:
+			return comp.getWomensTeamSize() != null ? comp.getWomensTeamSize() : Integer.MAX_VALUE;
+		default:
+			return 0;
+		}
+	}
+
+}
@@ -8,24 +8,16 @@ package app.owlcms.data.team;
 
 import java.util.ArrayList;
 import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.flow.data.provider.hierarchy.TreeData;
 
-import app.owlcms.data.athlete.Athlete;
-import app.owlcms.data.athlete.AthleteRepository;
 import app.owlcms.data.athlete.Gender;
-import app.owlcms.data.athleteSort.AthleteSorter;
 import app.owlcms.data.athleteSort.Ranking;
 import app.owlcms.data.category.AgeDivision;
-import app.owlcms.data.competition.Competition;
-import app.owlcms.data.group.Group;
-import app.owlcms.data.group.GroupRepository;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 
@@ -36,14 +28,10 @@ public class TeamTreeData extends TreeData<TeamTreeItem> {
 
 	private boolean debug = false;
 
-	private List<Group> doneGroups = null;
-
 	private Gender genderFilterValue;
 
 	private final Logger logger = (Logger) LoggerFactory.getLogger(TeamTreeData.class);
 
-	private HashMap<String, Object> reportingBeans;
-
 	private Ranking ranking;
 
 	public TeamTreeData(String ageGroupPrefix, AgeDivision ageDivision, Gender gender, Ranking ranking) {
@@ -64,12 +52,7 @@ public class TeamTreeData extends TreeData<TeamTreeItem> {
 		this.ranking = ranking;
 	}
 
-	private void buildTeamItemTree(HashMap<String, Object> reportingBeans2, String ageGroupPrefix,
-	        AgeDivision ageDivision) {
-		doneGroups = null; // force recompute.
-		if (ageDivision == null) {
-			return;
-		}
+	private void buildTeamItemTree(TeamStandings standings) {
 		for (Gender gender : Gender.mfValues()) {
 			if (genderFilterValue != null && gender != genderFilterValue) {
 				continue;
@@ -82,90 +65,18 @@ public class TeamTreeData extends TreeData<TeamTreeItem> {
 				logger.debug("created list for gender {}: {}", gender, getTeamItemsByGender().get(gender));
 			}
 
-			TeamTreeItem curTeamItem = null;
-			String key = computeGenderKey(gender) + "Team"
-			        + (ageGroupPrefix != null ? ageGroupPrefix : ageDivision.name());
-			logger.debug("looking for {} in {}", key, reportingBeans.keySet());
-
-			@SuppressWarnings("unchecked")
-			List<Athlete> athletes = (List<Athlete>) reportingBeans.get(key);
-			if (athletes == null) {
-				return;
-			}
-			athletes = athletes.stream()
-//                    .peek(a -> {
-//                        logger.debug("{} {} {} {}",a.getShortName(), ((PAthlete) a)._getOriginalParticipation().getTeamMember(), a.getClass().getSimpleName(), ((PAthlete) a).getCategory());
-//                    })
-			        .filter(a -> a.isTeamMember())
-			        .collect(Collectors.toList());
-			AthleteSorter.teamPointsOrder(athletes, ranking);
-
-			String prevTeamName = null;
-			if (athletes != null) {
-				boolean combinedTotal = Competition.getCurrent().isSnatchCJTotalMedals();
-				// count points for each team
-				for (Athlete a : athletes) {
-					// check if competition is a "best n results" team comp.
-					// if the competition is "top n", we can have "top 4 men" + "top 2 women", so we
-					// want the athlete's
-					// gender.
-					Integer maxCount = getTopNTeamSize(a.getGender());
-					String curTeamName = a.getTeam();
-					// logger.debug("a={} curTeam = {}",a, a.getTeam());
-					curTeamItem = findCurTeamItem(getTeamItemsByGender(), gender, curGenderTeams, prevTeamName,
-					        curTeamItem,
-					        curTeamName != null ? curTeamName : "-");
-					boolean groupIsDone = groupIsDone(a);
-					Integer curPoints = combinedTotal ? a.getCombinedPoints() : a.getTotalPoints();
-					double curSinclair = a.getSinclairForDelta();
-					double curSmf = a.getSmfForDelta();
-					double curRobi = a.getRobi();
-
-					Team curTeam = curTeamItem.getTeam();
-
-					boolean b = curTeam.getCounted() < maxCount;
-					boolean c = curPoints != null && curPoints > 0;
-
-//                    if (debug) {
-//                        logger.debug("---- Athlete {} {} {} {} {} {} {} {}", curTeamName, a, a.getGender(), curPoints,
-//                                curTeam.getCounted(), groupIsDone, b, c);
-//                    }
-
-					if (groupIsDone && b && c) {
-						curTeam.setPoints(curTeam.getPoints() + Math.round(curPoints));
-					}
-					if (b) {
-						curTeam.setSinclairScore(curTeam.getSinclairScore() + curSinclair);
-						curTeam.setSmfScore(curTeam.getSmfScore() + curSmf);
-						curTeam.setCounted(curTeam.getCounted() + 1);
-						curTeam.setRobi(curTeam.getRobi() + curRobi);
-					}
-					curTeamItem.addTreeItemChild(a, groupIsDone);
-					curTeam.setSize(curTeam.getSize() + 1);
-					prevTeamName = curTeamName;
+			for (Team team : standings.getTeams(gender)) {
+				TeamTreeItem curTeamItem = new TeamTreeItem(team);
+				for (TeamStandings.Member m : standings.getMembers(team)) {
+					curTeamItem.addTreeItemChild(m.getAthlete(), m.isDone());
 				}
+				curGenderTeams.add(curTeamItem);
 			}
 		}
 
 		dumpTeams();
 	}
 
-	private String computeGenderKey(Gender gender) {
-		String genderKey;
-		switch (gender) {
-		case F:
-			genderKey = "w";
-			break;
-		case M:
-			genderKey = "m";
-			break;
-		default:
-			genderKey = "mw";
-			break;
-		}
-		return genderKey;
-	}
-
 	private void dumpTeams() {
 		for (Gender g : Gender.values()) {
 			List<TeamTreeItem> teamItems = getTeamItemsByGender().get(g);
@@ -183,61 +94,13 @@ public class TeamTreeData extends TreeData<TeamTreeItem> {
 		}
 	}
 
-	private TeamTreeItem findCurTeamItem(Map<Gender, List<TeamTreeItem>> teamItemsByGender, Gender gender,
-	        List<TeamTreeItem> curGenderTeams, String prevTeamName, TeamTreeItem curTeamItem, String curTeamName) {
-		if (curTeamItem == null || prevTeamName == null || !curTeamName.contentEquals(prevTeamName)) {
-			// maybe we have seen the team already (if mixed)
-			TeamTreeItem found = null;
-			for (TeamTreeItem ct : curGenderTeams) {
-				if (ct.getName() != null && ct.getName().contentEquals(curTeamName)) {
-					found = ct;
-					break;
-				}
-			}
-			if (found != null) {
-				curTeamItem = found;
-			} else {
-				curTeamItem = new TeamTreeItem(curTeamName, gender, null, false);
-				curTeamItem.getTeam().setSize(AthleteRepository.countTeamMembers(curTeamName, gender));
-				teamItemsByGender.get(gender).add(curTeamItem);
-			}
-		}
-		return curTeamItem;
-	}
-
-	private Integer getTopNTeamSize(Gender gender) {
-		Integer maxCount = null;
-		Competition comp = Competition.getCurrent();
-
-		switch (gender) {
-		case M:
-			maxCount = comp.getMensTeamSize() != null ? comp.getMensTeamSize() : Integer.MAX_VALUE;
-			break;
-		case F:
-			maxCount = comp.getWomensTeamSize() != null ? comp.getWomensTeamSize() : Integer.MAX_VALUE;
-			break;
-		case I:
-			return 0;
-		default:
-			break;
-		}
-		return maxCount;
-	}
-
-	private boolean groupIsDone(Athlete a) {
-		if (doneGroups == null) {
-			doneGroups = GroupRepository.findAll().stream().filter(g -> g.isDone()).collect(Collectors.toList());
-		}
-		return doneGroups.contains(a.getGroup());
-	}
-
 	private void init(String ageGroupPrefix, AgeDivision ageDivision) {
 		if (debug) {
 			logger.setLevel(Level.DEBUG);
 		}
 		// logger.debug("init tree {} {}", ageGroupPrefix, ageDivision);
-		reportingBeans = Competition.getCurrent().computeReportingInfo(ageGroupPrefix, ageDivision);
-		buildTeamItemTree(reportingBeans, ageGroupPrefix, ageDivision);
+		// the standings are shared with the team displays; the tree items are ours.
+		buildTeamItemTree(TeamStandings.getCurrent(ageGroupPrefix, ageDivision, ranking));
 		if (debug) {
 			dumpTeams();
 		}
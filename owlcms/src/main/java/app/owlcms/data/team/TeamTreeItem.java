@@ -74,6 +74,17 @@ public class TeamTreeItem {
 		this.combinedPoints = Competition.getCurrent().isSnatchCJTotalMedals();
 	}
 
+	/**
+	 * A node for a team whose aggregates are already computed.
+	 *
+	 * @param team shared with the team standings, not modified
+	 */
+	TeamTreeItem(Team team) {
+		this.setTeam(team);
+		this.teamMembers = new ArrayList<>();
+		this.combinedPoints = Competition.getCurrent().isSnatchCJTotalMedals();
+	}
+
 	public void addTreeItemChild(Athlete a, boolean done) {
 		TeamTreeItem child = new TeamTreeItem(null, a.getGender(), a, done);
 		child.setParent(this);
@@ -52,6 +52,7 @@ import app.owlcms.data.group.Group;
 import app.owlcms.displays.options.DisplayOptions;
 import app.owlcms.fieldofplay.FOPState;
 import app.owlcms.fieldofplay.FieldOfPlay;
+import app.owlcms.fieldofplay.ScoreboardModel.AthleteRow;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.init.OwlcmsSession;
@@ -170,9 +171,10 @@ public class AttemptBoard extends PolymerTemplate<TemplateModel> implements Disp
 			Athlete a = fop.getCurAthlete();
 			if (a != null) {;
 				this.getElement().setProperty("category", a.getCategory().getTranslatedName());
-				String formattedAttempt = formatAttempt(a);
+				AthleteRow row = fop.getScoreboardModel().getRow(a);
+				String formattedAttempt = formatAttempt(row);
 				this.getElement().setProperty("attempt - ", formattedAttempt);
-				Integer nextAttemptRequestedWeight = a.getNextAttemptRequestedWeight();
+				Integer nextAttemptRequestedWeight = row.getNextAttemptRequestedWeight();
 				setDisplayedWeight(nextAttemptRequestedWeight > 0 ? nextAttemptRequestedWeight.toString() : "");
 				showPlates();
 				// logger.trace("showingPlates {}",a.getNextAttemptRequestedWeight());
@@ -664,8 +666,8 @@ public class AttemptBoard extends PolymerTemplate<TemplateModel> implements Disp
 		return;
 	}
 
-	private String formatAttempt(Athlete a) {
-		Integer attemptsDone = a.getAttemptsDone();
+	private String formatAttempt(AthleteRow row) {
+		Integer attemptsDone = row.getAttemptsDone();
 		int attemptNo = attemptsDone + 1;
 	    //logger.debug("attemptNo {}",attemptNo);
 		String translation = Translator.translateOrElseNull("AttemptBoard_lift_attempt_number", getLocale());
@@ -891,9 +893,10 @@ public class AttemptBoard extends PolymerTemplate<TemplateModel> implements Disp
 		spotlightRecords(fop);
 
 		this.getElement().setProperty("startNumber", a.getStartNumber());
-		String formattedAttempt = formatAttempt(a);
+		AthleteRow row = fop.getScoreboardModel().getRow(a);
+		String formattedAttempt = formatAttempt(row);
 		this.getElement().setProperty("attempt", formattedAttempt);
-		Integer nextAttemptRequestedWeight = a.getNextAttemptRequestedWeight();
+		Integer nextAttemptRequestedWeight = row.getNextAttemptRequestedWeight();
 		setDisplayedWeight(nextAttemptRequestedWeight > 0 ? nextAttemptRequestedWeight.toString() : "");
 		showPlates();
 		this.getElement().callJsFunction("reset");
@@ -916,9 +919,10 @@ public class AttemptBoard extends PolymerTemplate<TemplateModel> implements Disp
 		Athlete a = fop.getCurAthlete();
 		if (a != null) {
 			this.getElement().setProperty("category", a.getCategory().getTranslatedName());
-			String formattedAttempt = formatAttempt(a);
+			AthleteRow row = fop.getScoreboardModel().getRow(a);
+			String formattedAttempt = formatAttempt(row);
 			this.getElement().setProperty("attempt", formattedAttempt);
-			Integer nextAttemptRequestedWeight = a.getNextAttemptRequestedWeight();
+			Integer nextAttemptRequestedWeight = row.getNextAttemptRequestedWeight();
 			setDisplayedWeight(nextAttemptRequestedWeight > 0 ? nextAttemptRequestedWeight.toString() : "");
 			showPlates();
 		}
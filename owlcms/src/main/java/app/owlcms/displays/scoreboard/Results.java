@@ -43,9 +43,6 @@ import app.owlcms.components.elements.AthleteTimerElement;
 import app.owlcms.components.elements.BreakTimerElement;
 import app.owlcms.components.elements.DecisionElement;
 import app.owlcms.data.athlete.Athlete;
-import app.owlcms.data.athlete.LiftDefinition.Changes;
-import app.owlcms.data.athlete.LiftInfo;
-import app.owlcms.data.athlete.XAthlete;
 import app.owlcms.data.athleteSort.AthleteSorter;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.category.Participation;
@@ -54,6 +51,7 @@ import app.owlcms.data.group.Group;
 import app.owlcms.displays.options.DisplayOptions;
 import app.owlcms.fieldofplay.FOPState;
 import app.owlcms.fieldofplay.FieldOfPlay;
+import app.owlcms.fieldofplay.ScoreboardModel.AthleteRow;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.init.OwlcmsSession;
@@ -606,11 +604,6 @@ public class Results extends PolymerTemplate<TemplateModel>
 		return translate;
 	}
 
-	private String formatKg(String total) {
-		return (total == null || total.trim().isEmpty()) ? "-"
-		        : (total.startsWith("-") ? "(" + total.substring(1) + ")" : total);
-	}
-
 	private void init() {
 		OwlcmsSession.withFop(fop -> {
 			logger.trace("{}Starting result board on FOP {}", fop.getLoggingName());
@@ -861,7 +854,8 @@ public class Results extends PolymerTemplate<TemplateModel>
 	protected void getAthleteJson(Athlete a, JsonObject ja, Category curCat, int liftOrderRank, FieldOfPlay fop) {
 		String category;
 		category = curCat != null ? curCat.getTranslatedName() : "";
-		ja.put("fullName", a.getFullName() != null ? a.getFullName() : "");
+		AthleteRow row = fop.getScoreboardModel().getRow(a);
+		ja.put("fullName", row.getFullName() != null ? row.getFullName() : "");
 		ja.put("teamName", a.getTeam() != null ? a.getTeam() : "");
 		ja.put("yearOfBirth", a.getYearOfBirth() != null ? a.getYearOfBirth().toString() : "");
 		Integer startNumber = a.getStartNumber();
@@ -869,10 +863,10 @@ public class Results extends PolymerTemplate<TemplateModel>
 		ja.put("category", category != null ? category : "");
 		getAttemptsJson(a, liftOrderRank, fop);
 		ja.put("sattempts", sattempts);
-		ja.put("bestSnatch", formatInt(a.getBestSnatch()));
+		ja.put("bestSnatch", formatInt(row.getBestSnatch()));
 		ja.put("cattempts", cattempts);
-		ja.put("bestCleanJerk", formatInt(a.getBestCleanJerk()));
-		ja.put("total", formatInt(a.getTotal()));
+		ja.put("bestCleanJerk", formatInt(row.getBestCleanJerk()));
+		ja.put("total", formatInt(row.getTotal()));
 		Participation mainRankings = a.getMainRankings();
 		if (mainRankings != null) {
 			ja.put("snatchRank", formatRank(mainRankings.getSnatchRank()));
@@ -882,14 +876,14 @@ public class Results extends PolymerTemplate<TemplateModel>
 			logger.error("main rankings null for {}", a);
 		}
 		ja.put("group", a.getGroup() != null ? a.getGroup().getName() : "");
-		Double double1 = a.getAttemptsDone() <= 3 ? a.getSinclairForDelta()
-		        : a.getSinclair();
+		Double double1 = row.getAttemptsDone() <= 3 ? row.getSinclairForDelta()
+		        : row.getSinclair();
 		ja.put("sinclair", double1 > 0.001 ? String.format("%.3f", double1) : "-");
 		ja.put("custom1", a.getCustom1() != null ? a.getCustom1() : "");
 		ja.put("custom2", a.getCustom2() != null ? a.getCustom2() : "");
 		ja.put("sinclairRank", a.getSinclairRank() != null && a.getSinclairRank() > 0 ? "" + a.getSinclairRank() : "-");
 
-		boolean notDone = a.getAttemptsDone() < 6;
+		boolean notDone = row.getAttemptsDone() < 6;
 		String blink = (notDone ? " blink" : "");
 		String highlight = "";
 		if (fop.getState() != FOPState.DECISION_VISIBLE && notDone && showCurrent(fop)) {
@@ -949,83 +943,22 @@ public class Results extends PolymerTemplate<TemplateModel>
 	}
 
 	/**
-	 * Compute Json string ready to be used by web component template
+	 * Json arrays ready to be used by web component template, taken from the rows
+	 * computed by the field of play.
 	 *
 	 * CSS classes are pre-computed and passed along with the values; weights are
 	 * formatted.
 	 *
 	 * @param a
 	 * @param fop
-	 * @return json string with nested attempts values
 	 */
 	protected void getAttemptsJson(Athlete a, int liftOrderRank, FieldOfPlay fop) {
-		sattempts = Json.createArray();
-		cattempts = Json.createArray();
-		XAthlete x = new XAthlete(a);
-		Integer curLift = x.getAttemptsDone();
-		int ix = 0;
-		for (LiftInfo i : x.getRequestInfoArray()) {
-			JsonObject jri = Json.createObject();
-			String stringValue = i.getStringValue();
-			boolean notDone = x.getAttemptsDone() < 6;
-			String blink = (notDone ? " blink" : "");
-
-			jri.put("goodBadClassName", "narrow empty");
-			jri.put("stringValue", "");
-			if (i.getChangeNo() >= 0) {
-				String trim = stringValue != null ? stringValue.trim() : "";
-				switch (Changes.values()[i.getChangeNo()]) {
-				case ACTUAL:
-					if (!trim.isEmpty()) {
-						if (trim.contentEquals("-") || trim.contentEquals("0")) {
-							jri.put("goodBadClassName", "narrow fail");
-							jri.put("stringValue", "-");
-						} else {
-							boolean failed = stringValue != null && stringValue.startsWith("-");
-							jri.put("goodBadClassName", failed ? "narrow fail" : "narrow good");
-							jri.put("stringValue", formatKg(stringValue));
-						}
-					}
-					break;
-				default:
-					if (stringValue != null && !trim.isEmpty()) {
-						// logger.debug("{} {} {}", fop.getState(), x.getShortName(), curLift);
-
-						String highlight = "";
-						// don't blink while decision is visible. wait until lifting displayOrder has
-						// been
-						// recomputed and we get DECISION_RESET
-						int liftBeingDisplayed = i.getLiftNo();
-						if (liftBeingDisplayed == curLift && (fop.getState() != FOPState.DECISION_VISIBLE)
-						        && showCurrent(fop)) {
-							switch (liftOrderRank) {
-							case 1:
-								highlight = (" current" + blink);
-								break;
-							case 2:
-								highlight = " next";
-								break;
-							default:
-								highlight = "";
-							}
-						}
-						jri.put("goodBadClassName", "narrow request");
-						if (notDone) {
-							jri.put("className", highlight);
-						}
-						jri.put("stringValue", stringValue);
-					}
-					break;
-				}
-			}
-
-			if (ix < 3) {
-				sattempts.set(ix, jri);
-			} else {
-				cattempts.set(ix % 3, jri);
-			}
-			ix++;
-		}
+		// don't blink while decision is visible. wait until lifting displayOrder has
+		// been recomputed and we get DECISION_RESET
+		int highlight = (fop.getState() != FOPState.DECISION_VISIBLE) && showCurrent(fop) ? liftOrderRank : 0;
+		AthleteRow row = fop.getScoreboardModel().getRow(a);
+		sattempts = row.getSnatchAttemptsJson(highlight);
+		cattempts = row.getCleanJerkAttemptsJson(highlight);
 	}
 
 	protected String getDisplayType() {
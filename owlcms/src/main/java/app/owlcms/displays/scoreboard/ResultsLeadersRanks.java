@@ -22,6 +22,7 @@ import app.owlcms.data.category.Category;
 import app.owlcms.data.category.Participation;
 import app.owlcms.fieldofplay.FOPState;
 import app.owlcms.fieldofplay.FieldOfPlay;
+import app.owlcms.fieldofplay.ScoreboardModel.AthleteRow;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.init.OwlcmsSession;
 import ch.qos.logback.classic.Logger;
@@ -125,7 +126,8 @@ public class ResultsLeadersRanks extends Results {
 	protected void getAthleteJson(Athlete a, JsonObject ja, Category curCat, int liftOrderRank, FieldOfPlay fop) {
 		String category;
 		category = curCat != null ? curCat.getTranslatedName() : "";
-		ja.put("fullName", a.getFullName() != null ? a.getFullName() : "");
+		AthleteRow row = fop.getScoreboardModel().getRow(a);
+		ja.put("fullName", row.getFullName() != null ? row.getFullName() : "");
 		ja.put("teamName", a.getTeam() != null ? a.getTeam() : "");
 		ja.put("yearOfBirth", a.getYearOfBirth() != null ? a.getYearOfBirth().toString() : "");
 		Integer startNumber = a.getStartNumber();
@@ -133,22 +135,22 @@ public class ResultsLeadersRanks extends Results {
 		ja.put("category", category != null ? category : "");
 		getAttemptsJson(a, liftOrderRank, fop);
 		ja.put("sattempts", sattempts);
-		ja.put("bestSnatch", formatInt(a.getBestSnatch()));
+		ja.put("bestSnatch", formatInt(row.getBestSnatch()));
 		ja.put("cattempts", cattempts);
-		ja.put("bestCleanJerk", formatInt(a.getBestCleanJerk()));
-		ja.put("total", formatInt(a.getTotal()));
+		ja.put("bestCleanJerk", formatInt(row.getBestCleanJerk()));
+		ja.put("total", formatInt(row.getTotal()));
 		setCurrentAthleteParticipations(a);
 		ja.put("snatchRanks", getRanksJson(a, Ranking.SNATCH, ageGroupMap));
 		ja.put("cleanJerkRanks", getRanksJson(a, Ranking.CLEANJERK, ageGroupMap));
 		ja.put("totalRanks", getRanksJson(a, Ranking.TOTAL, ageGroupMap));
 		ja.put("group", a.getGroup() != null ? a.getGroup().getName() : "");
-		Double double1 = a.getAttemptsDone() <= 3 ? a.getSinclairForDelta()
-		        : a.getSinclair();
+		Double double1 = row.getAttemptsDone() <= 3 ? row.getSinclairForDelta()
+		        : row.getSinclair();
 		ja.put("sinclair", double1 > 0.001 ? String.format("%.3f", double1) : "-");
 		ja.put("custom1", a.getCustom1() != null ? a.getCustom1() : "");
 		ja.put("custom2", a.getCustom2() != null ? a.getCustom2() : "");
 
-		boolean notDone = a.getAttemptsDone() < 6;
+		boolean notDone = row.getAttemptsDone() < 6;
 		String blink = (notDone ? " blink" : "");
 		String highlight = "";
 		if (fop.getState() != FOPState.DECISION_VISIBLE && notDone) {
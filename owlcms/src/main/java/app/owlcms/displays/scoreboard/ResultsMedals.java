@@ -39,15 +39,14 @@ import com.vaadin.flow.templatemodel.TemplateModel;
 import app.owlcms.apputils.SoundUtils;
 import app.owlcms.apputils.queryparameters.ContextFreeDisplayParameters;
 import app.owlcms.data.athlete.Athlete;
-import app.owlcms.data.athlete.LiftDefinition.Changes;
-import app.owlcms.data.athlete.LiftInfo;
-import app.owlcms.data.athlete.XAthlete;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.category.Participation;
 import app.owlcms.data.competition.Competition;
 import app.owlcms.data.group.Group;
 import app.owlcms.displays.options.DisplayOptions;
 import app.owlcms.fieldofplay.FieldOfPlay;
+import app.owlcms.fieldofplay.ScoreboardModel;
+import app.owlcms.fieldofplay.ScoreboardModel.AthleteRow;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.init.OwlcmsSession;
@@ -598,11 +597,6 @@ public class ResultsMedals extends PolymerTemplate<TemplateModel>
 		}
 	}
 
-	private String formatKg(String total) {
-		return (total == null || total.trim().isEmpty()) ? "-"
-		        : (total.startsWith("-") ? "(" + total.substring(1) + ")" : total);
-	}
-
 	private String formatRank(Integer total) {
 		if (total == null || total == 0) {
 			return "";
@@ -697,64 +691,22 @@ public class ResultsMedals extends PolymerTemplate<TemplateModel>
 	}
 
 	/**
-	 * Compute Json string ready to be used by web component template
+	 * Json arrays ready to be used by web component template, taken from the rows
+	 * computed by the field of play when available.
 	 *
 	 * CSS classes are pre-computed and passed along with the values; weights are
 	 * formatted.
 	 *
 	 * @param a
-	 * @param fop
-	 * @return json string with nested attempts values
+	 * @param liftOrderRank
 	 */
 	private void getAttemptsJson(Athlete a, int liftOrderRank) {
-		sattempts = Json.createArray();
-		cattempts = Json.createArray();
-		XAthlete x = new XAthlete(a);
-		int ix = 0;
-		for (LiftInfo i : x.getRequestInfoArray()) {
-			JsonObject jri = Json.createObject();
-			String stringValue = i.getStringValue();
-			boolean notDone = x.getAttemptsDone() < 6;
-
-			jri.put("goodBadClassName", "narrow empty");
-			jri.put("stringValue", "");
-			if (i.getChangeNo() >= 0) {
-				String trim = stringValue != null ? stringValue.trim() : "";
-				switch (Changes.values()[i.getChangeNo()]) {
-				case ACTUAL:
-					if (!trim.isEmpty()) {
-						if (trim.contentEquals("-") || trim.contentEquals("0")) {
-							jri.put("goodBadClassName", "narrow fail");
-							jri.put("stringValue", "-");
-						} else {
-							boolean failed = stringValue != null && stringValue.startsWith("-");
-							jri.put("goodBadClassName", failed ? "narrow fail" : "narrow good");
-							jri.put("stringValue", formatKg(stringValue));
-						}
-					}
-					break;
-				default:
-					if (stringValue != null && !trim.isEmpty()) {
-						// logger.debug("{} {} {}", fop.getState(), x.getShortName(), curLift);
-
-						String highlight = "";
-						jri.put("goodBadClassName", "narrow request");
-						if (notDone) {
-							jri.put("className", highlight);
-						}
-						jri.put("stringValue", stringValue);
-					}
-					break;
-				}
-			}
-
-			if (ix < 3) {
-				sattempts.set(ix, jri);
-			} else {
-				cattempts.set(ix % 3, jri);
-			}
-			ix++;
-		}
+		FieldOfPlay fop = OwlcmsSession.getFop();
+		ScoreboardModel model = fop != null ? fop.getScoreboardModel() : ScoreboardModel.EMPTY;
+		// medals are shown without highlighting
+		AthleteRow row = model.getRow(a);
+		sattempts = row.getSnatchAttemptsJson(0);
+		cattempts = row.getCleanJerkAttemptsJson(0);
 	}
 
 	private Object getOrigin() {
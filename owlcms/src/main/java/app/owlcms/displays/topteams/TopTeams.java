@@ -14,7 +14,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
-import java.util.stream.Collectors;
 
 import org.slf4j.LoggerFactory;
 
@@ -44,8 +43,7 @@ import app.owlcms.data.athleteSort.Ranking;
 import app.owlcms.data.category.AgeDivision;
 import app.owlcms.data.competition.Competition;
 import app.owlcms.data.team.Team;
-import app.owlcms.data.team.TeamTreeData;
-import app.owlcms.data.team.TeamTreeItem;
+import app.owlcms.data.team.TeamStandings;
 import app.owlcms.displays.options.DisplayOptions;
 import app.owlcms.fieldofplay.FieldOfPlay;
 import app.owlcms.i18n.Translator;
@@ -101,9 +99,9 @@ public class TopTeams extends PolymerTemplate<TemplateModel> implements DisplayP
 	private boolean initializationNeeded;
 	private Location location;
 	private UI locationUI;
-	private List<TeamTreeItem> mensTeams;
+	private List<Team> mensTeams;
 	private EventBus uiEventBus;
-	private List<TeamTreeItem> womensTeams;
+	private List<Team> womensTeams;
 	private Timer dialogTimer;
 
 	private String routeParameter;
@@ -179,21 +177,11 @@ public class TopTeams extends PolymerTemplate<TemplateModel> implements DisplayP
 	public void doUpdate(Competition competition) {
 		this.getElement().callJsFunction("reset");
 
-		TeamTreeData teamTreeData = new TeamTreeData(getAgeGroupPrefix(), getAgeDivision(), (Gender) null,
+		// shared by all the team displays, recomputed only when results have changed
+		TeamStandings standings = TeamStandings.getCurrent(getAgeGroupPrefix(), getAgeDivision(),
 		        Ranking.SNATCH_CJ_TOTAL);
-		Map<Gender, List<TeamTreeItem>> teamsByGender = teamTreeData.getTeamItemsByGender();
-
-		mensTeams = teamsByGender.get(Gender.M);
-		if (mensTeams != null) {
-			mensTeams.sort(TeamTreeItem.pointComparator);
-		}
-		mensTeams = topN(mensTeams);
-
-		womensTeams = teamsByGender.get(Gender.F);
-		if (womensTeams != null) {
-			womensTeams.sort(TeamTreeItem.pointComparator);
-		}
-		womensTeams = topN(womensTeams);
+		mensTeams = topN(standings.getTeamsByPoints(Gender.M));
+		womensTeams = topN(standings.getTeamsByPoints(Gender.F));
 
 		updateBottom();
 	}
@@ -492,12 +480,10 @@ public class TopTeams extends PolymerTemplate<TemplateModel> implements DisplayP
 		ja.put("points", formatInt(t.getPoints()));
 	}
 
-	private JsonValue getTeamsJson(List<TeamTreeItem> teamItems, boolean overrideTeamWidth) {
+	private JsonValue getTeamsJson(List<Team> teams, boolean overrideTeamWidth) {
 		JsonArray jath = Json.createArray();
 		int athx = 0;
-		List<Team> list3 = teamItems != null
-		        ? teamItems.stream().map(TeamTreeItem::getTeam).collect(Collectors.toList())
-		        : Collections.emptyList();
+		List<Team> list3 = teams != null ? teams : Collections.emptyList();
 		if (overrideTeamWidth) {
 			// when we are called for the second time, and there was a wide team in the top
 			// section.
@@ -531,7 +517,7 @@ public class TopTeams extends PolymerTemplate<TemplateModel> implements DisplayP
 		getElement().setProperty("wideTeamNames", b);
 	}
 
-	private List<TeamTreeItem> topN(List<TeamTreeItem> list) {
+	private List<Team> topN(List<Team> list) {
 		if (list == null) {
 			return new ArrayList<>();
 		}
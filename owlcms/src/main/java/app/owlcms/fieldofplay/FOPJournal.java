@@ -0,0 +1,759 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.fieldofplay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRepository;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.competition.CompetitionRepository;
+import app.owlcms.data.group.Group;
+import app.owlcms.utils.LoggerUtils;
+import app.owlcms.utils.StartupUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Append-only journal of what happens on a field of play: the groups loaded,
+ * the events that change the results or the state (weight changes, decisions,
+ * jury decisions, breaks), and the lifts of an athlete each time they are
+ * saved.
+ *
+ * The journal is a memory-mapped file, one per field of play, in the
+ * <code>journal</code> directory (<code>-DjournalDir</code> or
+ * <code>OWLCMS_JOURNALDIR</code>). Appending is a memory copy; the file is
+ * forced to disk by a background thread every 100ms
+ * (<code>-DjournalSyncMs</code>), so a power failure loses at most that
+ * interval. <code>-Djournal=false</code> disables the journal.
+ *
+ * The lifts of an athlete are journaled before they are saved to the database.
+ * When the server is restarted after a crash, the first load of the group that
+ * was lifting gives back to its athletes the decisions that were journaled but
+ * not saved. The journal is also an audit trail, and can be read offline with
+ * {@link #read(Path, Consumer)}.
+ *
+ * The journal is stamped with the journal epoch of the competition, which
+ * changes when the lifts are cleared, the categories are reset or a database
+ * is restored; group names are reused across epochs, so a journal from another
+ * epoch or another database is never used for recovery. When the epoch
+ * changes, the journals are rotated: the current file is renamed with a
+ * timestamp and kept for auditing, and a new file is started.
+ *
+ * Each record is an int length, the CRC32 of the payload, then the payload; a
+ * length of 0 marks the end of the journal.
+ *
+ * @author Jean-François Lamy
+ */
+public class FOPJournal {
+
+	/**
+	 * One entry of the journal.
+	 */
+	public static final class JournalRecord {
+		private final long timestamp;
+		private final byte kind;
+		private final String type;
+		private final String groupName;
+		private final long athleteId;
+		private final String detail;
+		private final String[] lifts;
+
+		JournalRecord(long timestamp, byte kind, String type, String groupName, long athleteId, String detail,
+		        String[] lifts) {
+			this.timestamp = timestamp;
+			this.kind = kind;
+			this.type = type;
+			this.groupName = groupName;
+			this.athleteId = athleteId;
+			this.detail = detail;
+			this.lifts = lifts;
+		}
+
+		/**
+		 * @return the athlete id, or -1 if the record is not about an athlete
+		 */
+		public long getAthleteId() {
+			return athleteId;
+		}
+
+		public String getDetail() {
+			return detail;
+		}
+
+		public String getGroupName() {
+			return groupName;
+		}
+
+		/**
+		 * @return {@link FOPJournal#GROUP}, {@link FOPJournal#EVENT},
+		 *         {@link FOPJournal#LIFTS} or {@link FOPJournal#IDENTITY}
+		 */
+		public byte getKind() {
+			return kind;
+		}
+
+		/**
+		 * @return the declarations, changes and actual lifts of the six attempts, in
+		 *         order, null if the record is not about an athlete.
+		 */
+		public String[] getLifts() {
+			return lifts != null ? lifts.clone() : null;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * @return the simple class name of the event
+		 */
+		public String getType() {
+			return type;
+		}
+
+		@Override
+		public String toString() {
+			return "JournalRecord [timestamp=" + timestamp + ", kind=" + kind + ", type=" + type + ", groupName="
+			        + groupName + ", athleteId=" + athleteId + ", detail=" + detail + "]";
+		}
+	}
+
+	/** a group was loaded */
+	public static final byte GROUP = 1;
+	/** an event was received by the field of play */
+	public static final byte EVENT = 2;
+	/** the lifts of an athlete, about to be saved */
+	public static final byte LIFTS = 3;
+	/** the journal epoch of the competition, in the detail */
+	public static final byte IDENTITY = 4;
+
+	private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+	private static final int NB_LIFT_FIELDS = 24;
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(FOPJournal.class);
+
+	/** the open journals, by file; a field of play that is recreated reuses its journal */
+	private static final Map<Path, FOPJournal> openJournals = new ConcurrentHashMap<>();
+	private static ScheduledExecutorService syncer;
+
+	/**
+	 * @param fopName the name of the field of play
+	 * @param enabled false to get a journal that records nothing (used for
+	 *                testing)
+	 * @return the journal for the field of play, or a journal that records nothing
+	 *         if journaling is disabled or the file cannot be opened
+	 */
+	public static FOPJournal open(String fopName, boolean enabled) {
+		Boolean journalParam = StartupUtils.getBooleanParamOrElseNull("journal");
+		if (!enabled || (journalParam != null && !journalParam)) {
+			return new FOPJournal(fopName);
+		}
+		String dir = StartupUtils.getStringParam("journalDir");
+		Path file = Path.of(dir != null ? dir : "journal", fopName.replaceAll("[^A-Za-z0-9_-]", "_") + ".journal");
+		try {
+			synchronized (openJournals) {
+				FOPJournal journal = openJournals.get(file.toAbsolutePath());
+				if (journal == null) {
+					journal = new FOPJournal(fopName, file);
+					startSyncer();
+					openJournals.put(file.toAbsolutePath(), journal);
+				}
+				return journal;
+			}
+		} catch (IOException e) {
+			logger.error("{} journal not available {}", fopName, LoggerUtils.stackTrace(e));
+			return new FOPJournal(fopName);
+		}
+	}
+
+	/**
+	 * Read a journal, for example to replay a competition.
+	 *
+	 * @param file     the journal file
+	 * @param consumer called for each record, in order
+	 * @return the position after the last valid record
+	 * @throws IOException
+	 */
+	public static long read(Path file, Consumer<JournalRecord> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long position = 0;
+			long size = channel.size();
+			while (position < size) {
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position,
+				        Math.min(SEGMENT_SIZE, size - position));
+				int used = 0;
+				JournalRecord r;
+				while ((r = readRecord(buffer)) != null) {
+					consumer.accept(r);
+					used = buffer.position();
+				}
+				if (used == 0) {
+					// end marker, or nothing valid after the last record
+					break;
+				}
+				// a record cut by the end of the mapping is read again from its start
+				position += used;
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Start a new journal epoch: the journaled lifts no longer match the
+	 * database, and must never be recovered. Every open journal is rotated.
+	 *
+	 * @param reason logged, and appended to the rotated file names
+	 */
+	public static void startNewEpoch(String reason) {
+		Competition c = Competition.getCurrent();
+		if (c != null) {
+			c.setJournalEpoch(newEpoch());
+			CompetitionRepository.save(c);
+		}
+		rotateAll(reason);
+	}
+
+	/**
+	 * @return a new journal epoch, for a competition that is about to be saved
+	 */
+	public static String newEpoch() {
+		return UUID.randomUUID().toString();
+	}
+
+	/**
+	 * Rotate every open journal; used when the journal epoch has already been
+	 * changed in the database.
+	 *
+	 * @param reason
+	 */
+	public static void rotateAll(String reason) {
+		synchronized (openJournals) {
+			for (FOPJournal j : openJournals.values()) {
+				j.rotate(reason);
+			}
+		}
+	}
+
+	/**
+	 * @return the journal epoch of the current competition, created if missing
+	 */
+	private static String currentEpoch() {
+		Competition c = Competition.getCurrent();
+		if (c == null) {
+			return null;
+		}
+		synchronized (FOPJournal.class) {
+			if (c.getJournalEpoch() == null) {
+				c.setJournalEpoch(newEpoch());
+				CompetitionRepository.save(c);
+			}
+			return c.getJournalEpoch();
+		}
+	}
+
+	private static String getString(ByteBuffer b) {
+		short length = b.getShort();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		b.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String[] lifts(Athlete a) {
+		return new String[] {
+		        a.getSnatch1Declaration(), a.getSnatch1Change1(), a.getSnatch1Change2(), a.getSnatch1ActualLift(),
+		        a.getSnatch2Declaration(), a.getSnatch2Change1(), a.getSnatch2Change2(), a.getSnatch2ActualLift(),
+		        a.getSnatch3Declaration(), a.getSnatch3Change1(), a.getSnatch3Change2(), a.getSnatch3ActualLift(),
+		        a.getCleanJerk1Declaration(), a.getCleanJerk1Change1(), a.getCleanJerk1Change2(),
+		        a.getCleanJerk1ActualLift(),
+		        a.getCleanJerk2Declaration(), a.getCleanJerk2Change1(), a.getCleanJerk2Change2(),
+		        a.getCleanJerk2ActualLift(),
+		        a.getCleanJerk3Declaration(), a.getCleanJerk3Change1(), a.getCleanJerk3Change2(),
+		        a.getCleanJerk3ActualLift() };
+	}
+
+	private static void putString(ByteBuffer b, String s) {
+		if (s == null) {
+			b.putShort((short) -1);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		b.putShort((short) bytes.length);
+		b.put(bytes);
+	}
+
+	/**
+	 * @return the record at the position of the buffer, which is moved past it, or
+	 *         null if there is no complete valid record
+	 */
+	private static JournalRecord readRecord(ByteBuffer buffer) {
+		if (buffer.remaining() < 8) {
+			return null;
+		}
+		int start = buffer.position();
+		int length = buffer.getInt(start);
+		if (length <= 0 || length > buffer.remaining() - 8) {
+			return null;
+		}
+		int crc = buffer.getInt(start + 4);
+		ByteBuffer payload = buffer.duplicate();
+		payload.position(start + 8);
+		payload.limit(start + 8 + length);
+		CRC32 crc32 = new CRC32();
+		crc32.update(payload.duplicate());
+		if ((int) crc32.getValue() != crc) {
+			return null;
+		}
+		long timestamp = payload.getLong();
+		byte kind = payload.get();
+		String type = getString(payload);
+		String groupName = getString(payload);
+		long athleteId = payload.getLong();
+		String detail = getString(payload);
+		String[] lifts = null;
+		if (payload.get() != 0) {
+			lifts = new String[NB_LIFT_FIELDS];
+			for (int i = 0; i < NB_LIFT_FIELDS; i++) {
+				lifts[i] = getString(payload);
+			}
+		}
+		buffer.position(start + 8 + length);
+		return new JournalRecord(timestamp, kind, type, groupName, athleteId, detail, lifts);
+	}
+
+	private static void setLifts(Athlete a, String[] l) {
+		a.setSnatch1Declaration(l[0]);
+		a.setSnatch1Change1(l[1]);
+		a.setSnatch1Change2(l[2]);
+		a.setSnatch1ActualLift(l[3]);
+		a.setSnatch2Declaration(l[4]);
+		a.setSnatch2Change1(l[5]);
+		a.setSnatch2Change2(l[6]);
+		a.setSnatch2ActualLift(l[7]);
+		a.setSnatch3Declaration(l[8]);
+		a.setSnatch3Change1(l[9]);
+		a.setSnatch3Change2(l[10]);
+		a.setSnatch3ActualLift(l[11]);
+		a.setCleanJerk1Declaration(l[12]);
+		a.setCleanJerk1Change1(l[13]);
+		a.setCleanJerk1Change2(l[14]);
+		a.setCleanJerk1ActualLift(l[15]);
+		a.setCleanJerk2Declaration(l[16]);
+		a.setCleanJerk2Change1(l[17]);
+		a.setCleanJerk2Change2(l[18]);
+		a.setCleanJerk2ActualLift(l[19]);
+		a.setCleanJerk3Declaration(l[20]);
+		a.setCleanJerk3Change1(l[21]);
+		a.setCleanJerk3Change2(l[22]);
+		a.setCleanJerk3ActualLift(l[23]);
+	}
+
+	private static synchronized void startSyncer() {
+		if (syncer != null) {
+			return;
+		}
+		int syncMs = StartupUtils.getIntegerParam("journalSyncMs", 100);
+		syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "journal-sync");
+			t.setDaemon(true);
+			return t;
+		});
+		syncer.scheduleWithFixedDelay(() -> {
+			for (FOPJournal j : openJournals.values()) {
+				j.sync();
+			}
+		}, syncMs, syncMs, TimeUnit.MILLISECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			for (FOPJournal j : openJournals.values()) {
+				j.close();
+			}
+		}));
+	}
+
+	private final String fopName;
+	private final Path file;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	/** position of the buffer in the file */
+	private long segmentStart;
+	private boolean dirty;
+	private long nbSyncs;
+	private long nbRecords;
+
+	/** the records since the last group was loaded, read when the journal was opened */
+	private List<JournalRecord> lastSession = new ArrayList<>();
+	private String lastGroupName;
+	/** the epoch of the last group loaded, read when the journal was opened */
+	private String lastSessionEpoch;
+	/** the epoch of the last identity record in the file */
+	private String fileEpoch;
+
+	/**
+	 * Journal that records nothing.
+	 */
+	private FOPJournal(String fopName) {
+		this.fopName = fopName;
+		this.file = null;
+	}
+
+	private FOPJournal(String fopName, Path file) throws IOException {
+		this.fopName = fopName;
+		this.file = file;
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		long start = System.nanoTime();
+		long end = Files.exists(file) ? read(file, this::replay) : 0;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+		        StandardOpenOption.WRITE);
+		map(end);
+		logger.info("{}journal {}: {} records after group {} read in {}ms", fopName + " ", file,
+		        lastSession.size(), lastGroupName, (System.nanoTime() - start) / 1000000);
+	}
+
+	/**
+	 * Record an event received by the field of play.
+	 *
+	 * @param e
+	 * @param groupName the group being lifted
+	 */
+	public synchronized void append(FOPEvent e, String groupName) {
+		if (buffer == null || !isJournaled(e)) {
+			return;
+		}
+		Athlete a = e.getAthlete();
+		appendRecord(EVENT, e.getClass().getSimpleName(), groupName, a != null ? a.getId() : null, detail(e),
+		        a != null ? lifts(a) : null);
+	}
+
+	/**
+	 * Record a group being loaded. The records that follow belong to that group.
+	 *
+	 * @param groupName
+	 */
+	public synchronized void appendGroup(String groupName) {
+		if (buffer == null) {
+			return;
+		}
+		String epoch = currentEpoch();
+		if (epoch != null && !epoch.equals(fileEpoch)) {
+			appendRecord(IDENTITY, null, null, null, epoch, null);
+			fileEpoch = epoch;
+		}
+		appendRecord(GROUP, null, groupName, null, null, null);
+	}
+
+	/**
+	 * Record the lifts of an athlete that are about to be saved.
+	 *
+	 * @param a
+	 * @param groupName the group being lifted
+	 */
+	public synchronized void appendLifts(Athlete a, String groupName) {
+		if (buffer == null || a == null) {
+			return;
+		}
+		appendRecord(LIFTS, null, groupName, a.getId(), null, lifts(a));
+	}
+
+	/**
+	 * Write the journal to disk and close the file.
+	 */
+	public synchronized void close() {
+		if (buffer == null) {
+			return;
+		}
+		sync();
+		openJournals.remove(file.toAbsolutePath(), this);
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.error("{} journal close {}", fopName, LoggerUtils.stackTrace(e));
+		}
+		buffer = null;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the number of records appended since the journal was opened
+	 */
+	public synchronized long getNbRecords() {
+		return nbRecords;
+	}
+
+	/**
+	 * @return the number of times the journal was forced to disk
+	 */
+	public synchronized long getNbSyncs() {
+		return nbSyncs;
+	}
+
+	/**
+	 * Give back to the athletes the lifts journaled before the server stopped but
+	 * not saved. Only done on the first group load after the journal was opened,
+	 * if the group is the one that was lifting; only athletes whose saved lifts
+	 * are an earlier stage of the journaled lifts (fewer attempts, same results
+	 * for the attempts done) are changed. Nothing is recovered if the journal was
+	 * written for another journal epoch of the competition or another database.
+	 *
+	 * @param group    the group being loaded
+	 * @param athletes the athletes of the group, as read from the database
+	 * @return the athletes that were updated and saved
+	 */
+	public synchronized List<Athlete> recover(Group group, List<Athlete> athletes) {
+		if (lastSession.isEmpty() || group == null || !Objects.equals(group.getName(), lastGroupName)) {
+			lastSession = Collections.emptyList();
+			return Collections.emptyList();
+		}
+		String epoch = currentEpoch();
+		if (lastSessionEpoch == null || !lastSessionEpoch.equals(epoch)) {
+			logger.warn("{}journal {} is not for the current competition data, not recovering group {}",
+			        fopName + " ", file, lastGroupName);
+			lastSession = Collections.emptyList();
+			rotate("mismatch");
+			return Collections.emptyList();
+		}
+		Map<Long, String[]> lastLifts = new LinkedHashMap<>();
+		JournalRecord lastEvent = null;
+		for (JournalRecord r : lastSession) {
+			if (r.lifts != null && r.athleteId >= 0) {
+				lastLifts.put(r.athleteId, r.lifts);
+			}
+			if (r.kind == EVENT) {
+				lastEvent = r;
+			}
+		}
+		lastSession = Collections.emptyList();
+
+		List<Athlete> recovered = new ArrayList<>();
+		for (Athlete a : athletes) {
+			String[] journaled = lastLifts.get(a.getId());
+			if (journaled == null || !isEarlierStage(lifts(a), journaled)) {
+				continue;
+			}
+			boolean validation = a.isValidation();
+			try {
+				a.setValidation(false);
+				setLifts(a, journaled);
+			} finally {
+				a.setValidation(validation);
+			}
+			recovered.add(AthleteRepository.save(a));
+			logger.info("{}recovered lifts from journal for {}", fopName + " ", a.getShortName());
+		}
+		if (lastEvent != null) {
+			logger.info("{}last journaled event for group {}: {} {}", fopName + " ", lastGroupName,
+			        lastEvent.type, lastEvent.detail);
+		}
+		return recovered;
+	}
+
+	/**
+	 * Keep the current file under a timestamped name, and start a new one. Nothing
+	 * that was journaled before can be recovered afterwards.
+	 *
+	 * @param reason
+	 */
+	public synchronized void rotate(String reason) {
+		lastSession = Collections.emptyList();
+		lastGroupName = null;
+		lastSessionEpoch = null;
+		fileEpoch = null;
+		if (buffer == null) {
+			return;
+		}
+		sync();
+		String name = file.getFileName().toString().replaceFirst("\\.journal$", "");
+		Path rotated = file.resolveSibling(name + "-"
+		        + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")) + "-"
+		        + reason.replaceAll("[^A-Za-z0-9_-]", "_") + ".journal");
+		try {
+			channel.close();
+			buffer = null;
+			Files.move(file, rotated, StandardCopyOption.REPLACE_EXISTING);
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			        StandardOpenOption.WRITE);
+			map(0);
+			logger.info("{}journal rotated to {} ({})", fopName + " ", rotated, reason);
+		} catch (IOException e) {
+			// buffer stays null, nothing more is journaled
+			logger.error("{} journal rotation {}", fopName, LoggerUtils.stackTrace(e));
+		}
+	}
+
+	/**
+	 * Force the pending records to disk.
+	 */
+	public synchronized void sync() {
+		if (buffer == null || !dirty) {
+			return;
+		}
+		buffer.force();
+		dirty = false;
+		nbSyncs++;
+	}
+
+	private void appendRecord(byte kind, String type, String groupName, Long athleteId, String detail,
+	        String[] lifts) {
+		ByteBuffer payload = ByteBuffer.allocate(payloadSize(type, groupName, detail, lifts));
+		payload.putLong(System.currentTimeMillis());
+		payload.put(kind);
+		putString(payload, type);
+		putString(payload, groupName);
+		payload.putLong(athleteId != null ? athleteId : -1L);
+		putString(payload, detail);
+		if (lifts != null) {
+			payload.put((byte) 1);
+			for (String s : lifts) {
+				putString(payload, s);
+			}
+		} else {
+			payload.put((byte) 0);
+		}
+		payload.flip();
+		int length = payload.remaining();
+
+		try {
+			// keep 4 bytes for the end marker
+			if (buffer.remaining() < length + 12) {
+				map(segmentStart + buffer.position());
+			}
+			CRC32 crc32 = new CRC32();
+			crc32.update(payload.duplicate());
+			int start = buffer.position();
+			buffer.position(start + 8);
+			buffer.put(payload);
+			buffer.putInt(buffer.position(), 0);
+			buffer.putInt(start + 4, (int) crc32.getValue());
+			// the length is written last, a reader never sees a partial record
+			buffer.putInt(start, length);
+			dirty = true;
+			nbRecords++;
+		} catch (IOException e) {
+			logger.error("{} journal write {}", fopName, LoggerUtils.stackTrace(e));
+		}
+	}
+
+	private String detail(FOPEvent e) {
+		if (e instanceof FOPEvent.ExplicitDecision) {
+			FOPEvent.ExplicitDecision d = (FOPEvent.ExplicitDecision) e;
+			return "success=" + d.success + " " + d.ref1 + " " + d.ref2 + " " + d.ref3;
+		} else if (e instanceof FOPEvent.DecisionFullUpdate) {
+			FOPEvent.DecisionFullUpdate d = (FOPEvent.DecisionFullUpdate) e;
+			return d.ref1 + " " + d.ref2 + " " + d.ref3;
+		} else if (e instanceof FOPEvent.JuryDecision) {
+			return "success=" + ((FOPEvent.JuryDecision) e).success;
+		} else if (e instanceof FOPEvent.WeightChange) {
+			return "resultChange=" + ((FOPEvent.WeightChange) e).isResultChange();
+		} else if (e instanceof FOPEvent.BreakStarted) {
+			FOPEvent.BreakStarted b = (FOPEvent.BreakStarted) e;
+			return b.getBreakType() + " " + b.getCountdownType() + " " + b.getTimeRemaining() + " "
+			        + b.getTargetTime();
+		} else if (e instanceof FOPEvent.BreakDone) {
+			return String.valueOf(((FOPEvent.BreakDone) e).getBreakType());
+		} else if (e instanceof FOPEvent.BreakPaused) {
+			return String.valueOf(((FOPEvent.BreakPaused) e).getTimeRemaining());
+		} else if (e instanceof FOPEvent.SwitchGroup) {
+			Group g = ((FOPEvent.SwitchGroup) e).getGroup();
+			return g != null ? g.getName() : null;
+		}
+		return null;
+	}
+
+	private boolean isEarlierStage(String[] saved, String[] journaled) {
+		int savedDone = 0;
+		int journaledDone = 0;
+		for (int i = 3; i < NB_LIFT_FIELDS; i += 4) {
+			boolean savedLift = saved[i] != null && !saved[i].isBlank();
+			boolean journaledLift = journaled[i] != null && !journaled[i].isBlank();
+			if (savedLift) {
+				if (!journaledLift || !saved[i].trim().equals(journaled[i].trim())) {
+					return false;
+				}
+				savedDone++;
+			}
+			if (journaledLift) {
+				journaledDone++;
+			}
+		}
+		return savedDone < journaledDone;
+	}
+
+	private boolean isJournaled(FOPEvent e) {
+		return e instanceof FOPEvent.WeightChange || e instanceof FOPEvent.ExplicitDecision
+		        || e instanceof FOPEvent.DecisionFullUpdate || e instanceof FOPEvent.JuryDecision
+		        || e instanceof FOPEvent.BreakStarted || e instanceof FOPEvent.BreakDone
+		        || e instanceof FOPEvent.BreakPaused || e instanceof FOPEvent.StartLifting
+		        || e instanceof FOPEvent.SwitchGroup;
+	}
+
+	private void map(long position) throws IOException {
+		if (buffer != null) {
+			buffer.force();
+		}
+		segmentStart = position;
+		buffer = channel.map(MapMode.READ_WRITE, position, SEGMENT_SIZE);
+	}
+
+	private int payloadSize(String type, String groupName, String detail, String[] lifts) {
+		int size = 8 + 1 + 8 + 1 + stringSize(type) + stringSize(groupName) + stringSize(detail);
+		if (lifts != null) {
+			for (String s : lifts) {
+				size += stringSize(s);
+			}
+		}
+		return size;
+	}
+
+	private void replay(JournalRecord r) {
+		if (r.kind == IDENTITY) {
+			fileEpoch = r.detail;
+		} else if (r.kind == GROUP) {
+			lastGroupName = r.groupName;
+			lastSessionEpoch = fileEpoch;
+			lastSession = new ArrayList<>();
+		} else {
+			lastSession.add(r);
+		}
+	}
+
+	private int stringSize(String s) {
+		return 2 + (s != null ? s.getBytes(StandardCharsets.UTF_8).length : 0);
+	}
+
+}
@@ -28,13 +28,14 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.hibernate.Session;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.eventbus.AsyncEventBus;
@@ -44,9 +45,12 @@ import com.google.common.eventbus.Subscribe;
 import app.owlcms.data.agegroup.AgeGroup;
 import app.owlcms.data.agegroup.AgeGroupRepository;
 import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRankWriter;
 import app.owlcms.data.athlete.AthleteRepository;
 import app.owlcms.data.athlete.LiftDefinition;
 import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.data.athleteSort.CategoryRankingIndex;
+import app.owlcms.data.athleteSort.GlobalRankingIndex;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.category.Participation;
 import app.owlcms.data.competition.Competition;
@@ -56,6 +60,7 @@ import app.owlcms.data.jpa.JPAService;
 import app.owlcms.data.platform.Platform;
 import app.owlcms.data.records.RecordEvent;
 import app.owlcms.data.records.RecordFilter;
+import app.owlcms.data.records.RecordIndex;
 import app.owlcms.fieldofplay.FOPEvent.BarbellOrPlatesChanged;
 import app.owlcms.fieldofplay.FOPEvent.CeremonyDone;
 import app.owlcms.fieldofplay.FOPEvent.CeremonyStarted;
@@ -82,10 +87,12 @@ import app.owlcms.uievents.BreakType;
 import app.owlcms.uievents.CeremonyType;
 import app.owlcms.uievents.EventForwarder;
 import app.owlcms.uievents.JuryDeliberationEventType;
+import app.owlcms.uievents.OrderedExecutor;
 import app.owlcms.uievents.UIEvent;
 import app.owlcms.uievents.UIEvent.JuryNotification;
 import app.owlcms.utils.DelayTimer;
 import app.owlcms.utils.LoggerUtils;
+import app.owlcms.utils.StartupUtils;
 import ch.qos.logback.classic.Logger;
 import elemental.json.Json;
 import elemental.json.JsonValue;
@@ -149,6 +156,7 @@ public class FieldOfPlay {
 	 * the clock owner is the last athlete for whom the clock has actually started.
 	 */
 	private Athlete clockOwner;
+	private VirtualClock clock = VirtualClock.REAL;
 	private int clockOwnerInitialTimeAllowed;
 	private CountdownType countdownType;
 	private Athlete curAthlete;
@@ -190,6 +198,15 @@ public class FieldOfPlay {
 
 	private Long[] refereeTime;
 
+	private CategoryRankingIndex rankingIndex = new CategoryRankingIndex();
+	private volatile ScoreboardModel scoreboardModel = ScoreboardModel.EMPTY;
+	private AthleteRankWriter rankWriter;
+	private EventForwarder eventForwarder;
+	private MQTTMonitor mqttMonitor;
+	private FOPJournal journal;
+	private RecomputeScheduler recomputeScheduler;
+	private OrderedExecutor.Lane taskLane;
+
 	private FOPState state;
 
 	private boolean testingMode;
@@ -249,7 +266,10 @@ public class FieldOfPlay {
 		String paramMqttServer = Config.getCurrent().getParamMqttServer();
 		boolean mqttInternal = Config.getCurrent().getParamMqttInternal();
 		if (mqttInternal || paramMqttServer != null) {
-			new Thread(() -> new MQTTMonitor(this)).start();
+			// the monitor waits until the MQTT server is reachable
+			Thread mqttStartup = new Thread(() -> new MQTTMonitor(this), "mqtt-startup-" + name);
+			mqttStartup.setDaemon(true);
+			mqttStartup.start();
 		}
 
 		this.athleteTimer = null;
@@ -259,7 +279,7 @@ public class FieldOfPlay {
 		this.fopEventBus.register(this);
 		// logger.debug("|||| fop {} {}", System.identityHashCode(this),
 		// this.getName());
-		new EventForwarder(this);
+		eventForwarder = new EventForwarder(this);
 	}
 
 	private FieldOfPlay() {
@@ -320,6 +340,13 @@ public class FieldOfPlay {
 		return challengedRecords;
 	}
 
+	/**
+	 * @return the clock used by the timers and the delays
+	 */
+	public VirtualClock getClock() {
+		return clock;
+	}
+
 	public Athlete getClockOwner() {
 		return clockOwner;
 	}
@@ -392,6 +419,13 @@ public class FieldOfPlay {
 		return goodLift;
 	}
 
+	/**
+	 * @return the rows shown on the scoreboards, as of the last recomputation
+	 */
+	public ScoreboardModel getScoreboardModel() {
+		return scoreboardModel;
+	}
+
 	/**
 	 * @return the group
 	 */
@@ -442,6 +476,80 @@ public class FieldOfPlay {
 		return "FOP " + name + "    ";
 	}
 
+	/**
+	 * @return the writer that stores the ranks computed by this field of play
+	 */
+	public synchronized AthleteRankWriter getRankWriter() {
+		if (rankWriter == null) {
+			rankWriter = new AthleteRankWriter(getName(), !isTestingMode());
+		}
+		return rankWriter;
+	}
+
+	/**
+	 * Stop the threads of this field of play, which is being replaced or removed.
+	 * The ranks still queued are written first; the posts to the remote results
+	 * site still queued are not sent.
+	 */
+	public synchronized void shutdown() {
+		if (eventForwarder != null) {
+			eventForwarder.shutdown();
+			eventForwarder = null;
+		}
+		if (recomputeScheduler != null) {
+			recomputeScheduler.shutdown();
+			recomputeScheduler = null;
+		}
+		if (rankWriter != null) {
+			rankWriter.shutdown();
+			rankWriter = null;
+		}
+		if (mqttMonitor != null) {
+			mqttMonitor.close();
+			mqttMonitor = null;
+		}
+	}
+
+	/**
+	 * @param mqttMonitor the monitor of the refereeing devices, created once the
+	 *                    field of play exists
+	 */
+	synchronized void setMqttMonitor(MQTTMonitor mqttMonitor) {
+		this.mqttMonitor = mqttMonitor;
+	}
+
+	/**
+	 * @return the journal of the events and lifts of this field of play
+	 */
+	public synchronized FOPJournal getJournal() {
+		if (journal == null) {
+			journal = FOPJournal.open(getName(), !isTestingMode());
+		}
+		return journal;
+	}
+
+	/**
+	 * @return the lane used for the work the field of play does not wait for
+	 *         (sounds, delayed displays)
+	 */
+	public synchronized OrderedExecutor.Lane getTaskLane() {
+		if (taskLane == null) {
+			taskLane = OrderedExecutor.getShared().newLane("FOP-" + getName());
+		}
+		return taskLane;
+	}
+
+	/**
+	 * @return the scheduler that collapses bursts of weight changes
+	 */
+	public synchronized RecomputeScheduler getRecomputeScheduler() {
+		if (recomputeScheduler == null) {
+			recomputeScheduler = new RecomputeScheduler(this,
+			        isTestingMode() ? 0 : StartupUtils.getIntegerParam("recomputeWindowMs", 100));
+		}
+		return recomputeScheduler;
+	}
+
 	public TreeMap<Category, TreeSet<Athlete>> getMedals() {
 		return medals;
 	}
@@ -605,6 +713,7 @@ public class FieldOfPlay {
 			        e, getWhereFrom(stackTrace));
 			prevHash = newHash;
 		}
+		getJournal().append(e, getGroup() != null ? getGroup().getName() : null);
 
 		// ======= state-independent processing: the reaction does not depend on the
 		// state.
@@ -972,8 +1081,9 @@ public class FieldOfPlay {
 		this.fopEventBus = new EventBus("FOP-" + name);
 
 		// we post on these buses
-		this.uiEventBus = new AsyncEventBus("UI-" + name, Executors.newCachedThreadPool());
-		this.postBus = new AsyncEventBus("POST-" + name, Executors.newCachedThreadPool());
+		// on the threads shared by all platforms, each bus delivers its events in order
+		this.uiEventBus = new AsyncEventBus("UI-" + name, OrderedExecutor.getShared().newLane("UI-" + name));
+		this.postBus = new AsyncEventBus("POST-" + name, OrderedExecutor.getShared().newLane("POST-" + name));
 	}
 
 	public boolean isAnnouncerDecisionImmediate() {
@@ -1038,8 +1148,10 @@ public class FieldOfPlay {
 		if (group != null) {
 			// debounce spurious requests due to misconfigured client that would trigger
 			// a loadGroup upon receiving a UIEvent.
-			long now = System.currentTimeMillis();
-			if (!testingMode && now - this.lastGroupLoaded < 300) {
+			// monotonic real time, not the clock: a simulation changes the clock
+			long now = System.nanoTime();
+			if (!testingMode && this.lastGroupLoaded != 0
+			        && now - this.lastGroupLoaded < TimeUnit.MILLISECONDS.toNanos(300)) {
 				logger./**/warn("ignoring request to load group {}", group);
 				return;
 			}
@@ -1052,12 +1164,19 @@ public class FieldOfPlay {
 				        forceLoad,
 				        LoggerUtils.whereFrom());
 			}
+			// read the ranks computed for the previous group
+			getRankWriter().flush();
 			List<Athlete> groupAthletes = AthleteRepository.findAllByGroupAndWeighIn(group, true);
 			if (groupAthletes.stream().map(Athlete::getStartNumber).anyMatch(sn -> sn == 0)) {
 				logger./**/warn("start numbers were not assigned correctly");
 				AthleteRepository.assignStartNumbers(group);
 				groupAthletes = AthleteRepository.findAllByGroupAndWeighIn(group, true);
 			}
+			// lifts journaled but not saved before the server stopped
+			if (!getJournal().recover(group, groupAthletes).isEmpty()) {
+				groupAthletes = AthleteRepository.findAllByGroupAndWeighIn(group, true);
+			}
+			getJournal().appendGroup(loadGroupName);
 
 			init(groupAthletes, athleteTimer, breakTimer, alreadyLoaded);
 			this.lastGroupLoaded = now;
@@ -1098,6 +1217,24 @@ public class FieldOfPlay {
 		return done;
 	}
 
+	/**
+	 * The record definitions have been read again; recompute the records that the
+	 * athletes of the group can break, and update the displays.
+	 */
+	public synchronized void recordsChanged() {
+		List<Athlete> athletes = getDisplayOrder();
+		if (athletes == null || getLiftingOrder() == null) {
+			return;
+		}
+		recomputeRecordsMap(athletes);
+		recomputeRecords(getCurAthlete());
+		Athlete nextAthlete = getLiftingOrder().size() > 1 ? getLiftingOrder().get(1) : null;
+		boolean inBreak = state == FOPState.BREAK && breakTimer != null && breakTimer.isRunning();
+		pushOutUIEvent(new UIEvent.LiftingOrderUpdated(getCurAthlete(), nextAthlete, getPreviousAthlete(), null,
+		        getLiftingOrder(), athletes, getAthleteTimer().getTimeRemaining(), false, false, this, inBreak,
+		        null));
+	}
+
 	public void recomputeRecords(Athlete curAthlete) {
 		if (curAthlete == null) {
 			setRecordsJson(Json.createNull());
@@ -1171,6 +1308,27 @@ public class FieldOfPlay {
 		this.cjStarted = cjStarted;
 	}
 
+	/**
+	 * Use a faster clock for the timers and the delays, when simulating a
+	 * competition.
+	 *
+	 * @param clock {@link VirtualClock#REAL} for a normal competition
+	 */
+	public synchronized void setClock(VirtualClock clock) {
+		VirtualClock previous = this.clock;
+		this.clock = clock;
+		if (previous == clock) {
+			return;
+		}
+		// running timers continue from where they are, at the new speed
+		if (athleteTimer instanceof ProxyAthleteTimer) {
+			((ProxyAthleteTimer) athleteTimer).clockChanged(previous);
+		}
+		if (breakTimer instanceof ProxyBreakTimer) {
+			((ProxyBreakTimer) breakTimer).clockChanged(previous);
+		}
+	}
+
 	public void setCountdownType(CountdownType countdownType) {
 		this.countdownType = countdownType;
 	}
@@ -1418,6 +1576,7 @@ public class FieldOfPlay {
 			setState(DECISION_VISIBLE);
 			pushOutUIEvent(event);
 			a.doLift(a.getAttemptsDone(), e.success ? Integer.toString(curValue) : Integer.toString(-curValue));
+			getJournal().appendLifts(a, getGroup() != null ? getGroup().getName() : null);
 			AthleteRepository.save(a);
 
 			// reversal from bad to good should add records
@@ -1434,7 +1593,7 @@ public class FieldOfPlay {
 					setLastNewRecords(getNewRecords());
 				}
 				fopEventPost(new StartLifting(this));
-			}, DECISION_VISIBLE_DURATION);
+			}, getClock().realDelay(DECISION_VISIBLE_DURATION));
 
 		}
 	}
@@ -1527,9 +1686,62 @@ public class FieldOfPlay {
 	 * change causes an exit from the break (e.g. jury overrule on last lift)
 	 * Otherwise we update the displays.
 	 *
+	 * Changes that cannot affect the current athlete are processed together at the
+	 * end of a short window, see {@link RecomputeScheduler}.
+	 *
 	 * @param wc
 	 */
 	private void doWeightChange(WeightChange wc) {
+		if (canDeferWeightChange(wc)) {
+			getRecomputeScheduler().defer(wc);
+			return;
+		}
+		processWeightChange(wc);
+	}
+
+	/**
+	 * Process the last of a burst of weight changes; the athletes are read again,
+	 * so the previous changes are also taken into account.
+	 *
+	 * @param wc
+	 */
+	synchronized void doDeferredWeightChange(WeightChange wc) {
+		if (state == CURRENT_ATHLETE_DISPLAYED || state == TIME_RUNNING || state == TIME_STOPPED) {
+			processWeightChange(wc);
+		} else {
+			// the state has changed since the change was received; only update the order.
+			weightChangeDoNotDisturb(wc);
+		}
+	}
+
+	/**
+	 * A change can wait if it is for an athlete other than the current athlete
+	 * and the clock owner, who asks for more than the current athlete in the same
+	 * lift: the current athlete remains first in the lifting order.
+	 *
+	 * @param wc
+	 * @return true if the lifting order can be recomputed later
+	 */
+	private boolean canDeferWeightChange(WeightChange wc) {
+		Athlete changingAthlete = wc.getAthlete();
+		Athlete cur = getCurAthlete();
+		if (wc.isResultChange() || changingAthlete == null || cur == null
+		        || !getRecomputeScheduler().isEnabled()) {
+			return false;
+		}
+		if (state != CURRENT_ATHLETE_DISPLAYED && state != TIME_RUNNING && state != TIME_STOPPED) {
+			return false;
+		}
+		if (changingAthlete.equals(cur) || changingAthlete.equals(getClockOwner())) {
+			return false;
+		}
+		boolean sameLift = (changingAthlete.getAttemptsDone() < 3) == (cur.getAttemptsDone() < 3);
+		Integer newWeight = changingAthlete.getNextAttemptRequestedWeight();
+		Integer curRequested = cur.getNextAttemptRequestedWeight();
+		return sameLift && newWeight != null && curRequested != null && newWeight > curRequested;
+	}
+
+	private void processWeightChange(WeightChange wc) {
 		long start = System.nanoTime();
 		boolean resultChange = wc.isResultChange();
 		String reason = "";
@@ -1735,15 +1947,11 @@ public class FieldOfPlay {
 		final int reds = nbRed;
 		final int whites = nbWhite;
 		if (nbDecisions == jurySize) {
-			new Thread(() -> {
-				try {
-					// make sure all greens are shown before showing decisions.
-					Thread.sleep(200);
-				} catch (InterruptedException e) {
-				}
-				showJuryMemberDecisionsNow(origin, (reds == jurySize || whites == jurySize), jurySize,
-				        getJuryMemberDecision());
-			}).start();
+			// make sure all greens are shown before showing decisions.
+			OrderedExecutor.getShared().schedule(getTaskLane(),
+			        () -> showJuryMemberDecisionsNow(origin, (reds == jurySize || whites == jurySize), jurySize,
+			                getJuryMemberDecision()),
+			        getClock().realDelay(200));
 		}
 	}
 
@@ -1780,7 +1988,7 @@ public class FieldOfPlay {
 				try {
 					// wait a bit. If the decision comes in while waiting, this thread will be
 					// cancelled anyway
-					Thread.sleep(Competition.getCurrent().getRefereeWakeUpDelay());
+					getClock().sleep(Competition.getCurrent().getRefereeWakeUpDelay());
 					lastRef = ArrayUtils.indexOf(getRefereeDecision(), null);
 					if (lastRef != -1 && !Thread.currentThread().isInterrupted()) {
 						// logger.debug("posting");
@@ -1788,7 +1996,7 @@ public class FieldOfPlay {
 					} else {
 						// logger.debug("not posting");
 					}
-					Thread.sleep(WAKEUP_DURATION_MS);
+					getClock().sleep(WAKEUP_DURATION_MS);
 				} catch (InterruptedException e1) {
 					// ignore interruption, finally handles clean up
 				} finally {
@@ -1800,7 +2008,8 @@ public class FieldOfPlay {
 						uiEventBus.post(new UIEvent.WakeUpRef(lastRef + 1, false, this));
 					}
 				}
-			});
+			}, "wakeUpRef-" + name);
+			wakeUpRef.setDaemon(true);
 			wakeUpRef.start();
 		}
 		if (nbDecisions == 3) {
@@ -1914,6 +2123,8 @@ public class FieldOfPlay {
 	 *                       recomputed
 	 */
 	private void recomputeOrderAndRanks(boolean recomputeRanks) {
+		// a deferred weight change is in the database and will be read now; it is still
+		// processed at the end of its window so that the displays are notified of it.
 		Group g = getGroup();
 		List<Athlete> athletes;
 
@@ -1923,42 +2134,41 @@ public class FieldOfPlay {
 		long endDisplayOrder = 0;
 		long endLeaders = 0;
 
+		// athletes of other groups whose global ranks changed
+		Map<Long, List<Integer>> globalRanks = new HashMap<>();
 		if (recomputeRanks) {
-			// we update the ranks of affected athletes in the database
+			// the ranks are computed on read-only copies, the rank writer stores those that changed
 			athletes = JPAService.runInTransaction(em -> {
-				List<Athlete> l = AthleteSorter.assignCategoryRanks(em, g);
-				List<Athlete> nl = new LinkedList<>();
+				em.unwrap(Session.class).setDefaultReadOnly(true);
+				List<Athlete> l = AthleteSorter.assignCategoryRanks(em, g, rankingIndex);
 				try {
-					Competition.getCurrent().globalRankings(em);
+					globalRanks.putAll(GlobalRankingIndex.getCurrent().update(l));
 				} catch (Exception e) {
 					logger.error("{} global ranking exception {}\n ", getLoggingName(), e, LoggerUtils.stackTrace(e));
 				}
-				for (Athlete a : l) {
-					nl.add(em.merge(a));
-				}
-				em.flush();
-				return nl;
+				return new LinkedList<>(l);
 			});
+			getRankWriter().write(athletes);
+			getRankWriter().writeGlobalRanks(globalRanks);
 		} else {
 			athletes = JPAService.runInTransaction(em -> {
+				em.unwrap(Session.class).setDefaultReadOnly(true);
 				List<Athlete> l = AthleteRepository.findAthletesForGlobalRanking(em, g);
-				List<Athlete> nl = new LinkedList<>();
 				try {
-					Competition.getCurrent().globalRankings(em);
+					globalRanks.putAll(GlobalRankingIndex.getCurrent().update(l));
 				} catch (Exception e) {
 					logger.error("{} global ranking exception {}\n ", getLoggingName(), e, LoggerUtils.stackTrace(e));
 				}
-				for (Athlete a : l) {
-					nl.add(em.merge(a));
-				}
-				em.flush();
-				return nl;
+				return new LinkedList<>(l);
 			});
+			getRankWriter().write(athletes);
+			getRankWriter().writeGlobalRanks(globalRanks);
 		}
 		endAssignRanks = System.nanoTime();
 
 		if (athletes == null) {
 			setDisplayOrder(null);
+			scoreboardModel = new ScoreboardModel(scoreboardModel.getVersion() + 1, null);
 			setCurAthlete(null);
 			recomputeRecords(null);
 		} else {
@@ -1981,6 +2191,8 @@ public class FieldOfPlay {
 
 			setDisplayOrder(currentGroupAthletes);
 			setLiftingOrder(AthleteSorter.liftingOrderCopy(currentGroupAthletes));
+			// computed once here instead of by every scoreboard
+			scoreboardModel = new ScoreboardModel(scoreboardModel.getVersion() + 1, currentGroupAthletes);
 			endDisplayOrder = System.nanoTime();
 
 			List<Athlete> liftingOrder2 = getLiftingOrder();
@@ -2008,8 +2220,9 @@ public class FieldOfPlay {
 	private void recomputeRecordsMap(List<Athlete> athletes) {
 		//logger.debug("recompute record map");
 		groupRecords.clear();
+		RecordIndex recordIndex = RecordIndex.getCurrent();
 		for (Athlete a : athletes) {
-			List<RecordEvent> eligibleRecords = RecordFilter.computeEligibleRecordsForAthlete(a);
+			List<RecordEvent> eligibleRecords = RecordFilter.computeEligibleRecordsForAthlete(a, recordIndex);
 			//logger.debug("athlete {} {}",a, eligibleRecords);
 			recordsByAthlete.put(a, eligibleRecords);
 			groupRecords.addAll(eligibleRecords);
@@ -2232,7 +2445,8 @@ public class FieldOfPlay {
 		// reversalDelay);
 		assert !isDecisionDisplayScheduled(); // caller checks.
 		setDecisionDisplayScheduled(true); // so there are never two scheduled...
-		new DelayTimer(isTestingMode()).schedule(() -> showDecisionNow(origin2), reversalDelay);
+		new DelayTimer(isTestingMode()).schedule(() -> showDecisionNow(origin2),
+		        getClock().realDelay(reversalDelay));
 	}
 
 	/**
@@ -2269,6 +2483,7 @@ public class FieldOfPlay {
 			getCurAthlete().resetForcedAsCurrent();
 		}
 		setForcedTime(false);
+		getJournal().appendLifts(getCurAthlete(), getGroup() != null ? getGroup().getName() : null);
 		AthleteRepository.save(getCurAthlete());
 		List<RecordEvent> newRecords = updateRecords(getCurAthlete(), getGoodLift(), getChallengedRecords(), List.of());
 		setNewRecords(newRecords);
@@ -2289,13 +2504,13 @@ public class FieldOfPlay {
 		new DelayTimer(isTestingMode()).schedule(
 		        () -> {
 			        notifyRecords(getNewRecords(), true);
-		        }, 500);
+		        }, getClock().realDelay(500));
 		// tell ourself to reset after 3 secs.
 		// Decision reset will handle end of group.
 		new DelayTimer(isTestingMode()).schedule(
 		        () -> {
 			        fopEventPost(new DecisionReset(this));
-		        }, DECISION_VISIBLE_DURATION);
+		        }, getClock().realDelay(DECISION_VISIBLE_DURATION));
 	}
 
 	private void showJuryMemberDecisionReceived(Object origin, int i, Boolean[] juryMemberDecision2, int jurySize) {
@@ -2555,14 +2770,14 @@ public class FieldOfPlay {
 		uiEventLogger.debug("showDownSignalOnSlaveDisplays server={} emitted={}", emitSoundsOnServer2, downEmitted2);
 		if (emitSoundsOnServer2 && !downEmitted2) {
 			// sound is synchronous, we don't want to wait.
-			new Thread(() -> {
+			getTaskLane().execute(() -> {
 				try {
 					new Sound(getSoundMixer(), "down.wav").emit();
 					// downSignal.emit();
 				} catch (IllegalArgumentException /* | LineUnavailableException */ e) {
 					broadcast("SoundSystemProblem");
 				}
-			}).start();
+			});
 			setDownEmitted(true);
 		}
 		pushOutUIEvent(new UIEvent.DownSignal(origin2));
@@ -2659,6 +2874,7 @@ public class FieldOfPlay {
 				}
 				return null;
 			});
+			RecordIndex.invalidate();
 			recomputeRecordsMap(displayOrder);
 			return newRecords;
 		} else {
@@ -2671,6 +2887,7 @@ public class FieldOfPlay {
 					}
 					return null;
 				});
+				RecordIndex.invalidate();
 				recomputeRecordsMap(displayOrder);
 			}
 			return new ArrayList<>();
@@ -2,10 +2,15 @@ package app.owlcms.fieldofplay;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
@@ -63,6 +68,8 @@ public class MQTTMonitor {
 		String clockTopicName;
 		String testTopicName;
 		String configTopicName;
+		/** what to do for each subscribed topic */
+		final Map<String, BiConsumer<String, String>> handlers = new HashMap<>();
 
 		MQTTCallback() {
 			// these are the device-initiated events that the monitor tracks
@@ -78,13 +85,26 @@ public class MQTTMonitor {
 			// no FOP on this message, it is used for the device to query what FOPs are
 			// present
 			this.configTopicName = "owlcms/config";
+
+			handlers.put(deprecatedDecisionTopicName, this::postFopEventRefereeDecisionUpdate);
+			handlers.put(decisionTopicName, this::postFopEventRefereeDecisionUpdate);
+			handlers.put(downEmittedTopicName, this::postFopEventDownEmitted);
+			handlers.put(juryBreakTopicName, this::postFopJuryBreakEvents);
+			handlers.put(juryMemberDecisionTopicName, this::postFopEventJuryMemberDecisionUpdate);
+			handlers.put(juryDecisionTopicName, this::postFopEventJuryDecision);
+			handlers.put(jurySummonTopicName, this::postFopEventSummonReferee);
+			handlers.put(clockTopicName, this::postFopTimeEvents);
+			handlers.put(testTopicName, this::timing);
+			handlers.put(configTopicName, (topic, messageStr) -> publishMqttConfig("owlcms/fop/config"));
 		}
 
 		@Override
 		public void connectionLost(Throwable cause) {
 			logger.debug("{}lost connection to MQTT: {}", fop.getLoggingName(), cause.getLocalizedMessage());
 			// Called when the client lost the connection to the broker
-			connectionLoop(client);
+			if (!closed) {
+				connectionLoop(client);
+			}
 		}
 
 		@Override
@@ -92,36 +112,37 @@ public class MQTTMonitor {
 			// required by abstract class
 		}
 
+		/**
+		 * Messages are processed one at a time, in the order received, by a thread
+		 * dedicated to the field of play, so that the decisions and down signal of a
+		 * referee box reach the field of play in the order they were sent.
+		 */
 		@Override
 		public void messageArrived(String topic, MqttMessage message) throws Exception {
-			new Thread(() -> {
-				String messageStr = new String(message.getPayload(), StandardCharsets.UTF_8);
+			if (closed) {
+				return;
+			}
+			long arrival = System.currentTimeMillis();
+			byte[] payload = message.getPayload();
+			executor.execute(() -> {
+				String messageStr = new String(payload, StandardCharsets.UTF_8);
 				logger.info("{}{} : {}", fop.getLoggingName(), topic, messageStr.trim());
+				long waited = System.currentTimeMillis() - arrival;
+				maxQueueDelay.accumulateAndGet(waited, Math::max);
 
-				if (topic.endsWith(decisionTopicName) || topic.endsWith(deprecatedDecisionTopicName)) {
-					postFopEventRefereeDecisionUpdate(topic, messageStr);
-				} else if (topic.endsWith(downEmittedTopicName)) {
-					postFopEventDownEmitted(topic, messageStr);
-				} else if (topic.endsWith(clockTopicName)) {
-					postFopTimeEvents(topic, messageStr);
-				} else if (topic.endsWith(juryBreakTopicName)) {
-					postFopJuryBreakEvents(topic, messageStr);
-				} else if (topic.endsWith(juryMemberDecisionTopicName)) {
-					postFopEventJuryMemberDecisionUpdate(topic, messageStr);
-				} else if (topic.endsWith(juryDecisionTopicName)) {
-					postFopEventJuryDecision(topic, messageStr);
-				} else if (topic.endsWith(jurySummonTopicName)) {
-					postFopEventSummonReferee(topic, messageStr);
-				} else if (topic.endsWith(configTopicName)) {
-					publishMqttConfig("owlcms/fop/config");
-				} else if (topic.endsWith(testTopicName)) {
-					long before = Long.parseLong(messageStr);
-					logger.info("{} timing = {}", getFop(), System.currentTimeMillis() - before);
-				} else {
+				BiConsumer<String, String> handler = handlers.get(topic);
+				if (handler == null) {
 					logger.error("{}Malformed MQTT unrecognized topic message topic='{}' message='{}'",
 					        fop.getLoggingName(), topic, messageStr);
+					return;
+				}
+				try {
+					handler.accept(topic, messageStr);
+				} catch (Exception e) {
+					logger.error("{}MQTT message topic='{}' message='{}' {}", fop.getLoggingName(), topic, messageStr,
+					        LoggerUtils.stackTrace(e));
 				}
-			}).start();
+			});
 		}
 
 		/**
@@ -241,6 +262,29 @@ public class MQTTMonitor {
 			}
 		}
 
+		/**
+		 * The device sends its current time; the difference is the time taken to reach
+		 * the field of play, including the wait behind the previous messages. The
+		 * clocks of the device and the server must be synchronized.
+		 *
+		 * @param topic
+		 * @param messageStr
+		 */
+		private void timing(String topic, String messageStr) {
+			try {
+				long before = Long.parseLong(messageStr.trim());
+				long latency = System.currentTimeMillis() - before;
+				nbTimings.incrementAndGet();
+				totalLatency.addAndGet(latency);
+				maxLatency.accumulateAndGet(latency, Math::max);
+				logger.info("{} timing = {} average = {} max = {}", getFop(), latency, getAverageLatency(),
+				        maxLatency.get());
+			} catch (NumberFormatException e) {
+				logger.error("{}Malformed MQTT timing message topic='{}' message='{}'",
+				        fop.getLoggingName(), topic, messageStr);
+			}
+		}
+
 		private void publishMqttConfig(String topic) {
 			Map<String, Object> payload = new TreeMap<>();
 			List<String> platforms = PlatformRepository.findAll().stream().map(p -> p.getName())
@@ -281,9 +325,23 @@ public class MQTTMonitor {
 
 	private Long prevRefereeTimeStamp = 0L;
 
+	/** processes the messages received, in order */
+	private final ExecutorService executor;
+	private volatile boolean closed;
+	private final AtomicLong nbTimings = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+	private final AtomicLong maxQueueDelay = new AtomicLong();
+
 	MQTTMonitor(FieldOfPlay fop) {
 		logger.setLevel(Level.DEBUG);
 		this.setFop(fop);
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "mqtt-" + fop.getName());
+			t.setDaemon(true);
+			return t;
+		});
+		fop.setMqttMonitor(this);
 		fop.getUiEventBus().register(this);
 		fop.getFopEventBus().register(this);
 
@@ -299,10 +357,71 @@ public class MQTTMonitor {
 		}
 	}
 
+	/**
+	 * Stop listening to the field of play and to the MQTT server, and stop the
+	 * thread that processes the messages. Used when the field of play is replaced.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			fop.getUiEventBus().unregister(this);
+			fop.getFopEventBus().unregister(this);
+		} catch (IllegalArgumentException e) {
+			// not registered yet
+		}
+		executor.shutdown();
+		MqttAsyncClient mqttClient = client;
+		if (mqttClient != null) {
+			try {
+				if (mqttClient.isConnected()) {
+					mqttClient.disconnect().waitForCompletion();
+				}
+				mqttClient.close();
+			} catch (MqttException e) {
+				logger.warn("{}MQTT disconnect: {}", fop.getLoggingName(), LoggerUtils.exceptionMessage(e));
+			}
+		}
+	}
+
+	/**
+	 * @return the average time for an <code>owlcms/test</code> message to reach
+	 *         the field of play, in milliseconds
+	 */
+	public long getAverageLatency() {
+		long nb = nbTimings.get();
+		return nb > 0 ? totalLatency.get() / nb : 0;
+	}
+
 	public FieldOfPlay getFop() {
 		return fop;
 	}
 
+	/**
+	 * @return the longest time for an <code>owlcms/test</code> message to reach
+	 *         the field of play, in milliseconds
+	 */
+	public long getMaxLatency() {
+		return maxLatency.get();
+	}
+
+	/**
+	 * @return the longest time a message waited behind the previous ones, in
+	 *         milliseconds
+	 */
+	public long getMaxQueueDelay() {
+		return maxQueueDelay.get();
+	}
+
+	/**
+	 * @return the number of <code>owlcms/test</code> messages received
+	 */
+	public long getNbTimings() {
+		return nbTimings.get();
+	}
+
 	public void setFop(FieldOfPlay fop) {
 		this.fop = fop;
 	}
@@ -397,7 +516,7 @@ public class MQTTMonitor {
 	}
 
 	private void connectionLoop(MqttAsyncClient mqttAsyncClient) {
-		while (!mqttAsyncClient.isConnected()) {
+		while (!closed && !mqttAsyncClient.isConnected()) {
 			try {
 				// doConnect will generate a new client Id, and wait for completion
 				// client.reconnect() and automaticReconnection do not work as I expect.
@@ -425,36 +544,10 @@ public class MQTTMonitor {
 
 		publishMqttLedOnOff();
 
-		client.subscribe(callback.deprecatedDecisionTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.deprecatedDecisionTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.decisionTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.decisionTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.downEmittedTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.downEmittedTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.juryBreakTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.juryBreakTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.juryMemberDecisionTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.juryMemberDecisionTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.juryDecisionTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.juryDecisionTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.jurySummonTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.jurySummonTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.clockTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.clockTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.testTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.testTopicName,
-		        client.getCurrentServerURI());
-		client.subscribe(callback.configTopicName, 0);
-		logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), callback.configTopicName,
-		        client.getCurrentServerURI());
+		for (String topic : callback.handlers.keySet()) {
+			client.subscribe(topic, 0);
+			logger.info("{}MQTT subscribe {} {}", fop.getLoggingName(), topic, client.getCurrentServerURI());
+		}
 	}
 
 	private void doPublishMQTTSummon(int ref) throws MqttException, MqttPersistenceException {
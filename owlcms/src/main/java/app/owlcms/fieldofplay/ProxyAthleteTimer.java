@@ -19,6 +19,9 @@ import ch.qos.logback.classic.Logger;
  * the actual timers associated with each screen. Memorize the elapsed time and
  * timer state.
  *
+ * The warnings and the time over are fired by a {@link TimerScheduler}, not by
+ * the screens.
+ *
  * @author Jean-François Lamy
  */
 public class ProxyAthleteTimer implements IProxyTimer {
@@ -31,6 +34,7 @@ public class ProxyAthleteTimer implements IProxyTimer {
 	private long stopMillis;
 	private int timeRemaining;
 	private int timeRemainingAtLastStop;
+	private TimerScheduler scheduler;
 	{
 		logger.setLevel(Level.INFO);
 	}
@@ -42,6 +46,7 @@ public class ProxyAthleteTimer implements IProxyTimer {
 	 */
 	public ProxyAthleteTimer(FieldOfPlay fop) {
 		this.setFop(fop);
+		this.scheduler = new TimerScheduler(fop.getName() + " athlete timer", fop.getTaskLane());
 	}
 
 	@Override
@@ -56,6 +61,13 @@ public class ProxyAthleteTimer implements IProxyTimer {
 		return fop;
 	}
 
+	/**
+	 * @return the scheduler that fires the warnings and the time over
+	 */
+	public TimerScheduler getScheduler() {
+		return scheduler;
+	}
+
 	/**
 	 * @see app.owlcms.fieldofplay.IProxyTimer#getTimeRemaining()
 	 */
@@ -94,7 +106,7 @@ public class ProxyAthleteTimer implements IProxyTimer {
 	@Override
 	public int liveTimeRemaining() {
 		if (running) {
-			stopMillis = System.currentTimeMillis();
+			stopMillis = getFop().getClock().currentTimeMillis();
 			long elapsed = stopMillis - startMillis;
 			int tr = (int) (getTimeRemaining() - elapsed);
 			// logger.debug("liveTimeRemaining running {} {}", formattedDuration(tr),
@@ -127,6 +139,7 @@ public class ProxyAthleteTimer implements IProxyTimer {
 		// logger.trace("{}==== setting Time -- timeRemaining = {} ({})",
 		// getFop().getLoggingName(), timeRemaining, LoggerUtils.whereFrom());
 		this.timeRemaining = timeRemaining;
+		scheduler.cancel();
 		if (timeRemaining < 1) {
 			logger./**/warn("setting with no time {}", LoggerUtils.whereFrom());
 		}
@@ -140,11 +153,12 @@ public class ProxyAthleteTimer implements IProxyTimer {
 	@Override
 	public void start() {
 		if (!running) {
-			startMillis = System.currentTimeMillis();
+			startMillis = getFop().getClock().currentTimeMillis();
 			// logger.debug("{}starting Time -- timeRemaining = {} ({})",
 			// getFop().getLoggingName(), timeRemaining,
 			// LoggerUtils.whereFrom());
 			timeRemainingAtLastStop = timeRemaining;
+			scheduleMarks(timeRemaining);
 		}
 		if (timeRemaining < 1) {
 			logger./**/warn("starting with no time {}", LoggerUtils.whereFrom());
@@ -166,6 +180,7 @@ public class ProxyAthleteTimer implements IProxyTimer {
 		// getFop().getLoggingName(), timeRemaining,
 		// LoggerUtils.whereFrom());
 		timeRemainingAtLastStop = timeRemaining;
+		scheduler.cancel();
 		getFop().pushOutUIEvent(new UIEvent.StopTime(timeRemaining, null));
 		running = false;
 	}
@@ -180,12 +195,52 @@ public class ProxyAthleteTimer implements IProxyTimer {
 		}
 		// leave enough time for buzzer event to propagate allowing for some clock drift
 		if (running) {
-			try {
-				// timers that are more than 1 sec. late will now stop silently.
-				Thread.sleep(1000);
-				this.stop();
-			} catch (InterruptedException e) {
-			}
+			// timers that are more than 1 sec. late will now stop silently.
+			scheduler.schedule(realDelay(1000), "stop", this::stop);
+		}
+	}
+
+	/**
+	 * Schedule the marks the displays show: the initial warning at 90 seconds, the
+	 * final warning at 30 seconds and the time over. A mark already passed when
+	 * the time starts is not given.
+	 *
+	 * @param millis time remaining when starting
+	 */
+	private void scheduleMarks(int millis) {
+		scheduler.cancel();
+		if (millis > 90000) {
+			scheduler.schedule(realDelay(millis - 90000), "initial warning", () -> initialWarning(scheduler));
+		}
+		if (millis > 30000) {
+			scheduler.schedule(realDelay(millis - 30000), "final warning", () -> finalWarning(scheduler));
+		}
+		if (millis > 0) {
+			scheduler.schedule(realDelay(millis), "time over", () -> timeOver(scheduler));
+		}
+	}
+
+	private long realDelay(long millis) {
+		return getFop().getClock().realDelay(millis);
+	}
+
+	/**
+	 * The field of play now uses another clock. A running timer keeps the time
+	 * elapsed on the previous clock and counts the rest on the new one; the marks
+	 * are scheduled again at the new speed.
+	 *
+	 * @param previous the clock used until now
+	 */
+	void clockChanged(VirtualClock previous) {
+		if (!running) {
+			return;
+		}
+		timeRemaining = (int) (timeRemaining - (previous.currentTimeMillis() - startMillis));
+		startMillis = getFop().getClock().currentTimeMillis();
+		scheduleMarks(timeRemaining);
+		if (timeRemaining <= 0) {
+			// time over was already given, the pending stop was cancelled
+			scheduler.schedule(0, "stop", this::stop);
 		}
 	}
 
@@ -193,7 +248,7 @@ public class ProxyAthleteTimer implements IProxyTimer {
 	 * Compute time elapsed since start and adjust time remaining accordingly.
 	 */
 	private void computeTimeRemaining() {
-		stopMillis = System.currentTimeMillis();
+		stopMillis = getFop().getClock().currentTimeMillis();
 		long elapsed = stopMillis - startMillis;
 		timeRemaining = (int) (timeRemaining - elapsed);
 	}
@@ -45,6 +45,7 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 	private long stopMillis;
 	private int timeRemaining;
 	private int timeRemainingAtLastStop;
+	private TimerScheduler scheduler;
 
 	{
 		logger.setLevel(Level.INFO);
@@ -57,6 +58,7 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 	 */
 	public ProxyBreakTimer(FieldOfPlay fop) {
 		this.setFop(fop);
+		this.scheduler = new TimerScheduler(fop.getName() + " break timer", fop.getTaskLane());
 	}
 
 	@Override
@@ -85,6 +87,13 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 		return origin;
 	}
 
+	/**
+	 * @return the scheduler that ends the break when the time is over
+	 */
+	public TimerScheduler getScheduler() {
+		return scheduler;
+	}
+
 	/**
 	 * @see app.owlcms.fieldofplay.IProxyTimer#getTimeRemaining()
 	 */
@@ -131,13 +140,13 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 	@Override
 	public int liveTimeRemaining() {
 		if (getEnd() != null) {
-			int until = (int) LocalDateTime.now().until(getEnd(), ChronoUnit.MILLIS);
+			int until = (int) getFop().getClock().now().until(getEnd(), ChronoUnit.MILLIS);
 			logger.debug("liveTimeRemaining target {} {}",
 			        until >= 0 ? DurationFormatUtils.formatDurationHMS(until) : until,
 			        LoggerUtils.whereFrom());
 			return until;
 		} else if (isRunning()) {
-			stopMillis = System.currentTimeMillis();
+			stopMillis = getFop().getClock().currentTimeMillis();
 			long elapsed = stopMillis - startMillis;
 			int tr = (int) (getTimeRemaining() - elapsed);
 			logger.debug("liveTimeRemaining running {} {}", tr >= 0 ? DurationFormatUtils.formatDurationHMS(tr) : tr,
@@ -219,6 +228,7 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 		// indefinite, LoggerUtils.whereFrom());
 		this.indefinite = indefinite;
 		this.timeRemaining = timeRemaining2;
+		scheduler.cancel();
 		setRunning(false);
 	}
 
@@ -229,7 +239,7 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 	public void start() {
 		BreakType breakType = getFop().getBreakType();
 		// CeremonyType ceremonyType = getFop().getCeremonyType();
-		startMillis = System.currentTimeMillis();
+		startMillis = getFop().getClock().currentTimeMillis();
 		this.setBreakType(breakType);
 
 		Integer millisRemaining = getMillis();
@@ -243,6 +253,12 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 		logger.debug("posting {}", event);
 		getFop().pushOutUIEvent(event);
 		setRunning(true);
+		// the displays do not report the end of the break
+		scheduler.cancel();
+		if (!this.indefinite && millisRemaining != null && millisRemaining > 0) {
+			scheduler.schedule(getFop().getClock().realDelay(millisRemaining), "break over",
+			        () -> timeOver(scheduler));
+		}
 	}
 
 	/**
@@ -259,6 +275,7 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 			computeTimeRemaining();
 		}
 		setRunning(false);
+		scheduler.cancel();
 		timeRemainingAtLastStop = timeRemaining;
 		// logger.debug("*** stopping Break -- timeRemaining = {} [{}]",
 		// getTimeRemaining(), LoggerUtils.whereFrom());
@@ -281,10 +298,10 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 		// logger.debug("break {} {} timeover = {} [{}]", isRunning(), isIndefinite(),
 		// getTimeRemaining(), LoggerUtils.stackTrace());
 		if (isRunning() && !isIndefinite()) {
-			long now = System.currentTimeMillis();
+			long now = getFop().getClock().currentTimeMillis();
 			if (now - lastStop > 1000) {
 				// ignore rash of timers all signaling break over
-				lastStop = System.currentTimeMillis();
+				lastStop = now;
 				this.stop();
 			} else {
 				return;
@@ -299,14 +316,43 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 		}
 	}
 
+	/**
+	 * The field of play now uses another clock. A target time is moved so that the
+	 * time left stays the same; a running duration keeps the time elapsed on the
+	 * previous clock. The end of the break is scheduled again at the new speed.
+	 *
+	 * @param previous the clock used until now
+	 */
+	void clockChanged(VirtualClock previous) {
+		VirtualClock clock = getFop().getClock();
+		lastStop = 0;
+		if (getEnd() != null) {
+			long left = previous.now().until(getEnd(), ChronoUnit.MILLIS);
+			this.end = clock.now().plus(left, ChronoUnit.MILLIS);
+		}
+		if (!isRunning()) {
+			return;
+		}
+		if (getEnd() == null) {
+			timeRemaining = (int) (timeRemaining - (previous.currentTimeMillis() - startMillis));
+		}
+		startMillis = clock.currentTimeMillis();
+		scheduler.cancel();
+		Integer millisRemaining = getMillis();
+		if (!this.indefinite) {
+			scheduler.schedule(clock.realDelay(Math.max(0, millisRemaining)), "break over",
+			        () -> timeOver(scheduler));
+		}
+	}
+
 	/**
 	 * Compute time elapsed since start and adjust time remaining accordingly.
 	 */
 	private int computeTimeRemaining() {
 		if (getEnd() != null) {
-			setTimeRemaining((int) LocalDateTime.now().until(getEnd(), ChronoUnit.MILLIS), false);
+			setTimeRemaining((int) getFop().getClock().now().until(getEnd(), ChronoUnit.MILLIS), false);
 		} else {
-			stopMillis = System.currentTimeMillis();
+			stopMillis = getFop().getClock().currentTimeMillis();
 			long elapsed = stopMillis - startMillis;
 			setTimeRemaining((int) (getTimeRemaining() - elapsed), false);
 		}
@@ -314,7 +360,7 @@ public class ProxyBreakTimer implements IProxyTimer, IBreakTimer {
 	}
 
 	private int getMillis() {
-		return (int) (this.getEnd() != null ? LocalDateTime.now().until(getEnd(), ChronoUnit.MILLIS)
+		return (int) (this.getEnd() != null ? getFop().getClock().now().until(getEnd(), ChronoUnit.MILLIS)
 		        : getTimeRemaining());
 	}
 
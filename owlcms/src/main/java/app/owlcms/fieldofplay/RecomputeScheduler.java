@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.fieldofplay;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.fieldofplay.FOPEvent.WeightChange;
+import app.owlcms.utils.LoggerUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Collapses bursts of weight changes into a single recomputation of the lifting
+ * order.
+ *
+ * When the marshal enters several declarations or changes in a row, the changes
+ * that cannot affect the current athlete (another athlete, same lift, asking
+ * for more than the current athlete) are not processed immediately. The first
+ * one schedules a recomputation at the end of a short window
+ * (<code>-DrecomputeWindowMs</code>, 100ms by default, 0 to disable); the
+ * following ones only replace the change to be processed. Since the athletes
+ * are read again from the database, the single recomputation takes all the
+ * changes into account. The pending change is always processed, even if the
+ * lifting order is recomputed for another reason before the end of the window,
+ * so that the displays are notified of it.
+ *
+ * One instance per field of play.
+ *
+ * @author Jean-François Lamy
+ */
+public class RecomputeScheduler {
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(RecomputeScheduler.class);
+
+	private final FieldOfPlay fop;
+	private final int windowMs;
+	private ScheduledExecutorService executor;
+	private boolean stopped;
+
+	/** the last change received, null if nothing is pending */
+	private WeightChange pending;
+
+	private final AtomicLong nbDeferred = new AtomicLong();
+	private final AtomicLong nbRecomputed = new AtomicLong();
+
+	/**
+	 * @param fop      the field of play, whose lock is held when recomputing
+	 * @param windowMs how long to wait for other changes, 0 to process every
+	 *                 change immediately
+	 */
+	public RecomputeScheduler(FieldOfPlay fop, int windowMs) {
+		this.fop = fop;
+		this.windowMs = windowMs;
+	}
+
+	/**
+	 * @return the number of weight changes whose processing was deferred
+	 */
+	public long getNbDeferred() {
+		return nbDeferred.get();
+	}
+
+	/**
+	 * @return the number of recomputations done at the end of a window
+	 */
+	public long getNbRecomputed() {
+		return nbRecomputed.get();
+	}
+
+	/**
+	 * @return the number of recomputations avoided
+	 */
+	public long getNbSaved() {
+		return nbDeferred.get() - nbRecomputed.get();
+	}
+
+	public int getWindowMs() {
+		return windowMs;
+	}
+
+	/**
+	 * @return true if changes are deferred
+	 */
+	public boolean isEnabled() {
+		return windowMs > 0;
+	}
+
+	/**
+	 * Forget the pending change and stop the thread; the field of play is being
+	 * replaced or removed.
+	 */
+	public synchronized void shutdown() {
+		stopped = true;
+		pending = null;
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Process the change at the end of the window, together with those that
+	 * follow.
+	 *
+	 * @param wc a change that does not affect the current athlete
+	 */
+	public synchronized void defer(WeightChange wc) {
+		if (stopped) {
+			return;
+		}
+		nbDeferred.incrementAndGet();
+		boolean scheduled = pending != null;
+		pending = wc;
+		if (!scheduled) {
+			getExecutor().schedule(this::recompute, windowMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private synchronized ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "recompute-" + fop.getName());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return executor;
+	}
+
+	private void recompute() {
+		// same lock order as the events handled by the field of play
+		synchronized (fop) {
+			WeightChange wc;
+			synchronized (this) {
+				wc = pending;
+				pending = null;
+			}
+			if (wc == null) {
+				return;
+			}
+			try {
+				nbRecomputed.incrementAndGet();
+				fop.doDeferredWeightChange(wc);
+			} catch (Exception e) {
+				logger.error("{}deferred weight change {}", fop.getLoggingName(), LoggerUtils.stackTrace(e));
+			}
+			logger.debug("{}recomputed after weight changes, deferred={} recomputed={}", fop.getLoggingName(),
+			        nbDeferred.get(), nbRecomputed.get());
+		}
+	}
+
+}
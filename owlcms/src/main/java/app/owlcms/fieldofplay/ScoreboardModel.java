@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.fieldofplay;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.LiftDefinition.Changes;
+import app.owlcms.data.athlete.LiftInfo;
+import app.owlcms.data.athlete.XAthlete;
+import ch.qos.logback.classic.Logger;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+/**
+ * What the scoreboards show for the athletes of the current group, computed once
+ * by the field of play each time the lifting order is recomputed.
+ *
+ * Every scoreboard attached to a field of play used to redo the same work for
+ * each update (wrapping each athlete, computing the attempt cells with their CSS
+ * classes and formatted weights). The results boards, the attempt board and the
+ * event forwarder now take the rows from here. The attempt cells are kept as
+ * Json arrays, one for each highlighting (none, current, next), that are only
+ * read by the displays.
+ *
+ * Immutable. A display that asks for an athlete that is not in the snapshot, or
+ * whose lifts have changed since, gets a row computed on the spot.
+ *
+ * @author Jean-François Lamy
+ */
+public final class ScoreboardModel {
+
+	/**
+	 * Display values for one athlete.
+	 */
+	public static final class AthleteRow {
+
+		private static final String[] HIGHLIGHTS = { "", " current blink", " next" };
+
+		private final Athlete athlete;
+		private final String[] liftStrings;
+		private final int attemptsDone;
+		private final Integer nextAttemptRequestedWeight;
+		private final String fullName;
+		private final Integer bestSnatch;
+		private final Integer bestCleanJerk;
+		private final Integer total;
+		private final Double sinclair;
+		private final Double sinclairForDelta;
+		private final JsonArray[] snatchAttempts = new JsonArray[3];
+		private final JsonArray[] cleanJerkAttempts = new JsonArray[3];
+
+		AthleteRow(Athlete a) {
+			this.athlete = a;
+			this.liftStrings = liftStrings(a);
+			this.attemptsDone = a.getAttemptsDone();
+			this.nextAttemptRequestedWeight = a.getNextAttemptRequestedWeight();
+			this.fullName = a.getFullName();
+			this.bestSnatch = a.getBestSnatch();
+			this.bestCleanJerk = a.getBestCleanJerk();
+			this.total = a.getTotal();
+			this.sinclair = a.getSinclair();
+			this.sinclairForDelta = a.getSinclairForDelta();
+			computeAttempts();
+		}
+
+		public Athlete getAthlete() {
+			return athlete;
+		}
+
+		public int getAttemptsDone() {
+			return attemptsDone;
+		}
+
+		public Integer getBestCleanJerk() {
+			return bestCleanJerk;
+		}
+
+		public Integer getBestSnatch() {
+			return bestSnatch;
+		}
+
+		/**
+		 * Attempt cells for the web components (goodBadClassName, className,
+		 * stringValue). Must not be modified.
+		 *
+		 * @param liftOrderRank 1 for the current athlete, 2 for the next, 0 for no
+		 *                      highlighting
+		 * @return the three clean&amp;jerk cells
+		 */
+		public JsonArray getCleanJerkAttemptsJson(int liftOrderRank) {
+			return cleanJerkAttempts[highlightIndex(liftOrderRank)];
+		}
+
+		public String getFullName() {
+			return fullName;
+		}
+
+		public Integer getNextAttemptRequestedWeight() {
+			return nextAttemptRequestedWeight;
+		}
+
+		public Double getSinclair() {
+			return sinclair;
+		}
+
+		public Double getSinclairForDelta() {
+			return sinclairForDelta;
+		}
+
+		/**
+		 * @see #getCleanJerkAttemptsJson(int)
+		 * @param liftOrderRank 1 for the current athlete, 2 for the next, 0 for no
+		 *                      highlighting
+		 * @return the three snatch cells
+		 */
+		public JsonArray getSnatchAttemptsJson(int liftOrderRank) {
+			return snatchAttempts[highlightIndex(liftOrderRank)];
+		}
+
+		public Integer getTotal() {
+			return total;
+		}
+
+		/**
+		 * @param a
+		 * @return true if the lifts of the athlete have not changed since the row
+		 *         was computed
+		 */
+		boolean isCurrent(Athlete a) {
+			String[] current = liftStrings(a);
+			for (int i = 0; i < current.length; i++) {
+				// the setters always store a new string
+				if (current[i] != liftStrings[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void computeAttempts() {
+			XAthlete x = new XAthlete(athlete);
+			LiftInfo[] requestInfoArray = x.getRequestInfoArray();
+			boolean notDone = attemptsDone < 6;
+			boolean hasRequest = false;
+			for (int h = 0; h < HIGHLIGHTS.length; h++) {
+				if (h > 0 && !hasRequest) {
+					// nothing to highlight, same cells
+					snatchAttempts[h] = snatchAttempts[0];
+					cleanJerkAttempts[h] = cleanJerkAttempts[0];
+					continue;
+				}
+				JsonArray sattempts = Json.createArray();
+				JsonArray cattempts = Json.createArray();
+				int ix = 0;
+				for (LiftInfo i : requestInfoArray) {
+					JsonObject jri = Json.createObject();
+					String stringValue = i.getStringValue();
+
+					jri.put("goodBadClassName", "narrow empty");
+					jri.put("stringValue", "");
+					if (i.getChangeNo() >= 0) {
+						String trim = stringValue != null ? stringValue.trim() : "";
+						switch (Changes.values()[i.getChangeNo()]) {
+						case ACTUAL:
+							if (!trim.isEmpty()) {
+								if (trim.contentEquals("-") || trim.contentEquals("0")) {
+									jri.put("goodBadClassName", "narrow fail");
+									jri.put("stringValue", "-");
+								} else {
+									boolean failed = stringValue != null && stringValue.startsWith("-");
+									jri.put("goodBadClassName", failed ? "narrow fail" : "narrow good");
+									jri.put("stringValue", formatKg(stringValue));
+								}
+							}
+							break;
+						default:
+							if (stringValue != null && !trim.isEmpty()) {
+								boolean current = i.getLiftNo() == attemptsDone;
+								hasRequest = hasRequest || (current && notDone);
+								jri.put("goodBadClassName", "narrow request");
+								if (notDone) {
+									jri.put("className", current ? HIGHLIGHTS[h] : "");
+								}
+								jri.put("stringValue", stringValue);
+							}
+							break;
+						}
+					}
+
+					if (ix < 3) {
+						sattempts.set(ix, jri);
+					} else {
+						cattempts.set(ix % 3, jri);
+					}
+					ix++;
+				}
+				snatchAttempts[h] = sattempts;
+				cleanJerkAttempts[h] = cattempts;
+			}
+		}
+
+		private String formatKg(String total) {
+			return (total == null || total.trim().isEmpty()) ? "-"
+			        : (total.startsWith("-") ? "(" + total.substring(1) + ")" : total);
+		}
+
+		private int highlightIndex(int liftOrderRank) {
+			return liftOrderRank == 1 || liftOrderRank == 2 ? liftOrderRank : 0;
+		}
+
+		private static String[] liftStrings(Athlete a) {
+			return new String[] {
+			        a.getSnatch1Declaration(), a.getSnatch1Change1(), a.getSnatch1Change2(), a.getSnatch1ActualLift(),
+			        a.getSnatch2Declaration(), a.getSnatch2Change1(), a.getSnatch2Change2(), a.getSnatch2ActualLift(),
+			        a.getSnatch3Declaration(), a.getSnatch3Change1(), a.getSnatch3Change2(), a.getSnatch3ActualLift(),
+			        a.getCleanJerk1Declaration(), a.getCleanJerk1Change1(), a.getCleanJerk1Change2(),
+			        a.getCleanJerk1ActualLift(),
+			        a.getCleanJerk2Declaration(), a.getCleanJerk2Change1(), a.getCleanJerk2Change2(),
+			        a.getCleanJerk2ActualLift(),
+			        a.getCleanJerk3Declaration(), a.getCleanJerk3Change1(), a.getCleanJerk3Change2(),
+			        a.getCleanJerk3ActualLift() };
+		}
+	}
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(ScoreboardModel.class);
+
+	/**
+	 * No rows; every row is computed when asked for.
+	 */
+	public static final ScoreboardModel EMPTY = new ScoreboardModel(0L, null);
+
+	private final long version;
+	private final Map<Athlete, AthleteRow> rows;
+
+	/**
+	 * @param version      increases each time the field of play recomputes
+	 * @param displayOrder the athletes of the current group
+	 */
+	public ScoreboardModel(long version, List<Athlete> displayOrder) {
+		this.version = version;
+		List<Athlete> athletes = displayOrder != null ? displayOrder : Collections.emptyList();
+		// the displays use the same athlete objects; other copies get their own row.
+		Map<Athlete, AthleteRow> byAthlete = new IdentityHashMap<>(athletes.size() * 2);
+		for (Athlete a : athletes) {
+			byAthlete.put(a, new AthleteRow(a));
+		}
+		this.rows = Collections.unmodifiableMap(byAthlete);
+	}
+
+	/**
+	 * @param a an athlete, normally one from the field of play display order
+	 * @return the row computed for the athlete, or a new row if the athlete was not
+	 *         part of the snapshot or has changed
+	 */
+	public AthleteRow getRow(Athlete a) {
+		AthleteRow row = rows.get(a);
+		if (row != null && row.isCurrent(a)) {
+			return row;
+		}
+		logger.trace("scoreboard row computed for {}", a.getShortName());
+		return new AthleteRow(a);
+	}
+
+	/**
+	 * @return the number of rows computed by the field of play
+	 */
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * @return the number of times the field of play has recomputed the rows
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+}
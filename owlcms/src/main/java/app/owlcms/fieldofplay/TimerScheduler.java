@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.fieldofplay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.utils.LoggerUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Fires the marks of a running timer (initial warning, final warning, time
+ * over) on the server.
+ *
+ * The displays no longer report the marks: they only show the time. Each mark
+ * is scheduled when the timer starts, on the monotonic clock, and fires once;
+ * stopping or resetting the timer cancels the marks not yet fired. The delay
+ * between the time a mark was due and the end of its processing (the events
+ * emitted) is measured and logged on the <code>TimerScheduler_Timing</code>
+ * logger.
+ *
+ * One instance per timer. The marks of all the timers are timed by a shared
+ * thread, which hands each mark over to the lane of its field of play; a
+ * platform busy processing an event therefore never delays the marks of the
+ * other platforms.
+ *
+ * @author Jean-François Lamy
+ */
+public class TimerScheduler {
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(TimerScheduler.class);
+	final static Logger timingLogger = (Logger) LoggerFactory.getLogger(TimerScheduler.class.getName() + "_Timing");
+
+	private static ScheduledExecutorService executor;
+
+	private static synchronized ScheduledExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "timer-marks");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return executor;
+	}
+
+	private final String name;
+	private final Executor lane;
+	private final List<ScheduledFuture<?>> scheduled = new ArrayList<>();
+	/** incremented when the marks are cancelled; a mark from a previous run is ignored */
+	private long generation;
+
+	private final AtomicLong nbFired = new AtomicLong();
+	private final AtomicLong totalJitterMicros = new AtomicLong();
+	private final AtomicLong maxJitterMicros = new AtomicLong();
+
+	/**
+	 * @param name used in the log
+	 * @param lane where the marks are processed, in order
+	 */
+	public TimerScheduler(String name, Executor lane) {
+		this.name = name;
+		this.lane = lane;
+	}
+
+	/**
+	 * Cancel the marks not yet fired.
+	 */
+	public synchronized void cancel() {
+		generation++;
+		for (ScheduledFuture<?> f : scheduled) {
+			f.cancel(false);
+		}
+		scheduled.clear();
+	}
+
+	/**
+	 * @return the average delay between the time a mark was due and the end of
+	 *         its processing, in milliseconds
+	 */
+	public double getAverageJitter() {
+		long nb = nbFired.get();
+		return nb > 0 ? totalJitterMicros.get() / 1000.0 / nb : 0.0;
+	}
+
+	/**
+	 * @return the longest delay between the time a mark was due and the end of its
+	 *         processing, in milliseconds
+	 */
+	public double getMaxJitter() {
+		return maxJitterMicros.get() / 1000.0;
+	}
+
+	/**
+	 * @return the number of marks fired
+	 */
+	public long getNbFired() {
+		return nbFired.get();
+	}
+
+	/**
+	 * Schedule a mark of the current run.
+	 *
+	 * @param delayMs from now
+	 * @param what    used in the log
+	 * @param mark    what to do
+	 */
+	public synchronized void schedule(long delayMs, String what, Runnable mark) {
+		long runGeneration = generation;
+		long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+		scheduled.removeIf(ScheduledFuture::isDone);
+		scheduled.add(getExecutor().schedule(() -> fire(runGeneration, due, what, mark), delayMs,
+		        TimeUnit.MILLISECONDS));
+	}
+
+	private void fire(long runGeneration, long due, String what, Runnable mark) {
+		if (!isCurrent(runGeneration)) {
+			return;
+		}
+		lane.execute(() -> process(runGeneration, due, what, mark));
+	}
+
+	private synchronized boolean isCurrent(long runGeneration) {
+		return runGeneration == generation;
+	}
+
+	private void process(long runGeneration, long due, String what, Runnable mark) {
+		// the timer may have been stopped while the mark was waiting in the lane
+		if (!isCurrent(runGeneration)) {
+			return;
+		}
+		// not holding our lock: the mark goes to the field of play, which may cancel
+		// the marks
+		try {
+			mark.run();
+		} catch (Exception e) {
+			logger.error("{} {} {}", name, what, LoggerUtils.stackTrace(e));
+		}
+		long jitterMicros = (System.nanoTime() - due) / 1000;
+		nbFired.incrementAndGet();
+		totalJitterMicros.addAndGet(jitterMicros);
+		maxJitterMicros.accumulateAndGet(jitterMicros, Math::max);
+		timingLogger.debug("{} {} emitted {}ms after due time", name, what, jitterMicros / 1000.0);
+	}
+
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.fieldofplay;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * The clock used by a field of play for its timers and its delays.
+ *
+ * The normal clock is {@link #REAL}. When simulating a competition, a faster
+ * clock makes the timers, the decision delays and the pauses of the simulated
+ * officials shorter, so that a competition runs in minutes instead of hours.
+ * Times are measured with the monotonic clock and scaled; a delay that would be
+ * shorter than a millisecond is not waited for.
+ *
+ * @author Jean-François Lamy
+ */
+public class VirtualClock {
+
+	public static final VirtualClock REAL = new VirtualClock(1.0D);
+
+	private final double speed;
+	private final long originMillis;
+	private final long originNanos;
+
+	/**
+	 * @param speed how many times faster than real time
+	 */
+	public VirtualClock(double speed) {
+		if (speed <= 0.0D) {
+			throw new IllegalArgumentException("speed must be positive: " + speed);
+		}
+		this.speed = speed;
+		this.originMillis = System.currentTimeMillis();
+		this.originNanos = System.nanoTime();
+	}
+
+	/**
+	 * @return the current time, in milliseconds since the epoch; runs faster than
+	 *         the wall clock when accelerated.
+	 */
+	public long currentTimeMillis() {
+		if (!isAccelerated()) {
+			return System.currentTimeMillis();
+		}
+		return originMillis + (long) ((System.nanoTime() - originNanos) / 1000000.0D * speed);
+	}
+
+	/**
+	 * @return the current local time on this clock, for the break target times
+	 */
+	public LocalDateTime now() {
+		if (!isAccelerated()) {
+			return LocalDateTime.now();
+		}
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(currentTimeMillis()), ZoneId.systemDefault());
+	}
+
+	public double getSpeed() {
+		return speed;
+	}
+
+	public boolean isAccelerated() {
+		return speed != 1.0D;
+	}
+
+	/**
+	 * @param millis a delay on this clock
+	 * @return the same delay in real milliseconds
+	 */
+	public long realDelay(long millis) {
+		if (!isAccelerated()) {
+			return millis;
+		}
+		return Math.round(millis / speed);
+	}
+
+	/**
+	 * Wait for a delay on this clock.
+	 *
+	 * @param millis
+	 * @throws InterruptedException
+	 */
+	public void sleep(long millis) throws InterruptedException {
+		long delay = realDelay(millis);
+		if (delay > 0) {
+			Thread.sleep(delay);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "VirtualClock x" + speed;
+	}
+
+}
@@ -7,6 +7,7 @@
 package app.owlcms.init;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -100,6 +101,9 @@ public class OwlcmsFactory {
 	}
 
 	public static Collection<FieldOfPlay> getFOPs() {
+		if (getFopByName() == null) {
+			return Collections.emptyList(); // not initialized yet
+		}
 		Collection<FieldOfPlay> values = getFopByName().values();
 		return values;
 	}
@@ -138,7 +142,10 @@ public class OwlcmsFactory {
 		logger.trace("{} Initialized", fop.getLoggingName());
 		// no group selected, no athletes, announcer will need to pick a group.
 		fop.init(new LinkedList<Athlete>(), new ProxyAthleteTimer(fop), new ProxyBreakTimer(fop), true);
-		getFopByName().put(name, fop);
+		FieldOfPlay previous = getFopByName().put(name, fop);
+		if (previous != null && previous != fop) {
+			previous.shutdown();
+		}
 		return fop;
 	}
 
@@ -157,6 +164,7 @@ public class OwlcmsFactory {
 						// not registered, or already unregistered
 					}
 				}
+				fop.shutdown();
 			}
 		}
 		setFopByName(new HashMap<>());
@@ -186,13 +194,14 @@ public class OwlcmsFactory {
 		if (name == null) {
 			throw new RuntimeException("can't happen, platform with no name");
 		}
+		FieldOfPlay fop = getFopByName().get(name);
 		try {
-			FieldOfPlay fop = getFopByName().get(name);
 			fop.getFopEventBus().unregister(fop);
 		} catch (IllegalArgumentException e) {
 		}
 		logger.trace("unregistering and unmapping fop {}", name);
 		getFopByName().remove(name);
+		fop.shutdown();
 	}
 
 	public static void waitDBInitialized() {
@@ -43,6 +43,8 @@ public class OwlcmsSession {
 	private final static Logger logger = (Logger) LoggerFactory.getLogger(OwlcmsSession.class);
 
 	private static OwlcmsSession owlcmsSessionSingleton = null;
+	/** settings used by work that does not hold the Vaadin session lock */
+	private static ThreadLocal<OwlcmsSession> detachedSession = new ThreadLocal<>();
 
 	static {
 		logger.setLevel(Level.INFO);
@@ -59,6 +61,10 @@ public class OwlcmsSession {
 	}
 
 	public static OwlcmsSession getCurrent() {
+		OwlcmsSession detached = detachedSession.get();
+		if (detached != null) {
+			return detached;
+		}
 		VaadinSession currentVaadinSession = VaadinSession.getCurrent();
 		if (currentVaadinSession != null) {
 			OwlcmsSession owlcmsSession = (OwlcmsSession) currentVaadinSession.getAttribute("owlcmsSession");
@@ -149,6 +155,21 @@ public class OwlcmsSession {
 		setAttribute(AUTHENTICATED, isAuthenticated);
 	}
 
+	/**
+	 * Make the settings of a user current for a thread that does not hold the lock
+	 * on the Vaadin session, such as a report being downloaded. The settings
+	 * obtained while holding the lock are used as is.
+	 *
+	 * @param owlcmsSession the settings, null when done
+	 */
+	public static void setDetached(OwlcmsSession owlcmsSession) {
+		if (owlcmsSession == null) {
+			detachedSession.remove();
+		} else {
+			detachedSession.set(owlcmsSession);
+		}
+	}
+
 	public static void setDisplayAuthenticated(boolean b) {
 		setAttribute(DISPLAY_AUTHENTICATED, b);
 	}
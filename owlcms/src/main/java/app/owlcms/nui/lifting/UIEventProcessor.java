@@ -14,6 +14,7 @@ import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.server.Command;
 
+import app.owlcms.uievents.OrderedExecutor;
 import app.owlcms.uievents.UIEvent;
 
 public interface UIEventProcessor {
@@ -31,7 +32,9 @@ public interface UIEventProcessor {
 	 * @param e                 the event we received
 	 * @param selfOrigin        our reference element -- for composite objects, we
 	 *                          will likely use the parent of the hierarchy
-	 * @param command
+	 * @param command           run in the order received, after the previous
+	 *                          commands for the same UI; a slow UI does not
+	 *                          delay the others.
 	 */
 	public static void uiAccessIgnoreIfSelfOrigin(Component attachedComponent, EventBus uiEventBus, UIEvent e,
 	        Object selfOrigin, Command command) {
@@ -48,7 +51,19 @@ public interface UIEventProcessor {
 				}
 				UI ui = attachedUI.get();
 				if (ui != null) {
-					ui.access(command);
+					OrderedExecutor.getShared().getLane(ui, "UI " + ui.getUIId()).execute(() -> {
+						try {
+							ui.access(command);
+						} catch (UIDetachedException e1) {
+							if (uiEventBus != null) {
+								try {
+									uiEventBus.unregister(attachedComponent);
+								} catch (Exception exc) {
+									// already unregistered
+								}
+							}
+						}
+					});
 				} else {
 					// can't happen in theory, but does in practice !?
 					UI.getCurrent().access(command);
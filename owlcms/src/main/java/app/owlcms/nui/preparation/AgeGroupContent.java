@@ -42,6 +42,7 @@ import app.owlcms.data.athlete.Gender;
 import app.owlcms.data.category.AgeDivision;
 import app.owlcms.data.competition.Competition;
 import app.owlcms.data.competition.CompetitionRepository;
+import app.owlcms.fieldofplay.FOPJournal;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.nui.crudui.OwlcmsCrudFormFactory;
@@ -241,6 +242,7 @@ public class AgeGroupContent extends VerticalLayout implements CrudListener<AgeG
 
 	private void resetCategories() {
 		AthleteRepository.resetParticipations();
+		FOPJournal.startNewEpoch("resetCategories");
 		crud.refreshGrid();
 		unHighlightResetButton();
 	}
@@ -68,6 +68,7 @@ import app.owlcms.data.config.Config;
 import app.owlcms.data.group.Group;
 import app.owlcms.data.group.GroupRepository;
 import app.owlcms.data.jpa.JPAService;
+import app.owlcms.fieldofplay.FOPJournal;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsSession;
 import app.owlcms.nui.crudui.OwlcmsComboBoxProvider;
@@ -389,6 +390,7 @@ public class RegistrationContent extends VerticalLayout implements CrudListener<
 			em.flush();
 			return null;
 		});
+		FOPJournal.startNewEpoch("clearLifts");
 	}
 
 	/**
@@ -530,6 +532,7 @@ public class RegistrationContent extends VerticalLayout implements CrudListener<
 
 	private void resetCategories() {
 		AthleteRepository.resetParticipations();
+		FOPJournal.startNewEpoch("resetCategories");
 		refreshCrudGrid();
 	}
 
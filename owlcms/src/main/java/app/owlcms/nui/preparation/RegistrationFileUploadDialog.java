@@ -40,6 +40,7 @@ import app.owlcms.data.group.GroupRepository;
 import app.owlcms.data.jpa.JPAService;
 import app.owlcms.data.platform.Platform;
 import app.owlcms.data.platform.PlatformRepository;
+import app.owlcms.fieldofplay.FOPJournal;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.spreadsheet.RAthlete;
@@ -257,6 +258,7 @@ public class RegistrationFileUploadDialog extends Dialog {
 		if (!keepParticipations) {
 			AthleteRepository.resetParticipations();
 		}
+		FOPJournal.startNewEpoch("registration");
 		listGroups("after processAthletes real");
 		return;
 	}
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ObjectUtils;
@@ -26,7 +27,9 @@ import app.owlcms.data.group.GroupRepository;
 import app.owlcms.data.jpa.JPAService;
 import app.owlcms.data.platform.Platform;
 import app.owlcms.data.platform.PlatformRepository;
+import app.owlcms.fieldofplay.FOPJournal;
 import app.owlcms.fieldofplay.FieldOfPlay;
+import app.owlcms.fieldofplay.VirtualClock;
 import app.owlcms.init.OwlcmsFactory;
 import app.owlcms.utils.NaturalOrderComparator;
 import ch.qos.logback.classic.Level;
@@ -36,6 +39,11 @@ import ch.qos.logback.classic.Logger;
  *
  * Simulate a meet by triggering events and reacting to response.
  *
+ * All the platforms run at the same time. With a speed above 1, the fields of
+ * play use a faster clock, so the competition can be used as a repeatable load
+ * test; the report gives the latencies, the database statements and the memory
+ * allocated (see {@link SimulationMetrics}).
+ *
  * @author Jean-François Lamy
  *
  */
@@ -47,10 +55,27 @@ public class CompetitionSimulator {
 
 	private Random r = new Random(0);
 
+	private SimulationMetrics metrics = new SimulationMetrics();
+
 	public CompetitionSimulator() {
 	}
 
+	public SimulationMetrics getMetrics() {
+		return metrics;
+	}
+
 	public String runSimulation() throws InterruptedException {
+		return runSimulation(1.0D);
+	}
+
+	/**
+	 * Run all the groups, and wait until they are done.
+	 *
+	 * @param speed how many times faster than real time
+	 * @return the report
+	 * @throws InterruptedException
+	 */
+	public String runSimulation(double speed) throws InterruptedException {
 		Competition.getCurrent().setSimulation(true);
 		logger.setLevel(Level.DEBUG);
 
@@ -108,13 +133,38 @@ public class CompetitionSimulator {
 		}
 		registeredSimulators.clear();
 
+		VirtualClock clock = speed == 1.0D ? VirtualClock.REAL : new VirtualClock(speed);
+		logger.info("simulation clock {}", clock);
+		metrics.start();
+		List<FieldOfPlay> fops = new ArrayList<>();
 		for (Platform p : ps) {
+			List<Group> platformGroups = groupsByPlatform.get(p);
+			if (platformGroups == null) {
+				continue;
+			}
 			FieldOfPlay f = OwlcmsFactory.getFOPByName(p.getName());
-			FOPSimulator fopSimulator = new FOPSimulator(f, groupsByPlatform.get(p));
+			f.setClock(clock);
+			fops.add(f);
+			FOPSimulator fopSimulator = new FOPSimulator(f, platformGroups, metrics);
 			registeredSimulators.add(fopSimulator);
 			fopSimulator.go();
 		}
-		return "simulation done.";
+
+		try {
+			for (FOPSimulator s : registeredSimulators) {
+				if (!s.awaitDone(1, TimeUnit.DAYS)) {
+					logger.error("simulation did not end");
+				}
+			}
+		} finally {
+			metrics.stop();
+			for (FieldOfPlay f : fops) {
+				f.setClock(VirtualClock.REAL);
+			}
+		}
+		String report = metrics.report();
+		logger.info("simulation done.\n{}", report);
+		return report;
 	}
 
 	private void clearLifts() {
@@ -127,6 +177,7 @@ public class CompetitionSimulator {
 			em.flush();
 			return null;
 		});
+		FOPJournal.startNewEpoch("clearLifts");
 	}
 
 	private List<Athlete> weighIn(Group g) {
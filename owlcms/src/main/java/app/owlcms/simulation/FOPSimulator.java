@@ -8,6 +8,10 @@ package app.owlcms.simulation;
 
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +22,7 @@ import app.owlcms.data.athlete.Athlete;
 import app.owlcms.data.group.Group;
 import app.owlcms.fieldofplay.FOPEvent;
 import app.owlcms.fieldofplay.FieldOfPlay;
+import app.owlcms.uievents.OrderedExecutor;
 import app.owlcms.uievents.UIEvent;
 import ch.qos.logback.classic.Logger;
 
@@ -31,17 +36,31 @@ import ch.qos.logback.classic.Logger;
  * possible to create as many real browser windows as required to observe the
  * updates taking place.
  *
+ * The pauses of the officials follow the clock of the field of play, so a
+ * faster clock speeds up the whole competition. The actions are performed one
+ * at a time on a thread of the simulator, and the latencies are recorded in
+ * the {@link SimulationMetrics}.
+ *
  * @author Jean-François Lamy
  *
  */
 public class FOPSimulator {
 
-	static private Random r = new Random(0);
+	private Random r = new Random(0);
 
 	private FieldOfPlay fop;
 
 	private boolean groupDone;
 
+	/** when the last referee decision was given, 0 if the lift has been measured */
+	private volatile long decisionNanos;
+
+	private volatile boolean decisionShown;
+
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	private final ExecutorService executor;
+
 	private List<Group> groups;
 
 //    private EventBus fopEventBus;
@@ -54,9 +73,33 @@ public class FOPSimulator {
 
 	final private Logger uiEventLogger = (Logger) LoggerFactory.getLogger("Simulation-" + logger.getName());
 
+	private SimulationMetrics metrics;
+
 	public FOPSimulator(FieldOfPlay f, List<Group> groups) {
+		this(f, groups, new SimulationMetrics());
+	}
+
+	public FOPSimulator(FieldOfPlay f, List<Group> groups, SimulationMetrics metrics) {
 		this.fop = f;
 		this.groups = groups;
+		this.metrics = metrics;
+		this.executor = Executors.newSingleThreadExecutor(task -> {
+			Thread t = new Thread(task, "simulator-" + f.getName());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Wait until all the groups have been done.
+	 *
+	 * @param timeout
+	 * @param unit
+	 * @return false if the groups were not done in time
+	 * @throws InterruptedException
+	 */
+	public boolean awaitDone(long timeout, TimeUnit unit) throws InterruptedException {
+		return done.await(timeout, unit);
 	}
 
 	public void go() throws InterruptedException {
@@ -65,14 +108,18 @@ public class FOPSimulator {
 		this.setOrigin(this);
 
 		logger.info("simulating fop {}", fop.getName());
-		startNextGroup(groups);
+		executor.execute(() -> {
+			if (!startNextGroup(groups)) {
+				done.countDown();
+			}
+		});
 	}
 
 	@Subscribe
 	public void slaveDecisionReset(UIEvent.DecisionReset e) throws InterruptedException {
 		uiEventLogger.debug("### {} {} {} {}", this.getClass().getSimpleName(), e.getClass().getSimpleName(),
 		        this.getOrigin(), e.getOrigin());
-		new Thread(() -> {
+		executor.execute(() -> {
 			if (groupDone) {
 				if (groups.size() > 0) {
 					groups.remove(0);
@@ -83,7 +130,7 @@ public class FOPSimulator {
 			} else {
 				doNextAthleteWithDeclaration(e);
 			}
-		}).start();
+		});
 	}
 
 	@Subscribe
@@ -99,27 +146,45 @@ public class FOPSimulator {
 		        this.getOrigin(), e.getOrigin());
 		// note that the group is done.
 		groupDone = false; // WAS true
-		new Thread(() -> {
+		executor.execute(() -> {
 			logger.info("########## group {} done", e.getGroup());
 			if (groups.size() > 0) {
 				if (groups.get(0).getName().contentEquals(e.getGroup().getName())) {
 					groups.remove(0);
+					metrics.groupDone();
+				}
+				if (!startNextGroup(groups)) {
+					done.countDown();
 				}
-				startNextGroup(groups);
 			} else {
 				return;
 			}
-		}).start();
+		});
 	}
 
 	@Subscribe
 	public void slaveOrderUpdated(UIEvent.LiftingOrderUpdated e) {
-		// nothing to do
+		long start = decisionNanos;
+		if (!decisionShown || start == 0) {
+			// not the update that follows a decision
+			return;
+		}
+		decisionShown = false;
+		decisionNanos = 0;
+		metrics.getOrder().add(System.nanoTime() - start);
+		metrics.liftDone();
+		// a display updates itself in its own lane
+		OrderedExecutor.getShared().getLane(this, "simulated display " + fop.getName())
+		        .execute(() -> metrics.getDisplay().add(System.nanoTime() - start));
 	}
 
 	@Subscribe
 	public void slaveRefereeDecision(UIEvent.Decision e) {
-		// nothing to do
+		long start = decisionNanos;
+		if (start != 0) {
+			metrics.getDecision().add(System.nanoTime() - start);
+			decisionShown = true;
+		}
 	}
 
 	@Subscribe
@@ -131,7 +196,7 @@ public class FOPSimulator {
 	public void slaveStartLifting(UIEvent.StartLifting e) throws InterruptedException {
 		uiEventLogger.debug("### {} {} {} {}", this.getClass().getSimpleName(), e.getClass().getSimpleName(),
 		        this.getOrigin(), e.getOrigin());
-		new Thread(() -> doNextAthlete(e)).start();
+		executor.execute(() -> doNextAthlete(e));
 	}
 
 	@Subscribe
@@ -143,12 +208,16 @@ public class FOPSimulator {
 	public void slaveSwitchGroup(UIEvent.SwitchGroup e) throws InterruptedException {
 		uiEventLogger.debug("### {} {} {} {}", this.getClass().getSimpleName(), e.getClass().getSimpleName(),
 		        this.getOrigin(), e.getOrigin());
-		new Thread(() -> doSwitchGroup(e)).start();
+		executor.execute(() -> doSwitchGroup(e));
 	}
 
 	public void unregister() {
 		logger.debug("unregister simulator {}", this.fop.getName());
-		uiEventBus.unregister(this);
+		if (uiEventBus != null) {
+			uiEventBus.unregister(this);
+		}
+		executor.shutdownNow();
+		done.countDown();
 	}
 
 	private void doDeclaration(Athlete athlete, String automatic) {
@@ -181,7 +250,7 @@ public class FOPSimulator {
 		Athlete athlete = order.size() > 0 ? order.get(0) : null;
 
 		try {
-			Thread.sleep(1000);
+			fop.getClock().sleep(1000);
 		} catch (InterruptedException e1) {
 		}
 		doLift(athlete);
@@ -189,7 +258,7 @@ public class FOPSimulator {
 
 	private void doNextAthleteWithDeclaration(UIEvent e) {
 		try {
-			Thread.sleep(2000);
+			fop.getClock().sleep(2000);
 		} catch (InterruptedException e1) {
 		}
 
@@ -247,11 +316,11 @@ public class FOPSimulator {
 	}
 
 	private boolean startNextGroup(List<Group> curGs) {
-		if (curGs.size() > 0) {
+		if (curGs != null && curGs.size() > 0) {
 			Group g = curGs.get(0);
 			logger.info("########## waiting to start group {} of {}", g, curGs);
 			try {
-				Thread.sleep(6000);
+				fop.getClock().sleep(6000);
 			} catch (InterruptedException e) {
 			}
 			logger.info("{}########## switching to group {} of {}", fop.getLoggingName(), g, curGs);
@@ -284,7 +353,7 @@ public class FOPSimulator {
 
 		// wait for clock to run down a bit
 		try {
-			Thread.sleep(2000);
+			fop.getClock().sleep(2000);
 		} catch (InterruptedException e) {
 		}
 
@@ -292,12 +361,15 @@ public class FOPSimulator {
 		fop.fopEventPost(new FOPEvent.TimeStopped(this));
 		// wait for clock to run down a bit
 		try {
-			Thread.sleep(1000);
+			fop.getClock().sleep(1000);
 		} catch (InterruptedException e) {
 		}
 		fop.fopEventPost(new FOPEvent.DecisionUpdate(this, 0, goodLift(r)));
 		fop.fopEventPost(new FOPEvent.DecisionUpdate(this, 1, goodLift(r)));
-		fop.fopEventPost(new FOPEvent.DecisionUpdate(this, 2, goodLift(r)));
+		boolean lastDecision = goodLift(r);
+		decisionShown = false;
+		decisionNanos = System.nanoTime();
+		fop.fopEventPost(new FOPEvent.DecisionUpdate(this, 2, lastDecision));
 	}
 
 	Object getOrigin() {
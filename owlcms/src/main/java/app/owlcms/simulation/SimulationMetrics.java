@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.simulation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.data.jpa.JPAService;
+import app.owlcms.utils.LoggerUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * What a simulated competition measures.
+ *
+ * For each lift, the latencies from the last referee decision to the decision
+ * display, to the updated lifting order, and to the moment a display would
+ * render the new order. Also, for the whole run, the number of database
+ * statements and the memory allocated.
+ *
+ * The latencies are in real time and include the (scaled) delays of the field
+ * of play, such as the 3 seconds before showing the decision.
+ *
+ * @author Jean-François Lamy
+ */
+public class SimulationMetrics {
+
+	/**
+	 * Latency samples, in nanoseconds.
+	 */
+	public static class LatencyStats {
+		private final String name;
+		private long[] samples = new long[1024];
+		private int size;
+
+		public LatencyStats(String name) {
+			this.name = name;
+		}
+
+		public synchronized void add(long nanos) {
+			if (size == samples.length) {
+				samples = Arrays.copyOf(samples, size * 2);
+			}
+			samples[size++] = nanos;
+		}
+
+		/**
+		 * @param p between 0 and 100
+		 * @return the latency in milliseconds, 0 if nothing was measured
+		 */
+		public synchronized double percentile(double p) {
+			if (size == 0) {
+				return 0.0D;
+			}
+			long[] sorted = Arrays.copyOf(samples, size);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(p / 100.0D * size) - 1;
+			return sorted[Math.max(0, Math.min(size - 1, index))] / 1000000.0D;
+		}
+
+		public synchronized int size() {
+			return size;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-10s n=%-6d p50=%8.2fms p90=%8.2fms p99=%8.2fms max=%8.2fms", name, size(),
+			        percentile(50), percentile(90), percentile(99), percentile(100));
+		}
+	}
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(SimulationMetrics.class);
+
+	private final LatencyStats decision = new LatencyStats("decision");
+	private final LatencyStats order = new LatencyStats("order");
+	private final LatencyStats display = new LatencyStats("display");
+	private final AtomicLong nbLifts = new AtomicLong();
+	private final AtomicLong nbGroups = new AtomicLong();
+
+	private long startNanos;
+	private long endNanos;
+	private long startStatements;
+	private long endStatements;
+	private long startQueries;
+	private long endQueries;
+	private long startAllocated;
+	private long endAllocated;
+	private boolean statisticsWereEnabled;
+
+	public LatencyStats getDecision() {
+		return decision;
+	}
+
+	public LatencyStats getDisplay() {
+		return display;
+	}
+
+	public LatencyStats getOrder() {
+		return order;
+	}
+
+	public void groupDone() {
+		nbGroups.incrementAndGet();
+	}
+
+	public void liftDone() {
+		nbLifts.incrementAndGet();
+	}
+
+	/**
+	 * @return a text report
+	 */
+	public String report() {
+		double seconds = (endNanos - startNanos) / 1.0E9D;
+		double allocatedMb = (endAllocated - startAllocated) / (1024.0D * 1024.0D);
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("groups=%d lifts=%d elapsed=%.1fs (%.1f lifts/s)%n", nbGroups.get(), nbLifts.get(),
+		        seconds, seconds > 0 ? nbLifts.get() / seconds : 0.0D));
+		sb.append(decision).append(System.lineSeparator());
+		sb.append(order).append(System.lineSeparator());
+		sb.append(display).append(System.lineSeparator());
+		long statements = endStatements - startStatements;
+		sb.append(String.format("statements=%d queries=%d (%.1f statements/lift)%n", statements,
+		        endQueries - startQueries, nbLifts.get() > 0 ? (double) statements / nbLifts.get() : 0.0D));
+		sb.append(String.format("allocated=%.1fMB (%.1fMB/s)%n", allocatedMb,
+		        seconds > 0 ? allocatedMb / seconds : 0.0D));
+		return sb.toString();
+	}
+
+	public void start() {
+		Statistics stats = getStatistics();
+		if (stats != null) {
+			statisticsWereEnabled = stats.isStatisticsEnabled();
+			stats.setStatisticsEnabled(true);
+			startStatements = stats.getPrepareStatementCount();
+			startQueries = stats.getQueryExecutionCount();
+		}
+		startAllocated = allocatedBytes();
+		startNanos = System.nanoTime();
+	}
+
+	public void stop() {
+		endNanos = System.nanoTime();
+		endAllocated = allocatedBytes();
+		Statistics stats = getStatistics();
+		if (stats != null) {
+			endStatements = stats.getPrepareStatementCount();
+			endQueries = stats.getQueryExecutionCount();
+			stats.setStatisticsEnabled(statisticsWereEnabled);
+		}
+	}
+
+	/**
+	 * Memory allocated by the live threads. Threads that end during the run are
+	 * not counted, so this is an approximation.
+	 */
+	private long allocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+			return 0L;
+		}
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+		if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+			return 0L;
+		}
+		return Arrays.stream(sunBean.getThreadAllocatedBytes(sunBean.getAllThreadIds())).filter(b -> b > 0).sum();
+	}
+
+	private Statistics getStatistics() {
+		try {
+			return JPAService.getFactory().unwrap(SessionFactory.class).getStatistics();
+		} catch (Exception e) {
+			logger.error("no database statistics {}", LoggerUtils.stackTrace(e));
+			return null;
+		}
+	}
+
+}
@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import app.owlcms.apputils.AccessUtils;
 import app.owlcms.utils.LoggerUtils;
 import app.owlcms.utils.ProxyUtils;
+import app.owlcms.utils.StartupUtils;
 import ch.qos.logback.classic.Logger;
 
 /**
@@ -49,11 +50,11 @@ import ch.qos.logback.classic.Logger;
  */
 @SuppressWarnings("serial")
 /**
- * Modified to fetch files under the ./local directory relative to the startup
- * directory and, failing that, as a resource on the classpath.
+ * Modified to run a simulated competition and return the report. The <code>speed</code>
+ * request parameter (or <code>-DsimulationSpeed</code>) runs the clocks of the
+ * fields of play faster than real time, e.g. <code>/simulation?speed=1000</code>.
  *
  * @author Jean-François Lamy
- *
  */
 @WebServlet("/simulation/*")
 public class SimulationServlet extends HttpServlet {
@@ -108,12 +109,15 @@ public class SimulationServlet extends HttpServlet {
 			// Open streams.
 			output = response.getOutputStream();
 			PrintWriter pw = new PrintWriter(output, true, StandardCharsets.UTF_8);
-			pw.write("Starting simulation");
+			double speed = getSpeed(request);
+			pw.write("Starting simulation, speed " + speed + System.lineSeparator());
 			pw.flush();
 			output.flush();
 			response.setStatus(200);
 			response.flushBuffer();
-			new CompetitionSimulator().runSimulation();
+			String report = new CompetitionSimulator().runSimulation(speed);
+			pw.write(report);
+			pw.flush();
 		} catch (Throwable t) {
 			logger.error("{}", LoggerUtils.stackTrace(t));
 			response.setStatus(500);
@@ -124,6 +128,18 @@ public class SimulationServlet extends HttpServlet {
 		}
 	}
 
+	private double getSpeed(HttpServletRequest request) {
+		String speedParam = request.getParameter("speed");
+		if (speedParam != null) {
+			try {
+				return Math.max(1.0D, Double.parseDouble(speedParam));
+			} catch (NumberFormatException e) {
+				logger.error("invalid speed {}", speedParam);
+			}
+		}
+		return Math.max(1, StartupUtils.getIntegerParam("simulationSpeed", 1));
+	}
+
 	/**
 	 * Process GET request.
 	 *
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.sound;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.utils.LoggerUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Sounds decoded once and kept ready to play.
+ *
+ * Each sound is decoded once to PCM samples. For each mixer, a clip is opened
+ * with the samples of a sound the first time the sound is played, and kept open;
+ * playing the sound again only rewinds and starts the clip. The time between the
+ * request and the start of the playback is logged.
+ *
+ * @author Jean-François Lamy
+ */
+public class SoundClips {
+
+	/**
+	 * Decoded samples and their format.
+	 */
+	static final class Pcm {
+		final AudioFormat format;
+		final byte[] data;
+
+		Pcm(AudioFormat format, byte[] data) {
+			this.format = format;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * A clip kept open, and when it was last requested.
+	 */
+	private static final class OpenClip {
+		private final String key;
+		private final Clip clip;
+		private volatile long requested;
+
+		OpenClip(String key, Clip clip) {
+			this.key = key;
+			this.clip = clip;
+			clip.addLineListener((e) -> {
+				if (e.getType() == LineEvent.Type.START && requested != 0) {
+					double latency = (System.nanoTime() - requested) / 1000000.0;
+					requested = 0;
+					timingLogger.debug("{} on {} started after {}ms", key, clip.getLineInfo(), latency);
+				}
+			});
+		}
+
+		synchronized void play() {
+			if (clip.isRunning()) {
+				clip.stop();
+			}
+			clip.setFramePosition(0);
+			requested = System.nanoTime();
+			clip.start();
+		}
+	}
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(SoundClips.class);
+	final static Logger timingLogger = (Logger) LoggerFactory.getLogger(SoundClips.class.getName() + "_Timing");
+
+	private static final String[] PRELOADED = { "down.wav", "initialWarning.wav", "finalWarning.wav",
+	        "timeOver.wav" };
+
+	private static final Map<String, Pcm> decoded = new ConcurrentHashMap<>();
+	private static final Map<Mixer.Info, Map<String, OpenClip>> clipsByMixer = new ConcurrentHashMap<>();
+	private static ExecutorService preloader;
+
+	/**
+	 * Decode the usual sounds and open their clips, in the background, so that the
+	 * first signal is not delayed.
+	 *
+	 * @param mixer
+	 */
+	public static synchronized void preload(Mixer mixer) {
+		if (mixer == null) {
+			return;
+		}
+		if (preloader == null) {
+			preloader = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "sound-preload");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		preloader.execute(() -> {
+			try {
+				for (String sound : PRELOADED) {
+					getClip(mixer, Sound.SOUND_PREFIX + sound, () -> Sound.decode(Sound.SOUND_PREFIX + sound));
+				}
+				Tone tone = new Tone(null, 1100, 1200, 1.0);
+				getClip(mixer, tone.getKey(), tone::generate);
+			} catch (Exception e) {
+				logger.error("could not preload sounds for {} {}", mixer.getMixerInfo().getName(),
+				        LoggerUtils.stackTrace(e));
+			}
+		});
+	}
+
+	/**
+	 * Play a sound, without waiting for the end.
+	 *
+	 * @param mixer
+	 * @param key     identifies the sound
+	 * @param decoder computes the samples, called the first time the sound is
+	 *                played
+	 * @throws LineUnavailableException
+	 */
+	static void play(Mixer mixer, String key, Callable<Pcm> decoder) throws LineUnavailableException {
+		long start = System.nanoTime();
+		OpenClip openClip = getClip(mixer, key, decoder);
+		timingLogger.debug("{} clip ready after {}ms", key, (System.nanoTime() - start) / 1000000.0);
+		openClip.play();
+	}
+
+	private static Pcm decode(String key, Callable<Pcm> decoder) {
+		return decoded.computeIfAbsent(key, (k) -> {
+			try {
+				return decoder.call();
+			} catch (Exception e) {
+				throw new IllegalArgumentException("cannot decode " + k, e);
+			}
+		});
+	}
+
+	private static OpenClip getClip(Mixer mixer, String key, Callable<Pcm> decoder)
+	        throws LineUnavailableException {
+		Map<String, OpenClip> clips = clipsByMixer.computeIfAbsent(mixer.getMixerInfo(),
+		        (k) -> new ConcurrentHashMap<>());
+		OpenClip openClip = clips.get(key);
+		if (openClip != null) {
+			return openClip;
+		}
+		synchronized (clips) {
+			openClip = clips.get(key);
+			if (openClip == null) {
+				Pcm pcm = decode(key, decoder);
+				Clip clip = AudioSystem.getClip(mixer.getMixerInfo());
+				clip.open(pcm.format, pcm.data, 0, pcm.data.length);
+				openClip = new OpenClip(key, clip);
+				clips.put(key, openClip);
+				logger.debug("opened {} on {}", key, mixer.getMixerInfo().getName());
+			}
+			return openClip;
+		}
+	}
+
+}
@@ -7,52 +7,48 @@
 package app.owlcms.sound;
 
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
-import javax.sound.sampled.SourceDataLine;
 
+import app.owlcms.sound.SoundClips.Pcm;
+
+/**
+ * A generated tone. The samples are computed once and played from a clip kept
+ * open, see {@link SoundClips}.
+ */
 public class Tone {
-	private AudioFormat af;
-	private byte[] buf;
-	private SourceDataLine sdl;
+	private int hz;
+	private int msecs;
+	private double vol;
+	private Mixer mixer;
 
 	public Tone(Mixer mixer, int hz, int msecs, double vol) throws IllegalArgumentException, LineUnavailableException {
-		if (mixer == null) {
-			return;
+		if (vol > 1.0 || vol < 0.0) {
+			throw new IllegalArgumentException("Volume out of range 0.0 - 1.0");
 		}
-		init(hz, msecs, vol, mixer);
+		this.mixer = mixer;
+		this.hz = hz;
+		this.msecs = msecs;
+		this.vol = vol;
 	}
 
 	/**
-	 * @param buf
-	 * @param af
-	 * @param sdl
+	 * Start the tone, without waiting for the end.
+	 *
 	 * @throws LineUnavailableException
 	 */
 	public void emit() throws IllegalArgumentException, LineUnavailableException {
-		if (sdl == null) {
+		if (mixer == null) {
 			return;
 		}
-		sdl.open(af, buf.length);
-		sdl.start();
-		sdl.write(buf, 0, buf.length);
-		sdl.drain();
-		sdl.close();
+		SoundClips.play(mixer, getKey(), this::generate);
 	}
 
 	/**
-	 * @param hz
-	 * @param msecs
-	 * @param vol
-	 * @param mixer
+	 * @return the samples of the tone
 	 */
-	protected void init(int hz, int msecs, double vol, Mixer mixer)
-	        throws LineUnavailableException, IllegalArgumentException {
-		if (vol > 1.0 || vol < 0.0) {
-			throw new IllegalArgumentException("Volume out of range 0.0 - 1.0");
-		}
-		buf = new byte[msecs * 8];
+	Pcm generate() {
+		byte[] buf = new byte[msecs * 8];
 
 		for (int i = 0; i < buf.length; i++) {
 			double angle = i / (8000.0 / hz) * 2.0 * Math.PI;
@@ -65,8 +61,14 @@ public class Tone {
 			buf[buf.length - 1 - i] = (byte) (buf[buf.length - 1 - i] * i / 20);
 		}
 
-		af = new AudioFormat(8000f, 8, 1, true, false);
-		sdl = AudioSystem.getSourceDataLine(af, mixer.getMixerInfo());
+		return new Pcm(new AudioFormat(8000f, 8, 1, true, false), buf);
+	}
+
+	/**
+	 * @return identifies the samples of the tone
+	 */
+	String getKey() {
+		return "tone/" + hz + "/" + msecs + "/" + vol;
 	}
 
 }
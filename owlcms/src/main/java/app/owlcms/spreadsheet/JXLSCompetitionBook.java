@@ -6,6 +6,7 @@
  *******************************************************************************/
 package app.owlcms.spreadsheet;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -186,10 +187,10 @@ public class JXLSCompetitionBook extends JXLSWorkbookStreamSource {
 	@Override
 	protected void setReportingInfo() {
 		Competition competition = Competition.getCurrent();
-		competition.computeReportingInfo(getAgeGroupPrefix(), getAgeDivision());
+		HashMap<String, Object> beans = competition.computeReportingInfo(getAgeGroupPrefix(), getAgeDivision());
 
 		super.setReportingInfo();
-		setReportingBeans(competition.getReportingBeans());
+		setReportingBeans(beans);
 	}
 
 }
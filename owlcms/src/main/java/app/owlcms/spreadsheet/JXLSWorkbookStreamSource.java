@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ObjectUtils;
@@ -43,6 +44,7 @@ import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsSession;
 import app.owlcms.utils.LoggerUtils;
 import app.owlcms.utils.ResourceWalker;
+import app.owlcms.utils.StartupUtils;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import net.sf.jxls.transformer.XLSTransformer;
@@ -64,6 +66,21 @@ public abstract class JXLSWorkbookStreamSource implements StreamResourceWriter {
 		tagLogger.setLevel(Level.ERROR);
 	}
 
+	/** below this size, a report is quick and no progress is shown */
+	private static final int PROGRESS_MIN_ATHLETES = 100;
+	private static Semaphore reportPermits;
+
+	/**
+	 * The workbooks are built in memory; the number of reports built at the same
+	 * time is limited so that the memory needed stays bounded.
+	 */
+	private static synchronized Semaphore getReportPermits() {
+		if (reportPermits == null) {
+			reportPermits = new Semaphore(Math.max(1, StartupUtils.getIntegerParam("reportThreads", 2)), true);
+		}
+		return reportPermits;
+	}
+
 	protected List<Athlete> sortedAthletes;
 
 	private AgeDivision ageDivision;
@@ -76,6 +93,8 @@ public abstract class JXLSWorkbookStreamSource implements StreamResourceWriter {
 	private HashMap<String, Object> reportingBeans;
 	private String templateFileName;
 	private UI ui;
+	private Notification progress;
+	private volatile boolean progressShown;
 
 	public JXLSWorkbookStreamSource() {
 		this.ui = UI.getCurrent();
@@ -86,55 +105,42 @@ public abstract class JXLSWorkbookStreamSource implements StreamResourceWriter {
 	/**
 	 * Read the xls template and write the processed XLS file out.
 	 *
+	 * The report is built without holding the session lock, so the pages of the
+	 * user remain responsive. The user's settings (such as the locale) are the
+	 * ones in effect when the download started.
+	 *
 	 * @see com.vaadin.flow.server.StreamResourceWriter#accept(java.io.OutputStream,
 	 *      com.vaadin.flow.server.VaadinSession)
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public void accept(OutputStream stream, VaadinSession session) throws IOException {
+		OwlcmsSession owlcmsSession;
+		session.lock();
 		try {
-			session.lock();
-			Locale locale = OwlcmsSession.getLocale();
-			XLSTransformer transformer = new XLSTransformer();
-			configureTransformer(transformer);
-			Workbook workbook = null;
-			try {
-				// logger.debug("wsss setReportingInfo");
-				setReportingInfo();
-				HashMap<String, Object> reportingInfo = getReportingBeans();
-				List<Athlete> athletes = (List<Athlete>) reportingInfo.get("athletes");
-				if (athletes != null && (athletes.size() > 0 || isEmptyOk())) {
-					workbook = transformer.transformXLS(getTemplate(locale), reportingInfo);
-					if (workbook != null) {
-						postProcess(workbook);
-					}
-				} else {
-					String noAthletes = Translator.translate("NoAthletes");
-					logger./**/warn("no athletes: empty report.");
-					ui.access(() -> {
-						Notification notif = new Notification();
-						notif.addThemeVariants(NotificationVariant.LUMO_ERROR);
-						notif.setPosition(Position.TOP_STRETCH);
-						notif.setDuration(3000);
-						notif.setText(noAthletes);
-						notif.open();
-					});
-					workbook = new HSSFWorkbook();
-					workbook.createSheet().createRow(1).createCell(1).setCellValue(noAthletes);
-				}
-			} catch (Exception e) {
-				LoggerUtils.logError(logger, e);
-			}
-			if (workbook != null) {
-				workbook.write(stream);
-			}
-		} catch (IOException e) {
-			// ignore
-		} catch (Throwable t) {
-			logger.error(LoggerUtils./**/stackTrace(t));
+			owlcmsSession = OwlcmsSession.getCurrent();
 		} finally {
 			session.unlock();
 		}
+
+		OwlcmsSession.setDetached(owlcmsSession);
+		Semaphore permits = getReportPermits();
+		boolean acquired = false;
+		try {
+			if (!permits.tryAcquire()) {
+				showProgress(Translator.translate("ReportQueued"));
+				permits.acquire();
+			}
+			acquired = true;
+			writeReport(stream);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (acquired) {
+				permits.release();
+			}
+			hideProgress();
+			OwlcmsSession.setDetached(null);
+		}
 	}
 
 	/**
@@ -345,4 +351,86 @@ public abstract class JXLSWorkbookStreamSource implements StreamResourceWriter {
 			return compare = ObjectUtils.compare(a.getPlatform(), b.getPlatform(), true);
 		}).collect(Collectors.toList()));
 	}
+
+	private void hideProgress() {
+		if (!progressShown || ui == null) {
+			return;
+		}
+		progressShown = false;
+		ui.access(() -> {
+			if (progress != null) {
+				progress.close();
+				progress = null;
+			}
+		});
+	}
+
+	/**
+	 * Reports that take long are shown as in progress on the page that requested
+	 * them.
+	 */
+	private void showProgress(String text) {
+		if (ui == null) {
+			return;
+		}
+		progressShown = true;
+		ui.access(() -> {
+			if (progress == null) {
+				progress = new Notification();
+				progress.setPosition(Position.TOP_END);
+				progress.setDuration(0);
+			}
+			progress.setText(text);
+			progress.open();
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeReport(OutputStream stream) {
+		try {
+			Locale locale = OwlcmsSession.getLocale();
+			XLSTransformer transformer = new XLSTransformer();
+			configureTransformer(transformer);
+			Workbook workbook = null;
+			try {
+				// logger.debug("wsss setReportingInfo");
+				setReportingInfo();
+				HashMap<String, Object> reportingInfo = getReportingBeans();
+				List<Athlete> athletes = (List<Athlete>) reportingInfo.get("athletes");
+				if (athletes != null && (athletes.size() > 0 || isEmptyOk())) {
+					if (athletes.size() >= PROGRESS_MIN_ATHLETES) {
+						showProgress(Translator.translate("ReportInProgress", athletes.size()));
+					}
+					workbook = transformer.transformXLS(getTemplate(locale), reportingInfo);
+					if (workbook != null) {
+						postProcess(workbook);
+					}
+				} else {
+					String noAthletes = Translator.translate("NoAthletes");
+					logger./**/warn("no athletes: empty report.");
+					ui.access(() -> {
+						Notification notif = new Notification();
+						notif.addThemeVariants(NotificationVariant.LUMO_ERROR);
+						notif.setPosition(Position.TOP_STRETCH);
+						notif.setDuration(3000);
+						notif.setText(noAthletes);
+						notif.open();
+					});
+					workbook = new HSSFWorkbook();
+					workbook.createSheet().createRow(1).createCell(1).setCellValue(noAthletes);
+				}
+			} catch (Exception e) {
+				LoggerUtils.logError(logger, e);
+			}
+			if (workbook != null) {
+				try (Workbook written = workbook) {
+					written.write(stream);
+				}
+			}
+		} catch (IOException e) {
+			// ignore
+		} catch (Throwable t) {
+			logger.error(LoggerUtils./**/stackTrace(t));
+		}
+	}
 }
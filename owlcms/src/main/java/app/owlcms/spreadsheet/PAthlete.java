@@ -22,6 +22,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import app.owlcms.data.agegroup.AgeGroup;
 import app.owlcms.data.athlete.Athlete;
 import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.athlete.LiftResults;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.category.IRankHolder;
 import app.owlcms.data.category.Participation;
@@ -466,6 +467,11 @@ public class PAthlete extends Athlete implements IRankHolder {
 		return a.getLiftOrderRank();
 	}
 
+	@Override
+	public LiftResults getLiftResults() {
+		return a.getLiftResults();
+	}
+
 	@Override
 	public Logger getLogger() {
 		return a.getLogger();
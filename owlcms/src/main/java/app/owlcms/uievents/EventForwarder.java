@@ -9,7 +9,6 @@ package app.owlcms.uievents;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -19,17 +18,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
 import org.apache.http.StatusLine;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.StringBody;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.LoggerFactory;
@@ -38,9 +37,6 @@ import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 
 import app.owlcms.data.athlete.Athlete;
-import app.owlcms.data.athlete.LiftDefinition.Changes;
-import app.owlcms.data.athlete.LiftInfo;
-import app.owlcms.data.athlete.XAthlete;
 import app.owlcms.data.athleteSort.AthleteSorter;
 import app.owlcms.data.category.Category;
 import app.owlcms.data.category.Participation;
@@ -50,6 +46,7 @@ import app.owlcms.data.group.Group;
 import app.owlcms.fieldofplay.FOPState;
 import app.owlcms.fieldofplay.FieldOfPlay;
 import app.owlcms.fieldofplay.IBreakTimer;
+import app.owlcms.fieldofplay.ScoreboardModel.AthleteRow;
 import app.owlcms.i18n.Translator;
 import app.owlcms.init.OwlcmsSession;
 import app.owlcms.uievents.UIEvent.BreakDone;
@@ -110,9 +107,12 @@ public class EventForwarder implements BreakDisplay {
 	private boolean wideTeamNames;
 	private String noLiftRanks;
 	private JsonValue records;
+	private PublicResultsSender sender;
+	private UpdateDeltaEncoder updateEncoder = new UpdateDeltaEncoder();
 
 	public EventForwarder(FieldOfPlay emittingFop) {
 		this.setFop(emittingFop);
+		sender = new PublicResultsSender(emittingFop.getName(), this::doPost);
 		// logger.debug("|||| eventForwarder {} {} {}", System.identityHashCode(this),
 		// emittingFop.getName(),System.identityHashCode(emittingFop));
 
@@ -276,6 +276,18 @@ public class EventForwarder implements BreakDisplay {
 		this.down = down;
 	}
 
+	/**
+	 * Stop forwarding, the field of play is being replaced or removed.
+	 */
+	public void shutdown() {
+		try {
+			postBus.unregister(this);
+		} catch (IllegalArgumentException e) {
+			// already unregistered
+		}
+		sender.shutdown();
+	}
+
 	@Subscribe
 	public void slaveBreakDone(UIEvent.BreakDone e) {
 		uiLog(e);
@@ -572,7 +584,7 @@ public class EventForwarder implements BreakDisplay {
 		} else if (e instanceof BreakSetTime) {
 			BreakSetTime bst = (BreakSetTime) e;
 			if (bst.getEnd() != null) {
-				milliseconds = (int) LocalDateTime.now().until(bst.getEnd(), ChronoUnit.MILLIS);
+				milliseconds = (int) getFop().getClock().now().until(bst.getEnd(), ChronoUnit.MILLIS);
 			} else {
 				milliseconds = bst.isIndefinite() ? null : bst.getTimeRemaining();
 			}
@@ -692,23 +704,39 @@ public class EventForwarder implements BreakDisplay {
 	}
 
 	private void doPost(String url, Map<String, String> parameters) {
-		HttpPost post = new HttpPost(url);
-		// add request parameters or form parameters
-		List<NameValuePair> urlParameters = new ArrayList<>();
-		parameters.entrySet().stream()
-		        .forEach((e) -> urlParameters.add(new BasicNameValuePair(e.getKey(), e.getValue())));
+		// updates are sent as differences against the previous one, if the remote supports it.
+		boolean isUpdate = url.equals(Config.getCurrent().getParamUpdateUrl());
 
 		boolean done = false;
 		int nbTries = 0;
 		// send post. if missing config, we send it back, and try again one more time
+		// if the remote has lost track of the updates, we send a full update
 		while (!done && nbTries <= 1) {
+			Map<String, String> sent = isUpdate ? updateEncoder.encode(parameters) : parameters;
+			HttpPost post = new HttpPost(url);
+			// add request parameters or form parameters
+			List<NameValuePair> urlParameters = new ArrayList<>();
+			sent.entrySet().stream()
+			        .forEach((e) -> urlParameters.add(new BasicNameValuePair(e.getKey(), e.getValue())));
 			try {
-				post.setEntity(new UrlEncodedFormEntity(urlParameters, "UTF-8"));
-				try (CloseableHttpClient httpClient = HttpClients.createDefault();
-				        CloseableHttpResponse response = httpClient.execute(post)) {
+				HttpEntity entity = new UrlEncodedFormEntity(urlParameters, "UTF-8");
+				if (isUpdate && updateEncoder.isCompressing()) {
+					entity = new GzipCompressingEntity(entity);
+				}
+				post.setEntity(entity);
+				try (CloseableHttpResponse response = PublicResultsSender.getClient(url).execute(post)) {
 					StatusLine statusLine = response.getStatusLine();
 					Integer statusCode = statusLine != null ? statusLine.getStatusCode() : null;
+					// consume the response so the connection goes back to the pool
+					EntityUtils.consume(response.getEntity());
+					if (isUpdate) {
+						Header protocolHeader = response.getFirstHeader(UpdateDeltaEncoder.PROTOCOL_HEADER);
+						updateEncoder.setRemoteProtocol(protocolHeader != null ? protocolHeader.getValue() : null);
+					}
 					if (statusCode != null && statusCode != 200) {
+						if (isUpdate) {
+							updateEncoder.reset();
+						}
 						synchronized (singleThreadLock) {
 							if (nbTries == 0 && statusCode != null && statusCode == 412) {
 								logger.error("{}missing remote configuration {} {} {}", getFop().getLoggingName(), url,
@@ -716,6 +744,9 @@ public class EventForwarder implements BreakDisplay {
 								        LoggerUtils.whereFrom(1));
 								sendConfig(parameters.get("updateKey"));
 								nbTries++;
+							} else if (nbTries == 0 && isUpdate && statusCode == UpdateDeltaEncoder.RESYNC_STATUS) {
+								logger.info("{}remote requested full update {}", getFop().getLoggingName(), url);
+								nbTries++;
 							} else {
 								logger.error("{}could not post to {} {} {}", getFop().getLoggingName(), url, statusLine,
 								        LoggerUtils.whereFrom(1));
@@ -723,11 +754,17 @@ public class EventForwarder implements BreakDisplay {
 							}
 						}
 					} else {
+						if (isUpdate) {
+							updateEncoder.accepted(parameters, sent);
+						}
 						done = true;
 					}
 				} catch (Exception e1) {
 					logger.error("{}could not post to {} {}", getFop().getLoggingName(), url,
 					        LoggerUtils.exceptionMessage(e1));
+					if (isUpdate) {
+						updateEncoder.reset();
+					}
 					done = true;
 				}
 			} catch (UnsupportedEncodingException e2) {
@@ -795,11 +832,6 @@ public class EventForwarder implements BreakDisplay {
 		}
 	}
 
-	private String formatKg(String total) {
-		return (total == null || total.trim().isEmpty()) ? "-"
-		        : (total.startsWith("-") ? "(" + total.substring(1) + ")" : total);
-	}
-
 	private String formatSinclair(Double sinclairForDelta) {
 		return sinclairForDelta > 0.001 ? String.format("%01.3f", sinclairForDelta) : "-";
 	}
@@ -807,18 +839,19 @@ public class EventForwarder implements BreakDisplay {
 	private void getAthleteJson(Athlete a, JsonObject ja, Category curCat, int liftOrderRank) {
 		String category;
 		category = curCat != null ? curCat.getTranslatedName() : "";
-		ja.put("fullName", a.getFullName() != null ? a.getFullName() : "");
+		AthleteRow row = getFop().getScoreboardModel().getRow(a);
+		ja.put("fullName", row.getFullName() != null ? row.getFullName() : "");
 		ja.put("teamName", a.getTeam() != null ? a.getTeam() : "");
 		ja.put("yearOfBirth", a.getYearOfBirth() != null ? a.getYearOfBirth().toString() : "");
 		Integer startNumber = a.getStartNumber();
 		ja.put("startNumber", (startNumber != null ? startNumber.toString() : ""));
 		ja.put("category", category != null ? category : "");
-		getAttemptsJson(a, liftOrderRank);
+		getAttemptsJson(row, liftOrderRank);
 		ja.put("sattempts", sattempts);
-		ja.put("bestSnatch", formatInt(a.getBestSnatch()));
+		ja.put("bestSnatch", formatInt(row.getBestSnatch()));
 		ja.put("cattempts", cattempts);
-		ja.put("bestCleanJerk", formatInt(a.getBestCleanJerk()));
-		ja.put("total", formatInt(a.getTotal()));
+		ja.put("bestCleanJerk", formatInt(row.getBestCleanJerk()));
+		ja.put("total", formatInt(row.getTotal()));
 		Participation mainRankings = a.getMainRankings();
 		if (mainRankings != null) {
 			ja.put("snatchRank", formatInt(mainRankings.getSnatchRank()));
@@ -827,14 +860,14 @@ public class EventForwarder implements BreakDisplay {
 		} else {
 			logger.error("main rankings null for {}", a);
 		}
-		if (a.getSinclairForDelta() != null) {
-			ja.put("sinclair", formatSinclair(a.getSinclairForDelta()));
+		if (row.getSinclairForDelta() != null) {
+			ja.put("sinclair", formatSinclair(row.getSinclairForDelta()));
 		}
 		if (a.getSinclairRank() != null) {
 			ja.put("sinclairRank", formatInt(a.getSinclairRank()));
 		}
 		ja.put("group", a.getGroup() != null ? a.getGroup().getName() : "");
-		boolean notDone = a.getAttemptsDone() < 6;
+		boolean notDone = row.getAttemptsDone() < 6;
 		String blink = (notDone ? " blink" : "");
 		if (notDone) {
 			ja.put("classname", (liftOrderRank == 1 ? "current" + blink : (liftOrderRank == 2) ? "next" : ""));
@@ -896,65 +929,18 @@ public class EventForwarder implements BreakDisplay {
 	}
 
 	/**
-	 * Compute Json string ready to be used by web component template
+	 * Json arrays ready to be used by web component template, taken from the rows
+	 * computed by the field of play.
 	 *
 	 * CSS classes are pre-computed and passed along with the values; weights are
 	 * formatted.
 	 *
-	 * @param a
-	 * @param liftOrderRank2
-	 * @return json string with nested attempts values
+	 * @param row
+	 * @param liftOrderRank
 	 */
-	private void getAttemptsJson(Athlete a, int liftOrderRank) {
-		sattempts = Json.createArray();
-		cattempts = Json.createArray();
-		XAthlete x = new XAthlete(a);
-		Integer curLift = x.getAttemptsDone();
-		int ix = 0;
-		for (LiftInfo i : x.getRequestInfoArray()) {
-			JsonObject jri = Json.createObject();
-			String stringValue = i.getStringValue();
-			boolean notDone = x.getAttemptsDone() < 6;
-			String blink = (notDone ? " blink" : "");
-
-			jri.put("goodBadClassName", "narrow empty");
-			jri.put("stringValue", "");
-			if (i.getChangeNo() >= 0) {
-				String trim = stringValue != null ? stringValue.trim() : "";
-				switch (Changes.values()[i.getChangeNo()]) {
-				case ACTUAL:
-					if (!trim.isEmpty()) {
-						if (trim.contentEquals("-") || trim.contentEquals("0")) {
-							jri.put("goodBadClassName", "narrow fail");
-							jri.put("stringValue", "-");
-						} else {
-							boolean failed = stringValue != null && stringValue.startsWith("-");
-							jri.put("goodBadClassName", failed ? "narrow fail" : "narrow good");
-							jri.put("stringValue", formatKg(stringValue));
-						}
-					}
-					break;
-				default:
-					if (stringValue != null && !trim.isEmpty()) {
-						String highlight = i.getLiftNo() == curLift && liftOrderRank == 1 ? (" current" + blink)
-						        : (i.getLiftNo() == curLift && liftOrderRank == 2) ? " next" : "";
-						jri.put("goodBadClassName", "narrow request");
-						if (notDone) {
-							jri.put("className", highlight);
-						}
-						jri.put("stringValue", stringValue);
-					}
-					break;
-				}
-			}
-
-			if (ix < 3) {
-				sattempts.set(ix, jri);
-			} else {
-				cattempts.set(ix % 3, jri);
-			}
-			ix++;
-		}
+	private void getAttemptsJson(AthleteRow row, int liftOrderRank) {
+		sattempts = row.getSnatchAttemptsJson(liftOrderRank);
+		cattempts = row.getCleanJerkAttemptsJson(liftOrderRank);
 	}
 
 	/**
@@ -989,7 +975,8 @@ public class EventForwarder implements BreakDisplay {
 			return;
 		}
 		logger.trace("pushing {}", det);
-		sendPost(decisionUrl, createDecision(det));
+		// decisions are not coalesced, the down signal must not be replaced by the decision.
+		sendPost(decisionUrl, createDecision(det), false);
 	}
 
 	private void pushTimer(UIEvent e) {
@@ -997,7 +984,8 @@ public class EventForwarder implements BreakDisplay {
 		if (timerUrl == null) {
 			return;
 		}
-		sendPost(timerUrl, createTimer(e));
+		// timer events are transitions (start, stop, set), not a state: none can be replaced or dropped.
+		sendPost(timerUrl, createTimer(e), false);
 	}
 
 	private void pushUpdate() {
@@ -1006,7 +994,7 @@ public class EventForwarder implements BreakDisplay {
 		if (updateUrl == null) {
 			return;
 		}
-		sendPost(updateUrl, createUpdate());
+		sendPost(updateUrl, createUpdate(), true);
 	}
 
 	private void sendConfig(String updateKey) {
@@ -1055,8 +1043,7 @@ public class EventForwarder implements BreakDisplay {
 				HttpEntity entity = builder.build();
 
 				post.setEntity(entity);
-				try (CloseableHttpClient httpClient = HttpClients.createDefault();
-				        CloseableHttpResponse response = httpClient.execute(post)) {
+				try (CloseableHttpResponse response = PublicResultsSender.getClient(destination).execute(post)) {
 					StatusLine statusLine = response.getStatusLine();
 					Integer statusCode = statusLine != null ? statusLine.getStatusCode() : null;
 					if (statusCode != null && statusCode != 200) {
@@ -1075,7 +1062,7 @@ public class EventForwarder implements BreakDisplay {
 		}
 	}
 
-	private void sendPost(String url, Map<String, String> parameters) {
+	private void sendPost(String url, Map<String, String> parameters, boolean coalescing) {
 		// logger.debug("{}posting update {}", getFop().getLoggingName(),
 		// LoggerUtils.whereFrom());
 		long deltaMillis = System.currentTimeMillis() - previousMillis;
@@ -1083,7 +1070,8 @@ public class EventForwarder implements BreakDisplay {
 		// debounce, sometimes several identical updates in a rapid succession
 		// identical updates are ok after 1 sec.
 		if (hashCode != previousHashCode || (deltaMillis > 1000)) {
-			new Thread(() -> doPost(url, parameters)).start();
+			sender.send(url, parameters, coalescing);
+			logger.trace("{}{}", getFop().getLoggingName(), sender);
 
 			previousHashCode = hashCode;
 			previousMillis = System.currentTimeMillis();
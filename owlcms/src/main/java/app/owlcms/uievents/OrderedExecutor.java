@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.uievents;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.utils.LoggerUtils;
+import app.owlcms.utils.StartupUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * A fixed number of threads shared by the event buses of all the fields of play
+ * and by the user interfaces they update.
+ *
+ * Work is submitted to a {@link Lane}: the tasks of a lane run one at a time, in
+ * the order submitted, on the shared threads. Each event bus has its own lane,
+ * so its subscribers see the events in the order posted; each user interface has
+ * its own lane, so a slow or disconnected browser only delays its own updates.
+ * A lane that has too many tasks waiting refuses new ones.
+ *
+ * The number of threads is set with <code>-DeventThreads</code> (twice the
+ * number of cores, at least 4), the number of tasks waiting in a user interface
+ * lane with <code>-DeventQueueSize</code> (1000).
+ *
+ * @author Jean-François Lamy
+ */
+public class OrderedExecutor {
+
+	/**
+	 * Runs its tasks one at a time, in order, on the threads of the executor.
+	 */
+	public final class Lane implements Executor {
+		private final String name;
+		private final int capacity;
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+		private boolean scheduled;
+		private long nbExecuted;
+		private long nbRejected;
+		private int maxQueued;
+
+		private Lane(String name, int capacity) {
+			this.name = name;
+			this.capacity = capacity;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			synchronized (this) {
+				if (tasks.size() >= capacity) {
+					nbRejected++;
+					rejected.incrementAndGet();
+					if (nbRejected == 1 || nbRejected % 100 == 0) {
+						logger.warn("{}: {} tasks waiting, {} rejected", name, tasks.size(), nbRejected);
+					}
+					return;
+				}
+				tasks.add(task);
+				queued.incrementAndGet();
+				maxQueued = Math.max(maxQueued, tasks.size());
+				if (scheduled) {
+					return;
+				}
+				scheduled = true;
+			}
+			pool.execute(this::drain);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public synchronized int getMaxQueued() {
+			return maxQueued;
+		}
+
+		public synchronized long getNbExecuted() {
+			return nbExecuted;
+		}
+
+		public synchronized int getNbQueued() {
+			return tasks.size();
+		}
+
+		public synchronized long getNbRejected() {
+			return nbRejected;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+
+		private void drain() {
+			// give the thread to other lanes after a few tasks
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				Runnable task;
+				synchronized (this) {
+					task = tasks.poll();
+					if (task == null) {
+						scheduled = false;
+						return;
+					}
+					queued.decrementAndGet();
+				}
+				active.incrementAndGet();
+				try {
+					task.run();
+				} catch (Throwable t) {
+					logger.error("{}: {}", name, LoggerUtils.stackTrace(t));
+				} finally {
+					active.decrementAndGet();
+					synchronized (this) {
+						nbExecuted++;
+					}
+				}
+			}
+			pool.execute(this::drain);
+		}
+	}
+
+	private static final int BATCH_SIZE = 16;
+
+	final static Logger logger = (Logger) LoggerFactory.getLogger(OrderedExecutor.class);
+
+	private static OrderedExecutor shared;
+
+	/**
+	 * @return the executor shared by the fields of play
+	 */
+	public static synchronized OrderedExecutor getShared() {
+		if (shared == null) {
+			int nbThreads = StartupUtils.getIntegerParam("eventThreads",
+			        Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+			int queueSize = StartupUtils.getIntegerParam("eventQueueSize", 1000);
+			shared = new OrderedExecutor("events", nbThreads, queueSize);
+		}
+		return shared;
+	}
+
+	private final ThreadPoolExecutor pool;
+	private final ScheduledExecutorService timer;
+	private final int laneCapacity;
+	private final Map<Object, Lane> lanesByOwner = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * @param name         prefix for the thread names
+	 * @param nbThreads    number of threads
+	 * @param laneCapacity how many tasks can wait in a lane obtained with
+	 *                     {@link #getLane(Object, String)}
+	 */
+	public OrderedExecutor(String name, int nbThreads, int laneCapacity) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		// a lane is in the queue at most once, so the queue is bounded by the number of
+		// lanes
+		this.pool = new ThreadPoolExecutor(nbThreads, nbThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+		        r -> {
+			        Thread t = new Thread(r, name + "-" + threadNumber.incrementAndGet());
+			        t.setDaemon(true);
+			        return t;
+		        });
+		this.pool.allowCoreThreadTimeOut(true);
+		this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, name + "-timer");
+			t.setDaemon(true);
+			return t;
+		});
+		this.laneCapacity = laneCapacity;
+	}
+
+	/**
+	 * @return the number of tasks running
+	 */
+	public int getNbActive() {
+		return active.get();
+	}
+
+	/**
+	 * @return the number of tasks waiting in all the lanes
+	 */
+	public int getNbQueued() {
+		return queued.get();
+	}
+
+	/**
+	 * @return the number of tasks refused because their lane was full
+	 */
+	public long getNbRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return the number of threads currently started
+	 */
+	public int getNbThreads() {
+		return pool.getPoolSize();
+	}
+
+	/**
+	 * The lane of an object such as a user interface, created on first use and
+	 * forgotten once the object is no longer used.
+	 *
+	 * @param owner
+	 * @param name  used in the log when tasks are rejected
+	 * @return the lane
+	 */
+	public Lane getLane(Object owner, String name) {
+		return lanesByOwner.computeIfAbsent(owner, (k) -> new Lane(name, laneCapacity));
+	}
+
+	/**
+	 * @param name used in the log
+	 * @return a lane that accepts all the tasks submitted
+	 */
+	public Lane newLane(String name) {
+		return new Lane(name, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Run a task in a lane after a delay.
+	 *
+	 * @param lane
+	 * @param task
+	 * @param delayMs
+	 */
+	public void schedule(Lane lane, Runnable task, long delayMs) {
+		timer.schedule(() -> lane.execute(task), delayMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "threads=" + getNbThreads() + " active=" + getNbActive() + " queued=" + getNbQueued()
+		        + " rejected=" + getNbRejected();
+	}
+
+}
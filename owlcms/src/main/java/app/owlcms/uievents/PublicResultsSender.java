@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.uievents;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.utils.LoggerUtils;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Sends the updates for a field of play to the remote publicresults site.
+ *
+ * Posts are queued and sent in order by a single thread. Updates carry the full state, so a queued update is replaced
+ * by a newer one for the same URL instead of being sent twice (latest state wins). The queue is bounded; when it is
+ * full, the oldest of those coalescing posts is dropped. Decisions and timer events are transitions and are never
+ * replaced nor dropped: if the queue is full of them, they are queued anyway and a new coalescing post is dropped.
+ *
+ * The HTTP clients are shared by all the fields of play and keep their connections alive, one pooled client per remote
+ * site.
+ *
+ * @author Jean-François Lamy
+ */
+public class PublicResultsSender {
+
+	private class Post {
+		private String url;
+		private Map<String, String> parameters;
+		private boolean coalescing;
+		private long queuedNanos;
+
+		private Post(String url, Map<String, String> parameters, boolean coalescing) {
+			this.url = url;
+			this.parameters = parameters;
+			this.coalescing = coalescing;
+			this.queuedNanos = System.nanoTime();
+		}
+	}
+
+	private static final int CONNECT_TIMEOUT_MS = 5000;
+	private static final int SOCKET_TIMEOUT_MS = 15000;
+	private static final int MAX_CONNECTIONS = 20;
+	private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+	private static final int DEFAULT_CAPACITY = 32;
+
+	private static final Logger logger = (Logger) LoggerFactory.getLogger(PublicResultsSender.class);
+	private static Map<String, CloseableHttpClient> clients = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the pooled client used for the site that hosts the url.
+	 *
+	 * @param url
+	 * @return a client shared by all senders, which must not be closed after use
+	 */
+	public static CloseableHttpClient getClient(String url) {
+		return clients.computeIfAbsent(siteKey(url), (k) -> createClient());
+	}
+
+	/**
+	 * Close all the pooled connections, for example when the remote site is changed in the configuration.
+	 */
+	public static void closeClients() {
+		for (Iterator<CloseableHttpClient> iterator = clients.values().iterator(); iterator.hasNext();) {
+			CloseableHttpClient client = iterator.next();
+			iterator.remove();
+			try {
+				client.close();
+			} catch (Exception e) {
+				logger.warn("could not close client {}", LoggerUtils.exceptionMessage(e));
+			}
+		}
+	}
+
+	private static CloseableHttpClient createClient() {
+		PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+		cm.setMaxTotal(MAX_CONNECTIONS);
+		cm.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+		// remote may have closed an idle connection (e.g. cloud load balancer)
+		cm.setValidateAfterInactivity(2000);
+		RequestConfig requestConfig = RequestConfig.custom()
+		        .setConnectTimeout(CONNECT_TIMEOUT_MS)
+		        .setConnectionRequestTimeout(CONNECT_TIMEOUT_MS)
+		        .setSocketTimeout(SOCKET_TIMEOUT_MS)
+		        .build();
+		return HttpClients.custom()
+		        .setConnectionManager(cm)
+		        .setDefaultRequestConfig(requestConfig)
+		        .evictIdleConnections(60, TimeUnit.SECONDS)
+		        .build();
+	}
+
+	private static String siteKey(String url) {
+		try {
+			URI uri = URI.create(url);
+			return uri.getScheme() + "://" + uri.getAuthority();
+		} catch (Exception e) {
+			return url;
+		}
+	}
+
+	private final ArrayDeque<Post> queue = new ArrayDeque<>();
+	private final int capacity;
+	private final ExecutorService executor;
+	private final BiConsumer<String, Map<String, String>> poster;
+	private boolean draining = false;
+	private boolean stopped = false;
+	private final String name;
+
+	private final AtomicLong sentCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong totalSendNanos = new AtomicLong();
+	private volatile long lastSendNanos;
+	private volatile long maxSendNanos;
+
+	/**
+	 * @param name   used for the thread name and the logs
+	 * @param poster performs the actual post, using {@link #getClient(String)}
+	 */
+	public PublicResultsSender(String name, BiConsumer<String, Map<String, String>> poster) {
+		this(name, poster, DEFAULT_CAPACITY);
+	}
+
+	public PublicResultsSender(String name, BiConsumer<String, Map<String, String>> poster, int capacity) {
+		this.name = name;
+		this.poster = poster;
+		this.capacity = capacity;
+		this.executor = Executors.newSingleThreadExecutor((r) -> {
+			Thread t = new Thread(r, "publicresults-" + name);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	public long getLastSendMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(lastSendNanos);
+	}
+
+	public long getMaxSendMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxSendNanos);
+	}
+
+	public long getMeanSendMillis() {
+		long sent = sentCount.get();
+		return sent == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalSendNanos.get() / sent);
+	}
+
+	public synchronized int getQueueDepth() {
+		return queue.size();
+	}
+
+	public long getSentCount() {
+		return sentCount.get();
+	}
+
+	/**
+	 * Queue a post.
+	 *
+	 * @param url
+	 * @param parameters
+	 * @param coalescing if true, the parameters replace those of a post to the same URL that is still waiting
+	 */
+	public void send(String url, Map<String, String> parameters, boolean coalescing) {
+		synchronized (this) {
+			if (stopped) {
+				return;
+			}
+			if (coalescing) {
+				for (Post p : queue) {
+					if (p.coalescing && p.url.equals(url)) {
+						p.parameters = parameters;
+						coalescedCount.incrementAndGet();
+						return;
+					}
+				}
+			}
+			if (queue.size() >= capacity) {
+				Post dropped = null;
+				for (Iterator<Post> it = queue.iterator(); it.hasNext();) {
+					Post p = it.next();
+					if (p.coalescing) {
+						it.remove();
+						dropped = p;
+						break;
+					}
+				}
+				if (dropped == null && coalescing) {
+					droppedCount.incrementAndGet();
+					logger.warn("{}: remote too slow, dropping post to {}", name, url);
+					return;
+				}
+				if (dropped != null) {
+					droppedCount.incrementAndGet();
+					logger.warn("{}: remote too slow, dropping post to {}", name, dropped.url);
+				}
+			}
+			queue.addLast(new Post(url, parameters, coalescing));
+			if (draining) {
+				return;
+			}
+			draining = true;
+		}
+		executor.execute(this::drain);
+	}
+
+	/**
+	 * Stop the thread; the posts still queued are not sent, and later posts are ignored.
+	 */
+	public void shutdown() {
+		synchronized (this) {
+			stopped = true;
+			queue.clear();
+		}
+		executor.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return "PublicResultsSender [" + name + " queued=" + getQueueDepth() + " sent=" + getSentCount()
+		        + " coalesced=" + getCoalescedCount() + " dropped=" + getDroppedCount() + " lastMs="
+		        + getLastSendMillis() + " meanMs=" + getMeanSendMillis() + " maxMs=" + getMaxSendMillis() + "]";
+	}
+
+	private void drain() {
+		while (true) {
+			Post p;
+			synchronized (this) {
+				p = queue.pollFirst();
+				if (p == null) {
+					draining = false;
+					return;
+				}
+			}
+			long start = System.nanoTime();
+			try {
+				poster.accept(p.url, p.parameters);
+			} catch (Exception e) {
+				logger.error("{}: could not post to {} {}", name, p.url, LoggerUtils.exceptionMessage(e));
+			}
+			long end = System.nanoTime();
+			long elapsed = end - start;
+			lastSendNanos = elapsed;
+			if (elapsed > maxSendNanos) {
+				maxSendNanos = elapsed;
+			}
+			totalSendNanos.addAndGet(elapsed);
+			sentCount.incrementAndGet();
+			logger.trace("{}: posted to {} in {}ms, waited {}ms", name, p.url,
+			        TimeUnit.NANOSECONDS.toMillis(elapsed), TimeUnit.NANOSECONDS.toMillis(start - p.queuedNanos));
+		}
+	}
+
+}
@@ -948,6 +948,7 @@ public class UIEvent {
 
 		private boolean serverSound;
 		private Integer timeRemaining;
+		private long startMillis = System.currentTimeMillis();
 
 		/**
 		 * Instantiates a new start time.
@@ -975,6 +976,13 @@ public class UIEvent {
 			return timeRemaining;
 		}
 
+		/**
+		 * @return server time at which the time remaining was measured
+		 */
+		public long getStartMillis() {
+			return startMillis;
+		}
+
 		public boolean isServerSound() {
 			return serverSound;
 		}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.uievents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Encodes the updates sent to publicresults as differences against the previous update.
+ *
+ * The first update is a full snapshot. When the remote answers with the {@link #PROTOCOL_HEADER} header, the following
+ * updates only carry the parameters that changed since the last update it accepted, identified by a sequence number,
+ * and are gzip-compressed. The translation map is only sent once per version; afterwards it is referenced by its hash.
+ * If the remote has lost track (restart, missed update) it answers {@link #RESYNC_STATUS} and a full snapshot is sent.
+ *
+ * Remotes that do not understand the protocol ignore the extra parameters and keep receiving full updates.
+ *
+ * Not thread-safe: used only from the thread of the {@link PublicResultsSender}.
+ *
+ * @author Jean-François Lamy
+ */
+public class UpdateDeltaEncoder {
+
+	public static final String PROTOCOL_HEADER = "X-Owlcms-Update-Protocol";
+	public static final String PROTOCOL_VERSION = "2";
+	public static final int RESYNC_STATUS = 409;
+
+	private static final String TRANSLATION_MAP = "translationMap";
+	private static final String TRANSLATION_MAP_HASH = "translationMapHash";
+	/* parameters always sent, needed to authenticate and route the delta */
+	private static final String[] IDENTIFYING_KEYS = { "updateKey", "fop" };
+
+	private final Logger logger = (Logger) LoggerFactory.getLogger(UpdateDeltaEncoder.class);
+
+	private boolean remoteSupportsDeltas = false;
+	private Map<String, String> lastAccepted = null;
+	private long lastAcceptedSeq = 0;
+	private long seq = 0;
+	private String ackedTranslationHash = null;
+	private String pendingTranslationHash = null;
+
+	/**
+	 * Remote has accepted the update.
+	 *
+	 * @param full    the complete state that was encoded
+	 * @param encoded what was actually sent
+	 */
+	public void accepted(Map<String, String> full, Map<String, String> encoded) {
+		if (encoded.containsKey(TRANSLATION_MAP)) {
+			ackedTranslationHash = pendingTranslationHash;
+		}
+		lastAccepted = full;
+		lastAcceptedSeq = Long.parseLong(encoded.get("seq"));
+	}
+
+	/**
+	 * @param full the complete state
+	 * @return the parameters to send
+	 */
+	public Map<String, String> encode(Map<String, String> full) {
+		Map<String, String> encoded = new HashMap<>();
+		seq++;
+		encoded.put("protocol", PROTOCOL_VERSION);
+		encoded.put("seq", Long.toString(seq));
+
+		String translationHash = null;
+		String translationMap = full.get(TRANSLATION_MAP);
+		if (translationMap != null) {
+			translationHash = Hashing.murmur3_128().hashString(translationMap, StandardCharsets.UTF_8).toString();
+			pendingTranslationHash = translationHash;
+		}
+
+		if (!remoteSupportsDeltas || lastAccepted == null) {
+			encoded.putAll(full);
+			encoded.put("full", "true");
+			if (translationHash != null) {
+				encoded.put(TRANSLATION_MAP_HASH, translationHash);
+				if (remoteSupportsDeltas && translationHash.equals(ackedTranslationHash)) {
+					encoded.remove(TRANSLATION_MAP);
+				}
+			}
+			return encoded;
+		}
+
+		encoded.put("baseSeq", Long.toString(lastAcceptedSeq));
+		for (Entry<String, String> e : full.entrySet()) {
+			if (!Objects.equals(e.getValue(), lastAccepted.get(e.getKey()))) {
+				encoded.put(e.getKey(), e.getValue());
+			}
+		}
+		StringJoiner removed = new StringJoiner(",");
+		for (String key : lastAccepted.keySet()) {
+			if (!full.containsKey(key)) {
+				removed.add(key);
+			}
+		}
+		if (removed.length() > 0) {
+			encoded.put("removed", removed.toString());
+		}
+		for (String key : IDENTIFYING_KEYS) {
+			String value = full.get(key);
+			if (value != null) {
+				encoded.put(key, value);
+			}
+		}
+		if (translationHash != null && encoded.containsKey(TRANSLATION_MAP)) {
+			encoded.put(TRANSLATION_MAP_HASH, translationHash);
+		}
+		logger.trace("delta {} against {}: {} of {} parameters", seq, lastAcceptedSeq, encoded.size(), full.size());
+		return encoded;
+	}
+
+	/**
+	 * @return true if the updates should be gzip-compressed
+	 */
+	public boolean isCompressing() {
+		return remoteSupportsDeltas;
+	}
+
+	/**
+	 * The next update will be a full snapshot, including the translation map.
+	 */
+	public void reset() {
+		lastAccepted = null;
+		ackedTranslationHash = null;
+	}
+
+	/**
+	 * @param protocolHeaderValue value of the {@link #PROTOCOL_HEADER} header in the remote's response, null if absent.
+	 */
+	public void setRemoteProtocol(String protocolHeaderValue) {
+		boolean supported = PROTOCOL_VERSION.equals(protocolHeaderValue);
+		if (supported != remoteSupportsDeltas) {
+			logger.info("remote {} incremental updates", supported ? "accepts" : "does not accept");
+			remoteSupportsDeltas = supported;
+			reset();
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.athleteSort.LiftOrderComparator;
+import app.owlcms.data.athleteSort.Ranking;
+import app.owlcms.data.athleteSort.WinningOrderComparator;
+import app.owlcms.data.competition.Competition;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Sorting a 200-athlete category with the results and lifting order comparators.
+ *
+ * Compares parsing the actual lifts on every comparison (what the comparators
+ * did before the lift results were cached; forced here by dropping the cached
+ * results before every comparison) with the cached lift results. Also compares
+ * Athlete.zeroIfInvalid with the previous exception-based parsing.
+ *
+ * Run as a Java application; not a unit test. No database is needed.
+ */
+public class AthleteSortBenchmark {
+
+    private static final int NB_ATHLETES = 200;
+    private static final int ROUNDS = 200;
+    private static final String[] VALUES = { "", "-", null, "120", "-125", "0", "131" };
+    private static final Field LIFT_RESULTS;
+
+    static {
+        try {
+            LIFT_RESULTS = Athlete.class.getDeclaredField("liftResults");
+            LIFT_RESULTS.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static void main(String[] args) {
+        ((Logger) org.slf4j.LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        Competition.setCurrent(new Competition());
+        List<Athlete> athletes = createAthletes(NB_ATHLETES, new Random(42));
+
+        for (Ranking r : new Ranking[] { Ranking.SNATCH, Ranking.TOTAL }) {
+            run("results " + r, athletes, new WinningOrderComparator(r, true));
+        }
+        run("lifting order", athletes, new LiftOrderComparator());
+        parse();
+    }
+
+    private static List<Athlete> createAthletes(int nb, Random random) {
+        List<Athlete> athletes = new ArrayList<>(nb);
+        for (int i = 0; i < nb; i++) {
+            Athlete a = new Athlete();
+            a.setValidation(false);
+            a.setLastName("Athlete" + i);
+            a.setGender(Gender.M);
+            a.setBodyWeight(80.0 + random.nextInt(2000) / 100.0);
+            a.setStartNumber(i + 1);
+            a.setLotNumber(i + 1);
+            int snatch = 80 + random.nextInt(60);
+            int cj = snatch + 20 + random.nextInt(20);
+            a.setSnatch1Declaration(Integer.toString(snatch));
+            a.setCleanJerk1Declaration(Integer.toString(cj));
+            int done = random.nextInt(7);
+            for (int lift = 1; lift <= done; lift++) {
+                int weight = (lift <= 3 ? snatch : cj) + (lift - 1) % 3;
+                String value = Integer.toString(random.nextInt(3) == 0 ? -weight : weight);
+                switch (lift) {
+                case 1:
+                    a.setSnatch1ActualLift(value);
+                    break;
+                case 2:
+                    a.setSnatch2ActualLift(value);
+                    break;
+                case 3:
+                    a.setSnatch3ActualLift(value);
+                    break;
+                case 4:
+                    a.setCleanJerk1ActualLift(value);
+                    break;
+                case 5:
+                    a.setCleanJerk2ActualLift(value);
+                    break;
+                case 6:
+                    a.setCleanJerk3ActualLift(value);
+                    break;
+                }
+            }
+            athletes.add(a);
+        }
+        return athletes;
+    }
+
+    private static void invalidate(Athlete a) {
+        // the results are parsed again on the next access, as when they were not cached
+        try {
+            LIFT_RESULTS.set(a, null);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int legacyZeroIfInvalid(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException nfe) {
+            return 0;
+        }
+    }
+
+    private static void parse() {
+        int n = 2_000_000;
+        long sum = 0;
+        for (int warmup = 0; warmup < 2; warmup++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sum += legacyZeroIfInvalid(VALUES[i % VALUES.length]);
+            }
+            long legacy = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sum += Athlete.zeroIfInvalid(VALUES[i % VALUES.length]);
+            }
+            long current = System.nanoTime() - start;
+            if (warmup == 1) {
+                System.out.printf("%-20s %10.1f ns/value (exceptions) %10.1f ns/value (no exceptions)%n",
+                        "zeroIfInvalid", legacy / (double) n, current / (double) n);
+            }
+        }
+        if (sum == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void run(String label, List<Athlete> athletes, Comparator<Athlete> comparator) {
+        AtomicLong comparisons = new AtomicLong();
+        Comparator<Athlete> parsing = (a, b) -> {
+            invalidate(a);
+            invalidate(b);
+            comparisons.incrementAndGet();
+            return comparator.compare(a, b);
+        };
+        // warm up
+        for (int i = 0; i < ROUNDS / 4; i++) {
+            new ArrayList<>(athletes).sort(parsing);
+            new ArrayList<>(athletes).sort(comparator);
+        }
+
+        comparisons.set(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            new ArrayList<>(athletes).sort(parsing);
+        }
+        double parsed = (System.nanoTime() - start) / 1.0e3 / ROUNDS;
+        long nbComparisons = comparisons.get() / ROUNDS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            new ArrayList<>(athletes).sort(comparator);
+        }
+        double cached = (System.nanoTime() - start) / 1.0e3 / ROUNDS;
+        System.out.printf("%-20s %10.1f µs/sort (parsed) %10.1f µs/sort (cached) %6d comparisons x%.1f%n",
+                label, parsed, cached, nbComparisons, parsed / cached);
+    }
+
+}
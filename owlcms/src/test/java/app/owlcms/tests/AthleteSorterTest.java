@@ -8,9 +8,17 @@ package app.owlcms.tests;
 
 import static app.owlcms.tests.AllTests.assertEqualsToReferenceFile;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.junit.AfterClass;
@@ -21,13 +29,20 @@ import org.junit.Test;
 import app.owlcms.Main;
 import app.owlcms.apputils.DebugUtils;
 import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRankWriter;
 import app.owlcms.data.athlete.AthleteRepository;
 import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.category.AgeDivision;
+import app.owlcms.data.category.Participation;
 import app.owlcms.data.athleteSort.AthleteSorter;
+import app.owlcms.data.athleteSort.CategoryRankingIndex;
 import app.owlcms.data.athleteSort.Ranking;
 import app.owlcms.data.athleteSort.WinningOrderComparator;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.competition.ReportingSnapshot;
 import app.owlcms.data.config.Config;
 import app.owlcms.data.jpa.JPAService;
+import app.owlcms.data.team.TeamStandings;
 import app.owlcms.fieldofplay.FieldOfPlay;
 import app.owlcms.init.OwlcmsSession;
 import ch.qos.logback.classic.Level;
@@ -64,6 +79,39 @@ public class AthleteSorterTest {
         assertEqualsToReferenceFile(resName, actual);
     }
 
+    @Test
+    public void incrementalCategoryRanks() {
+        FieldOfPlay fopState = FieldOfPlay.mockFieldOfPlay(athletes, new MockCountdownTimer(),
+                new MockCountdownTimer());
+        OwlcmsSession.setFop(fopState);
+        fopState.getLogger().setLevel(LOGGER_LEVEL);
+
+        AthleteSorter.displayOrder(athletes);
+        AthleteSorter.assignStartNumbers(athletes);
+        int i = 0;
+        for (Athlete a : athletes) {
+            a.setGender(Gender.M);
+            a.setSnatch1Declaration(Integer.toString(60 + (i % 3)));
+            a.setCleanJerk1Declaration(Integer.toString(80 + (i % 2)));
+            i++;
+        }
+        AthleteSorter.liftingOrder(athletes);
+
+        CategoryRankingIndex index = new CategoryRankingIndex();
+        index.assignCategoryRanks(athletes);
+        for (int lift = 0; lift < athletes.size() * 6; lift++) {
+            if (lift % 3 == 2) {
+                failedLift(athletes);
+            } else {
+                successfulLift(athletes);
+            }
+            index.assignCategoryRanks(athletes);
+            String incremental = dumpRanks(athletes);
+            new CategoryRankingIndex().assignCategoryRanks(athletes);
+            assertEquals("ranks after lift " + lift, dumpRanks(athletes), incremental);
+        }
+    }
+
     @Test
     public void liftSequence2() {
         FieldOfPlay fopState = FieldOfPlay.mockFieldOfPlay(athletes, new MockCountdownTimer(),
@@ -289,6 +337,105 @@ public class AthleteSorterTest {
         }
     }
 
+    @Test
+    public void reportingSnapshots() {
+        Competition competition = Competition.getCurrent();
+        ReportingSnapshot first = competition.getReportingSnapshot(null, null);
+        assertSame(first, competition.getReportingSnapshot(null, null));
+        assertFalse(competition.isRankingsInvalid());
+
+        // results saved, the next reader gets a new snapshot
+        competition.setRankingsInvalid(true);
+        assertTrue(competition.isRankingsInvalid());
+        ReportingSnapshot second = competition.getReportingSnapshot(null, null);
+        assertNotSame(first, second);
+        assertTrue(second.getVersion() > first.getVersion());
+        assertFalse(competition.isRankingsInvalid());
+
+        // callers get their own map
+        HashMap<String, Object> beans = competition.computeReportingInfo();
+        beans.put("extra", "value");
+        assertNull(competition.getReportingSnapshot(null, null).get("extra"));
+        assertSame(second, competition.getReportingSnapshot(null, null));
+    }
+
+    @Test
+    public void rankWriter() {
+        AthleteRankWriter writer = new AthleteRankWriter("test", false);
+        Athlete a = athletes.get(0);
+        Participation p = a.getParticipations().get(0);
+        Integer sinclairRank = a.getSinclairRank();
+        int snatchRank = p.getSnatchRank();
+        try {
+            a.setSinclairRank(97);
+            p.setSnatchRank(98);
+            assertEquals(1, writer.write(List.of(a)));
+            // unchanged ranks are not written again
+            assertEquals(0, writer.write(List.of(a)));
+
+            Athlete read = AthleteRepository.findById(a.getId());
+            assertEquals(97, (int) read.getSinclairRank());
+            Participation readP = read.getParticipations().stream()
+                    .filter(rp -> rp.getCategory().getId().equals(p.getCategory().getId())).findFirst().get();
+            assertEquals(98, readP.getSnatchRank());
+
+            // saved elsewhere, the ranks are written again
+            AthleteRankWriter.markChanged(a.getId());
+            assertEquals(1, writer.write(List.of(a)));
+        } finally {
+            a.setSinclairRank(sinclairRank);
+            p.setSnatchRank(snatchRank);
+            writer.write(List.of(a));
+        }
+    }
+
+    @Test
+    public void rankWriterGlobalRanks() {
+        AthleteRankWriter writer = new AthleteRankWriter("test", false);
+        Athlete a = athletes.get(0);
+        Participation p = a.getParticipations().get(0);
+        Integer sinclairRank = a.getSinclairRank();
+        int smmRank = a.getSmmRank();
+        int snatchRank = AthleteRepository.findById(a.getId()).getParticipations().stream()
+                .filter(rp -> rp.getCategory().getId().equals(p.getCategory().getId())).findFirst().get()
+                .getSnatchRank();
+        try {
+            assertEquals(1, writer.writeGlobalRanks(Map.of(a.getId(), List.of(95, 96))));
+            // unchanged ranks are not written again
+            assertEquals(0, writer.writeGlobalRanks(Map.of(a.getId(), List.of(95, 96))));
+
+            Athlete read = AthleteRepository.findById(a.getId());
+            assertEquals(95, (int) read.getSinclairRank());
+            assertEquals(96, read.getSmmRank());
+            // the category ranks are left as they are
+            Participation readP = read.getParticipations().stream()
+                    .filter(rp -> rp.getCategory().getId().equals(p.getCategory().getId())).findFirst().get();
+            assertEquals(snatchRank, readP.getSnatchRank());
+        } finally {
+            AthleteRankWriter.markChanged(a.getId());
+            writer.writeGlobalRanks(Map.of(a.getId(), Arrays.asList(sinclairRank, smmRank)));
+        }
+    }
+
+    @Test
+    public void teamStandings() {
+        Competition competition = Competition.getCurrent();
+        TeamStandings first = TeamStandings.getCurrent(null, AgeDivision.IWF, Ranking.SNATCH_CJ_TOTAL);
+        assertSame(first, TeamStandings.getCurrent(null, AgeDivision.IWF, Ranking.SNATCH_CJ_TOTAL));
+
+        // nothing has actually changed, the team aggregates are reused
+        competition.setRankingsInvalid(true);
+        TeamStandings second = TeamStandings.getCurrent(null, AgeDivision.IWF, Ranking.SNATCH_CJ_TOTAL);
+        assertNotSame(first, second);
+        assertEquals(0, second.getNbRecomputed());
+        for (Gender g : Gender.mfValues()) {
+            assertEquals(first.getTeams(g).size(), second.getTeams(g).size());
+            for (int i = 0; i < first.getTeams(g).size(); i++) {
+                assertSame(first.getTeams(g).get(i), second.getTeams(g).get(i));
+            }
+        }
+    }
+
     @Before
     public void setupTest() {
         // for this test, the initial data does not include body weights, so we use false
@@ -371,6 +518,18 @@ public class AthleteSorterTest {
         AthleteSorter.liftingOrder(lifters1);
     }
 
+    private String dumpRanks(List<Athlete> lifters1) {
+        StringBuilder sb = new StringBuilder();
+        for (Athlete a : lifters1) {
+            for (Participation p : a.getParticipations()) {
+                sb.append(a.getId()).append(' ').append(p.getCategory().getComputedCode()).append(' ')
+                        .append(p.getSnatchRank()).append(' ').append(p.getCleanJerkRank()).append(' ')
+                        .append(p.getTotalRank()).append(' ').append(p.getCustomRank()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
     /**
      * @param lifter
      * @param lifters1
@@ -164,6 +164,33 @@ public class AthleteTest {
         assertEquals("total with snatch bomb out", 0, (long) athlete.getTotal());
     }
     
+    @Test
+    public void testLiftResultsFollowChanges() {
+        athlete.setSnatch1ActualLift("60");
+        athlete.setSnatch2ActualLift("-62");
+        assertEquals("best snatch", 60, (long) athlete.getBestSnatch());
+        assertEquals("best snatch attempt", 1, athlete.getBestSnatchAttemptNumber());
+        assertEquals("attempts done", 2, (long) athlete.getAttemptsDone());
+
+        athlete.setSnatch3ActualLift("62");
+        athlete.setCleanJerk1ActualLift("80");
+        assertEquals("best snatch after change", 62, (long) athlete.getBestSnatch());
+        assertEquals("best snatch attempt after change", 3, athlete.getBestSnatchAttemptNumber());
+        assertEquals("attempts done after change", 4, (long) athlete.getAttemptsDone());
+        assertEquals("total after change", 142, (long) athlete.getTotal());
+        assertEquals("second lift", -62, athlete.getLiftResults().getActualLift(2));
+    }
+
+    @Test
+    public void testZeroIfInvalid() {
+        for (String value : new String[] { "0", "60", "-60", "+60", "007", "2147483647", "-2147483648" }) {
+            assertEquals(value, (long) Integer.valueOf(value), Athlete.zeroIfInvalid(value));
+        }
+        for (String value : new String[] { null, "", "-", "+", " 60", "60kg", "6 0", "2147483648", "--60" }) {
+            assertEquals(value, 0, Athlete.zeroIfInvalid(value));
+        }
+    }
+
     @Test
     public void testMaleSMF() {
         athlete.setSnatch1ActualLift("60");
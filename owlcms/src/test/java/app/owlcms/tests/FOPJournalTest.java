@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import app.owlcms.Main;
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.data.config.Config;
+import app.owlcms.data.jpa.JPAService;
+import app.owlcms.fieldofplay.FOPJournal;
+import app.owlcms.fieldofplay.FOPJournal.JournalRecord;
+
+public class FOPJournalTest {
+
+    @BeforeClass
+    public static void setupTests() {
+        Main.injectSuppliers();
+        JPAService.init(true, true);
+        Config.initConfig();
+        TestData.insertInitialData(5, true);
+    }
+
+    @Test
+    public void recordsReadBackInOrder() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        String previous = System.getProperty("journalDir");
+        System.setProperty("journalDir", dir.toString());
+        try {
+            Athlete a = new Athlete();
+            a.setValidation(false);
+            a.setSnatch1Declaration("100");
+            a.setSnatch1ActualLift("100");
+            a.setSnatch2ActualLift("-105");
+
+            FOPJournal journal = FOPJournal.open("A", true);
+            journal.appendGroup("M1");
+            journal.appendLifts(a, "M1");
+            journal.close();
+
+            // reopening appends after the existing records
+            journal = FOPJournal.open("A", true);
+            journal.appendGroup("M2");
+            journal.close();
+
+            List<JournalRecord> records = new ArrayList<>();
+            FOPJournal.read(journal.getFile(), records::add);
+            // the journal is stamped once with the epoch of the competition
+            assertEquals(4, records.size());
+            assertEquals(FOPJournal.IDENTITY, records.get(0).getKind());
+            assertEquals(Competition.getCurrent().getJournalEpoch(), records.get(0).getDetail());
+            assertEquals(FOPJournal.GROUP, records.get(1).getKind());
+            assertEquals("M1", records.get(1).getGroupName());
+            assertNull(records.get(1).getLifts());
+
+            JournalRecord lifts = records.get(2);
+            assertEquals(FOPJournal.LIFTS, lifts.getKind());
+            assertEquals(a.getId().longValue(), lifts.getAthleteId());
+            assertEquals("100", lifts.getLifts()[0]);
+            assertEquals("100", lifts.getLifts()[3]);
+            assertEquals("-105", lifts.getLifts()[7]);
+            assertNull(lifts.getLifts()[11]);
+
+            assertEquals("M2", records.get(3).getGroupName());
+        } finally {
+            if (previous != null) {
+                System.setProperty("journalDir", previous);
+            } else {
+                System.clearProperty("journalDir");
+            }
+        }
+    }
+
+    @Test
+    public void newEpochRotatesJournal() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        String previous = System.getProperty("journalDir");
+        System.setProperty("journalDir", dir.toString());
+        try {
+            FOPJournal journal = FOPJournal.open("B", true);
+            journal.appendGroup("M1");
+            String oldEpoch = Competition.getCurrent().getJournalEpoch();
+
+            FOPJournal.startNewEpoch("test");
+            assertNotEquals(oldEpoch, Competition.getCurrent().getJournalEpoch());
+            journal.appendGroup("M1");
+            journal.close();
+
+            List<JournalRecord> records = new ArrayList<>();
+            FOPJournal.read(journal.getFile(), records::add);
+            assertEquals(2, records.size());
+            assertEquals(FOPJournal.IDENTITY, records.get(0).getKind());
+            assertEquals(Competition.getCurrent().getJournalEpoch(), records.get(0).getDetail());
+
+            // the previous file is kept
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(2, files.count());
+            }
+        } finally {
+            if (previous != null) {
+                System.setProperty("journalDir", previous);
+            } else {
+                System.clearProperty("journalDir");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import app.owlcms.data.agegroup.AgeGroup;
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.athleteSort.MedalIndex;
+import app.owlcms.data.category.AgeDivision;
+import app.owlcms.data.category.Category;
+import app.owlcms.data.competition.Competition;
+
+public class MedalIndexTest {
+
+    private static Category c67;
+    private static Category c73;
+
+    @BeforeClass
+    public static void setupTests() {
+        Competition.setCurrent(new Competition());
+        AgeGroup sr = new AgeGroup("SR", true, 15, 999, Gender.M, AgeDivision.IWF, 0);
+        c67 = new Category(61.0, 67.0, Gender.M, true, 0, 0, 339, sr, 0);
+        c73 = new Category(67.0, 73.0, Gender.M, true, 0, 0, 348, sr, 0);
+    }
+
+    @Test
+    public void medalsReusedUntilResultsChange() {
+        Athlete a = createAthlete(1, c67, 100, 120);
+        Athlete b = createAthlete(2, c67, 105, 125);
+        Athlete c = createAthlete(3, c73, 110, 130);
+        Athlete d = createAthlete(4, c73, 0, 0);
+        List<Athlete> athletes = List.of(a, b, c, d);
+        MedalIndex index = new MedalIndex();
+
+        TreeMap<Category, TreeSet<Athlete>> medals = index.computeMedals(athletes, true);
+        assertEquals(2, medals.size());
+        assertEquals(2, medals.get(c67).size());
+        // an athlete without results does not get a medal
+        assertEquals(1, medals.get(c73).size());
+        assertEquals(2, index.getNbComputed());
+
+        TreeMap<Category, TreeSet<Athlete>> again = index.computeMedals(athletes, true);
+        assertSame(medals.get(c67), again.get(c67));
+        assertSame(medals.get(c73), again.get(c73));
+        assertEquals(2, index.getNbReused());
+
+        // only the category of the athlete is computed again
+        d.setSnatch1ActualLift("100");
+        TreeMap<Category, TreeSet<Athlete>> changed = index.computeMedals(athletes, true);
+        assertSame(medals.get(c67), changed.get(c67));
+        assertNotSame(medals.get(c73), changed.get(c73));
+        // snatch medal without a total
+        assertEquals(2, changed.get(c73).size());
+        assertEquals(3, index.getNbComputed());
+
+        assertSame(changed.get(c73), index.computeMedals(athletes, c73, true));
+        assertEquals(null, index.computeMedals(List.of(a, b), c73, true));
+    }
+
+    private Athlete createAthlete(int n, Category c, int snatch, int cj) {
+        Athlete a = new Athlete();
+        a.setValidation(false);
+        a.setLastName("Athlete" + n);
+        a.setGender(Gender.M);
+        a.setBodyWeight(c.getMaximumWeight() - 1);
+        a.setLotNumber(n);
+        a.addEligibleCategory(c);
+        a.setCategory(c);
+        if (snatch > 0) {
+            a.setSnatch1ActualLift(Integer.toString(snatch));
+        }
+        if (cj > 0) {
+            a.setCleanJerk1ActualLift(Integer.toString(cj));
+        }
+        return a;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import app.owlcms.uievents.OrderedExecutor;
+import app.owlcms.uievents.OrderedExecutor.Lane;
+
+public class OrderedExecutorTest {
+
+    @Test
+    public void tasksRunInOrder() throws InterruptedException {
+        OrderedExecutor executor = new OrderedExecutor("test", 4, 1000);
+        Lane lane = executor.newLane("lane");
+        List<Integer> done = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            lane.execute(() -> {
+                done.add(n);
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, done.get(i).intValue());
+        }
+        assertEquals(100, lane.getNbExecuted());
+    }
+
+    @Test
+    public void slowLaneDoesNotBlockOthers() throws InterruptedException {
+        OrderedExecutor executor = new OrderedExecutor("test", 2, 3);
+        Object slowOwner = new Object();
+        Lane slow = executor.getLane(slowOwner, "slow");
+        assertSame(slow, executor.getLane(slowOwner, "slow"));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        slow.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        // one running, three waiting, the next ones are refused
+        for (int i = 0; i < 5; i++) {
+            slow.execute(() -> {
+            });
+        }
+        CountDownLatch other = new CountDownLatch(1);
+        executor.getLane(new Object(), "other").execute(other::countDown);
+        assertTrue(other.await(10, TimeUnit.SECONDS));
+        assertEquals(3, slow.getNbQueued());
+        assertEquals(2, slow.getNbRejected());
+        assertEquals(2, executor.getNbRejected());
+        release.countDown();
+    }
+
+}
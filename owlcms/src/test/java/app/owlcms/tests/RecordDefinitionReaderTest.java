@@ -8,12 +8,20 @@ package app.owlcms.tests;
 
 import static app.owlcms.tests.AllTests.assertEqualsToReferenceFile;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
@@ -27,11 +35,14 @@ import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
 import app.owlcms.Main;
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.AthleteRepository;
 import app.owlcms.data.athlete.Gender;
 import app.owlcms.data.config.Config;
 import app.owlcms.data.jpa.JPAService;
 import app.owlcms.data.records.RecordDefinitionReader;
 import app.owlcms.data.records.RecordEvent;
+import app.owlcms.data.records.RecordIndex;
 import app.owlcms.data.records.RecordRepository;
 import app.owlcms.spreadsheet.JXLSExportRecords;
 import app.owlcms.utils.LoggerUtils;
@@ -147,6 +158,48 @@ public class RecordDefinitionReaderTest {
         assertEquals("wrong number of results", 3, results.size());
     }
 
+    @Test
+    public void _07_testIndex() throws IOException {
+        String zipURI = "/testData/records/IWF_EWF.zip";
+        InputStream zipStream = this.getClass().getResourceAsStream(zipURI);
+        RecordDefinitionReader.readZip(zipStream);
+        RecordIndex index = RecordIndex.getCurrent();
+        for (Gender gender : new Gender[] { Gender.F, Gender.M, null }) {
+            for (Integer age : new Integer[] { 12, 13, 16, 17, 20, 21, 35, null }) {
+                for (Double bw : new Double[] { 40.0D, 55.0D, 61.0D, 61.01D, 66.0D, 109.0D, 150.0D, null }) {
+                    // largest record of each kind, as found by the database query
+                    Map<String, RecordEvent> expected = new HashMap<>();
+                    for (RecordEvent r : RecordRepository.findFiltered(gender, age, bw, null, null)) {
+                        RecordEvent curMax = expected.get(indexKey(r));
+                        if (curMax == null || r.getRecordValue() > curMax.getRecordValue()) {
+                            expected.put(indexKey(r), r);
+                        }
+                    }
+                    Map<String, Double> found = index.findEligible(gender, age, bw, Set.of()).stream()
+                            .collect(Collectors.toMap(r -> indexKey(r), RecordEvent::getRecordValue));
+                    assertEquals(gender + " " + age + " " + bw, expected.entrySet().stream()
+                            .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().getRecordValue())), found);
+                }
+            }
+        }
+        // only the records of the athlete's federations
+        List<RecordEvent> all = index.findEligible(Gender.M, 16, 66.0D, Set.of());
+        RecordEvent first = all.get(0);
+        String federation = first.getRecordFederation();
+        List<RecordEvent> federationRecords = index.findEligible(Gender.M, 16, 66.0D, Set.of(federation));
+        assertEquals("wrong number of results",
+                all.stream().filter(r -> r.getRecordFederation().equals(federation)).count(),
+                federationRecords.size());
+
+        // saving a record replaces the previous one
+        Athlete a = AthleteRepository.findAll().get(0);
+        RecordRepository.save(RecordEvent.newRecord(a, first, first.getRecordValue() + 1, null));
+        List<RecordEvent> after = RecordIndex.getCurrent().findEligible(Gender.M, 16, 66.0D, Set.of(federation));
+        assertEquals("wrong number of results", federationRecords.size(), after.size());
+        assertEquals(first.getRecordValue() + 1, after.stream()
+                .filter(r -> r.getKey().equals(first.getKey())).findFirst().get().getRecordValue(), 0.0D);
+    }
+
 //    @Test
 //    @Ignore
 //    public void _08_testJson() throws IOException {
@@ -184,4 +237,51 @@ public class RecordDefinitionReaderTest {
         }
         
     }
+
+    @Test
+    public void _10_testFolder() throws IOException {
+        Path folder = Files.createTempDirectory("records");
+        try {
+            copy("EWFRecords.xlsx", folder.resolve("EWFRecords.xlsx"));
+            copy("IWFRecords.xlsx", folder.resolve("IWFRecords.xlsx"));
+            RecordDefinitionReader.readFolder(folder);
+            assertEquals("expected size wrong", 360, RecordRepository.findAll().size());
+
+            // unchanged files are not read again
+            Set<Long> loaded = ids();
+            RecordDefinitionReader.readFolder(folder);
+            assertEquals("records were reloaded", loaded, ids());
+
+            // the records of a removed file are removed
+            Files.delete(folder.resolve("IWFRecords.xlsx"));
+            RecordDefinitionReader.readFolder(folder);
+            Set<Long> ewf = ids();
+            assertEquals("expected size wrong", 180, ewf.size());
+            assertTrue(loaded.containsAll(ewf));
+
+            // a changed file is read again
+            copy("IWFRecords.xlsx", folder.resolve("EWFRecords.xlsx"));
+            RecordDefinitionReader.readFolder(folder);
+            Set<Long> changed = ids();
+            assertEquals("expected size wrong", 180, changed.size());
+            assertTrue(changed.stream().noneMatch(ewf::contains));
+        } finally {
+            FileUtils.deleteDirectory(folder.toFile());
+        }
+    }
+
+    private void copy(String resourceName, Path target) throws IOException {
+        try (InputStream is = this.getClass().getResourceAsStream("/testData/records/" + resourceName)) {
+            Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private String indexKey(RecordEvent r) {
+        // the same classes exist for both genders and in several federations
+        return r.getGender() + "_" + r.getRecordFederation() + "_" + r.getKey();
+    }
+
+    private Set<Long> ids() {
+        return RecordRepository.findAll().stream().map(RecordEvent::getId).collect(Collectors.toSet());
+    }
 }
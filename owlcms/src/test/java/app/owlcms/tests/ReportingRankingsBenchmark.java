@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import app.owlcms.data.agegroup.AgeGroup;
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.category.AgeDivision;
+import app.owlcms.data.category.Category;
+import app.owlcms.data.category.Participation;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.spreadsheet.PAthlete;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Computing the rankings of the final package (category, Sinclair, SMM, Robi and
+ * team rankings) for increasing numbers of athletes, with fork/join pools of
+ * increasing size. A pool of 1 runs the ranking passes one after the other.
+ *
+ * Run as a Java application; not a unit test. No database is needed.
+ */
+public class ReportingRankingsBenchmark {
+
+    private static final int[] NB_ATHLETES = { 100, 500, 1000, 2000 };
+    private static final int ROUNDS = 20;
+    private static final String[] TEAMS = { "A", "B", "C", "D", "E", "F", "G", "H" };
+
+    public static void main(String[] args) {
+        ((Logger) org.slf4j.LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        Competition.setCurrent(new Competition());
+        Random random = new Random(42);
+        List<Category> categories = createCategories();
+
+        int nbCores = Runtime.getRuntime().availableProcessors();
+        for (int nbAthletes : NB_ATHLETES) {
+            List<Athlete> athletes = createAthletes(nbAthletes, categories, random);
+            double sequential = 0;
+            for (int parallelism = 1; parallelism <= nbCores; parallelism = next(parallelism, nbCores)) {
+                double ms = run(athletes, parallelism);
+                if (parallelism == 1) {
+                    sequential = ms;
+                }
+                System.out.printf("%5d athletes %3d threads %10.2f ms x%.1f%n",
+                        nbAthletes, parallelism, ms, sequential / ms);
+            }
+        }
+    }
+
+    private static List<Athlete> createAthletes(int nb, List<Category> categories, Random random) {
+        List<Athlete> athletes = new ArrayList<>(nb);
+        for (int i = 0; i < nb; i++) {
+            Category c = categories.get(random.nextInt(categories.size()));
+            Athlete a = new Athlete();
+            a.setValidation(false);
+            a.setLastName("Athlete" + i);
+            a.setGender(c.getGender());
+            a.setTeam(TEAMS[random.nextInt(TEAMS.length)]);
+            a.setYearOfBirth(1960 + random.nextInt(45));
+            a.setBodyWeight(c.getMinimumWeight() + 0.01 + random.nextInt(400) / 100.0);
+            a.setStartNumber(i + 1);
+            a.setLotNumber(i + 1);
+            int snatch = (c.getGender() == Gender.M ? 80 : 50) + random.nextInt(60);
+            int cj = snatch + 20 + random.nextInt(20);
+            a.setSnatch1Declaration(Integer.toString(snatch));
+            a.setCleanJerk1Declaration(Integer.toString(cj));
+            a.setSnatch1ActualLift(Integer.toString(snatch));
+            a.setSnatch2ActualLift(Integer.toString(random.nextInt(3) == 0 ? -(snatch + 2) : snatch + 2));
+            a.setSnatch3ActualLift(Integer.toString(-(snatch + 4)));
+            a.setCleanJerk1ActualLift(Integer.toString(cj));
+            a.setCleanJerk2ActualLift(Integer.toString(random.nextInt(3) == 0 ? -(cj + 3) : cj + 3));
+            a.setCleanJerk3ActualLift(Integer.toString(-(cj + 5)));
+
+            Participation p = new Participation(a, c);
+            p.setTeamMember(true);
+            athletes.add(new PAthlete(p));
+        }
+        return athletes;
+    }
+
+    private static List<Category> createCategories() {
+        List<Category> categories = new ArrayList<>();
+        for (Gender g : Gender.mfValues()) {
+            AgeGroup ag = new AgeGroup("SR", true, 15, 999, g, AgeDivision.IWF, 0);
+            double min = 0;
+            for (int max = (g == Gender.M ? 61 : 49); max <= (g == Gender.M ? 109 : 87); max += 6) {
+                categories.add(new Category(min, (double) max, g, true, 0, 0, 300, ag, 0));
+                min = max;
+            }
+        }
+        return categories;
+    }
+
+    private static int next(int parallelism, int nbCores) {
+        return parallelism < nbCores && parallelism * 2 > nbCores ? nbCores : parallelism * 2;
+    }
+
+    private static double run(List<Athlete> athletes, int parallelism) {
+        Competition competition = Competition.getCurrent();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // warm up
+            for (int i = 0; i < ROUNDS / 2; i++) {
+                pool.submit(() -> competition.doComputeReportingInfo(new HashMap<>(), true, athletes, null, null))
+                        .join();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                pool.submit(() -> competition.doComputeReportingInfo(new HashMap<>(), true, athletes, null, null))
+                        .join();
+            }
+            return (System.nanoTime() - start) / 1.0e6 / ROUNDS;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
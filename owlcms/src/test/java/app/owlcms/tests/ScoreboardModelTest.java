@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import app.owlcms.data.athlete.Athlete;
+import app.owlcms.data.athlete.Gender;
+import app.owlcms.data.competition.Competition;
+import app.owlcms.fieldofplay.ScoreboardModel;
+import app.owlcms.fieldofplay.ScoreboardModel.AthleteRow;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class ScoreboardModelTest {
+
+    @BeforeClass
+    public static void setupTests() {
+        Competition.setCurrent(new Competition());
+    }
+
+    @Test
+    public void attemptCells() {
+        Athlete a = createAthlete(1);
+        a.setSnatch1ActualLift("100");
+        a.setSnatch2ActualLift("-105");
+        a.setSnatch3Declaration("105");
+        ScoreboardModel model = new ScoreboardModel(1L, List.of(a));
+
+        AthleteRow row = model.getRow(a);
+        JsonArray none = row.getSnatchAttemptsJson(0);
+        assertEquals("narrow good", cell(none, 0).getString("goodBadClassName"));
+        assertEquals("100", cell(none, 0).getString("stringValue"));
+        assertEquals("narrow fail", cell(none, 1).getString("goodBadClassName"));
+        assertEquals("(105)", cell(none, 1).getString("stringValue"));
+        assertEquals("narrow request", cell(none, 2).getString("goodBadClassName"));
+        assertEquals("", cell(none, 2).getString("className"));
+        assertEquals(" current blink", cell(row.getSnatchAttemptsJson(1), 2).getString("className"));
+        assertEquals(" next", cell(row.getSnatchAttemptsJson(2), 2).getString("className"));
+        // only the next attempt is highlighted
+        assertEquals("narrow request", cell(row.getCleanJerkAttemptsJson(1), 0).getString("goodBadClassName"));
+        assertEquals("", cell(row.getCleanJerkAttemptsJson(1), 0).getString("className"));
+        assertEquals("narrow empty", cell(row.getCleanJerkAttemptsJson(1), 1).getString("goodBadClassName"));
+        assertEquals(100, (int) row.getBestSnatch());
+        assertEquals(105, (int) row.getNextAttemptRequestedWeight());
+    }
+
+    @Test
+    public void rowsReusedUntilChanged() {
+        Athlete a = createAthlete(1);
+        Athlete b = createAthlete(2);
+        ScoreboardModel model = new ScoreboardModel(1L, List.of(a, b));
+        assertEquals(2, model.size());
+        assertSame(model.getRow(a), model.getRow(a));
+
+        // another copy of the same athlete, as read by another entity manager, is not shared
+        Athlete copy = createAthlete(1);
+        assertNotSame(model.getRow(a), model.getRow(copy));
+
+        AthleteRow before = model.getRow(b);
+        b.setSnatch1ActualLift("100");
+        AthleteRow after = model.getRow(b);
+        assertNotSame(before, after);
+        assertEquals(1, after.getAttemptsDone());
+        assertEquals("100", cell(after.getSnatchAttemptsJson(0), 0).getString("stringValue"));
+    }
+
+    private JsonObject cell(JsonArray attempts, int i) {
+        return attempts.getObject(i);
+    }
+
+    private Athlete createAthlete(int n) {
+        Athlete a = new Athlete();
+        a.setValidation(false);
+        a.setLastName("Athlete" + n);
+        a.setGender(Gender.M);
+        a.setSnatch1Declaration("100");
+        a.setCleanJerk1Declaration("120");
+        return a;
+    }
+
+}
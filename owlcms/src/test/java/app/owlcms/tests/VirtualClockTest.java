@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import app.owlcms.fieldofplay.VirtualClock;
+import app.owlcms.simulation.SimulationMetrics.LatencyStats;
+
+public class VirtualClockTest {
+
+    @Test
+    public void acceleratedClockShortensDelays() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(1000.0D);
+        assertTrue(clock.isAccelerated());
+        assertEquals(60L, clock.realDelay(60000));
+        assertEquals(0L, clock.realDelay(100));
+
+        long start = clock.currentTimeMillis();
+        long realStart = System.nanoTime();
+        clock.sleep(60000);
+        long realElapsed = (System.nanoTime() - realStart) / 1000000;
+        long elapsed = clock.currentTimeMillis() - start;
+        assertTrue("real " + realElapsed, realElapsed >= 60 && realElapsed < 5000);
+        assertTrue("virtual " + elapsed, elapsed >= 60000);
+    }
+
+    @Test
+    public void realClockIsUnchanged() {
+        assertFalse(VirtualClock.REAL.isAccelerated());
+        assertEquals(3500L, VirtualClock.REAL.realDelay(3500));
+        long now = System.currentTimeMillis();
+        assertTrue(Math.abs(VirtualClock.REAL.currentTimeMillis() - now) < 1000);
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyStats stats = new LatencyStats("test");
+        assertEquals(0.0D, stats.percentile(50), 0.0D);
+        for (int i = 1; i <= 2000; i++) {
+            stats.add(i * 1000000L);
+        }
+        assertEquals(2000, stats.size());
+        assertEquals(1000.0D, stats.percentile(50), 0.0D);
+        assertEquals(1980.0D, stats.percentile(99), 0.0D);
+        assertEquals(2000.0D, stats.percentile(100), 0.0D);
+    }
+
+}
@@ -49,7 +49,7 @@ import ch.qos.logback.classic.Logger;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonObject;
-import elemental.json.impl.JreJsonFactory;
+import elemental.json.JsonValue;
 
 /**
  * Class Scoreboard
@@ -355,16 +355,13 @@ public class ResultsPR extends PolymerTemplate<TemplateModel>
         BreakType breakType = e.getBreakType();
 
         ui.access(() -> {
-            String athletes = e.getAthletes();
-            String liftingOrder = e.getLiftingOrderAthletes();
-            String leaders = e.getLeaders();
-            String records = e.getRecords();
-            String translationMap = e.getTranslationMap();
+            // the JSON trees were parsed once by the servlet, and are shared by all the viewers
+            JsonArray athleteList = e.getAthletesJson();
+            JsonArray leaderList = e.getLeadersJson();
+            JsonObject recordList = e.getRecordsJson();
+            JsonValue translationMap = e.getTranslationMapJson();
 
-            JreJsonFactory jreJsonFactory = new JreJsonFactory();
-
-            if (athletes != null) {
-                JsonArray athleteList = (JsonArray) jreJsonFactory.parse(athletes);
+            if (athleteList != null) {
                 this.getElement().setPropertyJson("athletes", athleteList);
                 this.getElement().setProperty("resultLines", athleteList.length() + 1);
             } else {
@@ -372,8 +369,7 @@ public class ResultsPR extends PolymerTemplate<TemplateModel>
                 this.getElement().setProperty("resultLines", 1);
             }
 
-            if (leaders != null && (breakType != BreakType.GROUP_DONE || e.isSinclairMeet())) {
-                JsonArray leaderList = (JsonArray) jreJsonFactory.parse(leaders);
+            if (leaderList != null && (breakType != BreakType.GROUP_DONE || e.isSinclairMeet())) {
                 this.getElement().setPropertyJson("leaders", leaderList);
                 this.getElement().setProperty("leaderLines", leaderList.length() + 1);
             } else {
@@ -381,9 +377,8 @@ public class ResultsPR extends PolymerTemplate<TemplateModel>
                 this.getElement().setProperty("leaderLines", 1);
             }
 
-            if (records != null) {
+            if (recordList != null) {
                 // logger.debug("records = {}", records);
-                JsonObject recordList = (JsonObject) jreJsonFactory.parse(records);
                 this.getElement().setPropertyJson("records", recordList);
                 this.getElement().setProperty("recordKind", e.getRecordKind());
                 this.getElement().setProperty("recordMessage", e.getRecordMessage());
@@ -393,7 +388,7 @@ public class ResultsPR extends PolymerTemplate<TemplateModel>
             }
 
             this.getElement().setPropertyJson("t",
-                    translationMap != null ? jreJsonFactory.parse(translationMap) : Json.createNull());
+                    translationMap != null ? translationMap : Json.createNull());
 
             getElement().setProperty("noLiftRanks", e.getNoLiftRanks());
 
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.publicresults;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.LoggerFactory;
+
+import app.owlcms.uievents.UpdateEvent;
+import app.owlcms.utils.StartupUtils;
+import ch.qos.logback.classic.Logger;
+import elemental.json.Json;
+import elemental.json.JsonObject;
+
+/**
+ * Session-less, read-only results for large numbers of spectators.
+ *
+ * <ul>
+ * <li>/spectator returns a static page that renders the results from the event stream.
+ * <li>/spectator/stream?fop=A returns the server-sent event stream for a platform.
+ * <li>/spectator/stats returns the number of connected spectators and the broadcast statistics, for load tests. The
+ * memory used is only included if the request gives the update key.
+ * </ul>
+ *
+ * @see SpectatorStream
+ */
+@WebServlet(urlPatterns = { "/spectator", "/spectator/stream", "/spectator/stats" }, asyncSupported = true)
+public class SpectatorServlet extends HttpServlet {
+
+    private static final String PAGE = "/spectator/results.html";
+
+    Logger logger = (Logger) LoggerFactory.getLogger(SpectatorServlet.class);
+
+    private String secret = StartupUtils.getStringParam("updateKey");
+
+    /**
+     * @see javax.servlet.http.HttpServlet#doGet(javax.servlet.http.HttpServletRequest,
+     *      javax.servlet.http.HttpServletResponse)
+     */
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (req.getServletPath().endsWith("/stream")) {
+            doStream(req, resp);
+        } else if (req.getServletPath().endsWith("/stats")) {
+            doStats(req, resp);
+        } else {
+            doPage(resp);
+        }
+    }
+
+    private void doPage(HttpServletResponse resp) throws IOException {
+        try (InputStream in = SpectatorServlet.class.getResourceAsStream(PAGE)) {
+            if (in == null) {
+                resp.sendError(404);
+                return;
+            }
+            resp.setContentType("text/html");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setHeader("Cache-Control", "max-age=300");
+            try (OutputStream out = resp.getOutputStream()) {
+                in.transferTo(out);
+            }
+        }
+    }
+
+    private void doStats(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        SpectatorStream stream = SpectatorStream.getCurrent();
+        JsonObject stats = Json.createObject();
+        stats.put("spectators", stream.getNbSpectators());
+        stats.put("framesSent", stream.getFramesSent());
+        stats.put("droppedSpectators", stream.getDroppedSpectators());
+        stats.put("lastBroadcastMicros", stream.getLastBroadcastMicros());
+        String updateKey = req.getParameter("updateKey");
+        if (updateKey != null && updateKey.equals(secret)) {
+            Runtime runtime = Runtime.getRuntime();
+            stats.put("heapUsed", runtime.totalMemory() - runtime.freeMemory());
+        }
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.getWriter().write(stats.toJson());
+    }
+
+    private void doStream(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String fopName = req.getParameter("fop");
+        if (fopName == null) {
+            UpdateEvent defaultUpdate = UpdateReceiverServlet.sync(null);
+            fopName = defaultUpdate != null ? defaultUpdate.getFopName() : null;
+        }
+        if (fopName == null) {
+            resp.sendError(404, "No platform is active.");
+            return;
+        }
+
+        resp.setContentType("text/event-stream");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        // nginx and similar proxies must not buffer the stream
+        resp.setHeader("X-Accel-Buffering", "no");
+        resp.setStatus(200);
+        resp.flushBuffer();
+
+        AsyncContext context = req.startAsync();
+        // stream is open until the browser leaves
+        context.setTimeout(0);
+        SpectatorStream.getCurrent().add(context, fopName);
+    }
+
+}
@@ -0,0 +1,457 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.publicresults;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.Subscribe;
+
+import app.owlcms.uievents.BreakTimerEvent;
+import app.owlcms.uievents.DecisionEvent;
+import app.owlcms.uievents.TimerEvent;
+import app.owlcms.uievents.UpdateEvent;
+import app.owlcms.utils.LoggerUtils;
+import ch.qos.logback.classic.Logger;
+import elemental.json.Json;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/**
+ * Broadcasts the updates, timer and decision events received from owlcms to lightweight spectator pages, as
+ * server-sent events.
+ *
+ * Unlike the Vaadin displays, a spectator has no session and no server-side component state. Each event is serialized
+ * once into a frame that is written to every connected spectator of the platform. Each spectator has a small queue of
+ * frames written by a shared pool using non-blocking output, so a stalled connection never holds a writer thread. A
+ * spectator that falls too far behind, or whose connection has not accepted data for {@link #WRITE_TIMEOUT_SECONDS},
+ * is disconnected (the browser reconnects and receives the latest update).
+ *
+ * The translations are sent in their own frame, once when the spectator connects and again only if they change.
+ *
+ * @author Jean-François Lamy
+ */
+public class SpectatorStream {
+
+    private class Spectator implements AsyncListener, WriteListener {
+        private final AsyncContext context;
+        private final String fopName;
+        private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+        private boolean scheduled = false;
+        private boolean needsFlush = false;
+        private volatile boolean closed = false;
+        /** when the connection stopped accepting data, 0 if it accepts data */
+        private volatile long notReadySince = 0;
+
+        private Spectator(AsyncContext context, String fopName) {
+            this.context = context;
+            this.fopName = fopName;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            remove(this);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            remove(this);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            logger.debug("spectator gone {}", LoggerUtils.exceptionMessage(t));
+            remove(this);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            remove(this);
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            drain();
+        }
+
+        /**
+         * Write the pending frames as long as the connection accepts them without blocking. When it does not, the
+         * container calls {@link #onWritePossible()} once it does.
+         */
+        private synchronized void drain() {
+            scheduled = false;
+            if (closed) {
+                return;
+            }
+            try {
+                ServletOutputStream out = context.getResponse().getOutputStream();
+                while (out.isReady()) {
+                    if (needsFlush) {
+                        out.flush();
+                        needsFlush = false;
+                        continue;
+                    }
+                    byte[] frame = pending.pollFirst();
+                    if (frame == null) {
+                        notReadySince = 0;
+                        return;
+                    }
+                    out.write(frame);
+                    needsFlush = true;
+                }
+                if (notReadySince == 0) {
+                    notReadySince = System.nanoTime();
+                }
+            } catch (Exception e) {
+                logger.debug("spectator gone {}", LoggerUtils.exceptionMessage(e));
+                remove(this);
+            }
+        }
+
+        private boolean isStalled(long now) {
+            long since = notReadySince;
+            return since != 0 && now - since > TimeUnit.SECONDS.toNanos(WRITE_TIMEOUT_SECONDS);
+        }
+
+        private void send(byte[] frame) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.size() >= MAX_PENDING_FRAMES) {
+                    droppedSpectators.incrementAndGet();
+                    closed = true;
+                    pending.clear();
+                } else {
+                    pending.addLast(frame);
+                    if (scheduled) {
+                        return;
+                    }
+                    scheduled = true;
+                }
+            }
+            if (closed) {
+                remove(this);
+                return;
+            }
+            writers.execute(this::drain);
+        }
+
+        private void start() {
+            try {
+                // from now on, all writes are non-blocking
+                context.getResponse().getOutputStream().setWriteListener(this);
+            } catch (Exception e) {
+                logger.debug("spectator gone {}", LoggerUtils.exceptionMessage(e));
+                remove(this);
+            }
+        }
+    }
+
+    private static final int MAX_PENDING_FRAMES = 50;
+    private static final long HEARTBEAT_SECONDS = 20;
+    private static final long WRITE_TIMEOUT_SECONDS = 30;
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final Logger logger = (Logger) LoggerFactory.getLogger(SpectatorStream.class);
+    private static SpectatorStream current;
+
+    public static synchronized SpectatorStream getCurrent() {
+        if (current == null) {
+            current = new SpectatorStream();
+            UpdateReceiverServlet.getEventBus().register(current);
+            TimerReceiverServlet.getEventBus().register(current);
+            DecisionReceiverServlet.getEventBus().register(current);
+        }
+        return current;
+    }
+
+    private static JsonObject createFrameObject(String fopName) {
+        JsonObject o = Json.createObject();
+        o.put("fop", fopName);
+        o.put("serverMillis", System.currentTimeMillis());
+        return o;
+    }
+
+    private static void putIfNotNull(JsonObject o, String key, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof JsonValue) {
+            o.put(key, (JsonValue) value);
+        } else if (value instanceof Number) {
+            o.put(key, ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            o.put(key, (Boolean) value);
+        } else {
+            o.put(key, value.toString());
+        }
+    }
+
+    private Map<String, Set<Spectator>> spectatorsByFop = new ConcurrentHashMap<>();
+    private Map<String, byte[]> lastUpdateByFop = new ConcurrentHashMap<>();
+    private Map<String, byte[]> lastTimerByFop = new ConcurrentHashMap<>();
+    private Map<String, byte[]> lastTranslationsByFop = new ConcurrentHashMap<>();
+    private Map<String, JsonValue> lastTranslationsMapByFop = new ConcurrentHashMap<>();
+    private AtomicInteger nbSpectators = new AtomicInteger();
+    private AtomicLong droppedSpectators = new AtomicLong();
+    private AtomicLong framesSent = new AtomicLong();
+    private volatile long lastBroadcastNanos;
+
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeat;
+
+    private SpectatorStream() {
+        AtomicInteger threadCount = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), (r) -> {
+            Thread t = new Thread(r, "spectator-writer-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread t = new Thread(r, "spectator-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        // keep proxies from closing idle connections, and detect departed or stalled spectators.
+        heartbeat.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            for (Set<Spectator> spectators : spectatorsByFop.values()) {
+                for (Spectator s : spectators) {
+                    if (s.isStalled(now)) {
+                        droppedSpectators.incrementAndGet();
+                        remove(s);
+                    } else {
+                        s.send(HEARTBEAT);
+                    }
+                }
+            }
+        }, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Add a spectator. The translations, the latest update and timer state are sent immediately.
+     *
+     * @param context an asynchronous context whose response headers are already set
+     * @param fopName
+     */
+    public void add(AsyncContext context, String fopName) {
+        Spectator s = new Spectator(context, fopName);
+        context.addListener(s);
+        s.start();
+        spectatorsByFop.computeIfAbsent(fopName, (k) -> ConcurrentHashMap.newKeySet()).add(s);
+        int count = nbSpectators.incrementAndGet();
+        logger.debug("spectator added for {}, {} connected", fopName, count);
+        byte[] update = lastUpdateByFop.get(fopName);
+        if (update == null) {
+            UpdateEvent cached = UpdateReceiverServlet.sync(fopName);
+            if (cached != null) {
+                updateTranslations(cached);
+                update = toFrame("update", createUpdateObject(cached));
+            }
+        }
+        byte[] translations = lastTranslationsByFop.get(fopName);
+        if (translations != null) {
+            s.send(translations);
+        }
+        if (update != null) {
+            s.send(update);
+        }
+        byte[] timer = lastTimerByFop.get(fopName);
+        if (timer != null) {
+            s.send(timer);
+        }
+    }
+
+    public long getDroppedSpectators() {
+        return droppedSpectators.get();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    /**
+     * @return time taken to queue the last event for all spectators of its platform, in microseconds
+     */
+    public long getLastBroadcastMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastBroadcastNanos);
+    }
+
+    public int getNbSpectators() {
+        return nbSpectators.get();
+    }
+
+    @Subscribe
+    public void slaveBreakTimerEvent(BreakTimerEvent e) {
+        JsonObject o = createFrameObject(e.getFopName());
+        o.put("type", e.getClass().getSimpleName());
+        putIfNotNull(o, "breakType", e.getBreakType());
+        if (e instanceof BreakTimerEvent.BreakStart) {
+            BreakTimerEvent.BreakStart bs = (BreakTimerEvent.BreakStart) e;
+            putIfNotNull(o, "timeRemaining", bs.getTimeRemaining());
+            o.put("indefinite", bs.isIndefinite());
+        } else if (e instanceof BreakTimerEvent.BreakSetTime) {
+            BreakTimerEvent.BreakSetTime bs = (BreakTimerEvent.BreakSetTime) e;
+            putIfNotNull(o, "timeRemaining", bs.getTimeRemaining());
+            o.put("indefinite", bs.isIndefinite());
+        } else if (e instanceof BreakTimerEvent.BreakPaused) {
+            putIfNotNull(o, "timeRemaining", ((BreakTimerEvent.BreakPaused) e).getTimeRemaining());
+        }
+        byte[] frame = toFrame("breakTimer", o);
+        lastTimerByFop.put(e.getFopName(), frame);
+        broadcast(e.getFopName(), frame);
+    }
+
+    @Subscribe
+    public void slaveDecisionEvent(DecisionEvent e) {
+        JsonObject o = createFrameObject(e.getFopName());
+        putIfNotNull(o, "eventType", e.getEventType());
+        putIfNotNull(o, "d1", e.getDecisionLight1());
+        putIfNotNull(o, "d2", e.getDecisionLight2());
+        putIfNotNull(o, "d3", e.getDecisionLight3());
+        o.put("decisionsVisible", e.isDecisionLightsVisible());
+        o.put("down", e.isDown());
+        putIfNotNull(o, "recordKind", e.getRecordKind());
+        putIfNotNull(o, "recordMessage", e.getRecordMessage());
+        broadcast(e.getFopName(), toFrame("decision", o));
+    }
+
+    @Subscribe
+    public void slaveTimerEvent(TimerEvent e) {
+        JsonObject o = createFrameObject(e.getFopName());
+        o.put("type", e.getClass().getSimpleName());
+        if (e instanceof TimerEvent.StartTime) {
+            putIfNotNull(o, "timeRemaining", ((TimerEvent.StartTime) e).getTimeRemaining());
+        } else if (e instanceof TimerEvent.StopTime) {
+            putIfNotNull(o, "timeRemaining", ((TimerEvent.StopTime) e).getTimeRemaining());
+        } else if (e instanceof TimerEvent.SetTime) {
+            putIfNotNull(o, "timeRemaining", ((TimerEvent.SetTime) e).getTimeRemaining());
+        }
+        byte[] frame = toFrame("timer", o);
+        lastTimerByFop.put(e.getFopName(), frame);
+        broadcast(e.getFopName(), frame);
+    }
+
+    @Subscribe
+    public void slaveUpdateEvent(UpdateEvent e) {
+        byte[] translations = updateTranslations(e);
+        if (translations != null) {
+            broadcast(e.getFopName(), translations);
+        }
+        byte[] frame = toFrame("update", createUpdateObject(e));
+        lastUpdateByFop.put(e.getFopName(), frame);
+        broadcast(e.getFopName(), frame);
+    }
+
+    private void broadcast(String fopName, byte[] frame) {
+        if (fopName == null) {
+            return;
+        }
+        Set<Spectator> spectators = spectatorsByFop.get(fopName);
+        if (spectators == null || spectators.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (Spectator s : spectators) {
+            s.send(frame);
+        }
+        framesSent.addAndGet(spectators.size());
+        lastBroadcastNanos = System.nanoTime() - start;
+        logger.trace("broadcast to {} spectators of {} in {}us", spectators.size(), fopName,
+                getLastBroadcastMicros());
+    }
+
+    private JsonObject createUpdateObject(UpdateEvent e) {
+        JsonObject o = createFrameObject(e.getFopName());
+        putIfNotNull(o, "competitionName", e.getCompetitionName());
+        putIfNotNull(o, "fopState", e.getFopState());
+        putIfNotNull(o, "break", e.isBreak());
+        putIfNotNull(o, "breakType", e.getBreakType());
+        putIfNotNull(o, "breakRemaining", e.getBreakRemaining());
+        o.put("indefinite", e.isIndefinite());
+        putIfNotNull(o, "fullName", e.getFullName());
+        putIfNotNull(o, "teamName", e.getTeamName());
+        putIfNotNull(o, "startNumber", e.getStartNumber());
+        putIfNotNull(o, "categoryName", e.getCategoryName());
+        putIfNotNull(o, "attempt", e.getAttempt());
+        putIfNotNull(o, "weight", e.getWeight());
+        putIfNotNull(o, "timeAllowed", e.getTimeAllowed());
+        putIfNotNull(o, "groupName", e.getGroupName());
+        putIfNotNull(o, "liftsDone", e.getLiftsDone());
+        o.put("hidden", e.getHidden());
+        putIfNotNull(o, "athletes", e.getAthletesJson());
+        putIfNotNull(o, "leaders", e.getLeadersJson());
+        putIfNotNull(o, "records", e.getRecordsJson());
+        putIfNotNull(o, "recordKind", e.getRecordKind());
+        putIfNotNull(o, "recordMessage", e.getRecordMessage());
+        return o;
+    }
+
+    private void remove(Spectator s) {
+        synchronized (s) {
+            s.closed = true;
+            s.pending.clear();
+        }
+        Set<Spectator> spectators = spectatorsByFop.get(s.fopName);
+        if (spectators != null && spectators.remove(s)) {
+            nbSpectators.decrementAndGet();
+            try {
+                s.context.complete();
+            } catch (Exception e) {
+                // already completed
+            }
+        }
+    }
+
+    /**
+     * @return the new translations frame if the translations of the platform have changed, null otherwise
+     */
+    private byte[] updateTranslations(UpdateEvent e) {
+        String fopName = e.getFopName();
+        JsonValue map = e.getTranslationMapJson();
+        if (fopName == null || map == null) {
+            return null;
+        }
+        // an unchanged map is parsed once and shared by the following updates
+        if (map == lastTranslationsMapByFop.put(fopName, map)) {
+            return null;
+        }
+        JsonObject o = createFrameObject(fopName);
+        o.put("t", map);
+        byte[] frame = toFrame("translations", o);
+        lastTranslationsByFop.put(fopName, frame);
+        return frame;
+    }
+
+    private byte[] toFrame(String eventName, JsonObject o) {
+        return ("event: " + eventName + "\ndata: " + o.toJson() + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+}
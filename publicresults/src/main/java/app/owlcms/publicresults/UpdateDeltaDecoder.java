@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.publicresults;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Rebuilds the complete update parameters from the incremental updates sent by owlcms.
+ *
+ * owlcms sends a full snapshot, then only the parameters that changed, tagged with the sequence number of the update
+ * they are based on. The translation map is kept by hash so it only needs to be sent when it changes. When an update
+ * cannot be applied (gap in the sequence, unknown translation map) the caller answers {@link #RESYNC_STATUS} and
+ * owlcms sends a full snapshot.
+ *
+ * Updates from older versions of owlcms have no protocol parameter and are always complete.
+ *
+ * @author Jean-François Lamy
+ */
+public class UpdateDeltaDecoder {
+
+    public static final String PROTOCOL_HEADER = "X-Owlcms-Update-Protocol";
+    public static final String PROTOCOL_VERSION = "2";
+    public static final int RESYNC_STATUS = 409;
+
+    private static final String TRANSLATION_MAP = "translationMap";
+    private static final String TRANSLATION_MAP_HASH = "translationMapHash";
+
+    private static final Logger logger = (Logger) LoggerFactory.getLogger(UpdateDeltaDecoder.class);
+
+    /**
+     * Read the form parameters, decompressing the body if needed.
+     *
+     * @param req
+     * @return the parameters, first value only
+     * @throws IOException
+     */
+    public static Map<String, String> readParameters(HttpServletRequest req) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        if (!"gzip".equalsIgnoreCase(req.getHeader("Content-Encoding"))) {
+            for (Entry<String, String[]> e : req.getParameterMap().entrySet()) {
+                String[] values = e.getValue();
+                params.put(e.getKey(), values != null && values.length > 0 ? values[0] : null);
+            }
+            return params;
+        }
+
+        String body;
+        try (InputStream in = new GZIPInputStream(req.getInputStream())) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        for (String pair : body.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String key = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            params.putIfAbsent(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private Map<String, Map<String, String>> lastParamsByFop = new ConcurrentHashMap<>();
+    private Map<String, Long> lastSeqByFop = new ConcurrentHashMap<>();
+    private Map<String, String> translationMaps = new ConcurrentHashMap<>();
+
+    /**
+     * @param received the parameters as received
+     * @return the complete parameters, or null if a full update is required
+     */
+    public synchronized Map<String, String> decode(Map<String, String> received) {
+        String fopName = received.get("fop");
+        if (received.get("protocol") == null || fopName == null) {
+            // complete update from an older owlcms.
+            return received;
+        }
+
+        Map<String, String> full;
+        long seq = Long.parseLong(received.get("seq"));
+        if (Boolean.parseBoolean(received.get("full"))) {
+            full = new HashMap<>(received);
+        } else {
+            Map<String, String> previous = lastParamsByFop.get(fopName);
+            Long previousSeq = lastSeqByFop.get(fopName);
+            String baseSeq = received.get("baseSeq");
+            if (previous == null || previousSeq == null || baseSeq == null
+                    || previousSeq != Long.parseLong(baseSeq)) {
+                logger.info("{}: update {} based on {}, last known is {}, requesting full update", fopName, seq,
+                        baseSeq, previousSeq);
+                return null;
+            }
+            full = new HashMap<>(previous);
+            full.putAll(received);
+            String removed = received.get("removed");
+            if (removed != null) {
+                for (String key : removed.split(",")) {
+                    full.remove(key);
+                }
+            }
+        }
+        full.remove("removed");
+        full.remove("baseSeq");
+        full.remove("full");
+
+        String translationHash = full.get(TRANSLATION_MAP_HASH);
+        if (translationHash != null) {
+            String translationMap = received.get(TRANSLATION_MAP);
+            if (translationMap != null) {
+                translationMaps.put(translationHash, translationMap);
+            } else {
+                translationMap = translationMaps.get(translationHash);
+                if (translationMap == null) {
+                    logger.info("{}: unknown translation map {}, requesting full update", fopName, translationHash);
+                    return null;
+                }
+                full.put(TRANSLATION_MAP, translationMap);
+            }
+        }
+
+        lastParamsByFop.put(fopName, full);
+        lastSeqByFop.put(fopName, seq);
+        return full;
+    }
+
+}
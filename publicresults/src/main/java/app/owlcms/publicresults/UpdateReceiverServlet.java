@@ -69,6 +69,8 @@ public class UpdateReceiverServlet extends HttpServlet {
 
     private String secret = StartupUtils.getStringParam("updateKey");
 
+    private UpdateDeltaDecoder deltaDecoder = new UpdateDeltaDecoder();
+
     /**
      * @see javax.servlet.http.HttpServlet#doGet(javax.servlet.http.HttpServletRequest,
      *      javax.servlet.http.HttpServletResponse)
@@ -87,13 +89,17 @@ public class UpdateReceiverServlet extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) {
         try {
-            String updateKey = req.getParameter("updateKey");
+            Map<String, String> received = UpdateDeltaDecoder.readParameters(req);
+            String updateKey = received.get("updateKey");
             if (updateKey == null || !updateKey.equals(secret)) {
                 logger.error("denying access from {} expected {} got {} ", req.getRemoteHost(), secret, updateKey);
                 resp.sendError(401, "Denied, wrong credentials");
                 return;
             }
 
+            // tell owlcms that incremental updates are understood
+            resp.setHeader(UpdateDeltaDecoder.PROTOCOL_HEADER, UpdateDeltaDecoder.PROTOCOL_VERSION);
+
             try {
                 ResourceWalker.getFileOrResource("styles/results.css");
             } catch (Exception e) {
@@ -104,60 +110,66 @@ public class UpdateReceiverServlet extends HttpServlet {
 
             if (StartupUtils.isDebugSetting()) {
                 logger.setLevel(Level.DEBUG);
-                Set<Entry<String, String[]>> pairs = req.getParameterMap().entrySet();
+                Set<Entry<String, String>> pairs = received.entrySet();
                 logger./**/debug("update received from {}", ProxyUtils.getClientIp(req));
                 if (StartupUtils.isTraceSetting()) {
-                    for (Entry<String, String[]> pair : pairs) {
-                        logger./**/debug("    {} = {}", pair.getKey(), pair.getValue()[0]);
+                    for (Entry<String, String> pair : pairs) {
+                        logger./**/debug("    {} = {}", pair.getKey(), pair.getValue());
                     }
                 }
             }
 
+            Map<String, String> params = deltaDecoder.decode(received);
+            if (params == null) {
+                resp.sendError(UpdateDeltaDecoder.RESYNC_STATUS, "Full update required.");
+                return;
+            }
+
             UpdateEvent updateEvent = new UpdateEvent();
 
-            updateEvent.setCompetitionName(req.getParameter("competitionName"));
-            updateEvent.setFopName(req.getParameter("fop"));
-            updateEvent.setFopState(req.getParameter("fopState"));
+            updateEvent.setCompetitionName(params.get("competitionName"));
+            updateEvent.setFopName(params.get("fop"));
+            updateEvent.setFopState(params.get("fopState"));
 
-            updateEvent.setAttempt(req.getParameter("attempt"));
-            updateEvent.setCategoryName(req.getParameter("categoryName"));
-            updateEvent.setFullName(req.getParameter("fullName"));
-            updateEvent.setGroupName(req.getParameter("groupName"));
+            updateEvent.setAttempt(params.get("attempt"));
+            updateEvent.setCategoryName(params.get("categoryName"));
+            updateEvent.setFullName(params.get("fullName"));
+            updateEvent.setGroupName(params.get("groupName"));
 
-            updateEvent.setHidden(Boolean.valueOf(req.getParameter("hidden")));
-            String startNumber = req.getParameter("startNumber");
+            updateEvent.setHidden(Boolean.valueOf(params.get("hidden")));
+            String startNumber = params.get("startNumber");
             updateEvent.setStartNumber(startNumber != null ? Integer.parseInt(startNumber) : 0);
-            updateEvent.setTeamName(req.getParameter("teamName"));
-            String weight = req.getParameter("weight");
+            updateEvent.setTeamName(params.get("teamName"));
+            String weight = params.get("weight");
             updateEvent.setWeight(weight != null ? Integer.parseInt(weight) : null);
 
-            updateEvent.setNoLiftRanks(req.getParameter("noLiftRanks"));
-            updateEvent.setAthletes(req.getParameter("groupAthletes"));
-            updateEvent.setLiftingOrderAthletes(req.getParameter("liftingOrderAthletes"));
-            updateEvent.setLeaders(req.getParameter("leaders"));
+            updateEvent.setNoLiftRanks(params.get("noLiftRanks"));
+            updateEvent.setAthletes(params.get("groupAthletes"));
+            updateEvent.setLiftingOrderAthletes(params.get("liftingOrderAthletes"));
+            updateEvent.setLeaders(params.get("leaders"));
 
-            updateEvent.setRecords(req.getParameter("records"));
-            updateEvent.setRecordKind(req.getParameter("recordKind"));
-            updateEvent.setRecordMessage(req.getParameter("recordMessage"));
-            updateEvent.setLiftsDone(req.getParameter("liftsDone"));
+            updateEvent.setRecords(params.get("records"));
+            updateEvent.setRecordKind(params.get("recordKind"));
+            updateEvent.setRecordMessage(params.get("recordMessage"));
+            updateEvent.setLiftsDone(params.get("liftsDone"));
 
-            updateEvent.setWideTeamNames(Boolean.parseBoolean(req.getParameter("wideTeamNames")));
-            String timeAllowed = req.getParameter("timeAllowed");
-            updateEvent.setTimeAllowed(timeAllowed != null ? Integer.parseInt(req.getParameter("timeAllowed")) : null);
+            updateEvent.setWideTeamNames(Boolean.parseBoolean(params.get("wideTeamNames")));
+            String timeAllowed = params.get("timeAllowed");
+            updateEvent.setTimeAllowed(timeAllowed != null ? Integer.parseInt(params.get("timeAllowed")) : null);
 
-            updateEvent.setTranslationMap(req.getParameter("translationMap"));
+            updateEvent.setTranslationMap(params.get("translationMap"));
 
-            String breakString = req.getParameter("break");
-            String breakTypeString = req.getParameter("breakType");
-            String breakRemainingString = req.getParameter("breakRemaining");
-            String breakIsIndefiniteString = req.getParameter("breakIsIndefinite");
+            String breakString = params.get("break");
+            String breakTypeString = params.get("breakType");
+            String breakRemainingString = params.get("breakRemaining");
+            String breakIsIndefiniteString = params.get("breakIsIndefinite");
             updateEvent.setBreak(breakString != null ? Boolean.valueOf(breakString) : null);
             BreakType bt = breakTypeString != null ? BreakType.valueOf(breakTypeString) : null;
             updateEvent.setBreakType(bt);
             updateEvent.setBreakRemaining(breakRemainingString != null ? Integer.parseInt(breakRemainingString) : null);
             updateEvent.setIndefinite(Boolean.parseBoolean(breakIsIndefiniteString));
             
-            String sinclairMeetString = req.getParameter("sinclairMeet");
+            String sinclairMeetString = params.get("sinclairMeet");
             updateEvent.setSinclairMeet(Boolean.parseBoolean(sinclairMeetString));
 
             if (bt == BreakType.GROUP_DONE) {
@@ -167,6 +179,8 @@ public class UpdateReceiverServlet extends HttpServlet {
             }
 
             String fopName = updateEvent.getFopName();
+            // parse the JSON once, all the displays share the result
+            updateEvent.parseJson(updateCache.get(fopName));
             // put in the cache first so events can know which FOPs are active;
 
             long now = System.currentTimeMillis();
@@ -8,6 +8,17 @@ package app.owlcms.uievents;
 
 import java.util.Objects;
 
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+import elemental.json.impl.JreJsonFactory;
+
+/**
+ * Update received from owlcms.
+ *
+ * The JSON payloads are parsed once when the update is received, and the resulting trees are shared by all the
+ * displays. They must therefore be treated as read-only.
+ */
 public class UpdateEvent {
 
     private String athletes;
@@ -38,6 +49,12 @@ public class UpdateEvent {
     private Integer weight;
     private boolean wideTeamNames;
 
+    private JsonArray athletesJson;
+    private JsonArray leadersJson;
+    private JsonObject recordsJson;
+    private JsonValue translationMapJson;
+    private boolean parsed;
+
     public UpdateEvent() {
         setLeaders(leaders);
     }
@@ -69,6 +86,14 @@ public class UpdateEvent {
         return this.athletes;
     }
 
+    /**
+     * @return the parsed athletes, shared by all the viewers, or null
+     */
+    public JsonArray getAthletesJson() {
+        parseJson(null);
+        return athletesJson;
+    }
+
     public String getAttempt() {
         return attempt;
     }
@@ -113,6 +138,14 @@ public class UpdateEvent {
         return leaders;
     }
 
+    /**
+     * @return the parsed leaders, shared by all the viewers, or null
+     */
+    public JsonArray getLeadersJson() {
+        parseJson(null);
+        return leadersJson;
+    }
+
     public String getLiftingOrderAthletes() {
         return liftingOrderAthletes;
     }
@@ -137,6 +170,14 @@ public class UpdateEvent {
         return records;
     }
 
+    /**
+     * @return the parsed records, shared by all the viewers, or null
+     */
+    public JsonObject getRecordsJson() {
+        parseJson(null);
+        return recordsJson;
+    }
+
     public Integer getStartNumber() {
         return startNumber;
     }
@@ -153,6 +194,14 @@ public class UpdateEvent {
         return this.translationMap;
     }
 
+    /**
+     * @return the parsed translation map, shared by all the viewers, or null
+     */
+    public JsonValue getTranslationMapJson() {
+        parseJson(null);
+        return translationMapJson;
+    }
+
     public Integer getWeight() {
         return weight;
     }
@@ -168,6 +217,30 @@ public class UpdateEvent {
                 timeAllowed, translationMap, weight, wideTeamNames);
     }
 
+    /**
+     * Parse the JSON payloads, once.
+     *
+     * @param previous the previous update for the same field of play, whose translation map is reused if unchanged.
+     */
+    public synchronized void parseJson(UpdateEvent previous) {
+        if (parsed) {
+            return;
+        }
+        JreJsonFactory jreJsonFactory = new JreJsonFactory();
+        athletesJson = athletes != null ? (JsonArray) jreJsonFactory.parse(athletes) : null;
+        leadersJson = leaders != null ? (JsonArray) jreJsonFactory.parse(leaders) : null;
+        recordsJson = records != null ? (JsonObject) jreJsonFactory.parse(records) : null;
+        if (translationMap == null) {
+            translationMapJson = null;
+        } else if (previous != null && previous != this && translationMap.equals(previous.translationMap)) {
+            // translations only change when reloaded on owlcms.
+            translationMapJson = previous.getTranslationMapJson();
+        } else {
+            translationMapJson = jreJsonFactory.parse(translationMap);
+        }
+        parsed = true;
+    }
+
     public Boolean isBreak() {
         return isBreak;
     }
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test for the spectator event stream of a running publicresults.
+ *
+ * Opens 1k, 5k and 10k server-sent event connections (or the counts given), posts timer events through the /timer
+ * servlet, and reports the delay until each spectator receives the event, as well as the heap used per spectator as
+ * reported by /spectator/stats.
+ *
+ * Usage: SpectatorLoadHarness baseUrl updateKey fopName [count...]. The open file limit of both the client and the
+ * server must allow the number of connections.
+ *
+ * Run as a Java application; not a unit test.
+ */
+public class SpectatorLoadHarness {
+
+    private static final Pattern MILLIS = Pattern.compile("\"timeRemaining\":([0-9.]+)");
+    private static final int EVENTS_PER_ROUND = 20;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: SpectatorLoadHarness baseUrl updateKey fopName [count...]");
+            return;
+        }
+        String baseUrl = args[0];
+        String updateKey = args[1];
+        String fopName = args[2];
+        int[] counts = args.length > 3
+                ? Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[] { 1000, 5000, 10000 };
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        for (int count : counts) {
+            runRound(client, baseUrl, updateKey, fopName, count);
+        }
+        System.exit(0);
+    }
+
+    private static long heapUsed(HttpClient client, String baseUrl, String updateKey) throws Exception {
+        // give the server a chance to collect garbage first
+        Thread.sleep(2000);
+        HttpResponse<String> r = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/spectator/stats?updateKey="
+                + URLEncoder.encode(updateKey, StandardCharsets.UTF_8))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher m = Pattern.compile("\"heapUsed\":([0-9.]+)").matcher(r.body());
+        return m.find() ? (long) Double.parseDouble(m.group(1)) : -1;
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return -1;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.round(p * (sorted.size() - 1)));
+        return sorted.get(index);
+    }
+
+    private static void postTimer(HttpClient client, String baseUrl, String updateKey, String fopName, int id)
+            throws Exception {
+        String form = "updateKey=" + URLEncoder.encode(updateKey, StandardCharsets.UTF_8)
+                + "&fopName=" + URLEncoder.encode(fopName, StandardCharsets.UTF_8)
+                + "&eventType=SetTime&milliseconds=" + id;
+        HttpRequest post = HttpRequest.newBuilder(URI.create(baseUrl + "/timer"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        client.send(post, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static void runRound(HttpClient client, String baseUrl, String updateKey, String fopName, int count)
+            throws Exception {
+        long heapBefore = heapUsed(client, baseUrl, updateKey);
+        Map<Integer, Long> sentNanos = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger connected = new AtomicInteger();
+        String streamUrl = baseUrl + "/spectator/stream?fop=" + URLEncoder.encode(fopName, StandardCharsets.UTF_8);
+
+        // lines are handled as they arrive, without a thread per connection
+        List<Flow.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(streamUrl)).build();
+            Flow.Subscriber<String> subscriber = new Flow.Subscriber<>() {
+                @Override
+                public void onComplete() {
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onNext(String line) {
+                    if (!line.startsWith("data:") || !line.contains("SetTime")) {
+                        return;
+                    }
+                    Matcher m = MILLIS.matcher(line);
+                    if (m.find()) {
+                        Long sent = sentNanos.get((int) Double.parseDouble(m.group(1)));
+                        if (sent != null) {
+                            latencies.add(System.nanoTime() - sent);
+                        }
+                    }
+                }
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriptions.add(subscription);
+                    connected.incrementAndGet();
+                    subscription.request(Long.MAX_VALUE);
+                }
+            };
+            client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(subscriber));
+        }
+        long deadline = System.currentTimeMillis() + 60000;
+        while (connected.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        long heapAfter = heapUsed(client, baseUrl, updateKey);
+
+        for (int i = 0; i < EVENTS_PER_ROUND; i++) {
+            int id = 1_000_000 + count * 100 + i;
+            sentNanos.put(id, System.nanoTime());
+            postTimer(client, baseUrl, updateKey, fopName, id);
+            Thread.sleep(250);
+        }
+        Thread.sleep(2000);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(null);
+        long expected = (long) connected.get() * EVENTS_PER_ROUND;
+        System.out.printf(
+                "%6d spectators (%d connected): heap/spectator %s bytes, frames %d/%d, latency ms p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+                count, connected.get(),
+                heapBefore >= 0 && heapAfter >= 0 && connected.get() > 0
+                        ? Long.toString((heapAfter - heapBefore) / connected.get())
+                        : "?",
+                sorted.size(), expected,
+                percentile(sorted, 0.50) / 1.0e6, percentile(sorted, 0.95) / 1.0e6,
+                percentile(sorted, 0.99) / 1.0e6, percentile(sorted, 1.0) / 1.0e6);
+
+        for (Flow.Subscription subscription : subscriptions) {
+            subscription.cancel();
+        }
+    }
+
+}
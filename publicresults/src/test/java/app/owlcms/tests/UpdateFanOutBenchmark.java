@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2023 Jean-François Lamy
+ *
+ * Licensed under the Non-Profit Open Software License version 3.0  ("NPOSL-3.0")
+ * License text at https://opensource.org/licenses/NPOSL-3.0
+ *******************************************************************************/
+package app.owlcms.tests;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import app.owlcms.uievents.UpdateEvent;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+import elemental.json.impl.JreJsonFactory;
+
+/**
+ * Measures the CPU needed to fan out one update to a number of viewers, comparing parsing the JSON for every viewer
+ * (previous behaviour) with parsing once and sharing the trees.
+ *
+ * Run as a Java application; not a unit test. The per-viewer work done by Vaadin to push the properties is the same in
+ * both cases and is not included.
+ */
+public class UpdateFanOutBenchmark {
+
+    private static final int[] VIEWERS = { 1, 10, 100, 500, 1000 };
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        UpdateEvent template = createUpdate(30, 10);
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            perViewerParse(template, 100);
+            sharedParse(template, 100);
+        }
+
+        System.out.printf("%8s %18s %18s%n", "viewers", "per-viewer (ms)", "shared (ms)");
+        for (int viewers : VIEWERS) {
+            long start = bean.getCurrentThreadCpuTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                perViewerParse(template, viewers);
+            }
+            double perViewer = (bean.getCurrentThreadCpuTime() - start) / 1.0e6 / ROUNDS;
+
+            start = bean.getCurrentThreadCpuTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                sharedParse(template, viewers);
+            }
+            double shared = (bean.getCurrentThreadCpuTime() - start) / 1.0e6 / ROUNDS;
+            System.out.printf("%8d %18.3f %18.3f%n", viewers, perViewer, shared);
+        }
+    }
+
+    private static UpdateEvent copy(UpdateEvent template) {
+        UpdateEvent e = new UpdateEvent();
+        e.setFopName(template.getFopName());
+        e.setAthletes(template.getAthletes());
+        e.setLeaders(template.getLeaders());
+        e.setRecords(template.getRecords());
+        e.setTranslationMap(template.getTranslationMap());
+        return e;
+    }
+
+    private static UpdateEvent createUpdate(int nbAthletes, int nbLeaders) {
+        UpdateEvent e = new UpdateEvent();
+        e.setFopName("A");
+        e.setAthletes(createAthletes(nbAthletes).toJson());
+        e.setLeaders(createAthletes(nbLeaders).toJson());
+        JsonObject records = Json.createObject();
+        records.put("recordNames", Json.createArray());
+        e.setRecords(records.toJson());
+        JsonObject translations = Json.createObject();
+        for (int i = 0; i < 150; i++) {
+            translations.put("Key" + i, "Translation for key number " + i);
+        }
+        e.setTranslationMap(translations.toJson());
+        return e;
+    }
+
+    private static JsonArray createAthletes(int nb) {
+        JsonArray athletes = Json.createArray();
+        for (int i = 0; i < nb; i++) {
+            JsonObject a = Json.createObject();
+            a.put("fullName", "LASTNAME" + i + ", Firstname");
+            a.put("teamName", "Team " + (i % 7));
+            a.put("yearOfBirth", "1990");
+            a.put("category", "M89");
+            a.put("startNumber", Integer.toString(i + 1));
+            JsonArray sattempts = Json.createArray();
+            JsonArray cattempts = Json.createArray();
+            for (int j = 0; j < 3; j++) {
+                JsonObject attempt = Json.createObject();
+                attempt.put("goodBadClassName", "good");
+                attempt.put("stringValue", Integer.toString(100 + i + j));
+                sattempts.set(j, attempt);
+                cattempts.set(j, attempt);
+            }
+            a.put("sattempts", sattempts);
+            a.put("cattempts", cattempts);
+            a.put("total", Integer.toString(250 + i));
+            a.put("classname", "");
+            athletes.set(i, a);
+        }
+        return athletes;
+    }
+
+    private static int perViewerParse(UpdateEvent e, int viewers) {
+        int sum = 0;
+        for (int v = 0; v < viewers; v++) {
+            JreJsonFactory jreJsonFactory = new JreJsonFactory();
+            JsonArray athletes = (JsonArray) jreJsonFactory.parse(e.getAthletes());
+            JsonArray leaders = (JsonArray) jreJsonFactory.parse(e.getLeaders());
+            JsonObject records = (JsonObject) jreJsonFactory.parse(e.getRecords());
+            JsonValue t = jreJsonFactory.parse(e.getTranslationMap());
+            sum += athletes.length() + leaders.length() + records.keys().length + (t != null ? 1 : 0);
+        }
+        return sum;
+    }
+
+    private static int sharedParse(UpdateEvent template, int viewers) {
+        UpdateEvent e = copy(template);
+        e.parseJson(null);
+        int sum = 0;
+        for (int v = 0; v < viewers; v++) {
+            sum += e.getAthletesJson().length() + e.getLeadersJson().length() + e.getRecordsJson().keys().length
+                    + (e.getTranslationMapJson() != null ? 1 : 0);
+        }
+        return sum;
+    }
+
+}
@@ -9,23 +9,17 @@ package app.owlcms.i18n;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.MissingResourceException;
-import java.util.Properties;
-import java.util.PropertyResourceBundle;
-import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -37,7 +31,6 @@ import org.supercsv.prefs.CsvPreference;
 
 import com.vaadin.flow.i18n.I18NProvider;
 
-import app.owlcms.utils.MemTempUtils;
 import app.owlcms.utils.ResourceWalker;
 import ch.qos.logback.classic.Logger;
 
@@ -58,9 +51,8 @@ public class Translator implements I18NProvider {
     private static final String BUNDLE_BASE = "translation4";
     private static final String BUNDLE_PACKAGE_SLASH = "/i18n/";
 
-    private static List<Locale> locales = null;
+    private static volatile TranslationTables tables = null;
     private static Locale forcedLocale = null;
-    private static ClassLoader i18nloader = null;
     private static int line;
     private static long resetTimeStamp = System.currentTimeMillis();
 
@@ -86,17 +78,11 @@ public class Translator implements I18NProvider {
     }
 
     public static List<Locale> getAllAvailableLocales() {
-        if (locales == null) {
-            Translator.getBundleFromCSV(Locale.ENGLISH);
-        }
-        return locales;
+        return getTables().locales;
     }
     
     public static List<Locale> getUsefulLocales() {
-        if (locales == null) {
-            Translator.getBundleFromCSV(Locale.ENGLISH);
-        }
-        return locales.stream().filter( l -> ! (l.getCountry() == "" && l.getLanguage() == "es")).collect(Collectors.toList());
+        return getTables().locales.stream().filter( l -> ! (l.getCountry() == "" && l.getLanguage() == "es")).collect(Collectors.toList());
     }
 
     public static List<Locale> getAvailableLocales() {
@@ -108,7 +94,7 @@ public class Translator implements I18NProvider {
     }
 
     public static Enumeration<String> getKeys() {
-        return Translator.getBundleFromCSV(Locale.ENGLISH).getKeys();
+        return Collections.enumeration(getTables().resolve(Locale.ENGLISH).inherited.keySet());
     }
 
     /**
@@ -119,15 +105,8 @@ public class Translator implements I18NProvider {
     }
 
     public static Map<String, String> getMap() {
-        final PropertyResourceBundle bundle = (PropertyResourceBundle) getBundleFromCSV(getLocaleSupplier().get());
-        Map<String, String> translations = new HashMap<>();
-        Enumeration<String> keys = bundle.getKeys();
-        String key;
-        while (keys.hasMoreElements()) {
-            key = keys.nextElement();
-            translations.put(key, bundle.getString(key));
-        }
-        return translations;
+        // callers are allowed to modify the map they get
+        return new HashMap<>(getTables().resolve(getLocaleSupplier().get()).inherited);
     }
 
     public static long getResetTimeStamp() {
@@ -142,18 +121,15 @@ public class Translator implements I18NProvider {
     /**
      * Force a reload of the translation files
      */
-    public static void reset() {
+    public static synchronized void reset() {
         resetTimeStamp = System.currentTimeMillis();
-        locales = null;
-        i18nloader = null;
+        tables = null;
         helper = new Translator();
-        logger.debug("cleared translation class loader");
+        logger.debug("cleared translation tables");
     }
 
     public static void setForcedLocale(Locale locale) {
         if (locale != null) {
-            locales = getAllAvailableLocales();
-
             for (Locale l : getAllAvailableLocales()) {
                 if (l.getLanguage() == locale.getLanguage()) {
                     // thing will work no matter what the country and variant
@@ -206,140 +182,131 @@ public class Translator implements I18NProvider {
     }
 
     /**
-     * Return a resource bundle created by reading a CSV files. This creates properties files, and uses the standard
-     * caching implementation and bundle hierarchy as defined by Java.
+     * Return the translation tables, reading the CSV file if needed.
      *
-     * Resource bundles are cached by the Java implementation, so this method can be called repeatedly.
+     * The tables are immutable once built, so readers never lock. Only the first call after a {@link #reset()} takes
+     * the lock and parses the CSV file.
      *
-     * Adapted from https://hub.jmonkeyengine.org/t/i18n-from-csv-calc/31492
+     * @return the current translation tables
+     */
+    private static TranslationTables getTables() {
+        TranslationTables t = tables;
+        if (t == null) {
+            t = loadTables();
+        }
+        return t;
+    }
+
+    private static synchronized TranslationTables loadTables() {
+        TranslationTables t = tables;
+        if (t == null) {
+            t = readTablesFromCSV();
+            tables = t;
+        }
+        return t;
+    }
+
+    /**
+     * Read the CSV file containing the translations.
      *
-     * @param locale
+     * Each language column becomes a map from key to translation. The values are interpreted using the same rules as
+     * properties files (u0000 escapes are translated to Java characters). Adapted from
+     * https://hub.jmonkeyengine.org/t/i18n-from-csv-calc/31492
      *
-     * @return
+     * @return immutable translation tables
      */
-    private static synchronized ResourceBundle getBundleFromCSV(Locale locale) {
-        String baseName = BUNDLE_BASE;
-        String csvName = BUNDLE_PACKAGE_SLASH + baseName + ".csv";
-        Path bundleDir = null;
+    private static TranslationTables readTablesFromCSV() {
+        String csvName = BUNDLE_PACKAGE_SLASH + BUNDLE_BASE + ".csv";
+        line = 0;
+        logger.debug("reloading translation bundles");
+        ICsvListReader listReader = null;
         try {
-            line = 0;
-
-            if (i18nloader == null) {
-                bundleDir = MemTempUtils.createTempDirectory("bundles");
-
-                logger.debug("reloading translation bundles");
-                InputStream csvStream = ResourceWalker.getResourceAsStream(csvName);
-                logger.debug("csvStream {} {}",csvName, csvStream);
-                ICsvListReader listReader = null;
-                try {
-                    CsvPreference[] preferences = new CsvPreference[] { CsvPreference.STANDARD_PREFERENCE,
-                            CsvPreference.EXCEL_NORTH_EUROPE_PREFERENCE, CsvPreference.TAB_PREFERENCE };
-
-                    List<String> stringList = new ArrayList<>();
-                    for (CsvPreference preference : preferences) {
-                        listReader = new CsvListReader(new InputStreamReader(csvStream, StandardCharsets.UTF_8),
-                                preference);
-
-                        if ((stringList = readLine(listReader)) == null) {
-                            throw new RuntimeException(csvName + " file is empty");
-                        } else if (stringList.size() <= 2) {
-                            // reset stream
-                            csvStream = ResourceWalker.getResourceAsStream(csvName);
-                        } else {
-                            logger.trace(stringList.toString());
-                            break;
-                        }
-                    }
+            InputStream csvStream = ResourceWalker.getResourceAsStream(csvName);
+            logger.debug("csvStream {} {}", csvName, csvStream);
+            CsvPreference[] preferences = new CsvPreference[] { CsvPreference.STANDARD_PREFERENCE,
+                    CsvPreference.EXCEL_NORTH_EUROPE_PREFERENCE, CsvPreference.TAB_PREFERENCE };
+
+            List<String> stringList = new ArrayList<>();
+            for (CsvPreference preference : preferences) {
+                listReader = new CsvListReader(new InputStreamReader(csvStream, StandardCharsets.UTF_8),
+                        preference);
+
+                if ((stringList = readLine(listReader)) == null) {
+                    throw new RuntimeException(csvName + " file is empty");
+                } else if (stringList.size() <= 2) {
+                    // reset stream
+                    csvStream = ResourceWalker.getResourceAsStream(csvName);
+                } else {
+                    logger.trace(stringList.toString());
+                    break;
+                }
+            }
 
-                    final Path[] outFiles = new Path[stringList.size()];
-                    final Properties[] languageProperties = new Properties[outFiles.length];
-                    locales = new ArrayList<>();
+            @SuppressWarnings("unchecked")
+            final Map<String, String>[] languageProperties = new Map[stringList.size()];
+            final Locale[] columnLocales = new Locale[stringList.size()];
+            List<Locale> newLocales = new ArrayList<>();
 
-                    int nbLanguages = 0;
-                    for (int i = 1; i < outFiles.length; i++) {
-                        String language = stringList.get(i);
-                        if (language == null || language.isBlank() || "xx".contentEquals(language)) {
-                            nbLanguages = i - 1;
-                            break;
-                        }
-                        logger.trace("language={} {}", language, i);
-                        locales.add(createLocale(language));
-                        if (language != null && !language.isEmpty()) {
-                            language = "_" + language;
-                        }
-                        final Path outfile = bundleDir.resolve(baseName + language + ".properties");
-                        Files.createFile(outfile);
-                        outFiles[i] = outfile;
-                        languageProperties[i] = new Properties();
-                    }
+            int nbLanguages = 0;
+            for (int i = 1; i < languageProperties.length; i++) {
+                String language = stringList.get(i);
+                if (language == null || language.isBlank() || "xx".contentEquals(language)) {
+                    nbLanguages = i - 1;
+                    break;
+                }
+                logger.trace("language={} {}", language, i);
+                Locale locale = createLocale(language);
+                newLocales.add(locale);
+                columnLocales[i] = locale;
+                languageProperties[i] = new HashMap<>();
+            }
 
-                    // reading to properties
-                    while ((stringList = readLine(listReader)) != null) {
-                        final String key = stringList.get(0);
-                        if (key == null) {
-                            String message = MessageFormat.format("{0} line {1}: key is null", csvName, line);
-                            logger.error(message);
-                            throw new RuntimeException(message);
-                        }
-                        logger.debug(stringList.toString());
-                        for (int i = 1; i < nbLanguages + 1; i++) {
-                            // treat the CSV strings using same rules as Properties files.
-                            // u0000 escapes are translated to Java characters
-                            String input = stringList.get(i);
-                            if (input != null) {
-                                // "\ " is not valid, \u0020 is needed.
-                                String unescapeJava = StringEscapeUtils.unescapeJava(input.trim());
-                                if (!unescapeJava.isEmpty()) {
-                                    Properties properties = languageProperties[i];
-                                    if (properties == null) {
-                                        String message = MessageFormat
-                                                .format("{0} line {1}: languageProperties[{2}] is null", csvName, line,
-                                                        i);
-                                        logger.error(message);
-                                        throw new RuntimeException(message);
-                                    }
-                                    properties.setProperty(key, unescapeJava);
-                                }
+            // reading to maps
+            while ((stringList = readLine(listReader)) != null) {
+                final String key = stringList.get(0);
+                if (key == null) {
+                    String message = MessageFormat.format("{0} line {1}: key is null", csvName, line);
+                    logger.error(message);
+                    throw new RuntimeException(message);
+                }
+                logger.debug(stringList.toString());
+                for (int i = 1; i < nbLanguages + 1; i++) {
+                    // treat the CSV strings using same rules as Properties files.
+                    // u0000 escapes are translated to Java characters
+                    String input = stringList.get(i);
+                    if (input != null) {
+                        // "\ " is not valid, \u0020 is needed.
+                        String unescapeJava = StringEscapeUtils.unescapeJava(input.trim());
+                        if (!unescapeJava.isEmpty()) {
+                            Map<String, String> properties = languageProperties[i];
+                            if (properties == null) {
+                                String message = MessageFormat
+                                        .format("{0} line {1}: languageProperties[{2}] is null", csvName, line,
+                                                i);
+                                logger.error(message);
+                                throw new RuntimeException(message);
                             }
-                        }
-                    }
-
-                    // writing
-                    for (int i = 1; i < nbLanguages + 1; i++) {
-                        // logger.debug("writing to " + outFiles[i].toAbsolutePath());
-                        languageProperties[i].store(Files.newOutputStream(outFiles[i]), "generated from " + csvName);
-                    }
-                    final URL[] urls = { bundleDir.toUri().toURL() };
-                    i18nloader = new URLClassLoader(urls);
-
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } finally {
-                    if (listReader != null) {
-                        try {
-                            listReader.close();
-                        } catch (IOException e) {
+                            properties.put(key, unescapeJava);
                         }
                     }
                 }
-
             }
 
-            // reload the files
-            ResourceBundle.clearCache();
-            ResourceBundle bundle = ResourceBundle.getBundle(baseName, locale, i18nloader);
-            return bundle;
+            Map<Locale, Map<String, String>> bundles = new HashMap<>();
+            for (int i = 1; i < nbLanguages + 1; i++) {
+                bundles.put(columnLocales[i], Collections.unmodifiableMap(languageProperties[i]));
+            }
+            return new TranslationTables(newLocales, bundles);
         } catch (IOException e) {
-            logger.error("cannot create bundles directory {}", e);
+            logger.error("cannot read translation file {}", e);
             throw new RuntimeException(e);
         } finally {
-            // cannot clean up, resource bundle keeps the files open
-//            try {
-//                FileUtils.deleteDirectory(bundleDir.toFile());
-//            } catch (IOException e) {
-//                logger.error("cannot delete bundles directory {}", e);
-//                throw new RuntimeException(e);
-//            }
+            if (listReader != null) {
+                try {
+                    listReader.close();
+                } catch (IOException e) {
+                }
+            }
         }
     }
 
@@ -370,12 +337,8 @@ public class Translator implements I18NProvider {
             return "";
         }
 
-        final PropertyResourceBundle bundle = (PropertyResourceBundle) getBundleFromCSV(locale);
-
-        String value;
-        try {
-            value = bundle.getString(key);
-        } catch (final MissingResourceException e) {
+        String value = getTables().resolve(locale).inherited.get(key);
+        if (value == null) {
             return "!" + locale.getLanguage() + ": " + key;
         }
         if (params.length > 0) {
@@ -389,14 +352,8 @@ public class Translator implements I18NProvider {
             nullTranslationKey();
             return "";
         }
-        final PropertyResourceBundle bundle = (PropertyResourceBundle) getBundleFromCSV(locale);
-
-        String value;
-        
-        //value = (String) bundle.handleGetObject(key);
-        try {
-            value = bundle.getString(key);
-        } catch (final MissingResourceException e) {
+        String value = getTables().resolve(locale).inherited.get(key);
+        if (value == null) {
             return null;
         }
         if (params.length > 0) {
@@ -410,12 +367,9 @@ public class Translator implements I18NProvider {
             nullTranslationKey();
             return "";
         }
-        final PropertyResourceBundle bundle = (PropertyResourceBundle) getBundleFromCSV(locale);
-
-        String value;
-        
-        value = (String) bundle.handleGetObject(key);
-        if (params.length > 0) {
+        // only look in the most specific table, not in the tables for the enclosing locales
+        String value = getTables().resolve(locale).own.get(key);
+        if (params.length > 0 && value != null) {
             value = format(value, params);
         }
         return value;
@@ -429,14 +383,10 @@ public class Translator implements I18NProvider {
             nullTranslationKey();
             return "";
         }
-        final PropertyResourceBundle bundle = (PropertyResourceBundle) getBundleFromCSV(locale);
-
-        String value;
-        try {
-            value = bundle.getString(key);
-        } catch (final MissingResourceException e) {
-            PropertyResourceBundle enBundle = (PropertyResourceBundle) getBundleFromCSV(Locale.ENGLISH);
-            value = (String) enBundle.handleGetObject(key);
+        TranslationTables t = getTables();
+        String value = t.resolve(locale).inherited.get(key);
+        if (value == null) {
+            value = t.resolve(Locale.ENGLISH).own.get(key);
         }
         if (params.length > 0 && value != null) {
             value = format(value, params);
@@ -456,10 +406,9 @@ public class Translator implements I18NProvider {
     private String format(String pattern, Object... params) {
         String value = pattern;
         if (params.length > 0) {
-            // single quotes must be doubled. If already doubled in the input, fix back.
-            pattern = pattern.replaceAll("'", "''");
-            pattern = pattern.replaceAll("''''", "''");
-            value = MessageFormat.format(pattern, params);
+            // MessageFormat is not thread-safe, so we format using a copy of the parsed pattern.
+            MessageFormat messageFormat = (MessageFormat) getTables().getMessageFormat(pattern).clone();
+            value = messageFormat.format(params);
             // logger.trace("format {} input={} params={} \\n result={}", params.getClass(), pattern, params, value);
         }
         return value;
@@ -475,4 +424,106 @@ public class Translator implements I18NProvider {
         return locale;
     }
 
-}
\ No newline at end of file
+    /**
+     * Immutable translation tables built from the CSV file.
+     *
+     * The locale fallback chains (e.g. fr_CA then fr) are resolved once per locale and cached, as are the parsed
+     * MessageFormat patterns. A new instance is built after each {@link Translator#reset()}.
+     */
+    private static final class TranslationTables {
+        private final List<Locale> locales;
+        private final Map<Locale, Map<String, String>> bundles;
+        private final ConcurrentHashMap<Locale, ResolvedLocale> resolvedLocales = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, MessageFormat> messageFormats = new ConcurrentHashMap<>();
+
+        private TranslationTables(List<Locale> locales, Map<Locale, Map<String, String>> bundles) {
+            this.locales = Collections.unmodifiableList(locales);
+            this.bundles = bundles;
+            for (Locale l : locales) {
+                resolve(l);
+            }
+        }
+
+        /**
+         * Parse a translation into a MessageFormat. Single quotes must be doubled. If already doubled in the input,
+         * fix back.
+         *
+         * @param pattern the translated string
+         * @return a shared MessageFormat, to be cloned before formatting.
+         */
+        private MessageFormat getMessageFormat(String pattern) {
+            return messageFormats.computeIfAbsent(pattern, (p) -> {
+                String escaped = p.replaceAll("'", "''");
+                escaped = escaped.replaceAll("''''", "''");
+                return new MessageFormat(escaped);
+            });
+        }
+
+        private ResolvedLocale resolve(Locale locale) {
+            if (locale == null) {
+                locale = Locale.getDefault();
+            }
+            ResolvedLocale resolved = resolvedLocales.get(locale);
+            if (resolved == null) {
+                resolved = resolvedLocales.computeIfAbsent(locale, this::computeResolvedLocale);
+            }
+            return resolved;
+        }
+
+        /**
+         * Same search as ResourceBundle: most specific locale first, then the default locale if nothing matches.
+         */
+        private ResolvedLocale computeResolvedLocale(Locale locale) {
+            List<Map<String, String>> chain = candidateTables(locale);
+            if (chain.isEmpty() && !locale.equals(Locale.getDefault())) {
+                chain = candidateTables(Locale.getDefault());
+            }
+            if (chain.isEmpty()) {
+                logger.warn("no translations for locale {}", locale);
+                return new ResolvedLocale(Collections.emptyMap(), Collections.emptyMap());
+            }
+            Map<String, String> inherited = new HashMap<>();
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                inherited.putAll(chain.get(i));
+            }
+            return new ResolvedLocale(chain.get(0), Collections.unmodifiableMap(inherited));
+        }
+
+        private List<Map<String, String>> candidateTables(Locale locale) {
+            List<Map<String, String>> chain = new ArrayList<>(3);
+            String language = locale.getLanguage();
+            String country = locale.getCountry();
+            String variant = locale.getVariant();
+            if (!variant.isEmpty()) {
+                addIfPresent(chain, new Locale(language, country, variant));
+            }
+            if (!country.isEmpty()) {
+                addIfPresent(chain, new Locale(language, country));
+            }
+            addIfPresent(chain, new Locale(language));
+            return chain;
+        }
+
+        private void addIfPresent(List<Map<String, String>> chain, Locale locale) {
+            Map<String, String> bundle = bundles.get(locale);
+            if (bundle != null) {
+                chain.add(bundle);
+            }
+        }
+    }
+
+    /**
+     * Translations for a locale: those defined for the locale itself, and those obtained by also looking at the
+     * enclosing locales.
+     */
+    private static final class ResolvedLocale {
+        private final Map<String, String> own;
+        private final Map<String, String> inherited;
+
+        private ResolvedLocale(Map<String, String> own, Map<String, String> inherited) {
+            this.own = own;
+            this.inherited = inherited;
+        }
+    }
+
+}